@@ -0,0 +1,349 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An array backed alternative to the {@link SubSetGraph}. The trie is stored in flat int arrays:
+ * every node has a column label, a first child, a next sibling and a parent, siblings are sorted by
+ * their column. The queries walk the trie with a reusable explicit stack and do not allocate
+ * anything per visited node, found sets are reconstructed through the parent pointers.
+ * <p>
+ * Removed sets only clear the end marker of their node, the nodes themselves are kept. The graph
+ * is not thread safe.
+ */
+public class ArraySubSetGraph {
+
+  protected static final int ROOT = 0;
+  protected static final int NO_NODE = -1;
+  protected static final int INITIAL_CAPACITY = 64;
+
+  protected ColumnCombinationBitsetFactory factory;
+
+  protected int[] columns = new int[INITIAL_CAPACITY];
+  protected int[] firstChild = new int[INITIAL_CAPACITY];
+  protected int[] nextSibling = new int[INITIAL_CAPACITY];
+  protected int[] parent = new int[INITIAL_CAPACITY];
+  protected boolean[] setEnds = new boolean[INITIAL_CAPACITY];
+  protected int numberOfNodes = 0;
+  protected int numberOfSets = 0;
+
+  // Reusable query state
+  protected int[] queryColumns = new int[INITIAL_CAPACITY];
+  protected int[] nodeStack = new int[INITIAL_CAPACITY];
+  protected int[] positionStack = new int[INITIAL_CAPACITY];
+
+  /**
+   * @param numberOfColumns the number of columns of the relation
+   */
+  public ArraySubSetGraph(int numberOfColumns) {
+    this.factory = new ColumnCombinationBitsetFactory(numberOfColumns);
+    newNode(NO_NODE, NO_NODE);
+  }
+
+  /**
+   * Adds a column combination to the graph. Returns the graph after adding.
+   *
+   * @param columnCombination a column combination to add
+   * @return the graph
+   */
+  public ArraySubSetGraph add(ColumnCombinationBitset columnCombination) {
+    int queryLength = loadQuery(columnCombination);
+    int node = ROOT;
+    for (int i = 0; i < queryLength; i++) {
+      node = lazyChild(node, queryColumns[i]);
+    }
+    if (!setEnds[node]) {
+      setEnds[node] = true;
+      numberOfSets++;
+    }
+    return this;
+  }
+
+  /**
+   * Adds all column combinations in the {@link java.util.Collection} to the graph.
+   *
+   * @param columnCombinations the column combinations to add to the graph
+   * @return the graph
+   */
+  public ArraySubSetGraph addAll(Collection<? extends ColumnCombinationBitset> columnCombinations) {
+    for (ColumnCombinationBitset columnCombination : columnCombinations) {
+      add(columnCombination);
+    }
+    return this;
+  }
+
+  /**
+   * Removes a column combination from the graph.
+   *
+   * @param columnCombination the column combination to remove
+   * @return true iff the column combination was contained in the graph
+   */
+  public boolean remove(ColumnCombinationBitset columnCombination) {
+    int node = findNode(columnCombination);
+    if (node == NO_NODE || !setEnds[node]) {
+      return false;
+    }
+    setEnds[node] = false;
+    numberOfSets--;
+    return true;
+  }
+
+  /**
+   * @param columnCombination the column combination to look up
+   * @return true iff exactly this column combination is contained in the graph
+   */
+  public boolean contains(ColumnCombinationBitset columnCombination) {
+    int node = findNode(columnCombination);
+    return node != NO_NODE && setEnds[node];
+  }
+
+  /**
+   * Removes all column combinations that have a proper subset in the graph, so that only the
+   * minimal column combinations remain.
+   *
+   * @return the number of removed column combinations
+   */
+  public int removeNonMinimalSets() {
+    int removed = 0;
+    for (int node = 0; node < numberOfNodes; node++) {
+      if (!setEnds[node]) {
+        continue;
+      }
+      // Minimal sets are never removed, so every non minimal set still finds a subset.
+      setEnds[node] = false;
+      int queryLength = loadPath(node);
+      if (findSubsets(queryLength, null)) {
+        numberOfSets--;
+        removed++;
+      } else {
+        setEnds[node] = true;
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Returns all subsets of the given column combination that are in the graph.
+   *
+   * @param columnCombinationToQuery given superset to search for subsets
+   * @return a list containing all found subsets
+   */
+  public ArrayList<ColumnCombinationBitset> getExistingSubsets(
+    ColumnCombinationBitset columnCombinationToQuery) {
+    ArrayList<ColumnCombinationBitset> subsets = new ArrayList<>();
+    findSubsets(loadQuery(columnCombinationToQuery), subsets);
+    return subsets;
+  }
+
+  /**
+   * Returns when the first subset is found in the graph.
+   *
+   * @param superset the super set
+   * @return whether at least a single subset is contained in the graph
+   */
+  public boolean containsSubset(ColumnCombinationBitset superset) {
+    return findSubsets(loadQuery(superset), null);
+  }
+
+  /**
+   * @return all column combinations in the graph
+   */
+  public List<ColumnCombinationBitset> getSets() {
+    List<ColumnCombinationBitset> sets = new ArrayList<>(numberOfSets);
+    for (int node = 0; node < numberOfNodes; node++) {
+      if (setEnds[node]) {
+        sets.add(createColumnCombination(node));
+      }
+    }
+    return sets;
+  }
+
+  /**
+   * @return the number of column combinations in the graph
+   */
+  public int size() {
+    return numberOfSets;
+  }
+
+  /**
+   * @return whether the graph is empty
+   */
+  public boolean isEmpty() {
+    return numberOfSets == 0;
+  }
+
+  /**
+   * Walks all trie paths that only use columns of the loaded query. If subsets is null the walk
+   * stops at the first found set.
+   *
+   * @return true iff at least one subset was found
+   */
+  protected boolean findSubsets(int queryLength, List<ColumnCombinationBitset> subsets) {
+    boolean found = false;
+    int stackSize = 0;
+    nodeStack[stackSize] = ROOT;
+    positionStack[stackSize++] = 0;
+
+    while (stackSize > 0) {
+      stackSize--;
+      int node = nodeStack[stackSize];
+      int position = positionStack[stackSize];
+
+      if (setEnds[node]) {
+        if (subsets == null) {
+          return true;
+        }
+        found = true;
+        subsets.add(createColumnCombination(node));
+      }
+
+      // Merge the sorted children with the remaining sorted query columns.
+      int child = firstChild[node];
+      while (child != NO_NODE && position < queryLength) {
+        if (columns[child] < queryColumns[position]) {
+          child = nextSibling[child];
+        } else if (columns[child] > queryColumns[position]) {
+          position++;
+        } else {
+          position++;
+          if (stackSize == nodeStack.length) {
+            nodeStack = Arrays.copyOf(nodeStack, stackSize * 2);
+            positionStack = Arrays.copyOf(positionStack, stackSize * 2);
+          }
+          nodeStack[stackSize] = child;
+          positionStack[stackSize++] = position;
+          child = nextSibling[child];
+        }
+      }
+    }
+    return found;
+  }
+
+  protected int findNode(ColumnCombinationBitset columnCombination) {
+    int queryLength = loadQuery(columnCombination);
+    int node = ROOT;
+    for (int i = 0; i < queryLength && node != NO_NODE; i++) {
+      node = child(node, queryColumns[i]);
+    }
+    return node;
+  }
+
+  protected int child(int node, int column) {
+    int child = firstChild[node];
+    while (child != NO_NODE && columns[child] < column) {
+      child = nextSibling[child];
+    }
+    return child != NO_NODE && columns[child] == column ? child : NO_NODE;
+  }
+
+  protected int lazyChild(int node, int column) {
+    int previous = NO_NODE;
+    int child = firstChild[node];
+    while (child != NO_NODE && columns[child] < column) {
+      previous = child;
+      child = nextSibling[child];
+    }
+    if (child != NO_NODE && columns[child] == column) {
+      return child;
+    }
+    int newChild = newNode(node, column);
+    nextSibling[newChild] = child;
+    if (previous == NO_NODE) {
+      firstChild[node] = newChild;
+    } else {
+      nextSibling[previous] = newChild;
+    }
+    return newChild;
+  }
+
+  protected int newNode(int parentNode, int column) {
+    if (numberOfNodes == columns.length) {
+      int capacity = numberOfNodes * 2;
+      columns = Arrays.copyOf(columns, capacity);
+      firstChild = Arrays.copyOf(firstChild, capacity);
+      nextSibling = Arrays.copyOf(nextSibling, capacity);
+      parent = Arrays.copyOf(parent, capacity);
+      setEnds = Arrays.copyOf(setEnds, capacity);
+    }
+    int node = numberOfNodes++;
+    columns[node] = column;
+    firstChild[node] = NO_NODE;
+    nextSibling[node] = NO_NODE;
+    parent[node] = parentNode;
+    setEnds[node] = false;
+    return node;
+  }
+
+  /**
+   * Writes the sorted columns of the column combination into the query buffer.
+   *
+   * @return the number of columns
+   */
+  protected int loadQuery(ColumnCombinationBitset columnCombination) {
+    ensureQueryCapacity(columnCombination.size());
+    int length = 0;
+    if (columnCombination instanceof LongColumnCombinationBitset) {
+      IntIterator iterator = ((LongColumnCombinationBitset) columnCombination).setBitIterator();
+      while (iterator.hasNext()) {
+        queryColumns[length++] = iterator.nextInt();
+      }
+    } else {
+      for (int column : columnCombination.getSetBits()) {
+        queryColumns[length++] = column;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Writes the columns on the path from the root to the node into the query buffer.
+   *
+   * @return the number of columns
+   */
+  protected int loadPath(int node) {
+    int length = 0;
+    for (int current = node; current != ROOT; current = parent[current]) {
+      length++;
+    }
+    ensureQueryCapacity(length);
+    int position = length;
+    for (int current = node; current != ROOT; current = parent[current]) {
+      queryColumns[--position] = columns[current];
+    }
+    return length;
+  }
+
+  protected void ensureQueryCapacity(int length) {
+    if (queryColumns.length < length) {
+      queryColumns = new int[Math.max(length, queryColumns.length * 2)];
+    }
+  }
+
+  protected ColumnCombinationBitset createColumnCombination(int node) {
+    ColumnCombinationBitset columnCombination = factory.create();
+    for (int current = node; current != ROOT; current = parent[current]) {
+      columnCombination.addColumn(columns[current]);
+    }
+    return columnCombination;
+  }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * An array backed alternative to the {@link SuperSetGraph}. Like the {@link SuperSetGraph} the
+ * column combinations are stored inverted in an {@link ArraySubSetGraph}, so that superset
+ * queries become subset queries.
+ */
+public class ArraySuperSetGraph {
+
+  protected int numberOfColumns;
+  protected ArraySubSetGraph graph;
+
+  public ArraySuperSetGraph(int numberOfColumns) {
+    this.numberOfColumns = numberOfColumns;
+    this.graph = new ArraySubSetGraph(numberOfColumns);
+  }
+
+  /**
+   * Adds a column combination to the graph.
+   *
+   * @param columnCombination the column combination to add
+   * @return the graph
+   */
+  public ArraySuperSetGraph add(ColumnCombinationBitset columnCombination) {
+    graph.add(columnCombination.invert(numberOfColumns));
+    return this;
+  }
+
+  /**
+   * Adds all column combinations to the graph.
+   *
+   * @param columnCombinations to be added to the graph
+   * @return the graph
+   */
+  public ArraySuperSetGraph addAll(
+    Collection<? extends ColumnCombinationBitset> columnCombinations) {
+    for (ColumnCombinationBitset columnCombination : columnCombinations) {
+      add(columnCombination);
+    }
+    return this;
+  }
+
+  /**
+   * Removes a column combination from the graph.
+   *
+   * @param columnCombination the column combination to remove
+   * @return true iff the column combination was contained in the graph
+   */
+  public boolean remove(ColumnCombinationBitset columnCombination) {
+    return graph.remove(columnCombination.invert(numberOfColumns));
+  }
+
+  /**
+   * Removes all column combinations that have a proper superset in the graph, so that only the
+   * maximal column combinations remain.
+   *
+   * @return the number of removed column combinations
+   */
+  public int removeNonMaximalSets() {
+    return graph.removeNonMinimalSets();
+  }
+
+  /**
+   * Returns all supersets of the given column combination that are in the graph.
+   *
+   * @param subset given subset to search for supersets
+   * @return a list containing all found supersets
+   */
+  public ArrayList<ColumnCombinationBitset> getExistingSupersets(ColumnCombinationBitset subset) {
+    ArrayList<ColumnCombinationBitset> result = new ArrayList<>();
+    for (ColumnCombinationBitset inverted :
+      graph.getExistingSubsets(subset.invert(numberOfColumns))) {
+      result.add(inverted.invert(numberOfColumns));
+    }
+    return result;
+  }
+
+  /**
+   * Returns when the first superset is found in the graph.
+   *
+   * @param subset the sub set
+   * @return whether at least a single superset is contained in the graph
+   */
+  public boolean containsSuperset(ColumnCombinationBitset subset) {
+    return graph.containsSubset(subset.invert(numberOfColumns));
+  }
+
+  /**
+   * @return the number of column combinations in the graph
+   */
+  public int size() {
+    return graph.size();
+  }
+
+  /**
+   * @return whether the graph is empty
+   */
+  public boolean isEmpty() {
+    return graph.isEmpty();
+  }
+}
@@ -55,7 +55,30 @@ public class ColumnCombinationBitset implements Comparable<ColumnCombinationBits
    * @param columnCombination that is cloned to the new instance
    */
   public ColumnCombinationBitset(ColumnCombinationBitset columnCombination) {
-    setColumns(columnCombination.bitset.clone());
+    setColumns(columnCombination.getBitset().clone());
+  }
+
+  /**
+   * Creates a column combination on the given {@link OpenBitSet} without copying it. Subclasses
+   * that use another representation pass null.
+   *
+   * @param bitset the bitset to use or null
+   */
+  protected ColumnCombinationBitset(OpenBitSet bitset) {
+    this.bitset = bitset;
+    if (bitset != null) {
+      this.size = bitset.cardinality();
+    }
+  }
+
+  /**
+   * Returns the {@link OpenBitSet} representation of the column combination. The returned bitset
+   * must not be modified.
+   *
+   * @return the bitset
+   */
+  protected OpenBitSet getBitset() {
+    return bitset;
   }
 
   /**
@@ -120,18 +143,14 @@ public class ColumnCombinationBitset implements Comparable<ColumnCombinationBits
     if (obj == null) {
       return false;
     }
-    if (getClass() != obj.getClass()) {
+    if (!(obj instanceof ColumnCombinationBitset)) {
       return false;
     }
     ColumnCombinationBitset other = (ColumnCombinationBitset) obj;
-    if (bitset == null) {
-      if (other.bitset != null) {
-        return false;
-      }
-    } else if (!bitset.equals(other.bitset)) {
+    if (size() != other.size()) {
       return false;
     }
-    return size == other.size;
+    return getBitset().equals(other.getBitset());
   }
 
   @Override
@@ -179,9 +198,10 @@ public class ColumnCombinationBitset implements Comparable<ColumnCombinationBits
    * @return potentialSubset is a sub set
    */
   public boolean containsSubset(ColumnCombinationBitset potentialSubset) {
-    OpenBitSet ored = potentialSubset.bitset.clone();
-    ored.or(bitset);
-    return bitset.equals(ored);
+    OpenBitSet thisBitset = getBitset();
+    OpenBitSet ored = potentialSubset.getBitset().clone();
+    ored.or(thisBitset);
+    return thisBitset.equals(ored);
   }
 
   /**
@@ -266,22 +286,50 @@ public class ColumnCombinationBitset implements Comparable<ColumnCombinationBits
       return new LinkedList<>();
     }
 
-    List<ColumnCombinationBitset> currentLevel = new LinkedList<>();
-    currentLevel.add(subSet);
-    Set<ColumnCombinationBitset> nextLevel = new HashSet<>();
+    List<Integer> freeColumns = this.minus(subSet).getSetBits();
+    LatticeLevel level = generateLevel(freeColumns.size(), n - subSet.size());
+    if (level == null) {
+      List<ColumnCombinationBitset> currentLevel = new LinkedList<>();
+      currentLevel.add(subSet);
+      return currentLevel;
+    }
 
-    for (int currentLevelIndex = subSet.size(); currentLevelIndex < n; currentLevelIndex++) {
-      while (!currentLevel.isEmpty()) {
-        ColumnCombinationBitset currentColumnCombination = currentLevel.remove(0);
-        nextLevel.addAll(currentColumnCombination.getDirectSupersets(this));
+    List<ColumnCombinationBitset> currentLevel = new ArrayList<>(level.size());
+    long[] set = new long[level.getWordsPerSet()];
+    for (int index = 0; index < level.size(); index++) {
+      level.getSet(index, set);
+      ColumnCombinationBitset columnCombination = new ColumnCombinationBitset(subSet);
+      for (int word = 0; word < set.length; word++) {
+        for (long bits = set[word]; bits != 0; bits &= bits - 1) {
+          columnCombination.addColumn(
+            freeColumns.get((word << 6) + Long.numberOfTrailingZeros(bits)));
+        }
       }
-      currentLevel.addAll(nextLevel);
-      nextLevel.clear();
+      currentLevel.add(columnCombination);
     }
 
     return currentLevel;
   }
 
+  /**
+   * Generates the given level of the lattice over the given number of columns with the primitive
+   * {@link LatticeLevel}.
+   *
+   * @param numberOfColumns the number of columns of the lattice
+   * @param level           the number of columns of the generated combinations
+   * @return the level or null for level 0
+   */
+  protected static LatticeLevel generateLevel(int numberOfColumns, int level) {
+    if (level == 0) {
+      return null;
+    }
+    LatticeLevel currentLevel = LatticeLevel.createFirstLevel(numberOfColumns);
+    while (currentLevel.getLevel() < level) {
+      currentLevel = currentLevel.generateNextLevel();
+    }
+    return currentLevel;
+  }
+
   /**
    * @param subSet that column combinations are superset of
    * @param n      cardinality of subsets
@@ -368,7 +416,7 @@ public class ColumnCombinationBitset implements Comparable<ColumnCombinationBits
     ColumnCombinationBitset otherColumnCombination) {
 
     OpenBitSet temporaryBitset = bitset.clone();
-    temporaryBitset.andNot(otherColumnCombination.bitset);
+    temporaryBitset.andNot(otherColumnCombination.getBitset());
 
     return new ColumnCombinationBitset().setColumns(temporaryBitset);
   }
@@ -398,7 +446,7 @@ public class ColumnCombinationBitset implements Comparable<ColumnCombinationBits
    */
   public ColumnCombinationBitset union(ColumnCombinationBitset other) {
     OpenBitSet unionBitSet = bitset.clone();
-    unionBitSet.or(other.bitset);
+    unionBitSet.or(other.getBitset());
     return new ColumnCombinationBitset().setColumns(unionBitSet);
   }
 
@@ -412,7 +460,7 @@ public class ColumnCombinationBitset implements Comparable<ColumnCombinationBits
    */
   public ColumnCombinationBitset intersect(ColumnCombinationBitset other) {
     OpenBitSet intersectionBitSet = bitset.clone();
-    intersectionBitSet.and(other.bitset);
+    intersectionBitSet.and(other.getBitset());
     return new ColumnCombinationBitset().setColumns(intersectionBitSet);
   }
 
@@ -587,7 +635,7 @@ public class ColumnCombinationBitset implements Comparable<ColumnCombinationBits
 
   @Override
   public int compareTo(ColumnCombinationBitset other) {
-    long sizeComparator = this.bitset.cardinality() - other.bitset.cardinality();
+    long sizeComparator = this.size() - other.size();
     if (sizeComparator != 0) {
       return (int) sizeComparator;
     } else {
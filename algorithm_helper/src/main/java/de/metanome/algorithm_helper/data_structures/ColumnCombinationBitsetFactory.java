@@ -0,0 +1,67 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+/**
+ * Creates {@link ColumnCombinationBitset}s for a relation with a fixed number of columns. Relations
+ * with at most 64 columns get the long backed {@link LongColumnCombinationBitset}, wider relations
+ * the generic {@link ColumnCombinationBitset}.
+ */
+public class ColumnCombinationBitsetFactory {
+
+  protected int numberOfColumns;
+
+  /**
+   * @param numberOfColumns the number of columns of the relation
+   */
+  public ColumnCombinationBitsetFactory(int numberOfColumns) {
+    this.numberOfColumns = numberOfColumns;
+  }
+
+  /**
+   * @return true iff the factory creates {@link LongColumnCombinationBitset}s
+   */
+  public boolean isLongBacked() {
+    return numberOfColumns <= LongColumnCombinationBitset.MAX_COLUMNS;
+  }
+
+  /**
+   * Creates a column combination of the given columns.
+   *
+   * @param columnIndices the columns of the combination
+   * @return the column combination
+   */
+  public ColumnCombinationBitset create(int... columnIndices) {
+    if (isLongBacked()) {
+      return new LongColumnCombinationBitset(columnIndices);
+    }
+    return new ColumnCombinationBitset(columnIndices);
+  }
+
+  /**
+   * @return the column combination containing all columns of the relation
+   */
+  public ColumnCombinationBitset createAllColumns() {
+    return create().setAllBits(numberOfColumns);
+  }
+
+  /**
+   * @return the number of columns of the relation
+   */
+  public int getNumberOfColumns() {
+    return numberOfColumns;
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dictionary encoding of the values of one column. Every distinct value is mapped to a dense int
+ * value id in order of first occurrence. The values are kept in an open addressing hash map with
+ * primitive int values. A column with the values a, a, b, c, b, c is encoded as 0, 0, 1, 2, 1, 2.
+ * The null value is encoded like every other value.
+ */
+public class ColumnDictionary {
+
+  public static final int NO_VALUE_ID = -1;
+
+  protected Object2IntOpenHashMap<String> valueIds;
+  protected List<String> values;
+
+  public ColumnDictionary() {
+    this.valueIds = new Object2IntOpenHashMap<>();
+    this.valueIds.defaultReturnValue(NO_VALUE_ID);
+    this.values = new ArrayList<>();
+  }
+
+  /**
+   * Returns the value id of the given value. Unknown values are added to the dictionary.
+   *
+   * @param value the value to encode
+   * @return the value id
+   */
+  public int encode(String value) {
+    int valueId = valueIds.getInt(value);
+    if (valueId == NO_VALUE_ID) {
+      valueId = values.size();
+      valueIds.put(value, valueId);
+      values.add(value);
+    }
+    return valueId;
+  }
+
+  /**
+   * Returns the value id of the given value without changing the dictionary.
+   *
+   * @param value the value to look up
+   * @return the value id or {@link #NO_VALUE_ID} if the value is unknown
+   */
+  public int getValueId(String value) {
+    return valueIds.getInt(value);
+  }
+
+  /**
+   * @param valueId the value id to decode
+   * @return the value behind the value id
+   */
+  public String decode(int valueId) {
+    return values.get(valueId);
+  }
+
+  /**
+   * @return the number of distinct values in the dictionary
+   */
+  public int size() {
+    return values.size();
+  }
+
+  /**
+   * @return all distinct values ordered by their value ids
+   */
+  public List<String> getValues() {
+    return values;
+  }
+}
@@ -0,0 +1,368 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A memory compact alternative to the {@link PositionListIndex}. All row ids of the non unary
+ * clusters are stored in one flat int array, cluster after cluster. A second int array stores the
+ * start offset of every cluster (plus the end offset of the last cluster). The position list index
+ * ((0, 1), (2, 4), (3, 5)) is stored as rows [0, 1, 2, 4, 3, 5] and offsets [0, 2, 4, 6].
+ * <p>
+ * Intersections are calculated with a dense row to cluster id probing table and scratch arrays that
+ * are reused between intersections of the same thread, so no objects are created per row.
+ */
+public class CompactPositionListIndex {
+
+  protected static final int UNARY_ROW = -1;
+
+  private static final ThreadLocal<SoftReference<IntersectionScratch>> SCRATCH = new ThreadLocal<>();
+
+  protected int[] rows;
+  protected int[] clusterOffsets;
+  protected int numberOfRows;
+  protected long rawKeyError = -1;
+
+  /**
+   * @param rows           the row ids of all non unary clusters, cluster after cluster
+   * @param clusterOffsets the start offsets of the clusters in rows followed by rows.length
+   * @param numberOfRows   the number of rows in the relation the index was built on
+   */
+  public CompactPositionListIndex(int[] rows, int[] clusterOffsets, int numberOfRows) {
+    this.rows = rows;
+    this.clusterOffsets = clusterOffsets;
+    this.numberOfRows = numberOfRows;
+  }
+
+  /**
+   * Constructs an empty {@link CompactPositionListIndex}.
+   *
+   * @param numberOfRows the number of rows in the relation
+   */
+  public CompactPositionListIndex(int numberOfRows) {
+    this(new int[0], new int[]{0}, numberOfRows);
+  }
+
+  /**
+   * Converts the given {@link PositionListIndex} into the compact representation. Unary clusters
+   * are dropped.
+   *
+   * @param pli          the {@link PositionListIndex} to convert
+   * @param numberOfRows the number of rows in the relation the index was built on
+   * @return the compact position list index
+   */
+  public static CompactPositionListIndex fromPositionListIndex(PositionListIndex pli,
+                                                               int numberOfRows) {
+    int totalRows = 0;
+    int numberOfClusters = 0;
+    for (LongArrayList cluster : pli.getClusters()) {
+      if (cluster.size() < 2) {
+        continue;
+      }
+      totalRows += cluster.size();
+      numberOfClusters++;
+    }
+
+    int[] rows = new int[totalRows];
+    int[] clusterOffsets = new int[numberOfClusters + 1];
+    int rowPosition = 0;
+    int clusterPosition = 0;
+    for (LongArrayList cluster : pli.getClusters()) {
+      if (cluster.size() < 2) {
+        continue;
+      }
+      clusterOffsets[clusterPosition++] = rowPosition;
+      for (int i = 0; i < cluster.size(); i++) {
+        rows[rowPosition++] = (int) cluster.getLong(i);
+      }
+    }
+    clusterOffsets[clusterPosition] = rowPosition;
+
+    return new CompactPositionListIndex(rows, clusterOffsets, numberOfRows);
+  }
+
+  /**
+   * Converts the compact representation back into a {@link PositionListIndex}.
+   *
+   * @return the equivalent {@link PositionListIndex}
+   */
+  public PositionListIndex toPositionListIndex() {
+    List<LongArrayList> clusters = new ArrayList<>(size());
+    for (int cluster = 0; cluster < size(); cluster++) {
+      LongArrayList clusterList = new LongArrayList(getClusterSize(cluster));
+      for (int i = clusterOffsets[cluster]; i < clusterOffsets[cluster + 1]; i++) {
+        clusterList.add(rows[i]);
+      }
+      clusters.add(clusterList);
+    }
+    return new PositionListIndex(clusters);
+  }
+
+  /**
+   * Intersects the given CompactPositionListIndex with this CompactPositionListIndex returning a
+   * new CompactPositionListIndex. This index is written into a dense probing table through which
+   * the rows of the other index are streamed.
+   *
+   * @param otherPLI the other {@link CompactPositionListIndex} to intersect
+   * @return the intersected {@link CompactPositionListIndex}
+   */
+  public CompactPositionListIndex intersect(CompactPositionListIndex otherPLI) {
+    IntersectionScratch scratch = getScratch();
+    scratch.ensureProbingTableCapacity(numberOfRows);
+    scratch.ensureCapacity(size(), Math.min(rows.length, otherPLI.rows.length));
+    try {
+      scratch.fillProbingTable(this);
+      return scratch.probe(scratch.rowToClusterId, otherPLI,
+        Math.max(numberOfRows, otherPLI.numberOfRows));
+    } finally {
+      scratch.clearProbingTable(this);
+    }
+  }
+
+  /**
+   * Writes the cluster id of every row of this index into the probing table. Rows of unary
+   * clusters are not touched.
+   *
+   * @param rowToClusterId the probing table with at least numberOfRows entries
+   */
+  protected void fillProbingTable(int[] rowToClusterId) {
+    for (int cluster = 0; cluster < size(); cluster++) {
+      for (int i = clusterOffsets[cluster]; i < clusterOffsets[cluster + 1]; i++) {
+        rowToClusterId[rows[i]] = cluster;
+      }
+    }
+  }
+
+  /**
+   * @return the scratch arrays of the current thread
+   */
+  protected static IntersectionScratch getScratch() {
+    SoftReference<IntersectionScratch> reference = SCRATCH.get();
+    IntersectionScratch scratch = reference == null ? null : reference.get();
+    if (scratch == null) {
+      scratch = new IntersectionScratch();
+      SCRATCH.set(new SoftReference<>(scratch));
+    }
+    return scratch;
+  }
+
+  /**
+   * Returns the number of non unary clusters.
+   *
+   * @return the number of clusters in the {@link CompactPositionListIndex}
+   */
+  public int size() {
+    return clusterOffsets.length - 1;
+  }
+
+  /**
+   * @param cluster the index of the cluster
+   * @return the number of rows in the cluster
+   */
+  public int getClusterSize(int cluster) {
+    return clusterOffsets[cluster + 1] - clusterOffsets[cluster];
+  }
+
+  /**
+   * @return the {@link CompactPositionListIndex} contains only unary clusters.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * @return the column represented by the {@link CompactPositionListIndex} is unique.
+   */
+  public boolean isUnique() {
+    return isEmpty();
+  }
+
+  /**
+   * Returns the number of columns to remove in order to make column unique. (raw key error)
+   *
+   * @return raw key error
+   */
+  public long getRawKeyError() {
+    if (rawKeyError == -1) {
+      rawKeyError = rows.length - size();
+    }
+
+    return rawKeyError;
+  }
+
+  /**
+   * @return the row ids of all non unary clusters, cluster after cluster
+   */
+  public int[] getRows() {
+    return rows;
+  }
+
+  /**
+   * @return the start offsets of the clusters followed by the total number of stored rows
+   */
+  public int[] getClusterOffsets() {
+    return clusterOffsets;
+  }
+
+  /**
+   * @return the number of rows in the relation
+   */
+  public int getNumberOfRows() {
+    return numberOfRows;
+  }
+
+  /**
+   * Scratch arrays for the intersection. The probing table maps every row to the cluster id of the
+   * build side and is reset to {@link #UNARY_ROW} after every intersection, so only the rows of the
+   * build side have to be touched. All other arrays are indexed by build side cluster ids. The probe
+   * methods take the probing table as parameter, so that a shared probing table can be probed with
+   * the scratch arrays of several threads (see {@link PLIIntersector}).
+   */
+  protected static class IntersectionScratch {
+
+    protected int[] rowToClusterId = new int[0];
+    protected int[] clusterCounts = new int[0];
+    protected int[] clusterCursors = new int[0];
+    protected int[] touchedClusters = new int[0];
+    protected int[] resultRows = new int[0];
+    protected int[] resultOffsets = new int[0];
+
+    protected void ensureProbingTableCapacity(int numberOfRows) {
+      if (rowToClusterId.length < numberOfRows) {
+        rowToClusterId = new int[numberOfRows];
+        Arrays.fill(rowToClusterId, UNARY_ROW);
+      }
+    }
+
+    protected void ensureCapacity(int numberOfClusters, int maxResultRows) {
+      if (clusterCounts.length < numberOfClusters) {
+        clusterCounts = new int[numberOfClusters];
+        clusterCursors = new int[numberOfClusters];
+        touchedClusters = new int[numberOfClusters];
+      }
+      if (resultRows.length < maxResultRows) {
+        resultRows = new int[maxResultRows];
+      }
+      // Every result cluster has at least two rows.
+      int maxResultClusters = maxResultRows / 2 + 1;
+      if (resultOffsets.length < maxResultClusters + 1) {
+        resultOffsets = new int[maxResultClusters + 1];
+      }
+    }
+
+    protected void fillProbingTable(CompactPositionListIndex pli) {
+      pli.fillProbingTable(rowToClusterId);
+    }
+
+    protected void clearProbingTable(CompactPositionListIndex pli) {
+      for (int i = 0; i < pli.rows.length; i++) {
+        rowToClusterId[pli.rows[i]] = UNARY_ROW;
+      }
+    }
+
+    /**
+     * Streams the rows of the given index through the filled probing table. Each cluster of the
+     * probe side is split by the build side cluster ids of its rows in two passes: the first pass
+     * counts the rows per build side cluster, the second pass places them into the result.
+     */
+    protected CompactPositionListIndex probe(int[] rowToClusterId, CompactPositionListIndex pli,
+                                             int numberOfRows) {
+      int probingTableSize = rowToClusterId.length;
+      int resultRowCount = 0;
+      int resultClusterCount = 0;
+
+      for (int cluster = 0; cluster < pli.size(); cluster++) {
+        int start = pli.clusterOffsets[cluster];
+        int end = pli.clusterOffsets[cluster + 1];
+
+        int touchedCount = 0;
+        for (int i = start; i < end; i++) {
+          int row = pli.rows[i];
+          int buildCluster = row < probingTableSize ? rowToClusterId[row] : UNARY_ROW;
+          if (buildCluster == UNARY_ROW) {
+            continue;
+          }
+          if (clusterCounts[buildCluster] == 0) {
+            touchedClusters[touchedCount++] = buildCluster;
+          }
+          clusterCounts[buildCluster]++;
+        }
+
+        for (int t = 0; t < touchedCount; t++) {
+          int buildCluster = touchedClusters[t];
+          if (clusterCounts[buildCluster] > 1) {
+            resultOffsets[resultClusterCount++] = resultRowCount;
+            clusterCursors[buildCluster] = resultRowCount;
+            resultRowCount += clusterCounts[buildCluster];
+          }
+        }
+
+        for (int i = start; i < end; i++) {
+          int row = pli.rows[i];
+          int buildCluster = row < probingTableSize ? rowToClusterId[row] : UNARY_ROW;
+          if (buildCluster != UNARY_ROW && clusterCounts[buildCluster] > 1) {
+            resultRows[clusterCursors[buildCluster]++] = row;
+          }
+        }
+
+        for (int t = 0; t < touchedCount; t++) {
+          clusterCounts[touchedClusters[t]] = 0;
+        }
+      }
+      resultOffsets[resultClusterCount] = resultRowCount;
+
+      return new CompactPositionListIndex(Arrays.copyOf(resultRows, resultRowCount),
+        Arrays.copyOf(resultOffsets, resultClusterCount + 1), numberOfRows);
+    }
+
+    /**
+     * Calculates the raw key error of the intersection without materializing it. Only the per
+     * cluster counters are used.
+     */
+    protected long probeKeyError(int[] rowToClusterId, CompactPositionListIndex pli) {
+      int probingTableSize = rowToClusterId.length;
+      long keyError = 0;
+
+      for (int cluster = 0; cluster < pli.size(); cluster++) {
+        int touchedCount = 0;
+        for (int i = pli.clusterOffsets[cluster]; i < pli.clusterOffsets[cluster + 1]; i++) {
+          int row = pli.rows[i];
+          int buildCluster = row < probingTableSize ? rowToClusterId[row] : UNARY_ROW;
+          if (buildCluster == UNARY_ROW) {
+            continue;
+          }
+          if (clusterCounts[buildCluster] == 0) {
+            touchedClusters[touchedCount++] = buildCluster;
+          } else {
+            // Every row but the first of a cluster adds to the key error.
+            keyError++;
+          }
+          clusterCounts[buildCluster]++;
+        }
+        for (int t = 0; t < touchedCount; t++) {
+          clusterCounts[touchedClusters[t]] = 0;
+        }
+      }
+      return keyError;
+    }
+  }
+}
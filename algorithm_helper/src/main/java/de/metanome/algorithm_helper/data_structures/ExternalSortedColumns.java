@@ -0,0 +1,220 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.algorithm_execution.FileCreationException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds the distinct sorted values of every column with an external merge sort. This is an
+ * alternative to {@link PLIBuilder#getDistinctSortedColumns()} for inputs whose distinct values do
+ * not fit into memory. The values are buffered per column until the memory budget is exceeded,
+ * then the largest buffer is sorted, de-duplicated and written as run file into a temporary file of
+ * the {@link FileGenerator}. The returned {@link SortedColumnIterator}s merge the runs of a column
+ * on the fly. Like in the {@link PLIBuilder} null values are filtered.
+ * <p>
+ * Runs are merged in tiers: every {@link #MERGE_FAN_IN} runs of the same level are merged into one
+ * run of the next level. Every value is therefore rewritten a logarithmic number of times and a
+ * column has less than {@link #MERGE_FAN_IN} runs per level.
+ * <p>
+ * The run files are deleted when the {@link FileGenerator} is closed.
+ */
+public class ExternalSortedColumns {
+
+  /**
+   * Number of runs of the same level that are merged into one run of the next level.
+   */
+  public static final int MERGE_FAN_IN = 16;
+
+  // Estimated bytes of a buffered value besides its characters
+  protected static final long VALUE_OVERHEAD = 64;
+
+  protected RelationalInput input;
+  protected FileGenerator fileGenerator;
+  protected long memoryBudget;
+
+  protected List<List<String>> buffers = null;
+  protected List<Long> bufferBytes;
+  protected long totalBufferBytes = 0;
+  protected List<List<File>> runFiles;
+  protected List<List<Integer>> runLevels;
+
+  /**
+   * @param input         the input to read the columns from
+   * @param fileGenerator the generator of the run files
+   * @param memoryBudget  the estimated number of bytes the buffered values may occupy
+   */
+  public ExternalSortedColumns(RelationalInput input, FileGenerator fileGenerator,
+                               long memoryBudget) {
+    this.input = input;
+    this.fileGenerator = fileGenerator;
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * Returns an iterator over the distinct sorted values of every column. The input is read on the
+   * first call, every call returns new iterators. An iterator opens the run files of its column on
+   * first use and should be closed after reading it.
+   *
+   * @return iterators over the columns' sorted distinct values
+   * @throws InputIterationException if the input or a run file cannot be read
+   * @throws FileCreationException   if a run file cannot be written
+   */
+  public List<SortedColumnIterator> getDistinctSortedColumns()
+    throws InputIterationException, FileCreationException {
+    if (buffers == null) {
+      readInput();
+    }
+
+    // The iterators open their run files lazily, so only the columns being read hold file handles.
+    List<SortedColumnIterator> columns = new ArrayList<>(buffers.size());
+    for (int column = 0; column < buffers.size(); column++) {
+      columns.add(new SortedColumnIterator(runFiles.get(column), buffers.get(column)));
+    }
+    return columns;
+  }
+
+  protected void readInput() throws InputIterationException, FileCreationException {
+    buffers = new ArrayList<>();
+    bufferBytes = new ArrayList<>();
+    runFiles = new ArrayList<>();
+    runLevels = new ArrayList<>();
+
+    while (input.hasNext()) {
+      List<String> row = input.next();
+      for (int column = 0; column < row.size(); column++) {
+        if (buffers.size() <= column) {
+          buffers.add(new ArrayList<String>());
+          bufferBytes.add(0L);
+          runFiles.add(new ArrayList<File>());
+          runLevels.add(new ArrayList<Integer>());
+        }
+        String value = row.get(column);
+        if (value == null) {
+          continue;
+        }
+        buffers.get(column).add(value);
+        long bytes = VALUE_OVERHEAD + 2L * value.length();
+        bufferBytes.set(column, bufferBytes.get(column) + bytes);
+        totalBufferBytes += bytes;
+      }
+      while (totalBufferBytes > memoryBudget) {
+        spill(largestBuffer());
+      }
+    }
+
+    // The remaining buffers stay in memory as the last run of every column.
+    for (List<String> buffer : buffers) {
+      sortDistinct(buffer);
+    }
+  }
+
+  protected int largestBuffer() {
+    int largest = 0;
+    for (int column = 1; column < bufferBytes.size(); column++) {
+      if (bufferBytes.get(column) > bufferBytes.get(largest)) {
+        largest = column;
+      }
+    }
+    return largest;
+  }
+
+  protected void spill(int column) throws InputIterationException, FileCreationException {
+    List<String> buffer = buffers.get(column);
+    sortDistinct(buffer);
+    List<File> runs = runFiles.get(column);
+    List<Integer> levels = runLevels.get(column);
+    runs.add(writeRun(new SortedColumnIterator(Collections.<File>emptyList(), buffer)));
+    levels.add(0);
+    buffer.clear();
+    totalBufferBytes -= bufferBytes.get(column);
+    bufferBytes.set(column, 0L);
+
+    // The levels never increase towards the end, so equal levels are always the last runs.
+    int numberOfRuns;
+    while ((numberOfRuns = runs.size()) >= MERGE_FAN_IN
+      && levels.get(numberOfRuns - MERGE_FAN_IN).equals(levels.get(numberOfRuns - 1))) {
+      List<File> mergedRuns = runs.subList(numberOfRuns - MERGE_FAN_IN, numberOfRuns);
+      int mergedLevel = levels.get(numberOfRuns - 1) + 1;
+      File mergedRun = mergeRuns(mergedRuns);
+      mergedRuns.clear();
+      levels.subList(numberOfRuns - MERGE_FAN_IN, numberOfRuns).clear();
+      runs.add(mergedRun);
+      levels.add(mergedLevel);
+    }
+  }
+
+  /**
+   * Merges the runs into a new run and deletes them.
+   */
+  protected File mergeRuns(List<File> runs) throws InputIterationException, FileCreationException {
+    SortedColumnIterator mergedRuns =
+      new SortedColumnIterator(new ArrayList<>(runs), Collections.<String>emptyList());
+    File mergedRun;
+    try {
+      mergedRun = writeRun(mergedRuns);
+    } finally {
+      mergedRuns.close();
+    }
+    for (File run : runs) {
+      run.delete();
+    }
+    return mergedRun;
+  }
+
+  /**
+   * Sorts the buffer and removes duplicate values in place.
+   */
+  protected void sortDistinct(List<String> buffer) {
+    Collections.sort(buffer);
+    int distinctValues = 0;
+    for (int i = 0; i < buffer.size(); i++) {
+      if (i == 0 || !buffer.get(i).equals(buffer.get(distinctValues - 1))) {
+        buffer.set(distinctValues++, buffer.get(i));
+      }
+    }
+    buffer.subList(distinctValues, buffer.size()).clear();
+  }
+
+  protected File writeRun(SortedColumnIterator values)
+    throws InputIterationException, FileCreationException {
+    File runFile = fileGenerator.getTemporaryFile();
+    try (DataOutputStream output = new DataOutputStream(
+      new BufferedOutputStream(new FileOutputStream(runFile)))) {
+      while (values.hasNext()) {
+        byte[] bytes = values.next().getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+      }
+      output.writeInt(SortedColumnIterator.END_OF_RUN);
+    } catch (IOException e) {
+      throw new FileCreationException("Could not write sorted run.", e);
+    }
+    return runFile;
+  }
+}
@@ -0,0 +1,332 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_helper.sketches.ValueHashing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Dictionary encoding of the values of all columns of one or more inputs, which can be shared by
+ * concurrent encoders. Unlike a {@link ColumnDictionary} a value that occurs in several columns is
+ * stored only once. Values are stored as UTF-8 bytes in arenas of large buffers, either on the heap
+ * or off-heap in direct buffers, so the dictionary does not hold a {@link String} per value. Value
+ * ids are dense ints in order of first occurrence; {@link #NULL_VALUE_ID} is reserved for null.
+ * <p>
+ * The hash table is split into segments that are locked independently. Every value has a fixed
+ * segment, so concurrent encoders only contend if they encode values of the same segment. The
+ * location of every value id is published in a chunked directory, so decoding does not search a
+ * segment.
+ */
+public class GlobalValueDictionary {
+
+  public static final int NULL_VALUE_ID = 0;
+  public static final int NO_VALUE_ID = ColumnDictionary.NO_VALUE_ID;
+  public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+  protected static final int MAX_SEGMENTS = 64;
+  protected static final int ARENA_CHUNK_SIZE = 1 << 20;
+  protected static final int DIRECTORY_CHUNK_BITS = 16;
+  protected static final int DIRECTORY_CHUNK_SIZE = 1 << DIRECTORY_CHUNK_BITS;
+  protected static final long PUBLISHED = 1L << 31;
+
+  protected boolean offHeap;
+  protected Segment[] segments;
+  protected int segmentShift;
+  protected AtomicInteger nextValueId = new AtomicInteger(NULL_VALUE_ID + 1);
+  protected AtomicReferenceArray<AtomicLongArray> locations =
+    new AtomicReferenceArray<>((Integer.MAX_VALUE >>> DIRECTORY_CHUNK_BITS) + 1);
+  protected AtomicReferenceArray<AtomicLongArray> valueHashes =
+    new AtomicReferenceArray<>((Integer.MAX_VALUE >>> DIRECTORY_CHUNK_BITS) + 1);
+
+  public GlobalValueDictionary() {
+    this(DEFAULT_CONCURRENCY_LEVEL, false);
+  }
+
+  /**
+   * @param concurrencyLevel the expected number of concurrent encoders, at most 64
+   * @param offHeap          whether the values are stored in direct buffers outside of the heap
+   */
+  public GlobalValueDictionary(int concurrencyLevel, boolean offHeap) {
+    this.offHeap = offHeap;
+    int numberOfSegments = Integer.highestOneBit(
+      Math.max(1, Math.min(MAX_SEGMENTS, concurrencyLevel) * 2 - 1));
+    this.segmentShift = Integer.SIZE - Integer.numberOfTrailingZeros(numberOfSegments);
+    this.segments = new Segment[numberOfSegments];
+    for (int segment = 0; segment < numberOfSegments; segment++) {
+      segments[segment] = new Segment(segment);
+    }
+  }
+
+  /**
+   * Returns the value id of the given value. Unknown values are added to the dictionary.
+   *
+   * @param value the value to encode
+   * @return the value id, {@link #NULL_VALUE_ID} for null
+   */
+  public int encode(String value) {
+    if (value == null) {
+      return NULL_VALUE_ID;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    return encode(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Returns the value id of the UTF-8 encoded value. Unknown values are added to the dictionary.
+   * This avoids creating a {@link String} for values that are already known.
+   *
+   * @param bytes  the buffer with the value
+   * @param offset the offset of the value in the buffer
+   * @param length the number of bytes of the value
+   * @return the value id
+   */
+  public int encode(byte[] bytes, int offset, int length) {
+    int hash = hash(bytes, offset, length);
+    return getSegment(hash).encode(bytes, offset, length, hash, true);
+  }
+
+  /**
+   * Returns the value id of the given value without changing the dictionary.
+   *
+   * @param value the value to look up
+   * @return the value id or {@link #NO_VALUE_ID} if the value is unknown
+   */
+  public int getValueId(String value) {
+    if (value == null) {
+      return NULL_VALUE_ID;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    int hash = hash(bytes, 0, bytes.length);
+    return getSegment(hash).encode(bytes, 0, bytes.length, hash, false);
+  }
+
+  /**
+   * @param valueId a value id returned by the dictionary
+   * @return the value behind the value id
+   */
+  public String decode(int valueId) {
+    if (valueId == NULL_VALUE_ID) {
+      return null;
+    }
+    return new String(decodeBytes(valueId), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param valueId a value id returned by the dictionary, not {@link #NULL_VALUE_ID}
+   * @return the UTF-8 bytes of the value behind the value id
+   */
+  public byte[] decodeBytes(int valueId) {
+    long location = getLocation(valueId);
+    return segments[(int) (location >>> 58)].read(location);
+  }
+
+  /**
+   * Returns the {@link ValueHashing#hash(String)} of a value, so sketches can consume the value ids
+   * without decoding them.
+   *
+   * @param valueId a value id returned by the dictionary, not {@link #NULL_VALUE_ID}
+   * @return the hash of the value behind the value id
+   */
+  public long getValueHash(int valueId) {
+    getLocation(valueId);
+    return valueHashes.get(valueId >>> DIRECTORY_CHUNK_BITS)
+      .get(valueId & (DIRECTORY_CHUNK_SIZE - 1));
+  }
+
+  /**
+   * @return the number of value ids including {@link #NULL_VALUE_ID}, all value ids are smaller
+   */
+  public int size() {
+    return nextValueId.get();
+  }
+
+  /**
+   * @return the number of bytes of the value arenas
+   */
+  public long getArenaBytes() {
+    long bytes = 0;
+    for (Segment segment : segments) {
+      bytes += segment.getArenaBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * @return whether the values are stored outside of the heap
+   */
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
+  protected Segment getSegment(int hash) {
+    return segments[segmentShift == Integer.SIZE ? 0 : hash >>> segmentShift];
+  }
+
+  protected long getLocation(int valueId) {
+    AtomicLongArray chunk = valueId > NULL_VALUE_ID
+      ? locations.get(valueId >>> DIRECTORY_CHUNK_BITS) : null;
+    long location = chunk == null ? 0 : chunk.get(valueId & (DIRECTORY_CHUNK_SIZE - 1));
+    if (location == 0) {
+      throw new IllegalArgumentException("Unknown value id " + valueId + ".");
+    }
+    return location;
+  }
+
+  protected void publish(int valueId, long location, long valueHash) {
+    int chunk = valueId >>> DIRECTORY_CHUNK_BITS;
+    if (locations.get(chunk) == null) {
+      valueHashes.compareAndSet(chunk, null, new AtomicLongArray(DIRECTORY_CHUNK_SIZE));
+      locations.compareAndSet(chunk, null, new AtomicLongArray(DIRECTORY_CHUNK_SIZE));
+    }
+    // The hash is set first, a set location marks the value id as published.
+    valueHashes.get(chunk).set(valueId & (DIRECTORY_CHUNK_SIZE - 1), valueHash);
+    locations.get(chunk).set(valueId & (DIRECTORY_CHUNK_SIZE - 1), location);
+  }
+
+  protected static int hash(byte[] bytes, int offset, int length) {
+    int hash = 0x811c9dc5;
+    for (int i = offset; i < offset + length; i++) {
+      hash = (hash ^ bytes[i]) * 0x01000193;
+    }
+    // Finalizer of the 32 bit MurmurHash3
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+
+  /**
+   * An open addressing hash table of value ids and the arena of its values. A location packs the
+   * segment into the upper 6 bits, the arena chunk into the next 26 bits and the offset of the
+   * value's length prefix into the lower 31 bits. Bit 31 is always set, so the location 0 marks
+   * unpublished value ids.
+   */
+  protected class Segment {
+
+    protected int segment;
+    protected int[] slots = new int[64];
+    protected int[] slotHashes = new int[64];
+    protected int size = 0;
+    protected List<ByteBuffer> chunks = new ArrayList<>();
+    protected long arenaBytes = 0;
+
+    public Segment(int segment) {
+      this.segment = segment;
+    }
+
+    protected synchronized int encode(byte[] bytes, int offset, int length, int hash,
+                                      boolean insert) {
+      int mask = slots.length - 1;
+      for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+        int valueId = slots[slot];
+        if (valueId == 0) {
+          if (!insert) {
+            return NO_VALUE_ID;
+          }
+          valueId = nextValueId.getAndIncrement();
+          if (valueId < 0) {
+            throw new IllegalStateException("The dictionary is full.");
+          }
+          String value = new String(bytes, offset, length, StandardCharsets.UTF_8);
+          publish(valueId, write(bytes, offset, length), ValueHashing.hash(value));
+          slots[slot] = valueId;
+          slotHashes[slot] = hash;
+          if (++size * 2 > slots.length) {
+            grow();
+          }
+          return valueId;
+        }
+        if (slotHashes[slot] == hash && matches(getLocation(valueId), bytes, offset, length)) {
+          return valueId;
+        }
+      }
+    }
+
+    protected long write(byte[] bytes, int offset, int length) {
+      int requiredBytes = Integer.SIZE / Byte.SIZE + length;
+      ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+      if (chunk == null || chunk.remaining() < requiredBytes) {
+        int chunkSize = Math.max(ARENA_CHUNK_SIZE, requiredBytes);
+        chunk = offHeap ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize);
+        chunks.add(chunk);
+        arenaBytes += chunkSize;
+      }
+      long location = ((long) segment << 58) | ((long) (chunks.size() - 1) << 32)
+        | PUBLISHED | chunk.position();
+      chunk.putInt(length);
+      chunk.put(bytes, offset, length);
+      return location;
+    }
+
+    protected boolean matches(long location, byte[] bytes, int offset, int length) {
+      ByteBuffer chunk = chunks.get((int) ((location >>> 32) & 0x3ffffff));
+      int position = (int) (location & (PUBLISHED - 1));
+      if (chunk.getInt(position) != length) {
+        return false;
+      }
+      position += Integer.SIZE / Byte.SIZE;
+      for (int i = 0; i < length; i++) {
+        if (chunk.get(position + i) != bytes[offset + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    protected synchronized byte[] read(long location) {
+      ByteBuffer chunk = chunks.get((int) ((location >>> 32) & 0x3ffffff));
+      int position = (int) (location & (PUBLISHED - 1));
+      byte[] bytes = new byte[chunk.getInt(position)];
+      position += Integer.SIZE / Byte.SIZE;
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = chunk.get(position + i);
+      }
+      return bytes;
+    }
+
+    protected void grow() {
+      int[] oldSlots = slots;
+      int[] oldSlotHashes = slotHashes;
+      slots = new int[oldSlots.length * 2];
+      slotHashes = new int[oldSlots.length * 2];
+      int mask = slots.length - 1;
+      for (int oldSlot = 0; oldSlot < oldSlots.length; oldSlot++) {
+        if (oldSlots[oldSlot] == 0) {
+          continue;
+        }
+        int slot = oldSlotHashes[oldSlot] & mask;
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = oldSlots[oldSlot];
+        slotHashes[slot] = oldSlotHashes[oldSlot];
+      }
+    }
+
+    protected synchronized long getArenaBytes() {
+      return arenaBytes;
+    }
+  }
+}
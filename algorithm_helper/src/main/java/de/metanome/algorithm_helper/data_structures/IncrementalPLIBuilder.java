@@ -0,0 +1,247 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maintains the {@link PositionListIndex}es of all columns of a relation that only grows by
+ * appended rows. Besides the single column indices the builder keeps the value dictionary, the
+ * value ids of all rows and the rows of every value, including values that occur only once. New
+ * rows are appended with {@link #append(RelationalInput)}: the single column indices and the number
+ * of tuples are updated in place and the returned {@link PLIDelta} updates cached multi column
+ * indices. The cost of an append is proportional to the number of new rows.
+ * <p>
+ * The state can be stored with {@link #save(File)} and restored with {@link #load(File)}, so that
+ * the next load of new rows does not need to read the old rows again.
+ */
+public class IncrementalPLIBuilder {
+
+  protected static final int FILE_MAGIC = 0x4d504c49;
+  protected static final int FILE_VERSION = 1;
+
+  protected boolean nullEqualsNull;
+  protected int numberOfTuples = 0;
+  protected List<ColumnDictionary> dictionaries = new ArrayList<>();
+  protected List<IntArrayList> encodedColumns = new ArrayList<>();
+  protected List<List<LongArrayList>> valueRows = new ArrayList<>();
+  protected List<PositionListIndex> plis = new ArrayList<>();
+
+  public IncrementalPLIBuilder() {
+    this(true);
+  }
+
+  public IncrementalPLIBuilder(boolean nullEqualsNull) {
+    this.nullEqualsNull = nullEqualsNull;
+  }
+
+  /**
+   * Appends all rows of the input to the relation. The single column indices returned by {@link
+   * #getPLIList()} are updated in place. The first append loads the initial relation.
+   *
+   * @param newRows the rows to append
+   * @return the delta to apply to cached multi column indices
+   * @throws InputIterationException if the input cannot be iterated
+   */
+  public PLIDelta append(RelationalInput newRows) throws InputIterationException {
+    int firstRow = numberOfTuples;
+    while (newRows.hasNext()) {
+      List<String> row = newRows.next();
+      while (dictionaries.size() < row.size()) {
+        addColumn();
+      }
+      for (int column = 0; column < dictionaries.size(); column++) {
+        String value = column < row.size() ? row.get(column) : null;
+        if (column >= row.size() || (!nullEqualsNull && value == null)) {
+          encodedColumns.get(column).add(ColumnDictionary.NO_VALUE_ID);
+        } else {
+          addValue(column, numberOfTuples, value);
+        }
+      }
+      numberOfTuples++;
+    }
+    return new PLIDelta(this, firstRow, numberOfTuples);
+  }
+
+  /**
+   * Returns the {@link PositionListIndex} of every column. The indices are updated in place by
+   * later appends.
+   *
+   * @return list of plis for all columns
+   */
+  public List<PositionListIndex> getPLIList() {
+    return plis;
+  }
+
+  /**
+   * @return the value dictionaries of all columns
+   */
+  public List<ColumnDictionary> getDictionaries() {
+    return dictionaries;
+  }
+
+  /**
+   * @return the number of tuples appended so far
+   */
+  public long getNumberOfTuples() {
+    return numberOfTuples;
+  }
+
+  /**
+   * Writes the dictionaries and the value ids of all rows to the given file.
+   *
+   * @param file the file to write to
+   * @throws IOException if the file cannot be written
+   */
+  public void save(File file) throws IOException {
+    try (DataOutputStream output = new DataOutputStream(
+      new BufferedOutputStream(new FileOutputStream(file)))) {
+      output.writeInt(FILE_MAGIC);
+      output.writeInt(FILE_VERSION);
+      output.writeBoolean(nullEqualsNull);
+      output.writeInt(numberOfTuples);
+      output.writeInt(dictionaries.size());
+      for (int column = 0; column < dictionaries.size(); column++) {
+        List<String> values = dictionaries.get(column).getValues();
+        output.writeInt(values.size());
+        for (String value : values) {
+          if (value == null) {
+            output.writeInt(-1);
+          } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+          }
+        }
+        IntArrayList valueIds = encodedColumns.get(column);
+        for (int row = 0; row < numberOfTuples; row++) {
+          output.writeInt(valueIds.getInt(row));
+        }
+      }
+    }
+  }
+
+  /**
+   * Restores a builder written by {@link #save(File)}.
+   *
+   * @param file the file to read from
+   * @return the restored builder
+   * @throws IOException if the file cannot be read or was not written by a builder
+   */
+  public static IncrementalPLIBuilder load(File file) throws IOException {
+    try (DataInputStream input = new DataInputStream(
+      new BufferedInputStream(new FileInputStream(file)))) {
+      if (input.readInt() != FILE_MAGIC || input.readInt() != FILE_VERSION) {
+        throw new IOException("The file " + file + " does not contain a pli builder.");
+      }
+      IncrementalPLIBuilder builder = new IncrementalPLIBuilder(input.readBoolean());
+      int numberOfTuples = input.readInt();
+      int numberOfColumns = input.readInt();
+      for (int column = 0; column < numberOfColumns; column++) {
+        builder.addColumn();
+        ColumnDictionary dictionary = builder.dictionaries.get(column);
+        List<LongArrayList> rowsOfValues = builder.valueRows.get(column);
+        int numberOfValues = input.readInt();
+        for (int valueId = 0; valueId < numberOfValues; valueId++) {
+          int length = input.readInt();
+          String value = null;
+          if (length >= 0) {
+            byte[] bytes = new byte[length];
+            input.readFully(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+          }
+          dictionary.encode(value);
+          rowsOfValues.add(new LongArrayList());
+        }
+
+        IntArrayList valueIds = builder.encodedColumns.get(column);
+        valueIds.size(numberOfTuples);
+        for (int row = 0; row < numberOfTuples; row++) {
+          int valueId = input.readInt();
+          valueIds.set(row, valueId);
+          if (valueId != ColumnDictionary.NO_VALUE_ID) {
+            rowsOfValues.get(valueId).add(row);
+          }
+        }
+        List<LongArrayList> clusters = builder.plis.get(column).getClusters();
+        for (LongArrayList rows : rowsOfValues) {
+          if (rows.size() > 1) {
+            clusters.add(rows);
+          }
+        }
+      }
+      builder.numberOfTuples = numberOfTuples;
+      return builder;
+    }
+  }
+
+  protected void addColumn() {
+    dictionaries.add(new ColumnDictionary());
+    // Rows appended before the column appeared have no value in it.
+    IntArrayList valueIds = new IntArrayList();
+    valueIds.size(numberOfTuples);
+    Arrays.fill(valueIds.elements(), 0, numberOfTuples, ColumnDictionary.NO_VALUE_ID);
+    encodedColumns.add(valueIds);
+    valueRows.add(new ArrayList<LongArrayList>());
+    plis.add(new PositionListIndex());
+  }
+
+  protected void addValue(int column, int row, String value) {
+    ColumnDictionary dictionary = dictionaries.get(column);
+    List<LongArrayList> rowsOfValues = valueRows.get(column);
+    int valueId = dictionary.encode(value);
+    if (valueId == rowsOfValues.size()) {
+      rowsOfValues.add(new LongArrayList());
+    }
+    encodedColumns.get(column).add(valueId);
+
+    LongArrayList rows = rowsOfValues.get(valueId);
+    rows.add(row);
+    PositionListIndex pli = plis.get(column);
+    // The list is shared with the index, a value seen twice becomes a new cluster.
+    if (rows.size() == 2) {
+      pli.getClusters().add(rows);
+    }
+    if (rows.size() >= 2) {
+      pli.resetCachedProperties();
+    }
+  }
+
+  protected int getValueId(int column, long row) {
+    IntArrayList valueIds = encodedColumns.get(column);
+    return row < valueIds.size() ? valueIds.getInt((int) row) : ColumnDictionary.NO_VALUE_ID;
+  }
+
+  protected LongArrayList getRowsOfValue(int column, int valueId) {
+    return valueRows.get(column).get(valueId);
+  }
+}
@@ -0,0 +1,377 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.util.NoSuchElementException;
+
+/**
+ * One level of the column combination lattice, i.e. column combinations of equal size, stored as
+ * packed bitsets in a single primitive array. A column combination occupies {@link
+ * #getWordsPerSet()} longs, bit i of the combination is bit i % 64 of word i / 64. Levels with at
+ * most 64 columns use one long per combination like {@link LongColumnCombinationBitset#getBits()}.
+ * <p>
+ * The combinations are kept in ascending colexicographic order, i.e. ordered by the packed bits
+ * read as unsigned number. In this order all combinations that only differ in their lowest column
+ * are adjacent, so the apriori-gen join of two combinations with equal higher columns is a linear
+ * scan, and the generated candidates are again in colexicographic order. A candidate is only
+ * returned if all its subsets of the current level's size are in the level. Candidates are streamed
+ * by the {@link CandidateIterator} without allocating objects per candidate.
+ */
+public class LatticeLevel {
+
+  protected int numberOfColumns;
+  protected int wordsPerSet;
+  protected int level;
+  protected LongArrayList sets = new LongArrayList();
+
+  /**
+   * Creates an empty level.
+   *
+   * @param numberOfColumns the number of columns of the lattice
+   * @param level           the number of columns of every combination in the level
+   */
+  public LatticeLevel(int numberOfColumns, int level) {
+    this.numberOfColumns = numberOfColumns;
+    this.wordsPerSet = Math.max(1, (numberOfColumns + 63) >>> 6);
+    this.level = level;
+  }
+
+  /**
+   * Creates the level of all single column combinations.
+   *
+   * @param numberOfColumns the number of columns of the lattice
+   * @return the first level of the lattice
+   */
+  public static LatticeLevel createFirstLevel(int numberOfColumns) {
+    LatticeLevel firstLevel = new LatticeLevel(numberOfColumns, 1);
+    long[] set = new long[firstLevel.wordsPerSet];
+    for (int column = 0; column < numberOfColumns; column++) {
+      set[column >>> 6] = 1L << column;
+      firstLevel.append(set);
+      set[column >>> 6] = 0;
+    }
+    return firstLevel;
+  }
+
+  /**
+   * Adds a column combination, e.g. a candidate of the previous level that has not been pruned.
+   * Combinations have to be added in ascending colexicographic order, which is the order of the
+   * {@link CandidateIterator}.
+   *
+   * @param set the packed column combination
+   */
+  public void add(long[] set) {
+    if (size() > 0
+        && compare(set, 0, sets.elements(), sets.size() - wordsPerSet, wordsPerSet) <= 0) {
+      throw new IllegalArgumentException(
+        "Column combinations have to be added in ascending colexicographic order.");
+    }
+    append(set);
+  }
+
+  /**
+   * Adds a column combination of a level with at most 64 columns.
+   *
+   * @param bits the packed column combination
+   * @see #add(long[])
+   */
+  public void add(long bits) {
+    checkSingleWord();
+    add(new long[]{bits});
+  }
+
+  protected void append(long[] set) {
+    sets.addElements(sets.size(), set, 0, wordsPerSet);
+  }
+
+  /**
+   * @return the number of column combinations in the level
+   */
+  public int size() {
+    return sets.size() / wordsPerSet;
+  }
+
+  /**
+   * @return the number of columns of every combination in the level
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * @return the number of columns of the lattice
+   */
+  public int getNumberOfColumns() {
+    return numberOfColumns;
+  }
+
+  /**
+   * @return the number of longs of a packed column combination
+   */
+  public int getWordsPerSet() {
+    return wordsPerSet;
+  }
+
+  /**
+   * @param index the position of the column combination
+   * @return the packed column combination of a level with at most 64 columns
+   */
+  public long getBits(int index) {
+    checkSingleWord();
+    return sets.getLong(index);
+  }
+
+  /**
+   * Copies a packed column combination into the target.
+   *
+   * @param index  the position of the column combination
+   * @param target an array of {@link #getWordsPerSet()} longs
+   */
+  public void getSet(int index, long[] target) {
+    sets.getElements(index * wordsPerSet, target, 0, wordsPerSet);
+  }
+
+  /**
+   * @param index the position of the column combination
+   * @return the column combination as {@link ColumnCombinationBitset}
+   */
+  public ColumnCombinationBitset getColumnCombination(int index) {
+    if (numberOfColumns <= LongColumnCombinationBitset.MAX_COLUMNS) {
+      return LongColumnCombinationBitset.fromBits(sets.getLong(index));
+    }
+    ColumnCombinationBitset columnCombination = new ColumnCombinationBitset();
+    for (int word = 0; word < wordsPerSet; word++) {
+      for (long bits = sets.getLong(index * wordsPerSet + word); bits != 0; bits &= bits - 1) {
+        columnCombination.addColumn((word << 6) + Long.numberOfTrailingZeros(bits));
+      }
+    }
+    return columnCombination;
+  }
+
+  /**
+   * @param set a packed column combination
+   * @return true iff the level contains the column combination
+   */
+  public boolean contains(long[] set) {
+    return indexOf(set) >= 0;
+  }
+
+  protected int indexOf(long[] set) {
+    long[] elements = sets.elements();
+    int low = 0;
+    int high = size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compare(elements, middle * wordsPerSet, set, 0, wordsPerSet);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Compares two packed column combinations in colexicographic order.
+   */
+  protected static int compare(long[] a, int aOffset, long[] b, int bOffset, int words) {
+    for (int word = words - 1; word >= 0; word--) {
+      // Flipping the sign bit turns the signed comparison into an unsigned one.
+      long x = a[aOffset + word] ^ Long.MIN_VALUE;
+      long y = b[bOffset + word] ^ Long.MIN_VALUE;
+      if (x != y) {
+        return x < y ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * The iterator must not be used after the level has been modified.
+   *
+   * @return an iterator over the candidates of the next level
+   */
+  public CandidateIterator candidateIterator() {
+    return new CandidateIterator();
+  }
+
+  /**
+   * Collects all candidates of the next level.
+   *
+   * @return the next level
+   */
+  public LatticeLevel generateNextLevel() {
+    LatticeLevel nextLevel = new LatticeLevel(numberOfColumns, level + 1);
+    long[] candidate = new long[wordsPerSet];
+    CandidateIterator candidates = candidateIterator();
+    while (candidates.hasNext()) {
+      candidates.next(candidate);
+      nextLevel.append(candidate);
+    }
+    return nextLevel;
+  }
+
+  protected void checkSingleWord() {
+    if (wordsPerSet != 1) {
+      throw new IllegalStateException("The level has more than 64 columns.");
+    }
+  }
+
+  /**
+   * Streams the apriori-gen candidates of the next level in colexicographic order. Two column
+   * combinations that only differ in their lowest column are joined and the union is pruned if one
+   * of its other subsets is missing in the level.
+   */
+  public class CandidateIterator {
+
+    protected long[] elements = sets.elements();
+    protected int numberOfSets = size();
+    protected int runStart = 0;
+    protected int runEnd;
+    protected int first;
+    protected int second;
+    protected long[] candidate = new long[wordsPerSet];
+    protected long[] subset = new long[wordsPerSet];
+    protected boolean hasCandidate;
+
+    protected CandidateIterator() {
+      runEnd = findRunEnd(runStart);
+      first = runStart;
+      second = runStart + 1;
+      advance();
+    }
+
+    /**
+     * @return true iff there are more candidates
+     */
+    public boolean hasNext() {
+      return hasCandidate;
+    }
+
+    /**
+     * Copies the next candidate into the target.
+     *
+     * @param target an array of {@link #getWordsPerSet()} longs
+     */
+    public void next(long[] target) {
+      if (!hasCandidate) {
+        throw new NoSuchElementException();
+      }
+      System.arraycopy(candidate, 0, target, 0, wordsPerSet);
+      advance();
+    }
+
+    /**
+     * @return the next packed candidate of a level with at most 64 columns
+     */
+    public long nextBits() {
+      checkSingleWord();
+      if (!hasCandidate) {
+        throw new NoSuchElementException();
+      }
+      long bits = candidate[0];
+      advance();
+      return bits;
+    }
+
+    protected void advance() {
+      hasCandidate = false;
+      while (runStart < numberOfSets) {
+        if (second >= runEnd) {
+          runStart = runEnd;
+          runEnd = findRunEnd(runStart);
+          first = runStart;
+          second = runStart + 1;
+        } else if (first >= second) {
+          second++;
+          first = runStart;
+        } else {
+          for (int word = 0; word < wordsPerSet; word++) {
+            candidate[word] =
+              elements[first * wordsPerSet + word] | elements[second * wordsPerSet + word];
+          }
+          first++;
+          if (hasAllSubsets()) {
+            hasCandidate = true;
+            return;
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the end of the run of column combinations with equal columns except the lowest one.
+     */
+    protected int findRunEnd(int start) {
+      int end = start + 1;
+      while (end < numberOfSets && haveEqualHigherColumns(start, end)) {
+        end++;
+      }
+      return Math.min(end, numberOfSets);
+    }
+
+    protected boolean haveEqualHigherColumns(int a, int b) {
+      boolean aLowestCleared = false;
+      boolean bLowestCleared = false;
+      for (int word = 0; word < wordsPerSet; word++) {
+        long x = elements[a * wordsPerSet + word];
+        long y = elements[b * wordsPerSet + word];
+        if (!aLowestCleared && x != 0) {
+          x &= x - 1;
+          aLowestCleared = true;
+        }
+        if (!bLowestCleared && y != 0) {
+          y &= y - 1;
+          bLowestCleared = true;
+        }
+        if (x != y) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Checks the subsets without one of the higher columns, the subsets without one of the two
+     * lowest columns are the joined combinations.
+     */
+    protected boolean hasAllSubsets() {
+      System.arraycopy(candidate, 0, subset, 0, wordsPerSet);
+      int skippedColumns = 0;
+      for (int word = 0; word < wordsPerSet; word++) {
+        for (long bits = candidate[word]; bits != 0; bits &= bits - 1) {
+          if (skippedColumns < 2) {
+            skippedColumns++;
+            continue;
+          }
+          long column = Long.lowestOneBit(bits);
+          subset[word] &= ~column;
+          boolean found = indexOf(subset) >= 0;
+          subset[word] |= column;
+          if (!found) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,401 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.ints.AbstractIntIterator;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import org.apache.lucene.util.OpenBitSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link ColumnCombinationBitset} for relations with at most 64 columns that is backed by a
+ * single long. Set operations with other long backed column combinations only need a few bit
+ * operations and do not allocate bitsets. For allocation free lattice traversal the static methods
+ * operate directly on the packed longs and {@link #setBitIterator()} iterates the set bits without
+ * boxing. Column combinations with more than 64 columns are only supported by the {@link
+ * OpenBitSet} based {@link ColumnCombinationBitset}, {@link ColumnCombinationBitsetFactory} picks
+ * the representation automatically.
+ */
+public class LongColumnCombinationBitset extends ColumnCombinationBitset {
+
+  public static final int MAX_COLUMNS = 64;
+
+  protected long bits;
+
+  public LongColumnCombinationBitset(int... columnIndices) {
+    super((OpenBitSet) null);
+    for (int columnIndex : columnIndices) {
+      addColumn(columnIndex);
+    }
+  }
+
+  /**
+   * Creates a column combination from the packed bits.
+   *
+   * @param bits the packed column combination, bit i represents column i
+   * @return the column combination
+   */
+  public static LongColumnCombinationBitset fromBits(long bits) {
+    LongColumnCombinationBitset columnCombination = new LongColumnCombinationBitset();
+    columnCombination.bits = bits;
+    return columnCombination;
+  }
+
+  /**
+   * @return the packed column combination, bit i represents column i
+   */
+  public long getBits() {
+    return bits;
+  }
+
+  /**
+   * @param subset   a packed column combination
+   * @param superset a packed column combination
+   * @return true iff all columns of subset are in superset
+   */
+  public static boolean isSubset(long subset, long superset) {
+    return (subset & ~superset) == 0;
+  }
+
+  /**
+   * Returns the lowest set bit at or after the given index.
+   *
+   * @param bits      a packed column combination
+   * @param fromIndex the first index to check
+   * @return the index of the set bit or -1 if there is no set bit
+   */
+  public static int nextSetBit(long bits, int fromIndex) {
+    if (fromIndex >= MAX_COLUMNS) {
+      return -1;
+    }
+    long remaining = bits & (-1L << fromIndex);
+    return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+  }
+
+  /**
+   * @return an iterator over the set column indices in ascending order
+   */
+  public IntIterator setBitIterator() {
+    return new SetBitIterator(bits);
+  }
+
+  @Override
+  protected OpenBitSet getBitset() {
+    return new OpenBitSet(new long[]{bits}, 1);
+  }
+
+  @Override
+  protected ColumnCombinationBitset setColumns(OpenBitSet bitset) {
+    long[] words = bitset.getBits();
+    for (int i = 1; i < bitset.getNumWords(); i++) {
+      if (words[i] != 0) {
+        checkColumnIndex(i * MAX_COLUMNS + Long.numberOfTrailingZeros(words[i]));
+      }
+    }
+    this.bits = bitset.getNumWords() == 0 ? 0 : words[0];
+    return this;
+  }
+
+  @Override
+  public ColumnCombinationBitset addColumn(int columnIndex) {
+    checkColumnIndex(columnIndex);
+    bits |= 1L << columnIndex;
+    return this;
+  }
+
+  @Override
+  public ColumnCombinationBitset removeColumn(int columnIndex) {
+    if (columnIndex < MAX_COLUMNS) {
+      bits &= ~(1L << columnIndex);
+    }
+    return this;
+  }
+
+  protected void checkColumnIndex(int columnIndex) {
+    if (columnIndex >= MAX_COLUMNS) {
+      throw new IndexOutOfBoundsException(
+        "Column index " + columnIndex + " exceeds the " + MAX_COLUMNS + " supported columns.");
+    }
+  }
+
+  /**
+   * The hash code is equal to the one of the {@link ColumnCombinationBitset} with the same columns.
+   */
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    // Same as OpenBitSet.hashCode() for a single word.
+    long h = Long.rotateLeft(bits, 1);
+    int bitsetHash = (int) ((h >> 32) ^ h) + 0x98761234;
+    int result = 1;
+    result = prime * result + bitsetHash;
+    result = prime * result + size();
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof LongColumnCombinationBitset) {
+      return bits == ((LongColumnCombinationBitset) obj).bits;
+    }
+    return super.equals(obj);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder stringBuilder = new StringBuilder();
+
+    stringBuilder.append("ColumnCombinationBitset ");
+
+    int lastSetBitIndex = MAX_COLUMNS - 1 - Long.numberOfLeadingZeros(bits);
+    for (int i = 0; i <= lastSetBitIndex; i++) {
+      stringBuilder.append(containsColumn(i) ? 1 : 0);
+    }
+
+    return stringBuilder.toString();
+  }
+
+  @Override
+  public boolean containsSubset(ColumnCombinationBitset potentialSubset) {
+    if (potentialSubset instanceof LongColumnCombinationBitset) {
+      return isSubset(((LongColumnCombinationBitset) potentialSubset).bits, bits);
+    }
+    return super.containsSubset(potentialSubset);
+  }
+
+  @Override
+  public boolean isSubsetOf(ColumnCombinationBitset potentialSuperset) {
+    if (potentialSuperset instanceof LongColumnCombinationBitset) {
+      return isSubset(bits, ((LongColumnCombinationBitset) potentialSuperset).bits);
+    }
+    return super.isSubsetOf(potentialSuperset);
+  }
+
+  @Override
+  public List<Integer> getSetBits() {
+    List<Integer> setBits = new ArrayList<>(size());
+    for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+      setBits.add(Long.numberOfTrailingZeros(remaining));
+    }
+    return setBits;
+  }
+
+  @Override
+  public List<Integer> getClearedBits(int numberOfColumns) {
+    List<Integer> clearedBits = new ArrayList<>();
+    for (int columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
+      if (!containsColumn(columnIndex)) {
+        clearedBits.add(columnIndex);
+      }
+    }
+    return clearedBits;
+  }
+
+  @Override
+  public ColumnCombinationBitset minus(ColumnCombinationBitset otherColumnCombination) {
+    if (otherColumnCombination instanceof LongColumnCombinationBitset) {
+      return fromBits(bits & ~((LongColumnCombinationBitset) otherColumnCombination).bits);
+    }
+    return new ColumnCombinationBitset(this).minus(otherColumnCombination);
+  }
+
+  @Override
+  public ColumnCombinationBitset union(ColumnCombinationBitset other) {
+    if (other instanceof LongColumnCombinationBitset) {
+      return fromBits(bits | ((LongColumnCombinationBitset) other).bits);
+    }
+    return new ColumnCombinationBitset(this).union(other);
+  }
+
+  @Override
+  public ColumnCombinationBitset intersect(ColumnCombinationBitset other) {
+    if (other instanceof LongColumnCombinationBitset) {
+      return fromBits(bits & ((LongColumnCombinationBitset) other).bits);
+    }
+    return new ColumnCombinationBitset(this).intersect(other);
+  }
+
+  @Override
+  public List<ColumnCombinationBitset> getContainedOneColumnCombinations() {
+    List<ColumnCombinationBitset> oneColumnCombinations = new ArrayList<>(size());
+    for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+      oneColumnCombinations.add(fromBits(Long.lowestOneBit(remaining)));
+    }
+    return oneColumnCombinations;
+  }
+
+  @Override
+  public List<ColumnCombinationBitset> getDirectSupersets(int numberOfColumns) {
+    checkColumnIndex(numberOfColumns - 1);
+    long allBits = numberOfColumns == MAX_COLUMNS ? -1L : (1L << numberOfColumns) - 1;
+    return getDirectSupersets(fromBits(allBits));
+  }
+
+  @Override
+  public List<ColumnCombinationBitset> getDirectSupersets(ColumnCombinationBitset maximalSuperset) {
+    if (!(maximalSuperset instanceof LongColumnCombinationBitset)) {
+      return new ColumnCombinationBitset(this).getDirectSupersets(maximalSuperset);
+    }
+    long candidates = ((LongColumnCombinationBitset) maximalSuperset).bits & ~bits;
+    List<ColumnCombinationBitset> supersets = new ArrayList<>(Long.bitCount(candidates));
+    for (; candidates != 0; candidates &= candidates - 1) {
+      supersets.add(fromBits(bits | Long.lowestOneBit(candidates)));
+    }
+    return supersets;
+  }
+
+  @Override
+  protected List<ColumnCombinationBitset> getNSubsetColumnCombinationsSupersetOfBottomUp(
+    ColumnCombinationBitset subSet, int n) {
+    if (n > size() || n < subSet.size()) {
+      return new ArrayList<>();
+    }
+    long subSetBits = toLong(subSet).bits;
+    int[] freeColumns = new int[Long.bitCount(bits & ~subSetBits)];
+    int freeColumn = 0;
+    for (long freeBits = bits & ~subSetBits; freeBits != 0; freeBits &= freeBits - 1) {
+      freeColumns[freeColumn++] = Long.numberOfTrailingZeros(freeBits);
+    }
+
+    LatticeLevel level = generateLevel(freeColumns.length, n - subSet.size());
+    if (level == null) {
+      List<ColumnCombinationBitset> currentLevel = new ArrayList<>(1);
+      currentLevel.add(subSet);
+      return currentLevel;
+    }
+    List<ColumnCombinationBitset> currentLevel = new ArrayList<>(level.size());
+    for (int index = 0; index < level.size(); index++) {
+      long superset = subSetBits;
+      for (long localBits = level.getBits(index); localBits != 0; localBits &= localBits - 1) {
+        superset |= 1L << freeColumns[Long.numberOfTrailingZeros(localBits)];
+      }
+      currentLevel.add(fromBits(superset));
+    }
+    return currentLevel;
+  }
+
+  @Override
+  protected List<ColumnCombinationBitset> getDirectSubsetsSupersetOfFast(
+    ColumnCombinationBitset subSet) {
+    long columnsToRemove = bits;
+    if (subSet != null) {
+      columnsToRemove &= ~toLong(subSet).bits;
+    }
+    List<ColumnCombinationBitset> subsets = new ArrayList<>(Long.bitCount(columnsToRemove));
+    for (; columnsToRemove != 0; columnsToRemove &= columnsToRemove - 1) {
+      subsets.add(fromBits(bits & ~Long.lowestOneBit(columnsToRemove)));
+    }
+    return subsets;
+  }
+
+  /**
+   * Converts a column combination with columns below 64 to the long representation.
+   */
+  protected static LongColumnCombinationBitset toLong(ColumnCombinationBitset columnCombination) {
+    if (columnCombination instanceof LongColumnCombinationBitset) {
+      return (LongColumnCombinationBitset) columnCombination;
+    }
+    LongColumnCombinationBitset converted = new LongColumnCombinationBitset();
+    converted.setColumns(columnCombination.getBitset());
+    return converted;
+  }
+
+  @Override
+  public int size() {
+    return Long.bitCount(bits);
+  }
+
+  @Override
+  public ColumnCombinationBitset setAllBits(int dimension) {
+    checkColumnIndex(dimension - 1);
+    bits = dimension == MAX_COLUMNS ? -1L : (1L << dimension) - 1;
+    return this;
+  }
+
+  @Override
+  public boolean containsColumn(int columnIndex) {
+    return columnIndex < MAX_COLUMNS && (bits & (1L << columnIndex)) != 0;
+  }
+
+  @Override
+  public boolean containsColumn(int... columnIndices) {
+    for (int columnIndex : columnIndices) {
+      if (!containsColumn(columnIndex)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public ColumnCombinationBitset invert(int size) {
+    checkColumnIndex(size - 1);
+    long mask = size == MAX_COLUMNS ? -1L : (1L << size) - 1;
+    return fromBits(bits ^ mask);
+  }
+
+  @Override
+  public int compareTo(ColumnCombinationBitset other) {
+    if (!(other instanceof LongColumnCombinationBitset)) {
+      return super.compareTo(other);
+    }
+    long otherBits = ((LongColumnCombinationBitset) other).bits;
+    int sizeComparator = size() - Long.bitCount(otherBits);
+    if (sizeComparator != 0) {
+      return sizeComparator;
+    }
+    // Compare the set bits at the first position where the ascending set bit lists differ.
+    long difference = bits ^ otherBits;
+    if (difference == 0) {
+      return 0;
+    }
+    int column = Long.numberOfTrailingZeros(difference);
+    if ((bits & (1L << column)) != 0) {
+      return column - nextSetBit(otherBits, column);
+    }
+    return nextSetBit(bits, column) - column;
+  }
+
+  /**
+   * Iterates the set bits of a packed column combination in ascending order.
+   */
+  protected static class SetBitIterator extends AbstractIntIterator {
+
+    protected long remaining;
+
+    public SetBitIterator(long bits) {
+      this.remaining = bits;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return remaining != 0;
+    }
+
+    @Override
+    public int nextInt() {
+      if (remaining == 0) {
+        throw new NoSuchElementException();
+      }
+      int setBit = Long.numberOfTrailingZeros(remaining);
+      remaining &= remaining - 1;
+      return setBit;
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.algorithm_execution.FileCreationException;
+
+import java.nio.IntBuffer;
+
+/**
+ * A {@link CompactPositionListIndex} layout whose row and offset arrays live outside of the java
+ * heap, either in direct buffers or in memory mapped temporary files (see {@link PLIStorage}). This
+ * allows to profile datasets that are larger than the heap of the executing jvm.
+ * <p>
+ * The intersection streams over the buffers of both indices. The probing table and all counters
+ * are scratch buffers of the storage that are reused by all intersections of the same thread (see
+ * {@link PLIStorage#getIntersectionBuffers(int, int)}), only the entries touched by an intersection
+ * are reset afterwards. So the heap usage of an intersection is constant and its cost is
+ * proportional to the sizes of the two indices. The result is calculated in two passes: the first
+ * pass counts the result rows so that the second pass can write them into buffers of the exact
+ * size.
+ */
+public class MappedPositionListIndex {
+
+  protected IntBuffer rows;
+  protected IntBuffer clusterOffsets;
+  protected int numberOfRows;
+  protected PLIStorage storage;
+  protected long rawKeyError = -1;
+
+  /**
+   * @param rows           the row ids of all non unary clusters, cluster after cluster
+   * @param clusterOffsets the start offsets of the clusters in rows followed by the number of rows
+   * @param numberOfRows   the number of rows in the relation the index was built on
+   * @param storage        the storage to allocate intersection results from
+   */
+  public MappedPositionListIndex(IntBuffer rows, IntBuffer clusterOffsets, int numberOfRows,
+                                 PLIStorage storage) {
+    this.rows = rows;
+    this.clusterOffsets = clusterOffsets;
+    this.numberOfRows = numberOfRows;
+    this.storage = storage;
+  }
+
+  /**
+   * Copies the given {@link CompactPositionListIndex} into the storage.
+   *
+   * @param pli     the index to copy
+   * @param storage the storage to copy the index to
+   * @return the index in the storage
+   * @throws FileCreationException if the storage cannot be allocated
+   */
+  public static MappedPositionListIndex store(CompactPositionListIndex pli, PLIStorage storage)
+    throws FileCreationException {
+    IntBuffer rows = storage.allocate(pli.getRows().length);
+    rows.put(pli.getRows());
+    IntBuffer clusterOffsets = storage.allocate(pli.getClusterOffsets().length);
+    clusterOffsets.put(pli.getClusterOffsets());
+    return new MappedPositionListIndex(rows, clusterOffsets, pli.getNumberOfRows(), storage);
+  }
+
+  /**
+   * Copies the index back onto the heap.
+   *
+   * @return the equivalent {@link CompactPositionListIndex}
+   */
+  public CompactPositionListIndex toCompactPositionListIndex() {
+    int[] heapRows = new int[rows.capacity()];
+    for (int i = 0; i < heapRows.length; i++) {
+      heapRows[i] = rows.get(i);
+    }
+    int[] heapOffsets = new int[clusterOffsets.capacity()];
+    for (int i = 0; i < heapOffsets.length; i++) {
+      heapOffsets[i] = clusterOffsets.get(i);
+    }
+    return new CompactPositionListIndex(heapRows, heapOffsets, numberOfRows);
+  }
+
+  /**
+   * Intersects the given MappedPositionListIndex with this MappedPositionListIndex returning a new
+   * MappedPositionListIndex in the storage of this index.
+   *
+   * @param otherPLI the other {@link MappedPositionListIndex} to intersect
+   * @return the intersected {@link MappedPositionListIndex}
+   * @throws FileCreationException if the storage cannot be allocated
+   */
+  public MappedPositionListIndex intersect(MappedPositionListIndex otherPLI)
+    throws FileCreationException {
+    int resultNumberOfRows = Math.max(numberOfRows, otherPLI.numberOfRows);
+    PLIStorage.IntersectionBuffers buffers = storage.getIntersectionBuffers(numberOfRows, size());
+    IntBuffer rowToClusterId = buffers.rowToClusterId;
+    IntBuffer clusterCounts = buffers.clusterCounts;
+    IntBuffer clusterCursors = buffers.clusterCursors;
+    IntBuffer touchedClusters = buffers.touchedClusters;
+    // Cluster ids are stored incremented by one so that the zeroed table marks unary rows.
+    for (int cluster = 0; cluster < size(); cluster++) {
+      for (int i = clusterOffsets.get(cluster); i < clusterOffsets.get(cluster + 1); i++) {
+        rowToClusterId.put(rows.get(i), cluster + 1);
+      }
+    }
+
+    IntBuffer resultRows;
+    IntBuffer resultOffsets;
+    try {
+      // First pass: count the rows and clusters of the result.
+      int resultRowCount = 0;
+      int resultClusterCount = 0;
+      for (int cluster = 0; cluster < otherPLI.size(); cluster++) {
+        int touchedCount = countCluster(otherPLI, cluster, rowToClusterId, clusterCounts,
+          touchedClusters);
+        for (int t = 0; t < touchedCount; t++) {
+          int count = clusterCounts.get(touchedClusters.get(t));
+          if (count > 1) {
+            resultRowCount += count;
+            resultClusterCount++;
+          }
+          clusterCounts.put(touchedClusters.get(t), 0);
+        }
+      }
+
+      // Second pass: write the result.
+      resultRows = storage.allocate(resultRowCount);
+      resultOffsets = storage.allocate(resultClusterCount + 1);
+      int rowPosition = 0;
+      int clusterPosition = 0;
+      for (int cluster = 0; cluster < otherPLI.size(); cluster++) {
+        int touchedCount = countCluster(otherPLI, cluster, rowToClusterId, clusterCounts,
+          touchedClusters);
+        for (int t = 0; t < touchedCount; t++) {
+          int buildCluster = touchedClusters.get(t);
+          if (clusterCounts.get(buildCluster) > 1) {
+            resultOffsets.put(clusterPosition++, rowPosition);
+            clusterCursors.put(buildCluster, rowPosition);
+            rowPosition += clusterCounts.get(buildCluster);
+          }
+        }
+        for (int i = otherPLI.clusterOffsets.get(cluster);
+             i < otherPLI.clusterOffsets.get(cluster + 1); i++) {
+          int row = otherPLI.rows.get(i);
+          int buildCluster = probe(rowToClusterId, row);
+          if (buildCluster >= 0 && clusterCounts.get(buildCluster) > 1) {
+            int cursor = clusterCursors.get(buildCluster);
+            resultRows.put(cursor, row);
+            clusterCursors.put(buildCluster, cursor + 1);
+          }
+        }
+        for (int t = 0; t < touchedCount; t++) {
+          clusterCounts.put(touchedClusters.get(t), 0);
+        }
+      }
+      resultOffsets.put(clusterPosition, rowPosition);
+    } finally {
+      // Only the rows of this index were written to the shared probing table.
+      for (int i = 0; i < rows.capacity(); i++) {
+        rowToClusterId.put(rows.get(i), 0);
+      }
+    }
+
+    return new MappedPositionListIndex(resultRows, resultOffsets, resultNumberOfRows, storage);
+  }
+
+  /**
+   * Counts the rows of one cluster of the probe side per build side cluster.
+   *
+   * @return the number of touched build side clusters
+   */
+  protected int countCluster(MappedPositionListIndex probePLI, int cluster,
+                             IntBuffer rowToClusterId, IntBuffer clusterCounts,
+                             IntBuffer touchedClusters) {
+    int touchedCount = 0;
+    for (int i = probePLI.clusterOffsets.get(cluster);
+         i < probePLI.clusterOffsets.get(cluster + 1); i++) {
+      int buildCluster = probe(rowToClusterId, probePLI.rows.get(i));
+      if (buildCluster < 0) {
+        continue;
+      }
+      int count = clusterCounts.get(buildCluster);
+      if (count == 0) {
+        touchedClusters.put(touchedCount++, buildCluster);
+      }
+      clusterCounts.put(buildCluster, count + 1);
+    }
+    return touchedCount;
+  }
+
+  /**
+   * @return the build side cluster of the row or -1 if the row is in a unary cluster
+   */
+  protected int probe(IntBuffer rowToClusterId, int row) {
+    if (row >= rowToClusterId.capacity()) {
+      return -1;
+    }
+    return rowToClusterId.get(row) - 1;
+  }
+
+  /**
+   * Returns the number of non unary clusters.
+   *
+   * @return the number of clusters in the {@link MappedPositionListIndex}
+   */
+  public int size() {
+    return clusterOffsets.capacity() - 1;
+  }
+
+  /**
+   * @return the {@link MappedPositionListIndex} contains only unary clusters.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * @return the column represented by the {@link MappedPositionListIndex} is unique.
+   */
+  public boolean isUnique() {
+    return isEmpty();
+  }
+
+  /**
+   * Returns the number of columns to remove in order to make column unique. (raw key error)
+   *
+   * @return raw key error
+   */
+  public long getRawKeyError() {
+    if (rawKeyError == -1) {
+      rawKeyError = rows.capacity() - size();
+    }
+
+    return rawKeyError;
+  }
+
+  /**
+   * @return the number of rows in the relation
+   */
+  public int getNumberOfRows() {
+    return numberOfRows;
+  }
+}
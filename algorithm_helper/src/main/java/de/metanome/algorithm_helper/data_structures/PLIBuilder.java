@@ -15,10 +15,14 @@
  */
 package de.metanome.algorithm_helper.data_structures;
 
+import de.metanome.algorithm_integration.input.BatchRelationalInput;
+import de.metanome.algorithm_integration.input.ColumnBatch;
 import de.metanome.algorithm_integration.input.InputIterationException;
 import de.metanome.algorithm_integration.input.RelationalInput;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -32,6 +36,9 @@ public class PLIBuilder {
   protected List<HashMap<String, LongArrayList>> columns = null;
   protected RelationalInput input;
   protected boolean nullEqualsNull;
+  protected File snapshotFile = null;
+  protected String snapshotKey = null;
+  protected List<PositionListIndex> pliList = null;
 
   public PLIBuilder(RelationalInput input) {
     this.input = input;
@@ -44,18 +51,59 @@ public class PLIBuilder {
   }
 
   /**
-   * Builds a {@link PositionListIndex} for every column in the input.
+   * Creates a builder that reuses the {@link PositionListIndex}es of an earlier execution. If the
+   * snapshot file contains a valid {@link PLISnapshot} for the input key the input is not parsed to
+   * build the plis, otherwise the snapshot is written after building them.
+   *
+   * @param input          the input to build the plis from
+   * @param nullEqualsNull whether null values are equal
+   * @param snapshotFile   the file to read the snapshot from or write it to
+   * @param inputKey       the key of the input (see {@link PLISnapshot#createInputKey(File,
+   *                       String)})
+   */
+  public PLIBuilder(RelationalInput input, boolean nullEqualsNull, File snapshotFile,
+                    String inputKey) {
+    this(input, nullEqualsNull);
+    this.snapshotFile = snapshotFile;
+    this.snapshotKey = inputKey + ":" + nullEqualsNull;
+  }
+
+  /**
+   * Builds a {@link PositionListIndex} for every column in the input. The plis are built once,
+   * later calls return the same list.
    *
    * @return list of plis for all columns
    * @throws InputIterationException if the input cannot be iterated
    */
   public List<PositionListIndex> getPLIList() throws InputIterationException {
+    if (pliList != null) {
+      return pliList;
+    }
+
+    if (snapshotFile != null && columns == null) {
+      PLISnapshot snapshot = PLISnapshot.read(snapshotFile, snapshotKey);
+      if (snapshot != null) {
+        this.numberOfTuples = snapshot.getNumberOfTuples();
+        pliList = snapshot.getPLIList();
+        return pliList;
+      }
+    }
+
     List<List<LongArrayList>> rawPLIs = getRawPLIs();
     List<PositionListIndex> result = new ArrayList<>();
     for (List<LongArrayList> rawPLI : rawPLIs) {
       result.add(new PositionListIndex(rawPLI));
     }
-    return result;
+
+    if (snapshotFile != null) {
+      try {
+        new PLISnapshot(this.numberOfTuples, result).write(snapshotFile, snapshotKey);
+      } catch (IOException e) {
+        // The snapshot only speeds up later executions, the plis are still valid.
+      }
+    }
+    pliList = result;
+    return pliList;
   }
 
   /**
@@ -113,6 +161,10 @@ public class PLIBuilder {
   }
 
   protected void calculateUnpurgedPLI() throws InputIterationException {
+    if (input instanceof BatchRelationalInput) {
+      calculateUnpurgedPLI((BatchRelationalInput) input);
+      return;
+    }
     long rowCount = 0;
     this.numberOfTuples = 0;
     while (input.hasNext()) {
@@ -127,6 +179,28 @@ public class PLIBuilder {
     }
   }
 
+  /**
+   * Adds the values of the input column by column in {@link ColumnBatch}es.
+   *
+   * @param batchInput the input that reads batches natively
+   * @throws InputIterationException if the input cannot be iterated
+   */
+  protected void calculateUnpurgedPLI(BatchRelationalInput batchInput)
+    throws InputIterationException {
+    this.numberOfTuples = 0;
+    ColumnBatch batch = new ColumnBatch(batchInput.numberOfColumns());
+    int batchSize;
+    while ((batchSize = batchInput.nextBatch(batch)) > 0) {
+      for (int column = 0; column < batch.getNumberOfColumns(); column++) {
+        String[] values = batch.getColumn(column);
+        for (int row = 0; row < batchSize; row++) {
+          addValue(this.numberOfTuples + row, column, values[row]);
+        }
+      }
+      this.numberOfTuples += batchSize;
+    }
+  }
+
   protected void addValue(long rowCount, int columnCount, String attributeCell) {
     if (columns.size() <= columnCount) {
       columns.add(new HashMap<String, LongArrayList>());
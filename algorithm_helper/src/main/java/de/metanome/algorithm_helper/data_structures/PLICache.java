@@ -0,0 +1,230 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A memory bounded cache of {@link PositionListIndex}es keyed by {@link ColumnCombinationBitset}.
+ * The single column plis are pinned and never evicted, all other plis share a byte budget. Missing
+ * plis are derived by intersecting the best cached subsets of the requested column combination.
+ * <p>
+ * If the budget is exceeded the cache evicts among its least recently used entries the one that is
+ * the cheapest to derive again, i.e. the one with the fewest columns. All methods are thread safe,
+ * intersections are calculated outside of the cache's lock.
+ */
+public class PLICache {
+
+  /**
+   * Number of least recently used entries that are considered for eviction.
+   */
+  protected static final int EVICTION_WINDOW = 8;
+
+  protected Map<ColumnCombinationBitset, PositionListIndex> columnPLIs = new HashMap<>();
+  protected LinkedHashMap<ColumnCombinationBitset, PositionListIndex> entries =
+    new LinkedHashMap<>(16, 0.75f, true);
+  protected long maximumBytes;
+  protected long currentBytes = 0;
+
+  /**
+   * @param columnPLIs   the plis of all single columns in column order
+   * @param maximumBytes the estimated number of bytes the multi column plis may occupy
+   */
+  public PLICache(List<PositionListIndex> columnPLIs, long maximumBytes) {
+    this.maximumBytes = maximumBytes;
+    int columnIndex = 0;
+    for (PositionListIndex pli : columnPLIs) {
+      this.columnPLIs.put(new ColumnCombinationBitset(columnIndex++), pli);
+    }
+  }
+
+  /**
+   * Returns the cached pli of the column combination.
+   *
+   * @param columnCombination the column combination to look up
+   * @return the cached pli or null if the pli is not cached
+   */
+  public synchronized PositionListIndex get(ColumnCombinationBitset columnCombination) {
+    PositionListIndex pli = columnPLIs.get(columnCombination);
+    if (pli != null) {
+      return pli;
+    }
+    return entries.get(columnCombination);
+  }
+
+  /**
+   * Returns the pli of the column combination. Missing plis are calculated from the cached subsets
+   * and added to the cache.
+   *
+   * @param columnCombination the non empty column combination to look up
+   * @return the pli of the column combination
+   * @throws IllegalArgumentException if the column combination is empty or contains a column
+   *                                  without a single column pli
+   */
+  public PositionListIndex getOrCalculate(ColumnCombinationBitset columnCombination) {
+    checkColumnCombination(columnCombination);
+    List<PositionListIndex> subsetPLIs = new ArrayList<>();
+    synchronized (this) {
+      PositionListIndex pli = get(columnCombination);
+      if (pli != null) {
+        return pli;
+      }
+      collectBestSubsets(columnCombination, subsetPLIs);
+    }
+
+    PositionListIndex pli = subsetPLIs.get(0);
+    for (int i = 1; i < subsetPLIs.size(); i++) {
+      pli = pli.intersect(subsetPLIs.get(i));
+    }
+    put(columnCombination, pli);
+    return pli;
+  }
+
+  protected void checkColumnCombination(ColumnCombinationBitset columnCombination) {
+    if (columnCombination.isEmpty()) {
+      throw new IllegalArgumentException("The column combination is empty.");
+    }
+    for (int columnIndex : columnCombination.getSetBits()) {
+      if (columnIndex >= columnPLIs.size()) {
+        throw new IllegalArgumentException(
+          "There is no pli of column " + columnIndex + ", the cache has " + columnPLIs.size()
+            + " columns.");
+      }
+    }
+  }
+
+  /**
+   * Greedily selects cached subsets that together cover the column combination. In every step the
+   * subset covering the most uncovered columns is chosen, ties are broken by the smaller raw key
+   * error as smaller plis are cheaper to intersect. Uncovered columns are always covered by their
+   * pinned single column plis.
+   */
+  protected void collectBestSubsets(ColumnCombinationBitset columnCombination,
+                                    List<PositionListIndex> subsetPLIs) {
+    ColumnCombinationBitset uncovered = new ColumnCombinationBitset(columnCombination);
+    while (!uncovered.isEmpty()) {
+      ColumnCombinationBitset bestKey = null;
+      PositionListIndex bestPLI = null;
+      int bestCoverage = 1;
+      for (Map.Entry<ColumnCombinationBitset, PositionListIndex> entry : entries.entrySet()) {
+        ColumnCombinationBitset key = entry.getKey();
+        if (!key.isSubsetOf(columnCombination)) {
+          continue;
+        }
+        int coverage = key.intersect(uncovered).size();
+        if (coverage > bestCoverage || (coverage == bestCoverage && bestPLI != null
+          && entry.getValue().getRawKeyError() < bestPLI.getRawKeyError())) {
+          bestKey = key;
+          bestPLI = entry.getValue();
+          bestCoverage = coverage;
+        }
+      }
+      if (bestKey == null) {
+        for (int columnIndex : uncovered.getSetBits()) {
+          subsetPLIs.add(columnPLIs.get(new ColumnCombinationBitset(columnIndex)));
+        }
+        return;
+      }
+      // Touch the used entry so that it is not evicted soon.
+      entries.get(bestKey);
+      subsetPLIs.add(bestPLI);
+      uncovered = uncovered.minus(bestKey);
+    }
+  }
+
+  /**
+   * Adds the pli of a multi column combination to the cache. Plis larger than the whole budget are
+   * not cached.
+   *
+   * @param columnCombination the column combination
+   * @param pli               the pli of the column combination
+   */
+  public synchronized void put(ColumnCombinationBitset columnCombination, PositionListIndex pli) {
+    if (columnPLIs.containsKey(columnCombination)) {
+      return;
+    }
+    long size = estimateSize(pli);
+    if (size > maximumBytes) {
+      return;
+    }
+    PositionListIndex previous =
+      entries.put(new ColumnCombinationBitset(columnCombination), pli);
+    if (previous != null) {
+      currentBytes -= estimateSize(previous);
+    }
+    currentBytes += size;
+    evict();
+  }
+
+  protected void evict() {
+    while (currentBytes > maximumBytes && !entries.isEmpty()) {
+      Iterator<Map.Entry<ColumnCombinationBitset, PositionListIndex>> iterator =
+        entries.entrySet().iterator();
+      ColumnCombinationBitset victim = null;
+      for (int i = 0; i < EVICTION_WINDOW && iterator.hasNext(); i++) {
+        ColumnCombinationBitset candidate = iterator.next().getKey();
+        if (victim == null || candidate.size() < victim.size()) {
+          victim = candidate;
+        }
+      }
+      currentBytes -= estimateSize(entries.remove(victim));
+    }
+  }
+
+  /**
+   * @return the estimated number of bytes occupied by the cached multi column plis
+   */
+  public synchronized long getCurrentBytes() {
+    return currentBytes;
+  }
+
+  /**
+   * @return the number of cached multi column plis
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Removes all multi column plis from the cache.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    currentBytes = 0;
+  }
+
+  /**
+   * Estimates the heap size of a {@link PositionListIndex} in bytes, i.e. the row ids, one list and
+   * array object per cluster and the cluster list.
+   *
+   * @param pli the pli to estimate
+   * @return the estimated size in bytes
+   */
+  public static long estimateSize(PositionListIndex pli) {
+    long size = 64;
+    for (LongArrayList cluster : pli.getClusters()) {
+      size += 56 + 8L * cluster.elements().length;
+    }
+    return size;
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows appended by one {@link IncrementalPLIBuilder#append} call. The delta brings a {@link
+ * PositionListIndex} of any column combination that was calculated before the append up to date
+ * without intersecting the single column indices again. Only the new rows and the old rows that
+ * share all values with a new row are looked at.
+ */
+public class PLIDelta {
+
+  protected IncrementalPLIBuilder builder;
+  protected int firstRow;
+  protected int endRow;
+
+  protected PLIDelta(IncrementalPLIBuilder builder, int firstRow, int endRow) {
+    this.builder = builder;
+    this.firstRow = firstRow;
+    this.endRow = endRow;
+  }
+
+  /**
+   * Returns the {@link PositionListIndex} of the column combination after the append. The given
+   * index must cover exactly the rows before the append and is not changed, unchanged clusters are
+   * shared with the returned index.
+   *
+   * @param pli               the index of the column combination before the append
+   * @param columnCombination the columns of the index
+   * @return the index of the column combination including the appended rows
+   */
+  public PositionListIndex apply(PositionListIndex pli, ColumnCombinationBitset columnCombination) {
+    List<Integer> columns = columnCombination.getSetBits();
+    if (columns.isEmpty()) {
+      throw new IllegalArgumentException("The column combination must not be empty.");
+    }
+
+    // Group the new rows by their values in the column combination.
+    Map<IntArrayList, LongArrayList> newRowsByValues = new LinkedHashMap<>();
+    for (int row = firstRow; row < endRow; row++) {
+      IntArrayList valueIds = getValueIds(columns, row);
+      if (valueIds == null) {
+        continue;
+      }
+      LongArrayList rows = newRowsByValues.get(valueIds);
+      if (rows == null) {
+        rows = new LongArrayList();
+        newRowsByValues.put(valueIds, rows);
+      }
+      rows.add(row);
+    }
+
+    LongOpenHashSet replacedRows = new LongOpenHashSet();
+    List<LongArrayList> changedClusters = new ArrayList<>();
+    for (Map.Entry<IntArrayList, LongArrayList> entry : newRowsByValues.entrySet()) {
+      LongArrayList cluster = findOldRows(columns, entry.getKey());
+      if (cluster.size() > 1) {
+        // The old rows form a cluster of the given index that is replaced.
+        replacedRows.addAll(cluster);
+      }
+      cluster.addAll(entry.getValue());
+      if (cluster.size() > 1) {
+        changedClusters.add(cluster);
+      }
+    }
+
+    List<LongArrayList> clusters = new ArrayList<>(pli.getClusters().size() + changedClusters.size());
+    for (LongArrayList cluster : pli.getClusters()) {
+      if (replacedRows.isEmpty() || !replacedRows.contains(cluster.getLong(0))) {
+        clusters.add(cluster);
+      }
+    }
+    clusters.addAll(changedClusters);
+    return new PositionListIndex(clusters);
+  }
+
+  /**
+   * @return the first appended row
+   */
+  public long getFirstRow() {
+    return firstRow;
+  }
+
+  /**
+   * @return the number of appended rows
+   */
+  public long getNumberOfRows() {
+    return endRow - firstRow;
+  }
+
+  /**
+   * @return true iff no rows were appended
+   */
+  public boolean isEmpty() {
+    return endRow == firstRow;
+  }
+
+  /**
+   * @return the value ids of the row in the columns or null if the row is unique in one of them
+   */
+  protected IntArrayList getValueIds(List<Integer> columns, long row) {
+    IntArrayList valueIds = new IntArrayList(columns.size());
+    for (int column : columns) {
+      int valueId = getValueId(column, row);
+      if (valueId == ColumnDictionary.NO_VALUE_ID) {
+        return null;
+      }
+      valueIds.add(valueId);
+    }
+    return valueIds;
+  }
+
+  /**
+   * Finds all rows before the append with the given values. Only the rows of the rarest value are
+   * checked.
+   */
+  protected LongArrayList findOldRows(List<Integer> columns, IntArrayList valueIds) {
+    int rarestColumn = 0;
+    for (int i = 1; i < columns.size(); i++) {
+      if (builder.getRowsOfValue(columns.get(i), valueIds.getInt(i)).size()
+        < builder.getRowsOfValue(columns.get(rarestColumn), valueIds.getInt(rarestColumn)).size()) {
+        rarestColumn = i;
+      }
+    }
+
+    LongArrayList oldRows = new LongArrayList();
+    LongArrayList candidates =
+      builder.getRowsOfValue(columns.get(rarestColumn), valueIds.getInt(rarestColumn));
+    // The rows of a value are in ascending order.
+    for (int i = 0; i < candidates.size() && candidates.getLong(i) < firstRow; i++) {
+      long candidate = candidates.getLong(i);
+      boolean matches = true;
+      for (int j = 0; j < columns.size() && matches; j++) {
+        matches = j == rarestColumn || getValueId(columns.get(j), candidate) == valueIds.getInt(j);
+      }
+      if (matches) {
+        oldRows.add(candidate);
+      }
+    }
+    return oldRows;
+  }
+
+  protected int getValueId(int column, long row) {
+    if (column >= builder.getDictionaries().size()) {
+      return ColumnDictionary.NO_VALUE_ID;
+    }
+    return builder.getValueId(column, row);
+  }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Intersects one shared {@link CompactPositionListIndex} with many partners. The probing table of
+ * the shared index is built once on construction and each partner is streamed through it. This is
+ * the typical access pattern of lattice traversals, where a parent index is intersected with the
+ * indices of all single columns. The probing table is only read, so the partners can be processed
+ * in parallel, every thread using its own scratch arrays.
+ */
+public class PLIIntersector {
+
+  protected CompactPositionListIndex sharedPLI;
+  protected int[] rowToClusterId;
+
+  /**
+   * @param sharedPLI the index all partners are intersected with
+   */
+  public PLIIntersector(CompactPositionListIndex sharedPLI) {
+    this.sharedPLI = sharedPLI;
+    this.rowToClusterId = new int[sharedPLI.getNumberOfRows()];
+    Arrays.fill(this.rowToClusterId, CompactPositionListIndex.UNARY_ROW);
+    sharedPLI.fillProbingTable(this.rowToClusterId);
+  }
+
+  /**
+   * Intersects the shared index with the partner.
+   *
+   * @param partner the index to intersect with the shared index
+   * @return the intersected {@link CompactPositionListIndex}
+   */
+  public CompactPositionListIndex intersect(CompactPositionListIndex partner) {
+    CompactPositionListIndex.IntersectionScratch scratch = prepareScratch(partner);
+    return scratch.probe(rowToClusterId, partner,
+      Math.max(sharedPLI.getNumberOfRows(), partner.getNumberOfRows()));
+  }
+
+  /**
+   * Calculates the raw key error of the intersection of the shared index with the partner without
+   * materializing the intersection.
+   *
+   * @param partner the index to intersect with the shared index
+   * @return the raw key error of the intersection
+   */
+  public long keyError(CompactPositionListIndex partner) {
+    return prepareScratch(partner).probeKeyError(rowToClusterId, partner);
+  }
+
+  /**
+   * Intersects the shared index with all partners in the current thread.
+   *
+   * @param partners the indices to intersect with the shared index
+   * @return the intersections in the order of the partners
+   */
+  public List<CompactPositionListIndex> intersectAll(List<CompactPositionListIndex> partners) {
+    List<CompactPositionListIndex> intersections = new ArrayList<>(partners.size());
+    for (CompactPositionListIndex partner : partners) {
+      intersections.add(intersect(partner));
+    }
+    return intersections;
+  }
+
+  /**
+   * Intersects the shared index with all partners in parallel.
+   *
+   * @param partners the indices to intersect with the shared index
+   * @param pool     the pool to run the intersections on
+   * @return the intersections in the order of the partners
+   */
+  public List<CompactPositionListIndex> intersectAll(List<CompactPositionListIndex> partners,
+                                                    ForkJoinPool pool) {
+    CompactPositionListIndex[] intersections = new CompactPositionListIndex[partners.size()];
+    pool.invoke(new IntersectTask(partners, 0, partners.size(), intersections, null));
+    return Arrays.asList(intersections);
+  }
+
+  /**
+   * Calculates the raw key errors of the intersections with all partners in the current thread.
+   *
+   * @param partners the indices to intersect with the shared index
+   * @return the raw key errors in the order of the partners
+   */
+  public long[] keyErrorAll(List<CompactPositionListIndex> partners) {
+    long[] keyErrors = new long[partners.size()];
+    for (int i = 0; i < keyErrors.length; i++) {
+      keyErrors[i] = keyError(partners.get(i));
+    }
+    return keyErrors;
+  }
+
+  /**
+   * Calculates the raw key errors of the intersections with all partners in parallel.
+   *
+   * @param partners the indices to intersect with the shared index
+   * @param pool     the pool to run the calculations on
+   * @return the raw key errors in the order of the partners
+   */
+  public long[] keyErrorAll(List<CompactPositionListIndex> partners, ForkJoinPool pool) {
+    long[] keyErrors = new long[partners.size()];
+    pool.invoke(new IntersectTask(partners, 0, partners.size(), null, keyErrors));
+    return keyErrors;
+  }
+
+  protected CompactPositionListIndex.IntersectionScratch prepareScratch(
+    CompactPositionListIndex partner) {
+    CompactPositionListIndex.IntersectionScratch scratch = CompactPositionListIndex.getScratch();
+    scratch.ensureCapacity(sharedPLI.size(),
+      Math.min(sharedPLI.getRows().length, partner.getRows().length));
+    return scratch;
+  }
+
+  /**
+   * Processes a range of partners, either materializing the intersections or only calculating
+   * their key errors. The range is split until every task owns a single partner.
+   */
+  protected class IntersectTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    protected List<CompactPositionListIndex> partners;
+    protected int from;
+    protected int to;
+    protected CompactPositionListIndex[] intersections;
+    protected long[] keyErrors;
+
+    public IntersectTask(List<CompactPositionListIndex> partners, int from, int to,
+                         CompactPositionListIndex[] intersections, long[] keyErrors) {
+      this.partners = partners;
+      this.from = from;
+      this.to = to;
+      this.intersections = intersections;
+      this.keyErrors = keyErrors;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new IntersectTask(partners, from, middle, intersections, keyErrors),
+          new IntersectTask(partners, middle, to, intersections, keyErrors));
+        return;
+      }
+      if (to == from) {
+        return;
+      }
+
+      if (intersections != null) {
+        intersections[from] = intersect(partners.get(from));
+      } else {
+        keyErrors[from] = keyError(partners.get(from));
+      }
+    }
+  }
+}
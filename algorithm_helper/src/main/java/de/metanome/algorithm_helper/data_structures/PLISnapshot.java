@@ -0,0 +1,236 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary snapshot of the {@link PositionListIndex}es of all columns of an input, so that later
+ * executions on the same input do not need to parse it again. The file starts with a header that
+ * contains the input key (see {@link #createInputKey(File, String)}) and the number of tuples. Every
+ * column follows with its own header, the number of clusters and the byte length of the column,
+ * and the clusters. The rows of a cluster are stored sorted as variable length encoded deltas.
+ * <p>
+ * Snapshots are read through a memory mapped buffer. A snapshot is only used if its version and
+ * input key match, otherwise the input has to be parsed again.
+ */
+public class PLISnapshot {
+
+  protected static final int FILE_MAGIC = 0x504c4953;
+  protected static final int FILE_VERSION = 1;
+
+  protected long numberOfTuples;
+  protected List<PositionListIndex> plis;
+
+  public PLISnapshot(long numberOfTuples, List<PositionListIndex> plis) {
+    this.numberOfTuples = numberOfTuples;
+    this.plis = plis;
+  }
+
+  /**
+   * @return the number of tuples of the input
+   */
+  public long getNumberOfTuples() {
+    return numberOfTuples;
+  }
+
+  /**
+   * @return the plis of all columns of the input
+   */
+  public List<PositionListIndex> getPLIList() {
+    return plis;
+  }
+
+  /**
+   * Creates the key that identifies an input in a snapshot. The key consists of a hash of the
+   * content of the input file and the settings the file was parsed with.
+   *
+   * @param inputFile      the parsed file
+   * @param parserSettings all settings that change the parsed values, e.g. separator and quote char
+   * @return the input key
+   * @throws IOException if the input file cannot be read
+   */
+  public static String createInputKey(File inputFile, String parserSettings) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException("Could not hash the input file.", e);
+    }
+    byte[] buffer = new byte[1 << 16];
+    try (InputStream input = new FileInputStream(inputFile)) {
+      int length;
+      while ((length = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, length);
+      }
+    }
+
+    StringBuilder key = new StringBuilder();
+    for (byte hashByte : digest.digest()) {
+      key.append(String.format("%02x", hashByte));
+    }
+    return key.append(':').append(inputFile.length()).append(':').append(parserSettings)
+      .toString();
+  }
+
+  /**
+   * Writes the snapshot to the given file. The snapshot is written to a temporary file first that
+   * replaces the given file, so an interrupted write never leaves a partial snapshot.
+   *
+   * @param file     the snapshot file
+   * @param inputKey the key of the input the plis were built from
+   * @throws IOException if the snapshot cannot be written
+   */
+  public void write(File file, String inputKey) throws IOException {
+    File temporaryFile = new File(file.getPath() + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(
+      new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+      output.writeInt(FILE_MAGIC);
+      output.writeInt(FILE_VERSION);
+      writeString(output, inputKey);
+      writeVarLong(output, numberOfTuples);
+      writeVarLong(output, plis.size());
+
+      ByteArrayOutputStream column = new ByteArrayOutputStream();
+      for (PositionListIndex pli : plis) {
+        column.reset();
+        for (LongArrayList cluster : pli.getClusters()) {
+          long[] rows = cluster.toLongArray();
+          Arrays.sort(rows);
+          writeVarLong(column, rows.length);
+          long previousRow = 0;
+          for (long row : rows) {
+            writeVarLong(column, row - previousRow);
+            previousRow = row;
+          }
+        }
+        writeVarLong(output, pli.getClusters().size());
+        writeVarLong(output, column.size());
+        column.writeTo(output);
+      }
+    }
+    if (file.exists() && !file.delete() || !temporaryFile.renameTo(file)) {
+      temporaryFile.delete();
+      throw new IOException("Could not replace the snapshot " + file + ".");
+    }
+  }
+
+  /**
+   * Reads the snapshot from the given file.
+   *
+   * @param file     the snapshot file
+   * @param inputKey the key of the current input
+   * @return the snapshot or null if the file does not exist, is corrupt or belongs to another input
+   */
+  public static PLISnapshot read(File file, String inputKey) {
+    if (!file.isFile()) {
+      return null;
+    }
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+         FileChannel channel = randomAccessFile.getChannel()) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != FILE_MAGIC || buffer.getInt() != FILE_VERSION
+        || !inputKey.equals(readString(buffer))) {
+        return null;
+      }
+
+      long numberOfTuples = readVarLong(buffer);
+      int numberOfColumns = (int) readVarLong(buffer);
+      List<PositionListIndex> plis = new ArrayList<>(Math.min(numberOfColumns, buffer.remaining()));
+      for (int column = 0; column < numberOfColumns; column++) {
+        int numberOfClusters = (int) readVarLong(buffer);
+        long columnEnd = readVarLong(buffer) + buffer.position();
+        List<LongArrayList> clusters =
+          new ArrayList<>(Math.min(numberOfClusters, buffer.remaining()));
+        for (int i = 0; i < numberOfClusters; i++) {
+          int clusterSize = (int) readVarLong(buffer);
+          LongArrayList cluster = new LongArrayList(Math.min(clusterSize, buffer.remaining()));
+          long row = 0;
+          for (int j = 0; j < clusterSize; j++) {
+            row += readVarLong(buffer);
+            cluster.add(row);
+          }
+          clusters.add(cluster);
+        }
+        if (buffer.position() != columnEnd) {
+          return null;
+        }
+        plis.add(new PositionListIndex(clusters));
+      }
+      return buffer.hasRemaining() ? null : new PLISnapshot(numberOfTuples, plis);
+    } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+      // Corrupt snapshots with impossible sizes are treated like missing ones.
+      return null;
+    }
+  }
+
+  protected static void writeVarLong(OutputStream output, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      output.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    output.write((int) value);
+  }
+
+  protected static long readVarLong(ByteBuffer buffer) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte next = buffer.get();
+      value |= (long) (next & 0x7F) << shift;
+      if (next >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed variable length number.");
+  }
+
+  protected static void writeString(OutputStream output, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(output, bytes.length);
+    output.write(bytes);
+  }
+
+  protected static String readString(ByteBuffer buffer) {
+    long length = readVarLong(buffer);
+    if (length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[(int) length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.algorithm_execution.FileCreationException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Allocates the int arrays of {@link MappedPositionListIndex}es outside of the java heap. Freshly
+ * allocated buffers are always zeroed.
+ */
+public abstract class PLIStorage {
+
+  /**
+   * The largest number of ints a single buffer can address.
+   */
+  public static final int MAX_CAPACITY = Integer.MAX_VALUE / 4;
+
+  protected ThreadLocal<IntersectionBuffers> intersectionBuffers = new ThreadLocal<>();
+
+  /**
+   * Allocates a zeroed buffer.
+   *
+   * @param capacity the number of ints in the buffer
+   * @return the buffer
+   * @throws FileCreationException if the backing storage cannot be created
+   */
+  public abstract IntBuffer allocate(int capacity) throws FileCreationException;
+
+  /**
+   * Returns the intersection scratch buffers of the calling thread, grown to the given sizes. The
+   * buffers are allocated once per storage and thread and are shared by all intersections of the
+   * indices in this storage. Users have to reset every entry they touched to zero.
+   *
+   * @param numberOfRows     the number of rows of the probing table
+   * @param numberOfClusters the number of build side clusters
+   * @return the zeroed scratch buffers
+   * @throws FileCreationException if the buffers cannot be allocated
+   */
+  protected IntersectionBuffers getIntersectionBuffers(int numberOfRows, int numberOfClusters)
+    throws FileCreationException {
+    IntersectionBuffers buffers = intersectionBuffers.get();
+    if (buffers == null) {
+      buffers = new IntersectionBuffers();
+      intersectionBuffers.set(buffers);
+    }
+    buffers.ensureCapacity(this, numberOfRows, numberOfClusters);
+    return buffers;
+  }
+
+  protected static void checkCapacity(int capacity) {
+    if (capacity < 0 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException(
+        "Cannot allocate a buffer of " + capacity + " ints, the maximum is " + MAX_CAPACITY + ".");
+    }
+  }
+
+  /**
+   * @return a storage that allocates direct byte buffers
+   */
+  public static PLIStorage direct() {
+    return new DirectStorage();
+  }
+
+  /**
+   * Returns a storage that maps temporary files of the given {@link FileGenerator}. The files are
+   * deleted when the generator is closed.
+   *
+   * @param fileGenerator the generator of the temporary files
+   * @return a storage that allocates memory mapped files
+   */
+  public static PLIStorage mapped(FileGenerator fileGenerator) {
+    return new MappedFileStorage(fileGenerator);
+  }
+
+  protected static class DirectStorage extends PLIStorage {
+
+    @Override
+    public IntBuffer allocate(int capacity) {
+      checkCapacity(capacity);
+      return ByteBuffer.allocateDirect((int) (4L * capacity)).order(ByteOrder.nativeOrder())
+        .asIntBuffer();
+    }
+  }
+
+  /**
+   * Allocates the buffers as slices of memory mapped windows. The windows are appended to a few
+   * large segment files, so that the number of files and mappings does not grow with the number of
+   * buffers. Buffers larger than a window are mapped on their own.
+   */
+  protected static class MappedFileStorage extends PLIStorage {
+
+    public static final int DEFAULT_WINDOW_SIZE = 16 * 1024 * 1024;
+    public static final long DEFAULT_SEGMENT_SIZE = 1024L * 1024 * 1024;
+
+    protected FileGenerator fileGenerator;
+    protected int windowSize;
+    protected long segmentSize;
+
+    protected RandomAccessFile segment = null;
+    protected long segmentLength = 0;
+    protected ByteBuffer window = null;
+
+    public MappedFileStorage(FileGenerator fileGenerator) {
+      this(fileGenerator, DEFAULT_WINDOW_SIZE, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param fileGenerator the generator of the segment files
+     * @param windowSize    the number of bytes mapped at once
+     * @param segmentSize   the number of bytes after which a new segment file is started
+     */
+    protected MappedFileStorage(FileGenerator fileGenerator, int windowSize, long segmentSize) {
+      this.fileGenerator = fileGenerator;
+      this.windowSize = windowSize;
+      this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public synchronized IntBuffer allocate(int capacity) throws FileCreationException {
+      checkCapacity(capacity);
+      int size = 4 * capacity;
+      ByteBuffer buffer;
+      if (size > windowSize) {
+        buffer = map(size);
+      } else {
+        if (window == null || window.remaining() < size) {
+          window = map(windowSize);
+        }
+        buffer = window.slice();
+        buffer.limit(size);
+        window.position(window.position() + size);
+      }
+      return buffer.order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /**
+     * Maps the given number of bytes at the end of the current segment, which grows the file by
+     * zeroes.
+     */
+    protected ByteBuffer map(int size) throws FileCreationException {
+      try {
+        if (segment == null || (segmentLength > 0 && segmentLength + size > segmentSize)) {
+          openSegment();
+        }
+        ByteBuffer mapped =
+          segment.getChannel().map(FileChannel.MapMode.READ_WRITE, segmentLength, size);
+        segmentLength += size;
+        return mapped;
+      } catch (IOException e) {
+        throw new FileCreationException("Could not map temporary file.", e);
+      }
+    }
+
+    protected void openSegment() throws FileCreationException, IOException {
+      // The mappings stay valid after the file has been closed.
+      if (segment != null) {
+        segment.close();
+        segment = null;
+      }
+      File file = fileGenerator.getTemporaryFile();
+      segment = new RandomAccessFile(file, "rw");
+      segmentLength = 0;
+    }
+  }
+
+  /**
+   * The probing table and cluster counters of {@link MappedPositionListIndex#intersect}. The
+   * buffers grow at least by doubling, so that a growing lattice of indices allocates them only a
+   * logarithmic number of times.
+   */
+  protected static class IntersectionBuffers {
+
+    protected IntBuffer rowToClusterId;
+    protected IntBuffer clusterCounts;
+    protected IntBuffer clusterCursors;
+    protected IntBuffer touchedClusters;
+
+    protected void ensureCapacity(PLIStorage storage, int numberOfRows, int numberOfClusters)
+      throws FileCreationException {
+      if (rowToClusterId == null || rowToClusterId.capacity() < numberOfRows) {
+        rowToClusterId = storage.allocate(grow(rowToClusterId, numberOfRows));
+      }
+      if (clusterCounts == null || clusterCounts.capacity() < numberOfClusters) {
+        int capacity = grow(clusterCounts, numberOfClusters);
+        clusterCounts = storage.allocate(capacity);
+        clusterCursors = storage.allocate(capacity);
+        touchedClusters = storage.allocate(capacity);
+      }
+    }
+
+    protected static int grow(IntBuffer buffer, int required) {
+      if (buffer == null) {
+        return required;
+      }
+      return (int) Math.min(Math.max(required, 2L * buffer.capacity()), MAX_CAPACITY);
+    }
+  }
+}
@@ -0,0 +1,358 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Constructs a list of {@link CompactPositionListIndex}es from the given {@link
+ * de.metanome.algorithm_integration.input.RelationalInput} in a single pass. The rows are read in
+ * batches and the columns of every batch are dictionary encoded in parallel on a {@link
+ * ForkJoinPool}, every column being owned by exactly one task. The position list indices are then
+ * derived from the value ids, again one task per column. The {@link ColumnDictionary}s of all
+ * columns are a byproduct.
+ */
+public class ParallelPLIBuilder {
+
+  public static final int DEFAULT_BATCH_SIZE = 4096;
+
+  protected RelationalInput input;
+  protected boolean nullEqualsNull;
+  protected ForkJoinPool pool;
+  protected int batchSize = DEFAULT_BATCH_SIZE;
+  protected GlobalValueDictionary valueDictionary = null;
+
+  protected int numberOfTuples = -1;
+  protected List<ColumnDictionary> dictionaries = null;
+  protected List<IntArrayList> encodedColumns = null;
+  protected List<CompactPositionListIndex> plis = null;
+
+  public ParallelPLIBuilder(RelationalInput input) {
+    this(input, true);
+  }
+
+  public ParallelPLIBuilder(RelationalInput input, boolean nullEqualsNull) {
+    this(input, nullEqualsNull, null);
+  }
+
+  /**
+   * @param input          the input to build the indices on
+   * @param nullEqualsNull whether null values should end up in the same cluster
+   * @param pool           the pool to run the tasks on, if null a pool with one thread per core is
+   *                       created and shut down after the build
+   */
+  public ParallelPLIBuilder(RelationalInput input, boolean nullEqualsNull, ForkJoinPool pool) {
+    this.input = input;
+    this.nullEqualsNull = nullEqualsNull;
+    this.pool = pool;
+  }
+
+  /**
+   * Sets the number of rows that are read before they are encoded in parallel.
+   *
+   * @param batchSize the number of rows per batch
+   * @return the builder
+   */
+  public ParallelPLIBuilder setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+    return this;
+  }
+
+  /**
+   * Encodes the values of all columns with a dictionary that may be shared with other builders, so
+   * that a value occurring in several columns or inputs is stored only once. The column
+   * dictionaries then stay empty.
+   *
+   * @param valueDictionary the shared dictionary
+   * @return the builder
+   */
+  public ParallelPLIBuilder setValueDictionary(GlobalValueDictionary valueDictionary) {
+    this.valueDictionary = valueDictionary;
+    return this;
+  }
+
+  /**
+   * Builds a {@link CompactPositionListIndex} for every column in the input.
+   *
+   * @return list of compact plis for all columns
+   * @throws InputIterationException if the input cannot be iterated
+   */
+  public List<CompactPositionListIndex> getCompactPLIList() throws InputIterationException {
+    if (plis == null) {
+      build();
+    }
+    return plis;
+  }
+
+  /**
+   * Builds a {@link PositionListIndex} for every column in the input.
+   *
+   * @return list of plis for all columns
+   * @throws InputIterationException if the input cannot be iterated
+   */
+  public List<PositionListIndex> getPLIList() throws InputIterationException {
+    List<PositionListIndex> result = new ArrayList<>();
+    for (CompactPositionListIndex pli : getCompactPLIList()) {
+      result.add(pli.toPositionListIndex());
+    }
+    return result;
+  }
+
+  /**
+   * Returns the dictionaries of all columns. Can be used after the plis were calculated. The
+   * dictionaries are empty if a shared {@link GlobalValueDictionary} was set.
+   *
+   * @return the value dictionary of every column
+   * @throws InputIterationException if the plis have not been calculated
+   */
+  public List<ColumnDictionary> getDictionaries() throws InputIterationException {
+    if (dictionaries == null) {
+      throw new InputIterationException();
+    }
+    return dictionaries;
+  }
+
+  /**
+   * Returns the number of tuples in the input after calculating the plis.
+   *
+   * @return number of tuples in dataset
+   * @throws InputIterationException if the plis have not been calculated
+   */
+  public long getNumberOfTuples() throws InputIterationException {
+    if (this.numberOfTuples == -1) {
+      throw new InputIterationException();
+    }
+    return this.numberOfTuples;
+  }
+
+  protected void build() throws InputIterationException {
+    boolean ownsPool = pool == null;
+    ForkJoinPool buildPool = ownsPool ? new ForkJoinPool() : pool;
+    try {
+      encodeInput(buildPool);
+      plis = Arrays.asList(new CompactPositionListIndex[encodedColumns.size()]);
+      buildPool.invoke(new BuildPLIsTask(0, encodedColumns.size()));
+      // Free the value ids, the dictionaries are kept.
+      encodedColumns = null;
+    } finally {
+      if (ownsPool) {
+        buildPool.shutdown();
+      }
+    }
+  }
+
+  protected void encodeInput(ForkJoinPool buildPool) throws InputIterationException {
+    dictionaries = new ArrayList<>();
+    encodedColumns = new ArrayList<>();
+    numberOfTuples = 0;
+
+    List<List<String>> batch = new ArrayList<>(batchSize);
+    while (input.hasNext()) {
+      List<String> row = input.next();
+      while (dictionaries.size() < row.size()) {
+        dictionaries.add(new ColumnDictionary());
+        // Rows encoded before the column appeared have no value in it.
+        IntArrayList valueIds = new IntArrayList();
+        valueIds.size(numberOfTuples - batch.size());
+        Arrays.fill(valueIds.elements(), 0, valueIds.size(), ColumnDictionary.NO_VALUE_ID);
+        encodedColumns.add(valueIds);
+      }
+      batch.add(row);
+      numberOfTuples++;
+      if (batch.size() == batchSize) {
+        buildPool.invoke(new EncodeColumnsTask(batch, 0, dictionaries.size()));
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      buildPool.invoke(new EncodeColumnsTask(batch, 0, dictionaries.size()));
+    }
+  }
+
+  /**
+   * Derives the compact position list index from the value ids of one column with a counting sort
+   * over the value ids. Ids of the shared {@link GlobalValueDictionary} are first mapped to dense
+   * ids of the column, so that the counters are proportional to the column's distinct values and
+   * not to the distinct values of all columns.
+   *
+   * @param valueIds   the value ids of the column in row order
+   * @param dictionary the dictionary of the column
+   * @return the compact position list index of the column
+   */
+  protected CompactPositionListIndex buildPLI(IntArrayList valueIds, ColumnDictionary dictionary) {
+    int numberOfRows = valueIds.size();
+    Int2IntOpenHashMap localIds = null;
+    int[] counts;
+    if (valueDictionary == null) {
+      counts = new int[dictionary.size()];
+      for (int row = 0; row < numberOfRows; row++) {
+        int valueId = valueIds.getInt(row);
+        if (valueId != ColumnDictionary.NO_VALUE_ID) {
+          counts[valueId]++;
+        }
+      }
+    } else {
+      localIds = new Int2IntOpenHashMap();
+      localIds.defaultReturnValue(ColumnDictionary.NO_VALUE_ID);
+      IntArrayList localCounts = new IntArrayList();
+      for (int row = 0; row < numberOfRows; row++) {
+        int valueId = valueIds.getInt(row);
+        if (valueId == ColumnDictionary.NO_VALUE_ID) {
+          continue;
+        }
+        int localId = localIds.get(valueId);
+        if (localId == ColumnDictionary.NO_VALUE_ID) {
+          localId = localCounts.size();
+          localIds.put(valueId, localId);
+          localCounts.add(0);
+        }
+        localCounts.set(localId, localCounts.getInt(localId) + 1);
+      }
+      counts = localCounts.toIntArray();
+    }
+
+    int totalRows = 0;
+    int numberOfClusters = 0;
+    for (int count : counts) {
+      if (count > 1) {
+        totalRows += count;
+        numberOfClusters++;
+      }
+    }
+
+    // Reuse the counts as write cursors of the non unary clusters.
+    int[] clusterOffsets = new int[numberOfClusters + 1];
+    int cluster = 0;
+    int offset = 0;
+    for (int valueId = 0; valueId < counts.length; valueId++) {
+      if (counts[valueId] > 1) {
+        clusterOffsets[cluster++] = offset;
+        int count = counts[valueId];
+        counts[valueId] = offset;
+        offset += count;
+      } else {
+        counts[valueId] = -1;
+      }
+    }
+    clusterOffsets[numberOfClusters] = totalRows;
+
+    int[] rows = new int[totalRows];
+    for (int row = 0; row < numberOfRows; row++) {
+      int valueId = valueIds.getInt(row);
+      if (valueId == ColumnDictionary.NO_VALUE_ID) {
+        continue;
+      }
+      if (localIds != null) {
+        valueId = localIds.get(valueId);
+      }
+      if (counts[valueId] != -1) {
+        rows[counts[valueId]++] = row;
+      }
+    }
+
+    return new CompactPositionListIndex(rows, clusterOffsets, numberOfRows);
+  }
+
+  /**
+   * Dictionary encodes the cells of a column range of one batch. The range is split until every
+   * task owns a single column.
+   */
+  protected class EncodeColumnsTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    protected List<List<String>> batch;
+    protected int fromColumn;
+    protected int toColumn;
+
+    public EncodeColumnsTask(List<List<String>> batch, int fromColumn, int toColumn) {
+      this.batch = batch;
+      this.fromColumn = fromColumn;
+      this.toColumn = toColumn;
+    }
+
+    @Override
+    protected void compute() {
+      if (toColumn - fromColumn > 1) {
+        int middle = (fromColumn + toColumn) >>> 1;
+        invokeAll(new EncodeColumnsTask(batch, fromColumn, middle),
+          new EncodeColumnsTask(batch, middle, toColumn));
+        return;
+      }
+      if (toColumn == fromColumn) {
+        return;
+      }
+
+      ColumnDictionary dictionary = dictionaries.get(fromColumn);
+      IntArrayList valueIds = encodedColumns.get(fromColumn);
+      for (List<String> row : batch) {
+        if (fromColumn >= row.size()) {
+          valueIds.add(ColumnDictionary.NO_VALUE_ID);
+          continue;
+        }
+        String value = row.get(fromColumn);
+        if (!nullEqualsNull && value == null) {
+          valueIds.add(ColumnDictionary.NO_VALUE_ID);
+        } else if (valueDictionary != null) {
+          valueIds.add(valueDictionary.encode(value));
+        } else {
+          valueIds.add(dictionary.encode(value));
+        }
+      }
+    }
+  }
+
+  /**
+   * Builds the position list indices of a column range. The range is split until every task owns a
+   * single column.
+   */
+  protected class BuildPLIsTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    protected int fromColumn;
+    protected int toColumn;
+
+    public BuildPLIsTask(int fromColumn, int toColumn) {
+      this.fromColumn = fromColumn;
+      this.toColumn = toColumn;
+    }
+
+    @Override
+    protected void compute() {
+      if (toColumn - fromColumn > 1) {
+        int middle = (fromColumn + toColumn) >>> 1;
+        invokeAll(new BuildPLIsTask(fromColumn, middle), new BuildPLIsTask(middle, toColumn));
+        return;
+      }
+      if (toColumn == fromColumn) {
+        return;
+      }
+
+      plis.set(fromColumn,
+        buildPLI(encodedColumns.get(fromColumn), dictionaries.get(fromColumn)));
+    }
+  }
+}
@@ -18,6 +18,8 @@ package de.metanome.algorithm_helper.data_structures;
 import it.unimi.dsi.fastutil.longs.*;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Position list indices (or stripped partitions) are an index structure that stores the positions
@@ -27,9 +29,25 @@ import java.util.*;
  */
 public class PositionListIndex {
 
+  /**
+   * Value returned by the cluster id map (see {@link #asClusterIdMap()}) for rows in unary clusters.
+   */
+  public static final long UNARY_CLUSTER = -1;
+
+  /**
+   * Minimal number of rows in the clusters of the probed {@link PositionListIndex} for which {@link
+   * #intersect(PositionListIndex, ForkJoinPool)} runs in parallel.
+   */
+  public static final long PARALLEL_INTERSECTION_THRESHOLD = 1 << 16;
+
+  protected static final long FINGERPRINT_SEED = 0x9e3779b97f4a7c15L;
+
   protected List<LongArrayList> clusters;
   protected long rawKeyError = -1;
 
+  // Lazily built canonical form of the clusters (see getFingerprint), published as a whole
+  protected volatile CanonicalForm canonicalForm;
+
   public PositionListIndex(List<LongArrayList> clusters) {
     this.clusters = clusters;
   }
@@ -54,6 +72,110 @@ public class PositionListIndex {
     return calculateIntersection(otherPLI);
   }
 
+  /**
+   * Intersects the given PositionListIndex with this PositionListIndex in parallel. The clusters of
+   * the given PositionListIndex are split into chunks that are probed against the HashMap of this
+   * PositionListIndex by the tasks of the pool. Every intersected cluster stems from a single
+   * probed cluster, so the partial results are only concatenated. If the given PositionListIndex
+   * has less than {@link #PARALLEL_INTERSECTION_THRESHOLD} rows the intersection runs in the
+   * current thread.
+   *
+   * @param otherPLI the other {@link PositionListIndex} to intersect
+   * @param pool     the pool to run the intersection on
+   * @return the intersected {@link PositionListIndex}
+   */
+  public PositionListIndex intersect(PositionListIndex otherPLI, ForkJoinPool pool) {
+    long[] rowOffsets = new long[otherPLI.clusters.size() + 1];
+    for (int i = 0; i < otherPLI.clusters.size(); i++) {
+      rowOffsets[i + 1] = rowOffsets[i] + otherPLI.clusters.get(i).size();
+    }
+    if (rowOffsets[rowOffsets.length - 1] < PARALLEL_INTERSECTION_THRESHOLD) {
+      return calculateIntersection(otherPLI);
+    }
+
+    Long2LongOpenHashMap hashedPLI = this.asClusterIdMap();
+    long chunkSize = Math.max(rowOffsets[rowOffsets.length - 1] / (pool.getParallelism() * 4),
+      PARALLEL_INTERSECTION_THRESHOLD / 4);
+    return new PositionListIndex(pool.invoke(
+      new IntersectTask(otherPLI.clusters, rowOffsets, 0, otherPLI.clusters.size(), hashedPLI,
+        chunkSize)));
+  }
+
+  /**
+   * Intersects this PositionListIndex with every given PositionListIndex. This PositionListIndex is
+   * converted into a HashMap only once for all intersections. For many partners the {@link
+   * PLIIntersector} on {@link CompactPositionListIndex}es should be preferred.
+   *
+   * @param otherPLIs the other {@link PositionListIndex}es to intersect
+   * @return the intersected {@link PositionListIndex}es in the order of the partners
+   */
+  public List<PositionListIndex> intersectAll(List<PositionListIndex> otherPLIs) {
+    Long2LongOpenHashMap hashedPLI = this.asClusterIdMap();
+    List<PositionListIndex> intersections = new ArrayList<>(otherPLIs.size());
+    for (PositionListIndex otherPLI : otherPLIs) {
+      intersections.add(calculateIntersection(otherPLI, hashedPLI));
+    }
+    return intersections;
+  }
+
+  /**
+   * Calculates the raw key error of the intersection of this PositionListIndex with the given one
+   * without materializing the intersection. Only one counter per cluster of this PositionListIndex
+   * is kept.
+   *
+   * @param otherPLI the other {@link PositionListIndex} to intersect
+   * @return the raw key error of the intersection
+   */
+  public long keyErrorOfIntersection(PositionListIndex otherPLI) {
+    return calculateKeyErrorOfIntersection(otherPLI, this.asClusterIdMap(),
+      new int[clusters.size()]);
+  }
+
+  /**
+   * Calculates the raw key errors of the intersections of this PositionListIndex with every given
+   * PositionListIndex without materializing the intersections. This PositionListIndex is converted
+   * into a HashMap only once for all partners.
+   *
+   * @param otherPLIs the other {@link PositionListIndex}es to intersect
+   * @return the raw key errors in the order of the partners
+   */
+  public long[] keyErrorsOfIntersections(List<PositionListIndex> otherPLIs) {
+    Long2LongOpenHashMap hashedPLI = this.asClusterIdMap();
+    int[] clusterCounts = new int[clusters.size()];
+    long[] keyErrors = new long[otherPLIs.size()];
+    for (int i = 0; i < keyErrors.length; i++) {
+      keyErrors[i] = calculateKeyErrorOfIntersection(otherPLIs.get(i), hashedPLI, clusterCounts);
+    }
+    return keyErrors;
+  }
+
+  /**
+   * Checks whether this PositionListIndex refines the given one, i.e. every cluster of this
+   * PositionListIndex is contained in a single cluster of the other. If this PositionListIndex
+   * belongs to the columns X and the other one to the column A, the functional dependency
+   * {@code X -> A} holds iff X refines A. The check stops at the first cluster that violates the
+   * dependency.
+   *
+   * @param otherPLI the {@link PositionListIndex} of the dependant
+   * @return true iff this PositionListIndex refines the other one
+   */
+  public boolean refines(PositionListIndex otherPLI) {
+    Long2LongOpenHashMap hashedPLI = otherPLI.asClusterIdMap();
+    for (LongArrayList cluster : clusters) {
+      // Rows in unary clusters of the other PositionListIndex are not mapped.
+      long clusterId = hashedPLI.get(cluster.getLong(0));
+      if (clusterId == UNARY_CLUSTER) {
+        return false;
+      }
+      for (int i = 1; i < cluster.size(); i++) {
+        if (hashedPLI.get(cluster.getLong(i)) != clusterId) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
   public List<LongArrayList> getClusters() {
     return clusters;
   }
@@ -72,25 +194,15 @@ public class PositionListIndex {
 
     PositionListIndex clone = new PositionListIndex(newClusters);
     clone.rawKeyError = this.rawKeyError;
+    // The canonical form is immutable and can be shared.
+    clone.canonicalForm = this.canonicalForm;
     return clone;
   }
 
   @Override
   public int hashCode() {
-    final int prime = 31;
-    int result = 1;
-
-    List<LongOpenHashSet> setCluster = convertClustersToSets(clusters);
-
-    Collections.sort(setCluster, new Comparator<LongSet>() {
-
-      @Override
-      public int compare(LongSet o1, LongSet o2) {
-        return o1.hashCode() - o2.hashCode();
-      }
-    });
-    result = prime * result + (setCluster.hashCode());
-    return result;
+    long fingerprint = getFingerprint();
+    return (int) (fingerprint ^ (fingerprint >>> 32));
   }
 
   @Override
@@ -107,35 +219,108 @@ public class PositionListIndex {
     }
     PositionListIndex other = (PositionListIndex) obj;
     if (clusters == null) {
-      if (other.clusters != null) {
-        return false;
-      }
-    } else {
-      List<LongOpenHashSet> setCluster = convertClustersToSets(clusters);
-      List<LongOpenHashSet> otherSetCluster = convertClustersToSets(other.clusters);
+      return other.clusters == null;
+    }
+    if (other.clusters == null) {
+      return false;
+    }
+    CanonicalForm form = getCanonicalForm();
+    CanonicalForm otherForm = other.getCanonicalForm();
+    if (form.fingerprint != otherForm.fingerprint) {
+      return false;
+    }
 
-      for (LongOpenHashSet cluster : setCluster) {
-        if (!otherSetCluster.contains(cluster)) {
-          return false;
+    return Arrays.equals(form.offsets, otherForm.offsets)
+      && Arrays.equals(form.rows, otherForm.rows);
+  }
+
+  /**
+   * Returns a 64 bit fingerprint of the canonical form of the clusters. The canonical form sorts
+   * the rows of every cluster, removes duplicate rows and orders the clusters by their first row,
+   * so the fingerprint does not depend on the order of clusters or rows. Like the raw key error
+   * the fingerprint is calculated only once, the clusters must not be changed afterwards.
+   *
+   * @return the fingerprint of the clusters
+   */
+  public long getFingerprint() {
+    return getCanonicalForm().fingerprint;
+  }
+
+  /**
+   * @return the canonical form of the clusters, built on the first call
+   */
+  protected CanonicalForm getCanonicalForm() {
+    CanonicalForm form = canonicalForm;
+    if (form == null) {
+      // Concurrent callers may build the form twice, but always build equal forms.
+      form = buildCanonicalForm();
+      canonicalForm = form;
+    }
+    return form;
+  }
+
+  protected CanonicalForm buildCanonicalForm() {
+    if (clusters == null) {
+      return new CanonicalForm(new long[0], new int[]{0}, 0);
+    }
+
+    long[][] sortedClusters = new long[clusters.size()][];
+    int numberOfRows = 0;
+    for (int i = 0; i < sortedClusters.length; i++) {
+      long[] cluster = clusters.get(i).toLongArray();
+      Arrays.sort(cluster);
+      int distinctRows = 0;
+      for (int j = 0; j < cluster.length; j++) {
+        if (j == 0 || cluster[j] != cluster[j - 1]) {
+          cluster[distinctRows++] = cluster[j];
         }
       }
-      for (LongOpenHashSet cluster : otherSetCluster) {
-        if (!setCluster.contains(cluster)) {
-          return false;
+      sortedClusters[i] = Arrays.copyOf(cluster, distinctRows);
+      numberOfRows += distinctRows;
+    }
+    Arrays.sort(sortedClusters, new Comparator<long[]>() {
+
+      @Override
+      public int compare(long[] o1, long[] o2) {
+        if (o1.length == 0 || o2.length == 0) {
+          return Integer.compare(o1.length, o2.length);
         }
+        return Long.compare(o1[0], o2[0]);
       }
+    });
+
+    long[] rows = new long[numberOfRows];
+    int[] offsets = new int[sortedClusters.length + 1];
+    int numberOfClusters = 0;
+    int position = 0;
+    long hash = FINGERPRINT_SEED;
+    for (int i = 0; i < sortedClusters.length; i++) {
+      // Equal clusters are only counted once, like in a set of clusters.
+      if (i > 0 && Arrays.equals(sortedClusters[i], sortedClusters[i - 1])) {
+        continue;
+      }
+      for (long row : sortedClusters[i]) {
+        rows[position++] = row;
+        hash = mix(hash ^ row);
+      }
+      offsets[++numberOfClusters] = position;
+      hash = mix(hash ^ position);
     }
 
-    return true;
+    return new CanonicalForm(
+      (position == rows.length) ? rows : Arrays.copyOf(rows, position),
+      Arrays.copyOf(offsets, numberOfClusters + 1),
+      hash);
   }
 
-  protected List<LongOpenHashSet> convertClustersToSets(List<LongArrayList> listCluster) {
-    List<LongOpenHashSet> setClusters = new LinkedList<>();
-    for (LongList cluster : listCluster) {
-      setClusters.add(new LongOpenHashSet(cluster));
-    }
-
-    return setClusters;
+  protected static long mix(long hash) {
+    // Finalizer of the 64 bit MurmurHash3
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
   }
 
   /**
@@ -146,7 +331,19 @@ public class PositionListIndex {
    * @return the intersected {@link PositionListIndex}
    */
   protected PositionListIndex calculateIntersection(PositionListIndex otherPLI) {
-    Long2LongOpenHashMap hashedPLI = this.asHashMap();
+    return calculateIntersection(otherPLI, this.asClusterIdMap());
+  }
+
+  /**
+   * Intersects the given {@link PositionListIndex} with the map representation of this
+   * PositionListIndex.
+   *
+   * @param otherPLI  the other {@link PositionListIndex} to intersect
+   * @param hashedPLI this {@link PositionListIndex} as map (see {@link #asClusterIdMap()})
+   * @return the intersected {@link PositionListIndex}
+   */
+  protected PositionListIndex calculateIntersection(PositionListIndex otherPLI,
+                                                    Long2LongOpenHashMap hashedPLI) {
     Map<LongPair, LongArrayList> map = new HashMap<>();
     buildMap(otherPLI, hashedPLI, map);
 
@@ -160,6 +357,37 @@ public class PositionListIndex {
     return new PositionListIndex(clusters);
   }
 
+  /**
+   * Counts the rows of every cluster of the other {@link PositionListIndex} per cluster of this
+   * PositionListIndex. Every row that is not the first of its counter adds one to the key error.
+   *
+   * @param otherPLI      the other {@link PositionListIndex} to intersect
+   * @param hashedPLI     this {@link PositionListIndex} as map (see {@link #asClusterIdMap()})
+   * @param clusterCounts zeroed counters, one per cluster of this PositionListIndex
+   * @return the raw key error of the intersection
+   */
+  protected long calculateKeyErrorOfIntersection(PositionListIndex otherPLI,
+                                                 Long2LongOpenHashMap hashedPLI,
+                                                 int[] clusterCounts) {
+    long keyError = 0;
+    for (LongArrayList sameValues : otherPLI.clusters) {
+      for (int i = 0; i < sameValues.size(); i++) {
+        long clusterId = hashedPLI.get(sameValues.getLong(i));
+        if (clusterId != UNARY_CLUSTER && clusterCounts[(int) clusterId]++ > 0) {
+          keyError++;
+        }
+      }
+      // Reset only the counters touched by this cluster.
+      for (int i = 0; i < sameValues.size(); i++) {
+        long clusterId = hashedPLI.get(sameValues.getLong(i));
+        if (clusterId != UNARY_CLUSTER) {
+          clusterCounts[(int) clusterId] = 0;
+        }
+      }
+    }
+    return keyError;
+  }
+
   protected void buildMap(PositionListIndex otherPLI, Long2LongOpenHashMap hashedPLI,
                           Map<LongPair, LongArrayList> map) {
     long uniqueValueCount = 0;
@@ -205,6 +433,18 @@ public class PositionListIndex {
     return hashedPLI;
   }
 
+  /**
+   * Returns the map representation of {@link #asHashMap()} in which rows of unary clusters map to
+   * {@link #UNARY_CLUSTER} instead of the first cluster.
+   *
+   * @return the pli as hash map with unary rows mapping to {@link #UNARY_CLUSTER}
+   */
+  protected Long2LongOpenHashMap asClusterIdMap() {
+    Long2LongOpenHashMap hashedPLI = asHashMap();
+    hashedPLI.defaultReturnValue(UNARY_CLUSTER);
+    return hashedPLI;
+  }
+
   /**
    * Returns the number of non unary clusters.
    *
@@ -241,6 +481,119 @@ public class PositionListIndex {
     return rawKeyError;
   }
 
+  /**
+   * Intersects the probed clusters one after another. The rows of a probed cluster are grouped by
+   * their cluster in the hashed {@link PositionListIndex}, the groups with at least two rows are
+   * clusters of the intersection.
+   *
+   * @param probedClusters the clusters of the other {@link PositionListIndex}
+   * @param from           the first cluster to probe
+   * @param to             the cluster after the last cluster to probe
+   * @param hashedPLI      this {@link PositionListIndex} as map (see {@link #asClusterIdMap()})
+   * @return the intersected clusters
+   */
+  protected static List<LongArrayList> intersectClusters(List<LongArrayList> probedClusters,
+                                                         int from, int to,
+                                                         Long2LongOpenHashMap hashedPLI) {
+    List<LongArrayList> clusters = new ArrayList<>();
+    Long2ObjectOpenHashMap<LongArrayList> groups = new Long2ObjectOpenHashMap<>();
+    for (int i = from; i < to; i++) {
+      for (long row : probedClusters.get(i)) {
+        long clusterId = hashedPLI.get(row);
+        if (clusterId == UNARY_CLUSTER) {
+          continue;
+        }
+        LongArrayList group = groups.get(clusterId);
+        if (group == null) {
+          group = new LongArrayList();
+          groups.put(clusterId, group);
+        }
+        group.add(row);
+      }
+      for (LongArrayList group : groups.values()) {
+        if (group.size() > 1) {
+          clusters.add(group);
+        }
+      }
+      groups.clear();
+    }
+    return clusters;
+  }
+
+  /**
+   * Probes a range of clusters of the other {@link PositionListIndex}. The range is split until
+   * its clusters contain at most chunk size rows or it consists of a single cluster.
+   */
+  protected static class IntersectTask extends RecursiveTask<List<LongArrayList>> {
+
+    private static final long serialVersionUID = 1L;
+
+    protected List<LongArrayList> probedClusters;
+    protected long[] rowOffsets;
+    protected int from;
+    protected int to;
+    protected Long2LongOpenHashMap hashedPLI;
+    protected long chunkSize;
+
+    public IntersectTask(List<LongArrayList> probedClusters, long[] rowOffsets, int from, int to,
+                         Long2LongOpenHashMap hashedPLI, long chunkSize) {
+      this.probedClusters = probedClusters;
+      this.rowOffsets = rowOffsets;
+      this.from = from;
+      this.to = to;
+      this.hashedPLI = hashedPLI;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected List<LongArrayList> compute() {
+      if (to - from < 2 || rowOffsets[to] - rowOffsets[from] <= chunkSize) {
+        return intersectClusters(probedClusters, from, to, hashedPLI);
+      }
+
+      // Split at the cluster that halves the rows of the range.
+      long middleRow = (rowOffsets[from] + rowOffsets[to]) >>> 1;
+      int middle = Arrays.binarySearch(rowOffsets, from, to + 1, middleRow);
+      middle = middle < 0 ? -middle - 1 : middle;
+      middle = Math.min(Math.max(middle, from + 1), to - 1);
+
+      IntersectTask right =
+        new IntersectTask(probedClusters, rowOffsets, middle, to, hashedPLI, chunkSize);
+      right.fork();
+      List<LongArrayList> clusters =
+        new IntersectTask(probedClusters, rowOffsets, from, middle, hashedPLI, chunkSize)
+          .compute();
+      clusters.addAll(right.join());
+      return clusters;
+    }
+  }
+
+  /**
+   * Discards the cached raw key error and canonical form. Must be called after the clusters were
+   * changed in place.
+   */
+  protected void resetCachedProperties() {
+    rawKeyError = -1;
+    canonicalForm = null;
+  }
+
+  /**
+   * The sorted, duplicate free clusters and their fingerprint. Instances are immutable, so that a
+   * form published by one thread is completely visible to all others.
+   */
+  protected static final class CanonicalForm {
+
+    protected final long[] rows;
+    protected final int[] offsets;
+    protected final long fingerprint;
+
+    protected CanonicalForm(long[] rows, int[] offsets, long fingerprint) {
+      this.rows = rows;
+      this.offsets = offsets;
+      this.fingerprint = fingerprint;
+    }
+  }
+
   protected long calculateRawKeyError() {
     long sumClusterSize = 0;
 
@@ -0,0 +1,265 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the {@link PositionListIndex}es of a random sample of the rows of the input. The sample
+ * either has a fixed size and is drawn with reservoir sampling or contains every row with a fixed
+ * probability. The row ids of the plis refer to the rows of the sample, {@link #getSampledRows()}
+ * maps them back to the rows of the input.
+ * <p>
+ * Dependencies that hold on the sample are only candidates for the whole input. The error bounds
+ * quantify how many tuple pairs of the input may violate a candidate and {@link
+ * #getAgreeSets(int)} samples the column combinations on which random tuple pairs agree.
+ */
+public class SamplingPLIBuilder extends PLIBuilder {
+
+  protected static final int NO_SAMPLE_SIZE = -1;
+
+  protected int sampleSize = NO_SAMPLE_SIZE;
+  protected double fraction;
+  protected Random random;
+
+  protected long numberOfInputTuples = -1;
+  protected List<List<String>> sample;
+  protected LongArrayList sampledRows;
+
+  /**
+   * Creates a builder that samples a fixed number of rows with reservoir sampling.
+   *
+   * @param input          the input to sample
+   * @param nullEqualsNull whether null values are equal
+   * @param sampleSize     the maximal number of sampled rows
+   * @param random         the source of randomness
+   */
+  public SamplingPLIBuilder(RelationalInput input, boolean nullEqualsNull, int sampleSize,
+                            Random random) {
+    super(input, nullEqualsNull);
+    if (sampleSize < 1) {
+      throw new IllegalArgumentException("The sample size must be positive.");
+    }
+    this.sampleSize = sampleSize;
+    this.random = random;
+  }
+
+  /**
+   * Creates a builder that samples every row with the given probability.
+   *
+   * @param input          the input to sample
+   * @param nullEqualsNull whether null values are equal
+   * @param fraction       the probability of a row to be sampled
+   * @param random         the source of randomness
+   */
+  public SamplingPLIBuilder(RelationalInput input, boolean nullEqualsNull, double fraction,
+                            Random random) {
+    super(input, nullEqualsNull);
+    if (fraction <= 0 || fraction > 1) {
+      throw new IllegalArgumentException("The fraction must be in (0, 1].");
+    }
+    this.fraction = fraction;
+    this.random = random;
+  }
+
+  /**
+   * Returns the number of rows in the input. Can be used after the plis were calculated.
+   *
+   * @return number of tuples in the input
+   * @throws InputIterationException if the plis were not calculated yet
+   */
+  public long getNumberOfInputTuples() throws InputIterationException {
+    if (numberOfInputTuples == -1) {
+      throw new InputIterationException();
+    }
+    return numberOfInputTuples;
+  }
+
+  /**
+   * Returns the rows of the input in the order of the sample. Can be used after the plis were
+   * calculated.
+   *
+   * @return the input row of every sampled row
+   * @throws InputIterationException if the plis were not calculated yet
+   */
+  public LongArrayList getSampledRows() throws InputIterationException {
+    if (sampledRows == null) {
+      throw new InputIterationException();
+    }
+    return sampledRows;
+  }
+
+  /**
+   * Estimates the fraction of tuple pairs of the input that agree in the columns of the given pli
+   * of the sample. The fraction is an unbiased estimate, see {@link #getErrorBound(double)} for its
+   * error.
+   *
+   * @param samplePLI a pli built from the sample
+   * @return the estimated fraction of agreeing tuple pairs
+   */
+  public double estimateAgreeingPairFraction(PositionListIndex samplePLI) {
+    long numberOfSampledRows = numberOfTuples;
+    if (numberOfSampledRows < 2) {
+      return 0;
+    }
+    double agreeingPairs = 0;
+    for (LongArrayList cluster : samplePLI.getClusters()) {
+      agreeingPairs += (double) cluster.size() * (cluster.size() - 1) / 2;
+    }
+    return agreeingPairs / ((double) numberOfSampledRows * (numberOfSampledRows - 1) / 2);
+  }
+
+  /**
+   * Returns the error of {@link #estimateAgreeingPairFraction(PositionListIndex)} that is not
+   * exceeded with the given confidence. The bound follows from Hoeffding's inequality for the
+   * disjoint tuple pairs of the sample.
+   *
+   * @param confidence the confidence in (0, 1)
+   * @return the maximal absolute error of the estimated fraction
+   */
+  public double getErrorBound(double confidence) {
+    long pairs = numberOfTuples / 2;
+    if (pairs <= 0) {
+      return 1;
+    }
+    return Math.min(1, Math.sqrt(Math.log(2 / (1 - confidence)) / (2 * pairs)));
+  }
+
+  /**
+   * Returns the fraction of agreeing tuple pairs of the input that is not exceeded with the given
+   * confidence if no tuple pair of the sample agrees, i.e. the pli of the sample is empty. This
+   * bounds the error of unique column combinations found on the sample and is much tighter than
+   * {@link #getErrorBound(double)}.
+   *
+   * @param confidence the confidence in (0, 1)
+   * @return the maximal fraction of agreeing tuple pairs of a unique sample
+   */
+  public double getUniqueErrorBound(double confidence) {
+    long pairs = numberOfTuples / 2;
+    if (pairs <= 0) {
+      return 1;
+    }
+    return 1 - Math.pow(1 - confidence, 1.0 / pairs);
+  }
+
+  /**
+   * Draws random pairs of sampled rows and returns the columns on which the rows of each pair
+   * agree. Every non functional dependency of the input is witnessed by the agree set of some
+   * tuple pair, so the agree sets can prune the candidate lattice before the validation on the
+   * whole input.
+   *
+   * @param numberOfPairs the number of tuple pairs to draw
+   * @return the agree set of every pair in the order of drawing
+   * @throws InputIterationException if the input cannot be iterated
+   */
+  public List<ColumnCombinationBitset> getAgreeSets(int numberOfPairs)
+    throws InputIterationException {
+    if (columns == null) {
+      columns = new ArrayList<>();
+      calculateUnpurgedPLI();
+    }
+    List<ColumnCombinationBitset> agreeSets = new ArrayList<>(numberOfPairs);
+    if (sample.size() < 2) {
+      return agreeSets;
+    }
+
+    ColumnCombinationBitsetFactory factory = new ColumnCombinationBitsetFactory(numberOfColumns());
+    for (int i = 0; i < numberOfPairs; i++) {
+      int first = random.nextInt(sample.size());
+      // Draw the second row from the remaining rows.
+      int second = random.nextInt(sample.size() - 1);
+      if (second >= first) {
+        second++;
+      }
+      agreeSets.add(calculateAgreeSet(sample.get(first), sample.get(second), factory));
+    }
+    return agreeSets;
+  }
+
+  @Override
+  protected void calculateUnpurgedPLI() throws InputIterationException {
+    sample = new ArrayList<>();
+    sampledRows = new LongArrayList();
+    long rowCount = 0;
+    while (input.hasNext()) {
+      List<String> row = input.next();
+      if (sampleSize == NO_SAMPLE_SIZE) {
+        if (random.nextDouble() < fraction) {
+          addToSample(-1, row, rowCount);
+        }
+      } else if (sample.size() < sampleSize) {
+        addToSample(-1, row, rowCount);
+      } else {
+        // Reservoir sampling: the row replaces a sampled row with probability size / (count + 1).
+        long position = (long) (random.nextDouble() * (rowCount + 1));
+        if (position < sampleSize) {
+          addToSample((int) position, row, rowCount);
+        }
+      }
+      rowCount++;
+    }
+    this.numberOfInputTuples = rowCount;
+    this.numberOfTuples = sample.size();
+
+    for (int sampledRow = 0; sampledRow < sample.size(); sampledRow++) {
+      int columnCount = 0;
+      for (String cellValue : sample.get(sampledRow)) {
+        addValue(sampledRow, columnCount, cellValue);
+        columnCount++;
+      }
+    }
+  }
+
+  protected void addToSample(int position, List<String> row, long rowCount) {
+    // The input may reuse its row lists.
+    List<String> copy = new ArrayList<>(row);
+    if (position == -1) {
+      sample.add(copy);
+      sampledRows.add(rowCount);
+    } else {
+      sample.set(position, copy);
+      sampledRows.set(position, rowCount);
+    }
+  }
+
+  protected ColumnCombinationBitset calculateAgreeSet(List<String> first, List<String> second,
+                                                      ColumnCombinationBitsetFactory factory) {
+    ColumnCombinationBitset agreeSet = factory.create();
+    int numberOfColumns = Math.min(first.size(), second.size());
+    for (int column = 0; column < numberOfColumns; column++) {
+      String value = first.get(column);
+      if (value == null ? nullEqualsNull && second.get(column) == null
+        : value.equals(second.get(column))) {
+        agreeSet.addColumn(column);
+      }
+    }
+    return agreeSet;
+  }
+
+  protected int numberOfColumns() {
+    int numberOfColumns = 0;
+    for (List<String> row : sample) {
+      numberOfColumns = Math.max(numberOfColumns, row.size());
+    }
+    return numberOfColumns;
+  }
+}
@@ -0,0 +1,228 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.input.InputIterationException;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Streams the distinct values of a column in ascending order by merging sorted and de-duplicated
+ * runs. The runs are either files written by {@link ExternalSortedColumns} or in memory lists.
+ * The run files are opened on the first call of {@link #hasNext()} or {@link #next()}, then only
+ * the current value of every run is held in memory.
+ */
+public class SortedColumnIterator implements Closeable {
+
+  /**
+   * Length that marks the end of a run file.
+   */
+  public static final int END_OF_RUN = -1;
+
+  protected static final Comparator<Run> RUN_ORDER = new Comparator<Run>() {
+    @Override
+    public int compare(Run o1, Run o2) {
+      return o1.current.compareTo(o2.current);
+    }
+  };
+
+  protected List<File> runFiles;
+  protected List<String> memoryValues;
+  protected PriorityQueue<Run> runs = null;
+  protected String nextValue;
+
+  /**
+   * @param runFiles     the files of the sorted runs
+   * @param memoryValues a sorted run that is kept in memory
+   */
+  public SortedColumnIterator(List<File> runFiles, List<String> memoryValues) {
+    this.runFiles = runFiles;
+    this.memoryValues = memoryValues;
+  }
+
+  protected void open() throws InputIterationException {
+    if (runs != null) {
+      return;
+    }
+    this.runs = new PriorityQueue<>(Math.max(1, runFiles.size() + 1), RUN_ORDER);
+    try {
+      for (File runFile : runFiles) {
+        addRun(new FileRun(runFile));
+      }
+      addRun(new MemoryRun(memoryValues.iterator()));
+    } catch (InputIterationException e) {
+      close();
+      throw e;
+    }
+    advance();
+  }
+
+  /**
+   * @return true iff there are more values
+   * @throws InputIterationException if a run file cannot be read
+   */
+  public boolean hasNext() throws InputIterationException {
+    open();
+    return nextValue != null;
+  }
+
+  /**
+   * Returns the next distinct value, which is larger than all values returned before.
+   *
+   * @return the next value
+   * @throws InputIterationException if a run file cannot be read
+   */
+  public String next() throws InputIterationException {
+    open();
+    if (nextValue == null) {
+      throw new NoSuchElementException();
+    }
+    String value = nextValue;
+    advance();
+    return value;
+  }
+
+  /**
+   * Closes the opened run files. A closed iterator has no more values.
+   */
+  @Override
+  public void close() {
+    if (runs == null) {
+      runs = new PriorityQueue<>(1, RUN_ORDER);
+    }
+    for (Run run : runs) {
+      run.close();
+    }
+    runs.clear();
+    nextValue = null;
+  }
+
+  protected void advance() throws InputIterationException {
+    String previousValue = nextValue;
+    nextValue = null;
+    while (!runs.isEmpty()) {
+      Run run = runs.poll();
+      String value = run.current;
+      if (run.advance()) {
+        runs.add(run);
+      } else {
+        run.close();
+      }
+      // Runs are distinct on their own, but different runs may share values.
+      if (!value.equals(previousValue)) {
+        nextValue = value;
+        return;
+      }
+    }
+  }
+
+  protected void addRun(Run run) throws InputIterationException {
+    if (run.advance()) {
+      runs.add(run);
+    } else {
+      run.close();
+    }
+  }
+
+  /**
+   * A sorted run with its current value.
+   */
+  protected abstract static class Run {
+
+    protected String current;
+
+    /**
+     * Moves to the next value.
+     *
+     * @return false if the run is exhausted
+     */
+    protected abstract boolean advance() throws InputIterationException;
+
+    protected void close() {
+    }
+  }
+
+  protected static class MemoryRun extends Run {
+
+    protected Iterator<String> values;
+
+    public MemoryRun(Iterator<String> values) {
+      this.values = values;
+    }
+
+    @Override
+    protected boolean advance() {
+      if (!values.hasNext()) {
+        return false;
+      }
+      current = values.next();
+      return true;
+    }
+  }
+
+  /**
+   * A run file contains the length and the UTF-8 bytes of every value and ends with {@link
+   * #END_OF_RUN}.
+   */
+  protected static class FileRun extends Run {
+
+    protected DataInputStream input;
+
+    public FileRun(File file) throws InputIterationException {
+      try {
+        this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      } catch (IOException e) {
+        throw new InputIterationException("Could not read sorted run.", e);
+      }
+    }
+
+    @Override
+    protected boolean advance() throws InputIterationException {
+      try {
+        int length = input.readInt();
+        if (length == END_OF_RUN) {
+          return false;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        current = new String(bytes, StandardCharsets.UTF_8);
+        return true;
+      } catch (IOException e) {
+        throw new InputIterationException("Could not read sorted run.", e);
+      }
+    }
+
+    @Override
+    protected void close() {
+      try {
+        input.close();
+      } catch (IOException e) {
+        // The run was only read.
+      }
+    }
+  }
+}
@@ -0,0 +1,308 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.math.BigDecimal;
+import java.text.DateFormat;
+import java.text.ParsePosition;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A sorted partition stores the rows of a column in equivalence classes of equal values that are
+ * ordered by their value. A column with the values b, a, b, c transfers to the sorted partition
+ * ({1}, {0, 2}, {3}). Unlike in a {@link PositionListIndex} classes of size 1 are kept, because
+ * they carry order information. Null values and values that cannot be parsed are the smallest
+ * values.
+ * <p>
+ * The classes are stored like in a {@link CompactPositionListIndex}: the rows of all classes in one
+ * array and the start offset of every class in another. A rank array maps every row to the
+ * position of its class. Order dependencies X -&gt; Y are validated with {@link
+ * #hasSplit(SortedPartition)} and {@link #hasSwap(SortedPartition)} in linear time.
+ */
+public class SortedPartition {
+
+  protected int[] rows;
+  protected int[] classOffsets;
+  protected int[] ranks;
+
+  /**
+   * @param rows         the rows of all classes in class order
+   * @param classOffsets the offset of every class in rows followed by the number of rows
+   */
+  public SortedPartition(int[] rows, int[] classOffsets) {
+    this.rows = rows;
+    this.classOffsets = classOffsets;
+    this.ranks = new int[rows.length];
+    for (int rank = 0; rank < classOffsets.length - 1; rank++) {
+      for (int i = classOffsets[rank]; i < classOffsets[rank + 1]; i++) {
+        ranks[rows[i]] = rank;
+      }
+    }
+  }
+
+  /**
+   * Builds the sorted partition of a column with the given comparator. Null values form the first
+   * class.
+   *
+   * @param values     the values of the column in row order
+   * @param comparator the order of the values
+   * @param <T>        the type of the values
+   * @return the sorted partition of the column
+   */
+  public static <T> SortedPartition build(final List<T> values,
+                                          final Comparator<? super T> comparator) {
+    Integer[] sortedRows = new Integer[values.size()];
+    for (int row = 0; row < sortedRows.length; row++) {
+      sortedRows[row] = row;
+    }
+    final Comparator<T> nullsFirst = new Comparator<T>() {
+      @Override
+      public int compare(T o1, T o2) {
+        if (o1 == null || o2 == null) {
+          return o1 == null ? (o2 == null ? 0 : -1) : 1;
+        }
+        return comparator.compare(o1, o2);
+      }
+    };
+    // The sort is stable, so the rows of a class stay in ascending order.
+    Arrays.sort(sortedRows, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return nullsFirst.compare(values.get(o1), values.get(o2));
+      }
+    });
+
+    int[] rows = new int[sortedRows.length];
+    int[] classOffsets = new int[sortedRows.length + 1];
+    int numberOfClasses = 0;
+    for (int i = 0; i < sortedRows.length; i++) {
+      rows[i] = sortedRows[i];
+      if (i == 0 || nullsFirst.compare(values.get(sortedRows[i - 1]), values.get(rows[i])) != 0) {
+        classOffsets[numberOfClasses++] = i;
+      }
+    }
+    classOffsets[numberOfClasses] = rows.length;
+    return new SortedPartition(rows, Arrays.copyOf(classOffsets, numberOfClasses + 1));
+  }
+
+  /**
+   * Builds the sorted partition of a column of strings in lexicographic order.
+   *
+   * @param values the values of the column in row order
+   * @return the sorted partition of the column
+   */
+  public static SortedPartition buildLexicographic(List<String> values) {
+    return build(values, new Comparator<String>() {
+      @Override
+      public int compare(String o1, String o2) {
+        return o1.compareTo(o2);
+      }
+    });
+  }
+
+  /**
+   * Builds the sorted partition of a numeric column. Every value is parsed once as {@link
+   * BigDecimal}, so 1.0 and 1 are equal.
+   *
+   * @param values the values of the column in row order
+   * @return the sorted partition of the column
+   */
+  public static SortedPartition buildNumeric(List<String> values) {
+    List<BigDecimal> numbers = new ArrayList<>(values.size());
+    for (String value : values) {
+      BigDecimal number = null;
+      if (value != null) {
+        try {
+          number = new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+          // Values that are no numbers are treated like null values.
+        }
+      }
+      numbers.add(number);
+    }
+    return build(numbers, new Comparator<BigDecimal>() {
+      @Override
+      public int compare(BigDecimal o1, BigDecimal o2) {
+        return o1.compareTo(o2);
+      }
+    });
+  }
+
+  /**
+   * Builds the sorted partition of a date column. Every value is parsed once with the given
+   * format.
+   *
+   * @param values the values of the column in row order
+   * @param format the format of the dates
+   * @return the sorted partition of the column
+   */
+  public static SortedPartition buildDate(List<String> values, DateFormat format) {
+    List<Date> dates = new ArrayList<>(values.size());
+    for (String value : values) {
+      // Values that are no dates are treated like null values.
+      dates.add(value == null ? null : format.parse(value, new ParsePosition(0)));
+    }
+    return build(dates, new Comparator<Date>() {
+      @Override
+      public int compare(Date o1, Date o2) {
+        return o1.compareTo(o2);
+      }
+    });
+  }
+
+  /**
+   * Refines this sorted partition by the other one. The result is the sorted partition of the
+   * column list of this partition followed by the columns of the other partition: the classes of
+   * this partition are split by the classes of the other partition and ordered by them. The
+   * refinement takes linear time.
+   *
+   * @param other the sorted partition to refine with
+   * @return the refined sorted partition
+   */
+  public SortedPartition refine(SortedPartition other) {
+    // Distribute the rows in the order of the other partition to the classes of this one.
+    int[] cursors = Arrays.copyOf(classOffsets, classOffsets.length - 1);
+    int[] refinedRows = new int[rows.length];
+    for (int row : other.rows) {
+      refinedRows[cursors[ranks[row]]++] = row;
+    }
+
+    int[] refinedOffsets = new int[rows.length + 1];
+    int numberOfClasses = 0;
+    for (int rank = 0; rank < classOffsets.length - 1; rank++) {
+      for (int i = classOffsets[rank]; i < classOffsets[rank + 1]; i++) {
+        if (i == classOffsets[rank]
+            || other.ranks[refinedRows[i]] != other.ranks[refinedRows[i - 1]]) {
+          refinedOffsets[numberOfClasses++] = i;
+        }
+      }
+    }
+    refinedOffsets[numberOfClasses] = rows.length;
+    return new SortedPartition(refinedRows, Arrays.copyOf(refinedOffsets, numberOfClasses + 1));
+  }
+
+  /**
+   * Checks whether a class of this partition contains rows with different values in the other
+   * partition, i.e. the columns of this partition do not functionally determine the columns of the
+   * other partition. Returns at the first split class.
+   *
+   * @param other the sorted partition of the right hand side
+   * @return true iff the other partition splits a class of this partition
+   */
+  public boolean hasSplit(SortedPartition other) {
+    for (int rank = 0; rank < classOffsets.length - 1; rank++) {
+      int otherRank = other.ranks[rows[classOffsets[rank]]];
+      for (int i = classOffsets[rank] + 1; i < classOffsets[rank + 1]; i++) {
+        if (other.ranks[rows[i]] != otherRank) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether two rows are ordered differently by this and the other partition, i.e. a row
+   * is smaller than another in this partition but larger in the other partition. Returns at the
+   * first swap.
+   *
+   * @param other the sorted partition of the right hand side
+   * @return true iff the other partition swaps two rows of this partition
+   */
+  public boolean hasSwap(SortedPartition other) {
+    int maximalPreviousRank = -1;
+    for (int rank = 0; rank < classOffsets.length - 1; rank++) {
+      int minimalRank = Integer.MAX_VALUE;
+      int maximalRank = -1;
+      for (int i = classOffsets[rank]; i < classOffsets[rank + 1]; i++) {
+        minimalRank = Math.min(minimalRank, other.ranks[rows[i]]);
+        maximalRank = Math.max(maximalRank, other.ranks[rows[i]]);
+      }
+      if (minimalRank < maximalPreviousRank) {
+        return true;
+      }
+      maximalPreviousRank = Math.max(maximalPreviousRank, maximalRank);
+    }
+    return false;
+  }
+
+  /**
+   * Checks the order dependency from the columns of this partition to the columns of the other
+   * partition: ordering the rows by this partition also orders them by the other one.
+   *
+   * @param other the sorted partition of the right hand side
+   * @return true iff the order dependency holds
+   */
+  public boolean orders(SortedPartition other) {
+    return !hasSplit(other) && !hasSwap(other);
+  }
+
+  /**
+   * Converts the sorted partition into a {@link PositionListIndex}, which drops the order and the
+   * classes of size 1.
+   *
+   * @return the position list index of the same columns
+   */
+  public PositionListIndex toPositionListIndex() {
+    List<LongArrayList> clusters = new ArrayList<>();
+    for (int rank = 0; rank < classOffsets.length - 1; rank++) {
+      if (classOffsets[rank + 1] - classOffsets[rank] > 1) {
+        LongArrayList cluster = new LongArrayList(classOffsets[rank + 1] - classOffsets[rank]);
+        for (int i = classOffsets[rank]; i < classOffsets[rank + 1]; i++) {
+          cluster.add(rows[i]);
+        }
+        clusters.add(cluster);
+      }
+    }
+    return new PositionListIndex(clusters);
+  }
+
+  /**
+   * @return the number of equivalence classes
+   */
+  public int size() {
+    return classOffsets.length - 1;
+  }
+
+  /**
+   * @return the number of rows
+   */
+  public int getNumberOfRows() {
+    return rows.length;
+  }
+
+  /**
+   * @param row a row
+   * @return the position of the class of the row
+   */
+  public int getRank(int row) {
+    return ranks[row];
+  }
+
+  /**
+   * @param rank the position of a class
+   * @return the rows of the class in ascending order
+   */
+  public int[] getEquivalenceClass(int rank) {
+    return Arrays.copyOfRange(rows, classOffsets[rank], classOffsets[rank + 1]);
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+/**
+ * A Bloom filter whose bits are split into blocks of 512 bits, the size of a cache line. A value
+ * sets all its bits in one block, so a lookup touches a single cache line. With 10 bits per value
+ * the false positive rate is about one percent. There are no false negatives.
+ */
+public class BlockedBloomFilter {
+
+  public static final int DEFAULT_BITS_PER_VALUE = 10;
+
+  protected static final int WORDS_PER_BLOCK = 8;
+  protected static final int BITS_PER_BLOCK = WORDS_PER_BLOCK * Long.SIZE;
+  protected static final int NUMBER_OF_HASHES = 7;
+
+  protected long[] words;
+  protected int numberOfBlocks;
+
+  /**
+   * @param expectedValues the expected number of distinct values, e.g. the estimate of a {@link
+   *                       HyperLogLog}
+   * @param bitsPerValue   the number of bits per expected value
+   */
+  public BlockedBloomFilter(long expectedValues, int bitsPerValue) {
+    long bits = Math.max(1, expectedValues) * bitsPerValue;
+    long blocks = (bits + BITS_PER_BLOCK - 1) / BITS_PER_BLOCK;
+    if (blocks > Integer.MAX_VALUE / WORDS_PER_BLOCK) {
+      throw new IllegalArgumentException(
+        "The filter for " + expectedValues + " values is too large.");
+    }
+    this.numberOfBlocks = (int) blocks;
+    this.words = new long[numberOfBlocks * WORDS_PER_BLOCK];
+  }
+
+  /**
+   * Adds a value, null values are ignored.
+   *
+   * @param value the value to add
+   */
+  public void add(String value) {
+    if (value != null) {
+      addHash(ValueHashing.hash(value));
+    }
+  }
+
+  /**
+   * Adds a hash of {@link ValueHashing#hash(String)}.
+   *
+   * @param hash the hash of a value
+   */
+  public void addHash(long hash) {
+    int block = getBlock(hash);
+    int position = (int) hash;
+    int step = getStep(hash);
+    for (int i = 0; i < NUMBER_OF_HASHES; i++) {
+      int bit = position & (BITS_PER_BLOCK - 1);
+      words[block + (bit >>> 6)] |= 1L << bit;
+      position += step;
+    }
+  }
+
+  /**
+   * @param value a value
+   * @return false if the value has definitely not been added
+   */
+  public boolean mightContain(String value) {
+    return value == null || mightContainHash(ValueHashing.hash(value));
+  }
+
+  /**
+   * @param hash the hash of a value
+   * @return false if the value has definitely not been added
+   */
+  public boolean mightContainHash(long hash) {
+    int block = getBlock(hash);
+    int position = (int) hash;
+    int step = getStep(hash);
+    for (int i = 0; i < NUMBER_OF_HASHES; i++) {
+      int bit = position & (BITS_PER_BLOCK - 1);
+      if ((words[block + (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+      position += step;
+    }
+    return true;
+  }
+
+  /**
+   * @return the number of bits of the filter
+   */
+  public long getNumberOfBits() {
+    return (long) words.length * Long.SIZE;
+  }
+
+  /**
+   * Maps the upper half of the hash to the first word of a block without a division.
+   */
+  protected int getBlock(long hash) {
+    return (int) (((hash >>> 32) * numberOfBlocks) >>> 32) * WORDS_PER_BLOCK;
+  }
+
+  /**
+   * Derives the odd step of the double hashing from the bits of the lower half that do not select
+   * the first bit.
+   */
+  protected int getStep(long hash) {
+    return (int) (hash >>> 9) | 1;
+  }
+}
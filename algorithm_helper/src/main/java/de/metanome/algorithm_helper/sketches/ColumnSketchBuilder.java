@@ -0,0 +1,124 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Constructs a {@link HyperLogLog} and a {@link MinHashSketch} of every column of the given {@link
+ * RelationalInput} in one pass. Every value is hashed once for both sketches. The memory of the
+ * sketches does not depend on the size of the input. Like in the {@link
+ * de.metanome.algorithm_helper.data_structures.PLIBuilder} null values are not counted as distinct
+ * values.
+ */
+public class ColumnSketchBuilder {
+
+  protected RelationalInput input;
+  protected int precision;
+  protected int numberOfHashes;
+
+  protected long numberOfTuples = -1;
+  protected List<HyperLogLog> hyperLogLogs = null;
+  protected List<MinHashSketch> minHashSketches = null;
+
+  /**
+   * @param input          the input to sketch
+   * @param precision      the precision of the {@link HyperLogLog}s
+   * @param numberOfHashes the number of hashes of the {@link MinHashSketch}es
+   */
+  public ColumnSketchBuilder(RelationalInput input, int precision, int numberOfHashes) {
+    this.input = input;
+    this.precision = precision;
+    this.numberOfHashes = numberOfHashes;
+  }
+
+  /**
+   * @return the {@link HyperLogLog} of every column
+   * @throws InputIterationException if the input cannot be read
+   */
+  public List<HyperLogLog> getHyperLogLogs() throws InputIterationException {
+    if (hyperLogLogs == null) {
+      readInput();
+    }
+    return hyperLogLogs;
+  }
+
+  /**
+   * @return the {@link MinHashSketch} of every column
+   * @throws InputIterationException if the input cannot be read
+   */
+  public List<MinHashSketch> getMinHashSketches() throws InputIterationException {
+    if (minHashSketches == null) {
+      readInput();
+    }
+    return minHashSketches;
+  }
+
+  /**
+   * @return the number of tuples in the input
+   * @throws InputIterationException if the input cannot be read
+   */
+  public long getNumberOfTuples() throws InputIterationException {
+    if (numberOfTuples == -1) {
+      readInput();
+    }
+    return numberOfTuples;
+  }
+
+  /**
+   * Estimates the uniqueness rate of a column, i.e. its number of distinct values divided by the
+   * number of tuples.
+   *
+   * @param column the index of the column
+   * @return the estimated uniqueness rate in [0, 1]
+   * @throws InputIterationException if the input cannot be read
+   */
+  public double estimateUniquenessRate(int column) throws InputIterationException {
+    long tuples = getNumberOfTuples();
+    if (tuples == 0) {
+      return 1.0;
+    }
+    return Math.min(1.0, hyperLogLogs.get(column).estimate() / tuples);
+  }
+
+  protected void readInput() throws InputIterationException {
+    hyperLogLogs = new ArrayList<>();
+    minHashSketches = new ArrayList<>();
+    numberOfTuples = 0;
+
+    while (input.hasNext()) {
+      List<String> row = input.next();
+      while (hyperLogLogs.size() < row.size()) {
+        hyperLogLogs.add(new HyperLogLog(precision));
+        minHashSketches.add(new MinHashSketch(numberOfHashes));
+      }
+      for (int column = 0; column < row.size(); column++) {
+        String value = row.get(column);
+        if (value == null) {
+          continue;
+        }
+        long hash = ValueHashing.hash(value);
+        hyperLogLogs.get(column).addHash(hash);
+        minHashSketches.get(column).addHash(hash);
+      }
+      numberOfTuples++;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+/**
+ * Estimates the number of distinct values of a column in fixed memory. The sketch has 2^precision
+ * registers of one byte. The first precision bits of a value's hash select a register, which keeps
+ * the maximal number of leading zeros of the remaining bits plus one. The relative standard error
+ * of the estimate is about 1.04 / sqrt(2^precision). Sketches of equal precision can be merged,
+ * e.g. to estimate the distinct values of a union.
+ */
+public class HyperLogLog {
+
+  public static final int MIN_PRECISION = 4;
+  public static final int MAX_PRECISION = 18;
+
+  protected int precision;
+  protected byte[] registers;
+
+  /**
+   * @param precision the number of hash bits that select the register, between {@link
+   *                  #MIN_PRECISION} and {@link #MAX_PRECISION}
+   */
+  public HyperLogLog(int precision) {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException(
+        "The precision has to be between " + MIN_PRECISION + " and " + MAX_PRECISION + ".");
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  /**
+   * Adds a value, null values are ignored.
+   *
+   * @param value the value to add
+   */
+  public void add(String value) {
+    if (value != null) {
+      addHash(ValueHashing.hash(value));
+    }
+  }
+
+  /**
+   * Adds a hash of {@link ValueHashing#hash(String)}.
+   *
+   * @param hash the hash of a value
+   */
+  public void addHash(long hash) {
+    int register = (int) (hash >>> (Long.SIZE - precision));
+    // The set bit bounds the rank if all remaining bits are zero.
+    long remainingBits = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(remainingBits) + 1);
+    if (rank > registers[register]) {
+      registers[register] = rank;
+    }
+  }
+
+  /**
+   * Merges the other sketch into this one. Afterwards this sketch estimates the distinct values of
+   * both.
+   *
+   * @param other a sketch of the same precision
+   */
+  public void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException("Only sketches of equal precision can be merged.");
+    }
+    for (int register = 0; register < registers.length; register++) {
+      if (other.registers[register] > registers[register]) {
+        registers[register] = other.registers[register];
+      }
+    }
+  }
+
+  /**
+   * Estimates the number of distinct values. Small cardinalities are estimated by linear counting
+   * of the empty registers.
+   *
+   * @return the estimated number of distinct values
+   */
+  public double estimate() {
+    int numberOfRegisters = registers.length;
+    double sum = 0;
+    int emptyRegisters = 0;
+    for (byte register : registers) {
+      sum += Math.scalb(1.0, -register);
+      if (register == 0) {
+        emptyRegisters++;
+      }
+    }
+    double estimate = getAlpha() * numberOfRegisters * numberOfRegisters / sum;
+    if (estimate <= 2.5 * numberOfRegisters && emptyRegisters > 0) {
+      return numberOfRegisters * Math.log((double) numberOfRegisters / emptyRegisters);
+    }
+    return estimate;
+  }
+
+  /**
+   * @return the relative standard error of the estimate
+   */
+  public double getStandardError() {
+    return 1.04 / Math.sqrt(registers.length);
+  }
+
+  /**
+   * @return the number of hash bits that select the register
+   */
+  public int getPrecision() {
+    return precision;
+  }
+
+  protected double getAlpha() {
+    switch (registers.length) {
+      case 16:
+        return 0.673;
+      case 32:
+        return 0.697;
+      case 64:
+        return 0.709;
+      default:
+        return 0.7213 / (1 + 1.079 / registers.length);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+import de.metanome.algorithm_integration.ColumnIdentifier;
+import de.metanome.algorithm_integration.ColumnPermutation;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_integration.results.InclusionDependency;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Prunes unary inclusion dependency candidates before the exact validation. Every referenced column
+ * gets a {@link BlockedBloomFilter} that is sized by the {@link HyperLogLog} estimate of its
+ * distinct values. The dependant columns are then tested against all filters at once: a candidate
+ * dep [= ref is dropped as soon as a value of dep is definitely not in ref. Because Bloom filters
+ * have no false negatives, every valid inclusion dependency survives; the survivors still have to
+ * be validated exactly. Null values are ignored.
+ */
+public class InclusionDependencyPreFilter {
+
+  protected int bitsPerValue;
+  protected List<ColumnIdentifier> referencedColumns = new ArrayList<>();
+  protected List<BlockedBloomFilter> filters = new ArrayList<>();
+
+  public InclusionDependencyPreFilter() {
+    this(BlockedBloomFilter.DEFAULT_BITS_PER_VALUE);
+  }
+
+  /**
+   * @param bitsPerValue the number of filter bits per distinct referenced value
+   */
+  public InclusionDependencyPreFilter(int bitsPerValue) {
+    this.bitsPerValue = bitsPerValue;
+  }
+
+  /**
+   * Builds the filters of all columns of a referenced relation in one scan.
+   *
+   * @param input         the referenced relation
+   * @param cardinalities the distinct value estimates of the relation's columns, e.g. of the {@link
+   *                      ColumnSketchBuilder}
+   * @throws InputIterationException if the input cannot be read
+   */
+  public void addReferencedRelation(RelationalInput input, List<HyperLogLog> cardinalities)
+    throws InputIterationException {
+    List<String> columnNames = input.columnNames();
+    List<BlockedBloomFilter> relationFilters = new ArrayList<>(columnNames.size());
+    for (int column = 0; column < columnNames.size(); column++) {
+      long expectedValues = (long) Math.ceil(cardinalities.get(column).estimate());
+      relationFilters.add(new BlockedBloomFilter(expectedValues, bitsPerValue));
+      referencedColumns.add(new ColumnIdentifier(input.relationName(), columnNames.get(column)));
+    }
+
+    while (input.hasNext()) {
+      List<String> row = input.next();
+      for (int column = 0; column < relationFilters.size(); column++) {
+        relationFilters.get(column).add(row.get(column));
+      }
+    }
+    filters.addAll(relationFilters);
+  }
+
+  /**
+   * Tests all columns of a dependant relation in one scan against the filters of all referenced
+   * columns. The scan stops early once no candidate is left.
+   *
+   * @param input the dependant relation
+   * @return the candidates that might be valid
+   * @throws InputIterationException if the input cannot be read
+   */
+  public List<InclusionDependency> filterCandidates(RelationalInput input)
+    throws InputIterationException {
+    List<String> columnNames = input.columnNames();
+    List<ColumnIdentifier> dependantColumns = new ArrayList<>(columnNames.size());
+    List<BitSet> candidates = new ArrayList<>(columnNames.size());
+    int remainingCandidates = 0;
+    for (String columnName : columnNames) {
+      ColumnIdentifier dependantColumn = new ColumnIdentifier(input.relationName(), columnName);
+      BitSet referenced = new BitSet(filters.size());
+      referenced.set(0, filters.size());
+      int self = referencedColumns.indexOf(dependantColumn);
+      if (self >= 0) {
+        referenced.clear(self);
+      }
+      dependantColumns.add(dependantColumn);
+      candidates.add(referenced);
+      remainingCandidates += referenced.cardinality();
+    }
+
+    while (remainingCandidates > 0 && input.hasNext()) {
+      List<String> row = input.next();
+      for (int column = 0; column < dependantColumns.size(); column++) {
+        String value = row.get(column);
+        BitSet referenced = candidates.get(column);
+        if (value == null || referenced.isEmpty()) {
+          continue;
+        }
+        long hash = ValueHashing.hash(value);
+        for (int filter = referenced.nextSetBit(0); filter >= 0;
+             filter = referenced.nextSetBit(filter + 1)) {
+          if (!filters.get(filter).mightContainHash(hash)) {
+            referenced.clear(filter);
+            remainingCandidates--;
+          }
+        }
+      }
+    }
+
+    List<InclusionDependency> survivors = new ArrayList<>(remainingCandidates);
+    for (int column = 0; column < dependantColumns.size(); column++) {
+      BitSet referenced = candidates.get(column);
+      for (int filter = referenced.nextSetBit(0); filter >= 0;
+           filter = referenced.nextSetBit(filter + 1)) {
+        survivors.add(new InclusionDependency(
+          new ColumnPermutation(dependantColumns.get(column)),
+          new ColumnPermutation(referencedColumns.get(filter))));
+      }
+    }
+    return survivors;
+  }
+
+  /**
+   * @return the number of referenced columns with a filter
+   */
+  public int getNumberOfReferencedColumns() {
+    return filters.size();
+  }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+import java.util.Arrays;
+
+/**
+ * A bottom-k MinHash sketch, also known as k minimum values (KMV) sketch, of the distinct values
+ * of a column. It keeps the k smallest distinct hashes in a sorted array. As long as fewer than k
+ * distinct values were added the sketch is exact, otherwise the k-th smallest hash estimates the
+ * number of distinct values. The bottom-k hashes of two columns are a uniform sample of their
+ * union, which estimates their Jaccard similarity and the containment of one column in the other.
+ * Sketches of equal size can be merged.
+ */
+public class MinHashSketch {
+
+  // Hashes are shifted into [0, 2^63), so they are compared as signed longs.
+  protected static final double HASH_RANGE = Math.scalb(1.0, 63);
+
+  protected int numberOfHashes;
+  protected long[] hashes;
+  protected int size = 0;
+
+  /**
+   * @param numberOfHashes the number k of minimal hashes to keep
+   */
+  public MinHashSketch(int numberOfHashes) {
+    if (numberOfHashes < 2) {
+      throw new IllegalArgumentException("The sketch has to keep at least two hashes.");
+    }
+    this.numberOfHashes = numberOfHashes;
+    this.hashes = new long[numberOfHashes];
+  }
+
+  /**
+   * Adds a value, null values are ignored.
+   *
+   * @param value the value to add
+   */
+  public void add(String value) {
+    if (value != null) {
+      addHash(ValueHashing.hash(value));
+    }
+  }
+
+  /**
+   * Adds a hash of {@link ValueHashing#hash(String)}.
+   *
+   * @param hash the hash of a value
+   */
+  public void addHash(long hash) {
+    insert(hash >>> 1);
+  }
+
+  protected void insert(long hash) {
+    if (size == numberOfHashes && hash >= hashes[size - 1]) {
+      return;
+    }
+    int position = Arrays.binarySearch(hashes, 0, size, hash);
+    if (position >= 0) {
+      return;
+    }
+    position = -position - 1;
+    int movedHashes = Math.min(size, numberOfHashes - 1) - position;
+    System.arraycopy(hashes, position, hashes, position + 1, movedHashes);
+    hashes[position] = hash;
+    size = Math.min(size + 1, numberOfHashes);
+  }
+
+  /**
+   * Merges the other sketch into this one. Afterwards this sketch represents the union of both.
+   *
+   * @param other a sketch of the same size
+   */
+  public void merge(MinHashSketch other) {
+    checkCompatible(other);
+    for (int i = 0; i < other.size; i++) {
+      insert(other.hashes[i]);
+    }
+  }
+
+  /**
+   * Estimates the number of distinct values.
+   *
+   * @return the estimated number of distinct values
+   */
+  public double estimate() {
+    return estimate(size, size > 0 ? hashes[size - 1] : 0);
+  }
+
+  protected double estimate(int sampleSize, long largestHash) {
+    if (sampleSize < numberOfHashes) {
+      return sampleSize;
+    }
+    return (numberOfHashes - 1) / ((largestHash + 1) / HASH_RANGE);
+  }
+
+  /**
+   * Estimates the Jaccard similarity |A and B| / |A or B| of the columns of both sketches.
+   *
+   * @param other a sketch of the same size
+   * @return the estimated Jaccard similarity, 0 if both sketches are empty
+   */
+  public double jaccard(MinHashSketch other) {
+    long[] union = sampleUnion(other);
+    return union[0] == 0 ? 0 : (double) union[1] / union[0];
+  }
+
+  /**
+   * Estimates the fraction |A and B| / |A| of the distinct values of this sketch's column A that
+   * are contained in the other sketch's column B, e.g. to prune inclusion dependency candidates.
+   *
+   * @param other a sketch of the same size
+   * @return the estimated containment, 1 if this sketch is empty
+   */
+  public double containment(MinHashSketch other) {
+    if (size == 0) {
+      return 1;
+    }
+    long[] union = sampleUnion(other);
+    double unionEstimate = estimate((int) union[0], union[2]);
+    return Math.min(1, (double) union[1] / union[0] * unionEstimate / estimate());
+  }
+
+  /**
+   * Walks the k smallest hashes of the union of both sketches. They are smaller than the k-th
+   * hash of both sketches, so a sampled hash is in both columns iff it is in both sketches.
+   *
+   * @param other a sketch of the same size
+   * @return the number of sampled union hashes, the number of them in both sketches and the
+   * largest sampled hash
+   */
+  protected long[] sampleUnion(MinHashSketch other) {
+    checkCompatible(other);
+    int i = 0;
+    int j = 0;
+    int sampleSize = 0;
+    int sharedHashes = 0;
+    long largestHash = 0;
+    while (sampleSize < numberOfHashes && (i < size || j < other.size)) {
+      if (j >= other.size || (i < size && hashes[i] < other.hashes[j])) {
+        largestHash = hashes[i++];
+      } else if (i >= size || other.hashes[j] < hashes[i]) {
+        largestHash = other.hashes[j++];
+      } else {
+        largestHash = hashes[i++];
+        j++;
+        sharedHashes++;
+      }
+      sampleSize++;
+    }
+    return new long[]{sampleSize, sharedHashes, largestHash};
+  }
+
+  protected void checkCompatible(MinHashSketch other) {
+    if (other.numberOfHashes != numberOfHashes) {
+      throw new IllegalArgumentException("Only sketches of equal size can be combined.");
+    }
+  }
+
+  /**
+   * @return the number k of minimal hashes the sketch keeps
+   */
+  public int getNumberOfHashes() {
+    return numberOfHashes;
+  }
+
+  /**
+   * @return the number of hashes in the sketch, at most k
+   */
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+/**
+ * The 64 bit hash function of the sketches. Sketches can only be merged and compared if their
+ * values were hashed with the same function, so all sketches use this one.
+ */
+public final class ValueHashing {
+
+  private ValueHashing() {
+  }
+
+  /**
+   * Hashes the characters of a value and mixes the result with the finalizer of the 64 bit
+   * MurmurHash3, so that all bits of the hash are uniformly distributed.
+   *
+   * @param value a non null value
+   * @return the 64 bit hash of the value
+   */
+  public static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+    }
+    return mix(hash ^ value.length());
+  }
+
+  /**
+   * @param hash a hash
+   * @return the hash mixed with the finalizer of the 64 bit MurmurHash3
+   */
+  public static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import org.hamcrest.collection.IsIterableContainingInAnyOrder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.ArraySubSetGraph}
+ */
+public class ArraySubSetGraphTest {
+
+  protected static final int NUMBER_OF_COLUMNS = 10;
+
+  protected SubSetGraphFixture fixture;
+  protected ArraySubSetGraph graph;
+
+  @Before
+  public void setUp() throws Exception {
+    fixture = new SubSetGraphFixture();
+    graph = new ArraySubSetGraph(NUMBER_OF_COLUMNS)
+      .addAll(fixture.getExpectedIncludedColumnCombinations());
+  }
+
+  /**
+   * Test method for {@link ArraySubSetGraph#addAll(java.util.Collection)} <p/> All added column
+   * combinations should be contained once.
+   */
+  @Test
+  public void testAddAll() {
+    // Setup
+    List<ColumnCombinationBitset> expected = fixture.getExpectedIncludedColumnCombinations();
+
+    // Execute functionality
+    graph.addAll(expected);
+
+    // Check result
+    assertEquals(expected.size(), graph.size());
+    assertThat(graph.getSets(), IsIterableContainingInAnyOrder.containsInAnyOrder(
+      expected.toArray(new ColumnCombinationBitset[expected.size()])));
+    assertTrue(graph.getSets().get(0) instanceof LongColumnCombinationBitset);
+  }
+
+  /**
+   * Test method for {@link ArraySubSetGraph#getExistingSubsets(ColumnCombinationBitset)} and
+   * {@link ArraySubSetGraph#containsSubset(ColumnCombinationBitset)}
+   */
+  @Test
+  public void testGetExistingSubsets() {
+    // Execute functionality
+    List<ColumnCombinationBitset> actualSubsets =
+      graph.getExistingSubsets(fixture.getColumnCombinationForSubsetQuery());
+
+    // Check result
+    assertThat(actualSubsets,
+      IsIterableContainingInAnyOrder.containsInAnyOrder(fixture.getExpectedSubsetsFromQuery()));
+    assertTrue(graph.containsSubset(fixture.getColumnCombinationForSubsetQuery()));
+    assertFalse(graph.containsSubset(new ColumnCombinationBitset(1, 2, 4, 8)));
+    assertTrue(new ArraySubSetGraph(NUMBER_OF_COLUMNS)
+      .getExistingSubsets(new ColumnCombinationBitset(1)).isEmpty());
+  }
+
+  /**
+   * Test method for {@link ArraySubSetGraph#remove(ColumnCombinationBitset)} <p/> Removed column
+   * combinations should no longer be found, their supersets should.
+   */
+  @Test
+  public void testRemove() {
+    // Setup
+    ColumnCombinationBitset removed = new ColumnCombinationBitset(1, 3);
+
+    // Execute functionality
+    // Check result
+    assertTrue(graph.remove(removed));
+    assertFalse(graph.remove(removed));
+    assertFalse(graph.contains(removed));
+    assertTrue(graph.contains(new ColumnCombinationBitset(1, 3, 4, 6)));
+    assertFalse(graph.containsSubset(new ColumnCombinationBitset(1, 3, 4)));
+    assertEquals(fixture.getExpectedIncludedColumnCombinations().size() - 1, graph.size());
+  }
+
+  /**
+   * Test method for {@link ArraySubSetGraph#removeNonMinimalSets()} <p/> Only the minimal column
+   * combinations should remain.
+   */
+  @Test
+  public void testRemoveNonMinimalSets() {
+    // Setup
+    ColumnCombinationBitset[] expectedMinimalSets = fixture.getExpectedMinimalSubsets();
+
+    // Execute functionality
+    int removed = graph.removeNonMinimalSets();
+
+    // Check result
+    assertEquals(fixture.getExpectedIncludedColumnCombinations().size()
+      - expectedMinimalSets.length, removed);
+    assertThat(graph.getSets(),
+      IsIterableContainingInAnyOrder.containsInAnyOrder(expectedMinimalSets));
+  }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import org.hamcrest.collection.IsIterableContainingInAnyOrder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.ArraySuperSetGraph}
+ */
+public class ArraySuperSetGraphTest {
+
+  protected SuperSetGraphFixture fixture;
+  protected ArraySuperSetGraph graph;
+
+  @Before
+  public void setUp() throws Exception {
+    fixture = new SuperSetGraphFixture();
+    graph = new ArraySuperSetGraph(fixture.getNumberOfColumns())
+      .addAll(fixture.getExpectedIncludedColumnCombinations());
+  }
+
+  /**
+   * Test method for {@link ArraySuperSetGraph#getExistingSupersets(ColumnCombinationBitset)} and
+   * {@link ArraySuperSetGraph#containsSuperset(ColumnCombinationBitset)}
+   */
+  @Test
+  public void testGetExistingSupersets() {
+    // Execute functionality
+    List<ColumnCombinationBitset> actualSupersets =
+      graph.getExistingSupersets(fixture.getColumnCombinationForSupersetQuery());
+
+    // Check result
+    assertThat(actualSupersets, IsIterableContainingInAnyOrder
+      .containsInAnyOrder(fixture.getExpectedSupersetsFromQuery()));
+    assertTrue(graph.containsSuperset(fixture.getColumnCombinationForSupersetQuery()));
+    assertFalse(graph.containsSuperset(new ColumnCombinationBitset(1, 5)));
+  }
+
+  /**
+   * Test method for {@link ArraySuperSetGraph#removeNonMaximalSets()} <p/> Only the maximal column
+   * combinations should remain.
+   */
+  @Test
+  public void testRemoveNonMaximalSets() {
+    // Setup
+    List<ColumnCombinationBitset> included = fixture.getExpectedIncludedColumnCombinations();
+
+    // Execute functionality
+    int removed = graph.removeNonMaximalSets();
+
+    // Check result
+    // (1, 3) and (1, 2, 4, 7) are subsets of (1, 2, 3, 4, 7, 8).
+    assertEquals(2, removed);
+    assertEquals(included.size() - 2, graph.size());
+    assertFalse(graph.remove(included.get(3)));
+    assertTrue(graph.remove(included.get(4)));
+    assertFalse(graph.containsSuperset(new ColumnCombinationBitset(1, 2, 3)));
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.CompactPositionListIndex}
+ */
+public class CompactPositionListIndexTest {
+
+  protected static final int NUMBER_OF_ROWS = 12;
+
+  protected PositionListIndexFixture fixture;
+
+  @Before
+  public void setUp() throws Exception {
+    fixture = new PositionListIndexFixture();
+  }
+
+  /**
+   * Test method for {@link CompactPositionListIndex#CompactPositionListIndex(int)} <p/> The index
+   * should be empty and unique after construction.
+   */
+  @Test
+  public void testConstructor() {
+    // Execute functionality
+    CompactPositionListIndex pli = new CompactPositionListIndex(NUMBER_OF_ROWS);
+
+    // Check result
+    assertTrue(pli.isEmpty());
+    assertTrue(pli.isUnique());
+    assertEquals(0, pli.getRawKeyError());
+  }
+
+  /**
+   * Test method for {@link CompactPositionListIndex#fromPositionListIndex(PositionListIndex, int)}
+   * and {@link CompactPositionListIndex#toPositionListIndex()} <p/> Converting back and forth
+   * should not change the index.
+   */
+  @Test
+  public void testConversion() {
+    // Setup
+    PositionListIndex expectedPLI = fixture.getFirstPLI();
+
+    // Execute functionality
+    CompactPositionListIndex compactPLI =
+      CompactPositionListIndex.fromPositionListIndex(expectedPLI, NUMBER_OF_ROWS);
+
+    // Check result
+    assertArrayEquals(new int[]{2, 4, 8, 5, 6, 7}, compactPLI.getRows());
+    assertArrayEquals(new int[]{0, 3, 6}, compactPLI.getClusterOffsets());
+    assertEquals(fixture.getFirstPLISize(), compactPLI.size());
+    assertEquals(expectedPLI, compactPLI.toPositionListIndex());
+  }
+
+  /**
+   * Test method for {@link CompactPositionListIndex#intersect(CompactPositionListIndex)} <p/> Two
+   * {@link CompactPositionListIndex}es should be correctly intersected in both directions.
+   */
+  @Test
+  public void testIntersect() {
+    // Setup
+    CompactPositionListIndex firstPLI =
+      CompactPositionListIndex.fromPositionListIndex(fixture.getFirstPLI(), NUMBER_OF_ROWS);
+    CompactPositionListIndex secondPLI =
+      CompactPositionListIndex.fromPositionListIndex(fixture.getSecondPLI(), NUMBER_OF_ROWS);
+    // Expected values
+    PositionListIndex expectedPLI = fixture.getExpectedIntersectedPLI();
+
+    // Execute functionality
+    CompactPositionListIndex actualPLI = firstPLI.intersect(secondPLI);
+    CompactPositionListIndex actualReversePLI = secondPLI.intersect(firstPLI);
+
+    // Check result
+    assertEquals(expectedPLI, actualPLI.toPositionListIndex());
+    assertEquals(expectedPLI, actualReversePLI.toPositionListIndex());
+    // Repeated intersections reuse the scratch arrays and need to yield the same result.
+    assertEquals(expectedPLI, firstPLI.intersect(secondPLI).toPositionListIndex());
+  }
+
+  /**
+   * Test method for {@link CompactPositionListIndex#getRawKeyError()} <p/> The key error should be
+   * calculated correctly.
+   */
+  @Test
+  public void testGetRawKeyError() {
+    // Setup
+    CompactPositionListIndex firstPLI =
+      CompactPositionListIndex.fromPositionListIndex(fixture.getFirstPLI(), NUMBER_OF_ROWS);
+    CompactPositionListIndex secondPLI =
+      CompactPositionListIndex.fromPositionListIndex(fixture.getSecondPLI(), NUMBER_OF_ROWS);
+
+    // Execute functionality
+    // Check result
+    assertEquals(fixture.getExpectedFirstPLIRawKeyError(), firstPLI.getRawKeyError());
+    assertEquals(fixture.getExpectedSecondPLIRawKeyError(), secondPLI.getRawKeyError());
+    assertEquals(fixture.getExpectedIntersectedPLIRawKeyError(),
+      firstPLI.intersect(secondPLI).getRawKeyError());
+  }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.algorithm_execution.FileCreationException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_integration.input.RelationalInputGenerator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.ExternalSortedColumns}
+ */
+public class ExternalSortedColumnsTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  protected PLIBuilderFixture fixture;
+  protected FileGenerator fileGenerator;
+
+  @Before
+  public void setUp() throws Exception {
+    fixture = new PLIBuilderFixture();
+    fileGenerator = new FileGenerator() {
+      @Override
+      public File getTemporaryFile() throws FileCreationException {
+        try {
+          return folder.newFile();
+        } catch (IOException e) {
+          throw new FileCreationException("Could not create temporary file.", e);
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+      }
+    };
+  }
+
+  /**
+   * Test method for {@link ExternalSortedColumns#getDistinctSortedColumns()} <p/> The columns
+   * should equal the ones of the {@link PLIBuilder}, whether they fit into memory or not.
+   */
+  @Test
+  public void testGetDistinctSortedColumns() throws Exception {
+    // Setup
+    RelationalInputGenerator inputGenerator = fixture.getInputGenerator();
+    // Expected values
+    List<List<String>> expectedColumns = toLists(fixture.getExpectedDistinctSortedColumns());
+
+    // Execute functionality
+    List<List<String>> inMemoryColumns = toLists(new ExternalSortedColumns(
+      inputGenerator.generateNewCopy(), fileGenerator, Long.MAX_VALUE).getDistinctSortedColumns());
+    List<List<String>> spilledColumns = toLists(new ExternalSortedColumns(
+      inputGenerator.generateNewCopy(), fileGenerator, 0).getDistinctSortedColumns());
+
+    // Check result
+    assertEquals(expectedColumns, inMemoryColumns);
+    assertEquals(expectedColumns, spilledColumns);
+    assertTrue(folder.getRoot().list().length > 0);
+  }
+
+  /**
+   * Test method for {@link ExternalSortedColumns#getDistinctSortedColumns()} <p/> Every
+   * {@link ExternalSortedColumns#MERGE_FAN_IN} runs of the same level should be merged into one run
+   * of the next level without losing values.
+   */
+  @Test
+  public void testGetDistinctSortedColumnsManyRuns() throws Exception {
+    // Setup
+    List<List<String>> table = new ArrayList<>();
+    TreeSet<String> expectedValues = new TreeSet<>();
+    int fanIn = ExternalSortedColumns.MERGE_FAN_IN;
+    for (int row = 0; row < fanIn * fanIn + fanIn + 3; row++) {
+      String value = Integer.toString(row % 50);
+      table.add(Arrays.asList(value));
+      expectedValues.add(value);
+    }
+    ExternalSortedColumns columns =
+      new ExternalSortedColumns(getInput(table), fileGenerator, 0);
+
+    // Execute functionality
+    List<List<String>> actualColumns = toLists(columns.getDistinctSortedColumns());
+
+    // Check result
+    assertEquals(1, actualColumns.size());
+    assertEquals(new ArrayList<>(expectedValues), actualColumns.get(0));
+    // Every row is spilled as run of its own.
+    assertEquals(Arrays.asList(2, 1, 0, 0, 0), columns.runLevels.get(0));
+    assertEquals(5, columns.runFiles.get(0).size());
+  }
+
+  /**
+   * Test method for {@link ExternalSortedColumns#getDistinctSortedColumns()} <p/> The iterators
+   * should only open the run files of their column on first use, so that run files can still be
+   * deleted before a column is read.
+   */
+  @Test
+  public void testGetDistinctSortedColumnsOpensRunsLazily() throws Exception {
+    // Setup
+    ExternalSortedColumns columns = new ExternalSortedColumns(
+      fixture.getInputGenerator().generateNewCopy(), fileGenerator, 0);
+    List<SortedColumnIterator> iterators = columns.getDistinctSortedColumns();
+    File runFile = columns.runFiles.get(0).get(0);
+
+    // Execute functionality
+    assertTrue(runFile.delete());
+
+    // Check result
+    try {
+      iterators.get(0).hasNext();
+      fail("Exception should have been thrown.");
+    } catch (InputIterationException actualException) {
+      // Intentionally left blank
+    }
+    for (SortedColumnIterator iterator : iterators) {
+      iterator.close();
+    }
+  }
+
+  protected List<List<String>> toLists(List<?> columns) throws InputIterationException {
+    List<List<String>> lists = new ArrayList<>();
+    for (Object column : columns) {
+      List<String> values = new ArrayList<>();
+      if (column instanceof SortedColumnIterator) {
+        SortedColumnIterator iterator = (SortedColumnIterator) column;
+        while (iterator.hasNext()) {
+          values.add(iterator.next());
+        }
+        iterator.close();
+      } else {
+        for (Object value : (TreeSet<?>) column) {
+          values.add((String) value);
+        }
+      }
+      lists.add(values);
+    }
+    return lists;
+  }
+
+  protected RelationalInput getInput(final List<List<String>> table)
+    throws InputIterationException {
+    RelationalInput input = mock(RelationalInput.class);
+    final int[] position = {0};
+
+    when(input.hasNext()).thenAnswer(new Answer<Boolean>() {
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        return position[0] < table.size();
+      }
+    });
+
+    when(input.next()).thenAnswer(new Answer<List<String>>() {
+      public List<String> answer(InvocationOnMock invocation) throws Throwable {
+        return table.get(position[0]++);
+      }
+    });
+
+    return input;
+  }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_helper.sketches.ValueHashing;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.GlobalValueDictionary}
+ */
+public class GlobalValueDictionaryTest {
+
+  /**
+   * Test method for {@link GlobalValueDictionary#encode(String)} and {@link
+   * GlobalValueDictionary#decode(int)} <p/> Equal values should get the same dense value id, null
+   * should get the reserved value id.
+   */
+  @Test
+  public void testEncode() {
+    // Setup
+    GlobalValueDictionary dictionary = new GlobalValueDictionary();
+    byte[] bytes = "xxbyy".getBytes(StandardCharsets.UTF_8);
+
+    // Execute functionality
+    int a = dictionary.encode("a");
+    int b = dictionary.encode("b");
+    int umlaut = dictionary.encode("ä");
+
+    // Check result
+    assertEquals(1, a);
+    assertEquals(2, b);
+    assertEquals(3, umlaut);
+    assertEquals(a, dictionary.encode("a"));
+    assertEquals(b, dictionary.encode(bytes, 2, 1));
+    assertEquals(GlobalValueDictionary.NULL_VALUE_ID, dictionary.encode(null));
+    assertNull(dictionary.decode(GlobalValueDictionary.NULL_VALUE_ID));
+    assertEquals("ä", dictionary.decode(umlaut));
+    assertEquals(GlobalValueDictionary.NO_VALUE_ID, dictionary.getValueId("c"));
+    assertEquals(4, dictionary.size());
+    assertEquals(ValueHashing.hash("b"), dictionary.getValueHash(b));
+  }
+
+  /**
+   * Test method for {@link GlobalValueDictionary#encode(String)} <p/> Values in an off-heap arena
+   * and values larger than an arena chunk should be stored as well.
+   */
+  @Test
+  public void testEncodeOffHeap() {
+    // Setup
+    GlobalValueDictionary dictionary = new GlobalValueDictionary(1, true);
+    StringBuilder largeValue = new StringBuilder();
+    while (largeValue.length() <= GlobalValueDictionary.ARENA_CHUNK_SIZE) {
+      largeValue.append("large");
+    }
+
+    // Execute functionality
+    int small = dictionary.encode("small");
+    int large = dictionary.encode(largeValue.toString());
+
+    // Check result
+    assertTrue(dictionary.isOffHeap());
+    assertEquals("small", dictionary.decode(small));
+    assertEquals(largeValue.toString(), dictionary.decode(large));
+    assertEquals(large, dictionary.encode(largeValue.toString()));
+    assertTrue(dictionary.getArenaBytes() > GlobalValueDictionary.ARENA_CHUNK_SIZE * 2L);
+  }
+
+  /**
+   * Test method for {@link GlobalValueDictionary#encode(String)} <p/> Concurrent encoders should
+   * get the same value id for the same value and the value ids should be dense.
+   */
+  @Test
+  public void testEncodeConcurrently() throws Exception {
+    // Setup
+    final GlobalValueDictionary dictionary = new GlobalValueDictionary(4, false);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<int[]>> futures = new ArrayList<>();
+
+    // Execute functionality
+    for (int thread = 0; thread < 4; thread++) {
+      futures.add(executor.submit(new Callable<int[]>() {
+        @Override
+        public int[] call() {
+          int[] valueIds = new int[10000];
+          for (int i = 0; i < valueIds.length; i++) {
+            valueIds[i] = dictionary.encode("value" + i);
+          }
+          return valueIds;
+        }
+      }));
+    }
+    List<int[]> results = new ArrayList<>();
+    for (Future<int[]> future : futures) {
+      results.add(future.get());
+    }
+    executor.shutdown();
+
+    // Check result
+    Set<Integer> distinctValueIds = new HashSet<>();
+    for (int i = 0; i < 10000; i++) {
+      for (int[] valueIds : results) {
+        assertEquals(results.get(0)[i], valueIds[i]);
+      }
+      assertEquals("value" + i, dictionary.decode(results.get(0)[i]));
+      distinctValueIds.add(results.get(0)[i]);
+    }
+    assertEquals(10000, distinctValueIds.size());
+    assertEquals(10001, dictionary.size());
+  }
+}
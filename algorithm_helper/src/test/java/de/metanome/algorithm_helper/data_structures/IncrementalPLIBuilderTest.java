@@ -0,0 +1,169 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.IncrementalPLIBuilder} and {@link
+ * de.metanome.algorithm_helper.data_structures.PLIDelta}
+ */
+public class IncrementalPLIBuilderTest {
+
+  protected static final int SPLIT_ROW = 3;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  protected PLIBuilderFixture fixture;
+
+  @Before
+  public void setUp() throws Exception {
+    fixture = new PLIBuilderFixture();
+  }
+
+  /**
+   * Test method for {@link IncrementalPLIBuilder#append(RelationalInput)} <p/> After appending the
+   * table in two parts the plis should equal the ones built from the whole table.
+   */
+  @Test
+  public void testAppend() throws InputIterationException {
+    // Setup
+    IncrementalPLIBuilder builder = new IncrementalPLIBuilder();
+    List<PositionListIndex> plis = builder.getPLIList();
+    // Expected values
+    List<PositionListIndex> expectedPLIList = fixture.getExpectedPLIList(true);
+
+    // Execute functionality
+    builder.append(getInput(0, SPLIT_ROW));
+    long firstKeyError = plis.get(2).getRawKeyError();
+    PLIDelta delta = builder.append(getInput(SPLIT_ROW, fixture.table.size()));
+
+    // Check result
+    assertEquals(1, firstKeyError);
+    assertSame(plis, builder.getPLIList());
+    assertEquals(expectedPLIList, plis);
+    assertEquals(3, plis.get(2).getRawKeyError());
+    assertEquals(fixture.getExpectedNumberOfTuples(), builder.getNumberOfTuples());
+    assertEquals(SPLIT_ROW, delta.getFirstRow());
+    assertEquals(fixture.table.size() - SPLIT_ROW, delta.getNumberOfRows());
+  }
+
+  /**
+   * Test method for {@link IncrementalPLIBuilder#append(RelationalInput)} <p/> Null values should
+   * not be clustered if null does not equal null.
+   */
+  @Test
+  public void testAppendNullNotEqualsNull() throws InputIterationException {
+    // Setup
+    IncrementalPLIBuilder builder = new IncrementalPLIBuilder(false);
+    // Expected values
+    List<PositionListIndex> expectedPLIList = fixture.getExpectedPLIList(false);
+
+    // Execute functionality
+    builder.append(getInput(0, SPLIT_ROW));
+    builder.append(getInput(SPLIT_ROW, fixture.table.size()));
+
+    // Check result
+    assertEquals(expectedPLIList, builder.getPLIList());
+  }
+
+  /**
+   * Test method for {@link PLIDelta#apply(PositionListIndex, ColumnCombinationBitset)} <p/> The
+   * delta should update a multi column pli of the old rows to the pli of all rows.
+   */
+  @Test
+  public void testApplyDelta() throws InputIterationException {
+    // Setup
+    IncrementalPLIBuilder builder = new IncrementalPLIBuilder();
+    builder.append(getInput(0, SPLIT_ROW));
+    List<PositionListIndex> plis = builder.getPLIList();
+    ColumnCombinationBitset columns = new ColumnCombinationBitset(1, 2);
+    PositionListIndex oldPLI = plis.get(1).intersect(plis.get(2));
+    PositionListIndex oldPLIWithNulls = plis.get(2).intersect(plis.get(3));
+
+    // Execute functionality
+    PLIDelta delta = builder.append(getInput(SPLIT_ROW, fixture.table.size()));
+    PositionListIndex actualPLI = delta.apply(oldPLI, columns);
+    PositionListIndex actualPLIWithNulls =
+      delta.apply(oldPLIWithNulls, new ColumnCombinationBitset(2, 3));
+
+    // Check result
+    assertEquals(plis.get(1).intersect(plis.get(2)), actualPLI);
+    assertEquals(plis.get(2).intersect(plis.get(3)), actualPLIWithNulls);
+    assertEquals(1, oldPLI.getClusters().size());
+  }
+
+  /**
+   * Test method for {@link IncrementalPLIBuilder#save(File)} and {@link
+   * IncrementalPLIBuilder#load(File)} <p/> A restored builder should continue with the next
+   * append.
+   */
+  @Test
+  public void testSaveLoad() throws Exception {
+    // Setup
+    IncrementalPLIBuilder builder = new IncrementalPLIBuilder();
+    builder.append(getInput(0, SPLIT_ROW));
+    File file = folder.newFile();
+    // Expected values
+    List<PositionListIndex> expectedPLIList = fixture.getExpectedPLIList(true);
+
+    // Execute functionality
+    builder.save(file);
+    IncrementalPLIBuilder loadedBuilder = IncrementalPLIBuilder.load(file);
+    loadedBuilder.append(getInput(SPLIT_ROW, fixture.table.size()));
+
+    // Check result
+    assertEquals(expectedPLIList, loadedBuilder.getPLIList());
+    assertEquals(fixture.getExpectedNumberOfTuples(), loadedBuilder.getNumberOfTuples());
+    assertEquals(builder.getDictionaries().get(3).getValues(),
+      loadedBuilder.getDictionaries().get(3).getValues().subList(0, 2));
+  }
+
+  protected RelationalInput getInput(final int fromRow, final int toRow)
+    throws InputIterationException {
+    RelationalInput input = mock(RelationalInput.class);
+    final int[] position = {fromRow};
+
+    when(input.hasNext()).thenAnswer(new Answer<Boolean>() {
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        return position[0] < toRow;
+      }
+    });
+
+    when(input.next()).thenAnswer(new Answer<List<String>>() {
+      public List<String> answer(InvocationOnMock invocation) throws Throwable {
+        return fixture.table.get(position[0]++);
+      }
+    });
+
+    return input;
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.LatticeLevel}
+ */
+public class LatticeLevelTest {
+
+  /**
+   * Test method for {@link LatticeLevel#generateNextLevel()} <p/> Without pruning every
+   * combination of the lattice should be generated once in colexicographic order.
+   */
+  @Test
+  public void testGenerateNextLevel() {
+    // Setup
+    LatticeLevel level = LatticeLevel.createFirstLevel(6);
+
+    // Execute functionality
+    LatticeLevel secondLevel = level.generateNextLevel();
+    LatticeLevel thirdLevel = secondLevel.generateNextLevel();
+
+    // Check result
+    assertEquals(6, level.size());
+    assertEquals(15, secondLevel.size());
+    assertEquals(20, thirdLevel.size());
+    assertEquals(3, thirdLevel.getLevel());
+    assertEquals(0b111L, thirdLevel.getBits(0));
+    assertEquals(0b111000L, thirdLevel.getBits(19));
+    for (int index = 1; index < thirdLevel.size(); index++) {
+      assertTrue(thirdLevel.getBits(index - 1) < thirdLevel.getBits(index));
+      assertEquals(3, Long.bitCount(thirdLevel.getBits(index)));
+    }
+    assertEquals(new LongColumnCombinationBitset(0, 1, 2), thirdLevel.getColumnCombination(0));
+  }
+
+  /**
+   * Test method for {@link LatticeLevel#candidateIterator()} <p/> Candidates with a subset that is
+   * missing in the level should be pruned.
+   */
+  @Test
+  public void testCandidateIteratorPrunes() {
+    // Setup
+    LatticeLevel level = new LatticeLevel(4, 2);
+    level.add(0b0011L);
+    level.add(0b0101L);
+    level.add(0b1001L);
+    level.add(0b1010L);
+    level.add(0b1100L);
+
+    // Execute functionality
+    LatticeLevel.CandidateIterator candidates = level.candidateIterator();
+
+    // Check result
+    assertTrue(candidates.hasNext());
+    assertEquals(0b1011L, candidates.nextBits());
+    assertEquals(0b1101L, candidates.nextBits());
+    assertFalse(candidates.hasNext());
+  }
+
+  /**
+   * Test method for {@link LatticeLevel#add(long[])} <p/> Combinations that are not in ascending
+   * colexicographic order should be rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddUnordered() {
+    // Setup
+    LatticeLevel level = new LatticeLevel(4, 2);
+    level.add(0b1001L);
+
+    // Execute functionality
+    level.add(0b0110L);
+  }
+
+  /**
+   * Test method for {@link LatticeLevel#generateNextLevel()} <p/> Lattices with more than 64
+   * columns should use several words per combination.
+   */
+  @Test
+  public void testGenerateNextLevelMultipleWords() {
+    // Setup
+    LatticeLevel level = LatticeLevel.createFirstLevel(70);
+
+    // Execute functionality
+    LatticeLevel secondLevel = level.generateNextLevel();
+    LatticeLevel thirdLevel = secondLevel.generateNextLevel();
+
+    // Check result
+    assertEquals(2, secondLevel.getWordsPerSet());
+    assertEquals(70 * 69 / 2, secondLevel.size());
+    assertEquals(70 * 69 * 68 / 6, thirdLevel.size());
+    assertTrue(secondLevel.contains(new long[]{1L << 3, 1L << 1}));
+    assertFalse(secondLevel.contains(new long[]{1L << 3, 0}));
+    long[] last = new long[2];
+    thirdLevel.getSet(thirdLevel.size() - 1, last);
+    assertArrayEquals(new long[]{0, 0b111000L}, last);
+    assertEquals(new ColumnCombinationBitset(67, 68, 69),
+      thirdLevel.getColumnCombination(thirdLevel.size() - 1));
+  }
+}
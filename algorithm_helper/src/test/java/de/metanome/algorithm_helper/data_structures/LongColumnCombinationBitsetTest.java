@@ -0,0 +1,191 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.LongColumnCombinationBitset}
+ */
+public class LongColumnCombinationBitsetTest {
+
+  protected static final int NUMBER_OF_COLUMNS = 64;
+
+  /**
+   * Test method for {@link LongColumnCombinationBitset#equals(Object)} and {@link
+   * LongColumnCombinationBitset#hashCode()} <p/> Long backed and generic column combinations with
+   * the same columns should be equal and have the same hash code.
+   */
+  @Test
+  public void testEqualsHashCode() {
+    // Setup
+    ColumnCombinationBitset longBitset = new LongColumnCombinationBitset(0, 3, 63);
+    ColumnCombinationBitset bitset = new ColumnCombinationBitset(0, 3, 63);
+
+    // Execute functionality
+    // Check result
+    assertEquals(longBitset, bitset);
+    assertEquals(bitset, longBitset);
+    assertEquals(bitset.hashCode(), longBitset.hashCode());
+    assertEquals(new ColumnCombinationBitset().hashCode(),
+      new LongColumnCombinationBitset().hashCode());
+    assertNotEquals(longBitset, new LongColumnCombinationBitset(0, 3));
+    assertEquals(bitset.toString(), longBitset.toString());
+
+    HashSet<ColumnCombinationBitset> set = new HashSet<>();
+    set.add(bitset);
+    assertTrue(set.contains(longBitset));
+  }
+
+  /**
+   * The set operations of the long backed column combinations should yield the same results as
+   * the ones of the generic column combination.
+   */
+  @Test
+  public void testSetOperationsMatchGenericBitset() {
+    // Setup
+    Random random = new Random(42);
+
+    for (int i = 0; i < 200; i++) {
+      long firstBits = random.nextLong() & random.nextLong();
+      long secondBits = random.nextLong() & random.nextLong();
+      if (i % 4 == 0) {
+        secondBits &= firstBits;
+      }
+      LongColumnCombinationBitset first = LongColumnCombinationBitset.fromBits(firstBits);
+      LongColumnCombinationBitset second = LongColumnCombinationBitset.fromBits(secondBits);
+      ColumnCombinationBitset genericFirst = new ColumnCombinationBitset(first.getSetBits());
+      ColumnCombinationBitset genericSecond = new ColumnCombinationBitset(second.getSetBits());
+
+      // Execute functionality
+      // Check result
+      assertEquals(genericFirst.size(), first.size());
+      assertEquals(genericFirst.union(genericSecond), first.union(second));
+      assertEquals(genericFirst.minus(genericSecond), first.minus(second));
+      assertEquals(genericFirst.intersect(genericSecond), first.intersect(second));
+      assertEquals(genericFirst.containsSubset(genericSecond), first.containsSubset(second));
+      assertEquals(genericSecond.isSubsetOf(genericFirst), second.isSubsetOf(first));
+      assertEquals(genericFirst.containsSubset(genericSecond), first.containsSubset(genericSecond));
+      assertEquals(Integer.signum(genericFirst.compareTo(genericSecond)),
+        Integer.signum(first.compareTo(second)));
+      assertEquals(genericFirst.getDirectSubsets(), first.getDirectSubsets());
+      assertEquals(genericFirst.getDirectSupersets(NUMBER_OF_COLUMNS),
+        first.getDirectSupersets(NUMBER_OF_COLUMNS));
+      assertEquals(genericFirst.invert(NUMBER_OF_COLUMNS), first.invert(NUMBER_OF_COLUMNS));
+      assertEquals(genericFirst.getClearedBits(NUMBER_OF_COLUMNS),
+        first.getClearedBits(NUMBER_OF_COLUMNS));
+      assertEquals(genericFirst.getContainedOneColumnCombinations(),
+        first.getContainedOneColumnCombinations());
+    }
+  }
+
+  /**
+   * Test method for {@link LongColumnCombinationBitset#compareTo(ColumnCombinationBitset)} <p/>
+   * The comparison should be equal to the one of the generic column combination.
+   */
+  @Test
+  public void testCompareTo() {
+    // Setup
+    LongColumnCombinationBitset first = new LongColumnCombinationBitset(1, 2);
+    LongColumnCombinationBitset second = new LongColumnCombinationBitset(2, 3);
+
+    // Execute functionality
+    // Check result
+    assertEquals(new ColumnCombinationBitset(1, 2).compareTo(new ColumnCombinationBitset(2, 3)),
+      first.compareTo(second));
+    assertEquals(new ColumnCombinationBitset(2, 3).compareTo(new ColumnCombinationBitset(1, 2)),
+      second.compareTo(first));
+    assertEquals(0, first.compareTo(new LongColumnCombinationBitset(1, 2)));
+  }
+
+  /**
+   * Test method for {@link LongColumnCombinationBitset#getNSubsetColumnCombinations(int)} and
+   * {@link LongColumnCombinationBitset#getAllSubsets()} <p/> The lattice generation inherited from
+   * the generic column combination should work on the long representation.
+   */
+  @Test
+  public void testSubsetGeneration() {
+    // Setup
+    ColumnCombinationBitset longBitset = new LongColumnCombinationBitset(0, 2, 4, 5);
+    ColumnCombinationBitset bitset = new ColumnCombinationBitset(0, 2, 4, 5);
+
+    // Execute functionality
+    // Check result
+    assertEquals(new HashSet<>(bitset.getAllSubsets()),
+      new HashSet<>(longBitset.getAllSubsets()));
+    for (int n = 0; n <= 4; n++) {
+      assertEquals(new HashSet<>(bitset.getNSubsetColumnCombinations(n)),
+        new HashSet<>(longBitset.getNSubsetColumnCombinations(n)));
+      assertEquals(
+        new HashSet<>(bitset.getNSubsetColumnCombinationsSupersetOf(
+          new ColumnCombinationBitset(2), n)),
+        new HashSet<>(longBitset.getNSubsetColumnCombinationsSupersetOf(
+          new LongColumnCombinationBitset(2), n)));
+    }
+  }
+
+  /**
+   * Test method for {@link LongColumnCombinationBitset#setBitIterator()} and {@link
+   * LongColumnCombinationBitset#nextSetBit(long, int)}
+   */
+  @Test
+  public void testSetBitIteration() {
+    // Setup
+    LongColumnCombinationBitset bitset = new LongColumnCombinationBitset(1, 7, 63);
+
+    // Execute functionality
+    IntIterator iterator = bitset.setBitIterator();
+
+    // Check result
+    assertEquals(1, iterator.nextInt());
+    assertEquals(7, iterator.nextInt());
+    assertEquals(63, iterator.nextInt());
+    assertFalse(iterator.hasNext());
+    assertEquals(7, LongColumnCombinationBitset.nextSetBit(bitset.getBits(), 2));
+    assertEquals(-1, LongColumnCombinationBitset.nextSetBit(0L, 0));
+  }
+
+  /**
+   * Test method for {@link LongColumnCombinationBitset#addColumn(int)} <p/> Columns beyond the
+   * 64th should be rejected.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testAddColumnTooLarge() {
+    new LongColumnCombinationBitset().addColumn(64);
+  }
+
+  /**
+   * Test method for {@link ColumnCombinationBitsetFactory#create(int...)} <p/> The factory should
+   * pick the long representation for relations with at most 64 columns.
+   */
+  @Test
+  public void testFactory() {
+    // Execute functionality
+    // Check result
+    assertTrue(new ColumnCombinationBitsetFactory(64).create(1) instanceof
+      LongColumnCombinationBitset);
+    assertFalse(new ColumnCombinationBitsetFactory(65).create(1) instanceof
+      LongColumnCombinationBitset);
+    assertEquals(new ColumnCombinationBitset().setAllBits(10),
+      new ColumnCombinationBitsetFactory(10).createAllColumns());
+  }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.algorithm_execution.FileCreationException;
+import de.metanome.algorithm_integration.algorithm_execution.FileGenerator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.MappedPositionListIndex}
+ */
+public class MappedPositionListIndexTest {
+
+  protected static final int NUMBER_OF_ROWS = 12;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  protected PositionListIndexFixture fixture;
+
+  @Before
+  public void setUp() throws Exception {
+    fixture = new PositionListIndexFixture();
+  }
+
+  /**
+   * Test method for {@link MappedPositionListIndex#intersect(MappedPositionListIndex)} <p/> Two
+   * indices in direct buffers should be correctly intersected.
+   */
+  @Test
+  public void testIntersectDirect() throws FileCreationException {
+    testIntersect(PLIStorage.direct());
+  }
+
+  /**
+   * Test method for {@link MappedPositionListIndex#intersect(MappedPositionListIndex)} <p/> Two
+   * indices in memory mapped files should be correctly intersected.
+   */
+  @Test
+  public void testIntersectMapped() throws FileCreationException {
+    testIntersect(PLIStorage.mapped(new FileGenerator() {
+      @Override
+      public File getTemporaryFile() throws FileCreationException {
+        try {
+          return folder.newFile();
+        } catch (IOException e) {
+          throw new FileCreationException("Could not create temporary file.", e);
+        }
+      }
+
+      @Override
+      public void close() {
+      }
+    }));
+  }
+
+  /**
+   * Test method for {@link MappedPositionListIndex#intersect(MappedPositionListIndex)} <p/> The
+   * scratch buffers of an intersection should be allocated once per storage and thread, repeated
+   * intersections should only allocate their results and return the same index.
+   */
+  @Test
+  public void testIntersectReusesScratchBuffers() throws FileCreationException {
+    // Setup
+    final int[] allocations = {0};
+    PLIStorage storage = new PLIStorage() {
+      @Override
+      public IntBuffer allocate(int capacity) throws FileCreationException {
+        allocations[0]++;
+        return PLIStorage.direct().allocate(capacity);
+      }
+    };
+    MappedPositionListIndex firstPLI = MappedPositionListIndex.store(
+      CompactPositionListIndex.fromPositionListIndex(fixture.getFirstPLI(), NUMBER_OF_ROWS),
+      storage);
+    MappedPositionListIndex secondPLI = MappedPositionListIndex.store(
+      CompactPositionListIndex.fromPositionListIndex(fixture.getSecondPLI(), NUMBER_OF_ROWS),
+      storage);
+    // Expected values
+    PositionListIndex expectedPLI = fixture.getExpectedIntersectedPLI();
+
+    // Execute functionality
+    firstPLI.intersect(secondPLI);
+    int allocationsOfFirstIntersection = allocations[0];
+    MappedPositionListIndex actualPLI = firstPLI.intersect(secondPLI);
+
+    // Check result
+    // Only the rows and offsets of the second result are allocated.
+    assertEquals(allocationsOfFirstIntersection + 2, allocations[0]);
+    assertEquals(expectedPLI,
+      actualPLI.toCompactPositionListIndex().toPositionListIndex());
+  }
+
+  /**
+   * Test method for {@link PLIStorage#allocate(int)} <p/> Buffers that cannot be addressed should
+   * be rejected instead of overflowing their byte size.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testAllocateTooLarge() throws FileCreationException {
+    PLIStorage.direct().allocate(PLIStorage.MAX_CAPACITY + 1);
+  }
+
+  /**
+   * Test method for {@link PLIStorage#allocate(int)} <p/> Mapped buffers should be sliced from a
+   * few segment files, so that more buffers can be allocated than files or mappings are allowed.
+   * The buffers should be zeroed and independent of each other.
+   */
+  @Test
+  public void testAllocateMappedSlices() throws FileCreationException {
+    // Setup
+    CountingFileGenerator fileGenerator = new CountingFileGenerator();
+    PLIStorage storage = PLIStorage.mapped(fileGenerator);
+    int numberOfBuffers = 70000;
+    IntBuffer[] buffers = new IntBuffer[numberOfBuffers];
+
+    // Execute functionality
+    for (int i = 0; i < numberOfBuffers; i++) {
+      buffers[i] = storage.allocate(16);
+      assertEquals(0, buffers[i].get(0));
+      assertEquals(0, buffers[i].get(15));
+      buffers[i].put(0, i);
+      buffers[i].put(15, i);
+    }
+
+    // Check result
+    assertEquals(1, fileGenerator.numberOfFiles);
+    for (int i = 0; i < numberOfBuffers; i++) {
+      assertEquals(16, buffers[i].capacity());
+      assertEquals(i, buffers[i].get(0));
+      assertEquals(i, buffers[i].get(15));
+    }
+  }
+
+  /**
+   * Test method for {@link PLIStorage#allocate(int)} <p/> Full segments should be continued in a new
+   * segment file and buffers larger than a window should be mapped on their own.
+   */
+  @Test
+  public void testAllocateMappedSegments() throws FileCreationException {
+    // Setup
+    CountingFileGenerator fileGenerator = new CountingFileGenerator();
+    PLIStorage storage = new PLIStorage.MappedFileStorage(fileGenerator, 4096, 16384);
+
+    // Execute functionality
+    IntBuffer large = storage.allocate(10000);
+    IntBuffer[] buffers = new IntBuffer[100];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = storage.allocate(100);
+      buffers[i].put(99, i);
+    }
+    large.put(9999, -1);
+
+    // Check result
+    // The large buffer fills the first segment, ten buffers fit into each window of the others.
+    assertEquals(1 + 3, fileGenerator.numberOfFiles);
+    assertEquals(10000, large.capacity());
+    assertEquals(-1, large.get(9999));
+    for (int i = 0; i < buffers.length; i++) {
+      assertEquals(i, buffers[i].get(99));
+    }
+  }
+
+  protected class CountingFileGenerator implements FileGenerator {
+
+    protected int numberOfFiles = 0;
+
+    @Override
+    public File getTemporaryFile() throws FileCreationException {
+      numberOfFiles++;
+      try {
+        return folder.newFile();
+      } catch (IOException e) {
+        throw new FileCreationException("Could not create temporary file.", e);
+      }
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  protected void testIntersect(PLIStorage storage) throws FileCreationException {
+    // Setup
+    MappedPositionListIndex firstPLI = MappedPositionListIndex.store(
+      CompactPositionListIndex.fromPositionListIndex(fixture.getFirstPLI(), NUMBER_OF_ROWS),
+      storage);
+    MappedPositionListIndex secondPLI = MappedPositionListIndex.store(
+      CompactPositionListIndex.fromPositionListIndex(fixture.getSecondPLI(), NUMBER_OF_ROWS),
+      storage);
+    // Expected values
+    PositionListIndex expectedPLI = fixture.getExpectedIntersectedPLI();
+
+    // Execute functionality
+    MappedPositionListIndex actualPLI = firstPLI.intersect(secondPLI);
+
+    // Check result
+    assertEquals(fixture.getExpectedFirstPLIRawKeyError(), firstPLI.getRawKeyError());
+    assertEquals(fixture.getExpectedSecondPLIRawKeyError(), secondPLI.getRawKeyError());
+    assertEquals(fixture.getExpectedIntersectedPLIRawKeyError(), actualPLI.getRawKeyError());
+    assertEquals(expectedPLI,
+      actualPLI.toCompactPositionListIndex().toPositionListIndex());
+    assertEquals(expectedPLI,
+      secondPLI.intersect(firstPLI).toCompactPositionListIndex().toPositionListIndex());
+  }
+}
@@ -16,23 +16,34 @@
 package de.metanome.algorithm_helper.data_structures;
 
 import de.metanome.algorithm_integration.AlgorithmConfigurationException;
+import de.metanome.algorithm_integration.input.BatchRelationalInputAdapter;
 import de.metanome.algorithm_integration.input.InputGenerationException;
 import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
 import org.hamcrest.collection.IsIterableContainingInAnyOrder;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.util.List;
 import java.util.TreeSet;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests for {@link de.metanome.algorithm_helper.data_structures.PLIBuilder}
  */
 public class PLIBuilderTest {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   protected PLIBuilderFixture fixture;
   protected PLIBuilder builder;
 
@@ -46,6 +57,32 @@ public class PLIBuilderTest {
   public void tearDown() throws Exception {
   }
 
+  /**
+   * Test method for {@link PLIBuilder#getPLIList()} <p/> Inputs that read {@link
+   * de.metanome.algorithm_integration.input.ColumnBatch}es natively should be consumed column by
+   * column with the same result.
+   */
+  @Test
+  public void testCalculatePLIFromBatches() throws Exception {
+    // Setup
+    RelationalInput input = fixture.getInputGenerator().generateNewCopy();
+    List<PositionListIndex> expectedPLIList = fixture.getExpectedPLIList(true);
+    when(input.numberOfColumns()).thenReturn(expectedPLIList.size());
+    PLIBuilder batchBuilder = new PLIBuilder(new BatchRelationalInputAdapter(input));
+
+    // Expected values
+    PositionListIndex[]
+      expectedPLIArray =
+      expectedPLIList.toArray(new PositionListIndex[expectedPLIList.size()]);
+
+    // Execute functionality
+    List<PositionListIndex> actualPLIList = batchBuilder.getPLIList();
+
+    // Check result
+    assertThat(actualPLIList, IsIterableContainingInAnyOrder.containsInAnyOrder(expectedPLIArray));
+    assertEquals(fixture.getExpectedNumberOfTuples(), batchBuilder.getNumberOfTuples());
+  }
+
   /**
    * Test method for {@link PLIBuilder#getPLIList()} <p/> Tests that {@link
    * de.metanome.algorithm_helper.data_structures.PositionListIndex}es are build correctly.
@@ -129,4 +166,53 @@ public class PLIBuilderTest {
     assertEquals(expectedNumberOfColumns, builder.getNumberOfTuples());
 
   }
+
+  /**
+   * Test method for {@link PLIBuilder#getPLIList()} <p/> A builder with a snapshot file should
+   * write the snapshot and a later builder should read it without iterating the input.
+   */
+  @Test
+  public void testGetPLIListFromSnapshot() throws Exception {
+    // Setup
+    File snapshotFile = new File(folder.getRoot(), "input.plis");
+    PLIBuilder writingBuilder = new PLIBuilder(fixture.getInputGenerator().generateNewCopy(), true,
+      snapshotFile, "input");
+    RelationalInput unusedInput = mock(RelationalInput.class);
+    PLIBuilder readingBuilder = new PLIBuilder(unusedInput, true, snapshotFile, "input");
+    // Expected values
+    List<PositionListIndex> expectedPLIList = writingBuilder.getPLIList();
+
+    // Execute functionality
+    List<PositionListIndex> actualPLIList = readingBuilder.getPLIList();
+
+    // Check result
+    assertTrue(snapshotFile.isFile());
+    assertEquals(expectedPLIList, actualPLIList);
+    assertEquals(fixture.getExpectedNumberOfTuples(), readingBuilder.getNumberOfTuples());
+    verifyZeroInteractions(unusedInput);
+  }
+
+  /**
+   * Test method for {@link PLIBuilder#getPLIList()} <p/> Calling getPLIList twice should return
+   * the same plis and must not overwrite the snapshot with the already purged columns.
+   */
+  @Test
+  public void testGetPLIListTwice() throws Exception {
+    // Setup
+    File snapshotFile = new File(folder.getRoot(), "input.plis");
+    PLIBuilder builder = new PLIBuilder(fixture.getInputGenerator().generateNewCopy(), true,
+      snapshotFile, "input");
+    // Expected values
+    List<PositionListIndex> expectedPLIList = builder.getPLIList();
+
+    // Execute functionality
+    List<PositionListIndex> actualPLIList = builder.getPLIList();
+    List<PositionListIndex> snapshotPLIList =
+      new PLIBuilder(mock(RelationalInput.class), true, snapshotFile, "input").getPLIList();
+
+    // Check result
+    assertEquals(fixture.getExpectedPLIList(true), expectedPLIList);
+    assertEquals(expectedPLIList, actualPLIList);
+    assertEquals(expectedPLIList, snapshotPLIList);
+  }
 }
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.PLICache}
+ */
+public class PLICacheTest {
+
+  protected List<PositionListIndex> columnPLIs;
+
+  @Before
+  public void setUp() throws Exception {
+    PLIBuilderFixture fixture = new PLIBuilderFixture();
+    columnPLIs = new PLIBuilder(fixture.getInputGenerator().generateNewCopy()).getPLIList();
+  }
+
+  /**
+   * Test method for {@link PLICache#getOrCalculate(ColumnCombinationBitset)} <p/> Single column
+   * plis should be returned directly, multi column plis should be derived and cached.
+   */
+  @Test
+  public void testGetOrCalculate() {
+    // Setup
+    PLICache cache = new PLICache(columnPLIs, Long.MAX_VALUE);
+    ColumnCombinationBitset columns23 = new ColumnCombinationBitset(2, 3);
+    ColumnCombinationBitset columns123 = new ColumnCombinationBitset(1, 2, 3);
+    // Expected values
+    PositionListIndex expectedPLI23 = columnPLIs.get(2).intersect(columnPLIs.get(3));
+    PositionListIndex expectedPLI123 = expectedPLI23.intersect(columnPLIs.get(1));
+
+    // Execute functionality
+    // Check result
+    assertSame(columnPLIs.get(2), cache.getOrCalculate(new ColumnCombinationBitset(2)));
+    assertNull(cache.get(columns23));
+    assertEquals(expectedPLI23, cache.getOrCalculate(columns23));
+    assertSame(cache.get(columns23), cache.getOrCalculate(columns23));
+    assertEquals(expectedPLI123, cache.getOrCalculate(columns123));
+    assertEquals(2, cache.size());
+  }
+
+  /**
+   * Test method for {@link PLICache#getOrCalculate(ColumnCombinationBitset)} <p/> Column
+   * combinations with columns outside of the cached single column plis should be rejected.
+   */
+  @Test
+  public void testGetOrCalculateUnknownColumn() {
+    // Setup
+    PLICache cache = new PLICache(columnPLIs, Long.MAX_VALUE);
+
+    // Execute functionality
+    // Check result
+    try {
+      cache.getOrCalculate(new ColumnCombinationBitset(1, columnPLIs.size()));
+      fail("Exception should have been thrown.");
+    } catch (IllegalArgumentException actualException) {
+      // Intentionally left blank
+    }
+    try {
+      cache.getOrCalculate(new ColumnCombinationBitset());
+      fail("Exception should have been thrown.");
+    } catch (IllegalArgumentException actualException) {
+      // Intentionally left blank
+    }
+  }
+
+  /**
+   * Test method for {@link PLICache#put(ColumnCombinationBitset, PositionListIndex)} <p/> The
+   * cache should stay within its budget and evict the cheapest least recently used plis first.
+   */
+  @Test
+  public void testEviction() {
+    // Setup
+    PositionListIndex pli = columnPLIs.get(2);
+    long pliSize = PLICache.estimateSize(pli);
+    PLICache cache = new PLICache(columnPLIs, 2 * pliSize);
+    ColumnCombinationBitset columns012 = new ColumnCombinationBitset(0, 1, 2);
+    ColumnCombinationBitset columns12 = new ColumnCombinationBitset(1, 2);
+    ColumnCombinationBitset columns02 = new ColumnCombinationBitset(0, 2);
+
+    // Execute functionality
+    cache.put(columns012, pli);
+    cache.put(columns12, pli);
+    cache.put(columns02, pli);
+
+    // Check result
+    assertEquals(2, cache.size());
+    assertEquals(2 * pliSize, cache.getCurrentBytes());
+    assertNotNull(cache.get(columns012));
+    assertNull(cache.get(columns12));
+    assertNotNull(cache.get(columns02));
+    // Single column plis are pinned.
+    assertSame(columnPLIs.get(0), cache.get(new ColumnCombinationBitset(0)));
+  }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.PLIIntersector}
+ */
+public class PLIIntersectorTest {
+
+  protected static final int NUMBER_OF_ROWS = 12;
+
+  protected PositionListIndexFixture fixture;
+  protected CompactPositionListIndex firstPLI;
+  protected CompactPositionListIndex secondPLI;
+
+  @Before
+  public void setUp() throws Exception {
+    fixture = new PositionListIndexFixture();
+    firstPLI =
+      CompactPositionListIndex.fromPositionListIndex(fixture.getFirstPLI(), NUMBER_OF_ROWS);
+    secondPLI =
+      CompactPositionListIndex.fromPositionListIndex(fixture.getSecondPLI(), NUMBER_OF_ROWS);
+  }
+
+  /**
+   * Test method for {@link PLIIntersector#intersectAll(java.util.List)} and {@link
+   * PLIIntersector#intersectAll(java.util.List, java.util.concurrent.ForkJoinPool)} <p/> All
+   * partners should be intersected with the shared index, sequentially and in parallel.
+   */
+  @Test
+  public void testIntersectAll() {
+    // Setup
+    PLIIntersector intersector = new PLIIntersector(firstPLI);
+    List<CompactPositionListIndex> partners = Arrays.asList(secondPLI, firstPLI, secondPLI);
+    // Expected values
+    PositionListIndex expectedPLI = fixture.getExpectedIntersectedPLI();
+    PositionListIndex expectedSelfPLI = fixture.getFirstPLI();
+
+    // Execute functionality
+    List<CompactPositionListIndex> sequential = intersector.intersectAll(partners);
+    ForkJoinPool pool = new ForkJoinPool(2);
+    List<CompactPositionListIndex> parallel = intersector.intersectAll(partners, pool);
+    pool.shutdown();
+
+    // Check result
+    for (List<CompactPositionListIndex> intersections : Arrays.asList(sequential, parallel)) {
+      assertEquals(expectedPLI, intersections.get(0).toPositionListIndex());
+      assertEquals(expectedSelfPLI, intersections.get(1).toPositionListIndex());
+      assertEquals(expectedPLI, intersections.get(2).toPositionListIndex());
+    }
+  }
+
+  /**
+   * Test method for {@link PLIIntersector#keyErrorAll(java.util.List)} and {@link
+   * PLIIntersector#keyErrorAll(java.util.List, java.util.concurrent.ForkJoinPool)} <p/> The key
+   * errors should be calculated without materializing the intersections.
+   */
+  @Test
+  public void testKeyErrorAll() {
+    // Setup
+    PLIIntersector intersector = new PLIIntersector(firstPLI);
+    List<CompactPositionListIndex> partners = Arrays.asList(secondPLI, firstPLI);
+    // Expected values
+    long[] expectedKeyErrors = new long[]{fixture.getExpectedIntersectedPLIRawKeyError(),
+      fixture.getExpectedFirstPLIRawKeyError()};
+
+    // Execute functionality
+    ForkJoinPool pool = new ForkJoinPool(2);
+    long[] parallel = intersector.keyErrorAll(partners, pool);
+    pool.shutdown();
+
+    // Check result
+    assertArrayEquals(expectedKeyErrors, intersector.keyErrorAll(partners));
+    assertArrayEquals(expectedKeyErrors, parallel);
+  }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.PLISnapshot}
+ */
+public class PLISnapshotTest {
+
+  protected static final String INPUT_KEY = "input";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  protected PositionListIndexFixture fixture;
+  protected File snapshotFile;
+
+  @Before
+  public void setUp() throws Exception {
+    fixture = new PositionListIndexFixture();
+    snapshotFile = new File(folder.getRoot(), "input.plis");
+  }
+
+  /**
+   * Test method for {@link PLISnapshot#write(File, String)} and {@link PLISnapshot#read(File,
+   * String)} <p/> A written snapshot should be read with the same plis and number of tuples.
+   */
+  @Test
+  public void testWriteRead() throws IOException {
+    // Setup
+    List<PositionListIndex> plis = Arrays.asList(fixture.getFirstPLI(), new PositionListIndex(),
+      fixture.getSupersetOfFirstPLI());
+
+    // Execute functionality
+    new PLISnapshot(12, plis).write(snapshotFile, INPUT_KEY);
+    PLISnapshot snapshot = PLISnapshot.read(snapshotFile, INPUT_KEY);
+
+    // Check result
+    assertNotNull(snapshot);
+    assertEquals(12, snapshot.getNumberOfTuples());
+    assertEquals(plis, snapshot.getPLIList());
+  }
+
+  /**
+   * Test method for {@link PLISnapshot#read(File, String)} <p/> Missing, foreign and truncated
+   * snapshots should not be read.
+   */
+  @Test
+  public void testReadInvalid() throws IOException {
+    // Execute functionality
+    // Check result
+    assertNull(PLISnapshot.read(snapshotFile, INPUT_KEY));
+
+    new PLISnapshot(12, Arrays.asList(fixture.getFirstPLI())).write(snapshotFile, INPUT_KEY);
+    assertNull(PLISnapshot.read(snapshotFile, "other input"));
+
+    try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+      file.setLength(file.length() - 1);
+    }
+    assertNull(PLISnapshot.read(snapshotFile, INPUT_KEY));
+  }
+
+  /**
+   * Test method for {@link PLISnapshot#createInputKey(File, String)} <p/> The key should change
+   * with the content of the file and with the parser settings.
+   */
+  @Test
+  public void testCreateInputKey() throws IOException {
+    // Setup
+    File inputFile = folder.newFile("input.csv");
+    writeFile(inputFile, "a,b\n");
+
+    // Execute functionality
+    String key = PLISnapshot.createInputKey(inputFile, ",");
+    String otherSettingsKey = PLISnapshot.createInputKey(inputFile, ";");
+    writeFile(inputFile, "a,c\n");
+    String otherContentKey = PLISnapshot.createInputKey(inputFile, ",");
+
+    // Check result
+    assertNotEquals(key, otherSettingsKey);
+    assertNotEquals(key, otherContentKey);
+  }
+
+  protected void writeFile(File file, String content) throws IOException {
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write(content);
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import de.metanome.algorithm_integration.input.InputIterationException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.ParallelPLIBuilder}
+ */
+public class ParallelPLIBuilderTest {
+
+  protected PLIBuilderFixture fixture;
+
+  @Before
+  public void setUp() throws Exception {
+    fixture = new PLIBuilderFixture();
+  }
+
+  /**
+   * Test method for {@link ParallelPLIBuilder#getPLIList()} <p/> The plis should equal the ones of
+   * the sequential {@link PLIBuilder} and be in column order, also with batches smaller than the
+   * input.
+   */
+  @Test
+  public void testCalculatePLINullEqualsNull() throws Exception {
+    // Setup
+    ParallelPLIBuilder builder =
+      new ParallelPLIBuilder(fixture.getInputGenerator().generateNewCopy()).setBatchSize(2);
+    // Expected values
+    List<PositionListIndex> expectedPLIList = fixture.getExpectedPLIList(true);
+
+    // Execute functionality
+    List<PositionListIndex> actualPLIList = builder.getPLIList();
+
+    // Check result
+    assertEquals(expectedPLIList, actualPLIList);
+  }
+
+  /**
+   * Test method for {@link ParallelPLIBuilder#getPLIList()} <p/> Null values should not be
+   * clustered if null does not equal null.
+   */
+  @Test
+  public void testCalculatePLINullNotEqualsNull() throws Exception {
+    // Setup
+    ParallelPLIBuilder builder =
+      new ParallelPLIBuilder(fixture.getInputGenerator().generateNewCopy(), false);
+    // Expected values
+    List<PositionListIndex> expectedPLIList = fixture.getExpectedPLIList(false);
+
+    // Execute functionality
+    List<PositionListIndex> actualPLIList = builder.getPLIList();
+
+    // Check result
+    assertEquals(expectedPLIList, actualPLIList);
+  }
+
+  /**
+   * Test method for {@link ParallelPLIBuilder#getDictionaries()} and {@link
+   * ParallelPLIBuilder#getNumberOfTuples()} <p/> The dictionaries and the number of tuples should
+   * only be available after the build.
+   */
+  @Test
+  public void testGetDictionaries() throws Exception {
+    // Setup
+    ParallelPLIBuilder builder =
+      new ParallelPLIBuilder(fixture.getInputGenerator().generateNewCopy());
+
+    // Execute functionality
+    try {
+      builder.getDictionaries();
+      fail();
+    } catch (InputIterationException e) {
+      //Intentionally left blank
+    }
+    builder.getCompactPLIList();
+    List<ColumnDictionary> dictionaries = builder.getDictionaries();
+
+    // Check result
+    assertEquals(fixture.getExpectedNumberOfTuples(), builder.getNumberOfTuples());
+    assertEquals(4, dictionaries.size());
+    assertEquals(5, dictionaries.get(0).size());
+    assertEquals(1, dictionaries.get(1).size());
+    assertEquals(0, dictionaries.get(2).encode("5"));
+    assertEquals(1, dictionaries.get(2).getValueId("3"));
+    assertEquals("3", dictionaries.get(2).decode(1));
+    assertEquals(ColumnDictionary.NO_VALUE_ID, dictionaries.get(2).getValueId("7"));
+  }
+
+  /**
+   * Test method for {@link ParallelPLIBuilder#setValueDictionary(GlobalValueDictionary)} <p/> The
+   * plis should not change if the values of two inputs are encoded with one shared dictionary.
+   */
+  @Test
+  public void testCalculatePLISharedDictionary() throws Exception {
+    // Setup
+    GlobalValueDictionary valueDictionary = new GlobalValueDictionary();
+    ParallelPLIBuilder builder =
+      new ParallelPLIBuilder(fixture.getInputGenerator().generateNewCopy())
+        .setValueDictionary(valueDictionary);
+
+    // Execute functionality
+    List<PositionListIndex> actualPLIList = builder.getPLIList();
+    int dictionarySize = valueDictionary.size();
+    // The inputs of the fixture share their rows, so the second one is created after the build.
+    List<PositionListIndex> secondPLIList =
+      new ParallelPLIBuilder(fixture.getInputGenerator().generateNewCopy(), false)
+        .setValueDictionary(valueDictionary).getPLIList();
+
+    // Check result
+    assertEquals(fixture.getExpectedPLIList(true), actualPLIList);
+    assertEquals(fixture.getExpectedPLIList(false), secondPLIList);
+    assertEquals(dictionarySize, valueDictionary.size());
+    assertEquals(0, builder.getDictionaries().get(0).size());
+  }
+}
@@ -21,8 +21,11 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -77,6 +80,100 @@ public class PositionListIndexTest {
     assertEquals(expectedPLI, actualIntersectedPLI);
   }
 
+  /**
+   * Test method for {@link PositionListIndex#intersect(PositionListIndex, ForkJoinPool)} <p/> The
+   * parallel intersection should equal the sequential one, below and above the threshold.
+   */
+  @Test
+  public void testIntersectParallel() {
+    // Setup
+    ForkJoinPool pool = new ForkJoinPool(4);
+    int numberOfRows = (int) PositionListIndex.PARALLEL_INTERSECTION_THRESHOLD * 2;
+    PositionListIndex largeFirstPLI = createModuloPLI(numberOfRows, 100);
+    PositionListIndex largeSecondPLI = createModuloPLI(numberOfRows, 7);
+
+    // Execute functionality
+    PositionListIndex actualPLI = fixture.getFirstPLI().intersect(fixture.getSecondPLI(), pool);
+    PositionListIndex actualLargePLI = largeFirstPLI.intersect(largeSecondPLI, pool);
+    pool.shutdown();
+
+    // Check result
+    assertEquals(fixture.getExpectedIntersectedPLI(), actualPLI);
+    assertEquals(createModuloPLI(numberOfRows, 700), actualLargePLI);
+  }
+
+  protected PositionListIndex createModuloPLI(int numberOfRows, int modulus) {
+    List<LongArrayList> clusters = new ArrayList<>();
+    for (int i = 0; i < modulus; i++) {
+      clusters.add(new LongArrayList());
+    }
+    for (int row = 0; row < numberOfRows; row++) {
+      clusters.get(row % modulus).add(row);
+    }
+    return new PositionListIndex(clusters);
+  }
+
+  /**
+   * Test method for {@link PositionListIndex#intersectAll(java.util.List)} <p/> All partners
+   * should be intersected with the map of this index.
+   */
+  @Test
+  public void testIntersectAll() {
+    // Setup
+    PositionListIndex first = fixture.getFirstPLI();
+    List<PositionListIndex> partners = Arrays.asList(fixture.getSecondPLI(), first);
+
+    // Execute functionality
+    List<PositionListIndex> intersections = first.intersectAll(partners);
+
+    // Check result
+    assertEquals(fixture.getExpectedIntersectedPLI(), intersections.get(0));
+    assertEquals(first, intersections.get(1));
+  }
+
+  /**
+   * Test method for {@link PositionListIndex#keyErrorOfIntersection(PositionListIndex)} and {@link
+   * PositionListIndex#keyErrorsOfIntersections(java.util.List)} <p/> The key error should equal
+   * the key error of the materialized intersection.
+   */
+  @Test
+  public void testKeyErrorOfIntersection() {
+    // Setup
+    PositionListIndex first = fixture.getFirstPLI();
+    PositionListIndex second = fixture.getSecondPLI();
+    // Expected values
+    long expectedKeyError = fixture.getExpectedIntersectedPLI().getRawKeyError();
+
+    // Execute functionality
+    // Check result
+    assertEquals(expectedKeyError, first.keyErrorOfIntersection(second));
+    assertEquals(expectedKeyError, second.keyErrorOfIntersection(first));
+    assertArrayEquals(new long[]{expectedKeyError, first.getRawKeyError()},
+      first.keyErrorsOfIntersections(Arrays.asList(second, first)));
+  }
+
+  /**
+   * Test method for {@link PositionListIndex#refines(PositionListIndex)} <p/> The intersection
+   * refines both inputs, the inputs do not refine each other.
+   */
+  @Test
+  public void testRefines() {
+    // Setup
+    PositionListIndex first = fixture.getFirstPLI();
+    PositionListIndex second = fixture.getSecondPLI();
+    PositionListIndex intersection = fixture.getExpectedIntersectedPLI();
+
+    // Execute functionality
+    // Check result
+    assertTrue(intersection.refines(first));
+    assertTrue(intersection.refines(second));
+    assertTrue(first.refines(first));
+    assertTrue(new PositionListIndex().refines(first));
+    assertFalse(first.refines(second));
+    assertFalse(first.refines(intersection));
+    assertFalse(first.refines(new PositionListIndex()));
+  }
+
   /**
    * Test method for {@link PositionListIndex#hashCode()}
    */
@@ -94,6 +191,29 @@ public class PositionListIndexTest {
     assertEquals(firstPLI.hashCode(), permutatedfirstPLI.hashCode());
   }
 
+  /**
+   * Test method for {@link PositionListIndex#getFingerprint()} <p/> The fingerprint should not
+   * depend on the order of the clusters or rows and should survive cloning.
+   */
+  @Test
+  public void testGetFingerprint() {
+    // Setup
+    PositionListIndex firstPLI = fixture.getFirstPLI();
+    PositionListIndex permutatedfirstPLI = fixture.getPermutatedFirstPLI();
+    PositionListIndex secondPLI = fixture.getSecondPLI();
+    PositionListIndex supersetOfFirstPLI = fixture.getSupersetOfFirstPLI();
+
+    // Execute functionality
+    long fingerprint = firstPLI.getFingerprint();
+
+    // Check result
+    assertEquals(fingerprint, permutatedfirstPLI.getFingerprint());
+    assertEquals(fingerprint, firstPLI.clone().getFingerprint());
+    assertNotEquals(fingerprint, secondPLI.getFingerprint());
+    assertNotEquals(fingerprint, supersetOfFirstPLI.getFingerprint());
+    assertNotEquals(fingerprint, new PositionListIndex().getFingerprint());
+  }
+
   /**
    * Test method for {@link de.metanome.algorithm_helper.data_structures.PositionListIndex#equals(Object)}
    */
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.SamplingPLIBuilder}
+ */
+public class SamplingPLIBuilderTest {
+
+  protected PLIBuilderFixture fixture;
+
+  @Before
+  public void setUp() throws Exception {
+    fixture = new PLIBuilderFixture();
+  }
+
+  /**
+   * Test method for {@link SamplingPLIBuilder#getPLIList()} <p/> A sample that is larger than the
+   * input should contain all rows in input order.
+   */
+  @Test
+  public void testGetPLIListCompleteSample() throws Exception {
+    // Setup
+    SamplingPLIBuilder builder = new SamplingPLIBuilder(
+      fixture.getInputGenerator().generateNewCopy(), true, 10, new Random(42));
+
+    // Execute functionality
+    List<PositionListIndex> plis = builder.getPLIList();
+
+    // Check result
+    assertEquals(fixture.getExpectedPLIList(true), plis);
+    assertEquals(fixture.getExpectedNumberOfTuples(), builder.getNumberOfTuples());
+    assertEquals(fixture.getExpectedNumberOfTuples(), builder.getNumberOfInputTuples());
+    assertEquals(new LongArrayList(new long[]{0, 1, 2, 3, 4}), builder.getSampledRows());
+  }
+
+  /**
+   * Test method for {@link SamplingPLIBuilder#getPLIList()} <p/> The reservoir should hold the
+   * requested number of distinct input rows.
+   */
+  @Test
+  public void testGetPLIListReservoir() throws Exception {
+    // Setup
+    SamplingPLIBuilder builder = new SamplingPLIBuilder(
+      fixture.getInputGenerator().generateNewCopy(), true, 2, new Random(42));
+
+    // Execute functionality
+    List<PositionListIndex> plis = builder.getPLIList();
+
+    // Check result
+    assertEquals(4, plis.size());
+    assertEquals(2, builder.getNumberOfTuples());
+    assertEquals(fixture.getExpectedNumberOfTuples(), builder.getNumberOfInputTuples());
+    LongArrayList sampledRows = builder.getSampledRows();
+    assertEquals(2, new LongOpenHashSet(sampledRows).size());
+    for (long row : sampledRows) {
+      assertTrue(row >= 0 && row < fixture.getExpectedNumberOfTuples());
+    }
+    // All rows agree in the second column.
+    assertEquals(1, plis.get(1).getRawKeyError());
+  }
+
+  /**
+   * Test method for {@link SamplingPLIBuilder#getPLIList()} <p/> A fraction of one should sample
+   * every row.
+   */
+  @Test
+  public void testGetPLIListFraction() throws Exception {
+    // Setup
+    SamplingPLIBuilder builder = new SamplingPLIBuilder(
+      fixture.getInputGenerator().generateNewCopy(), false, 1.0, new Random(42));
+
+    // Execute functionality
+    // Check result
+    assertEquals(fixture.getExpectedPLIList(false), builder.getPLIList());
+  }
+
+  /**
+   * Test method for {@link SamplingPLIBuilder#estimateAgreeingPairFraction(PositionListIndex)},
+   * {@link SamplingPLIBuilder#getErrorBound(double)} and {@link SamplingPLIBuilder#getUniqueErrorBound(double)}
+   */
+  @Test
+  public void testErrorBounds() throws Exception {
+    // Setup
+    SamplingPLIBuilder builder = new SamplingPLIBuilder(
+      fixture.getInputGenerator().generateNewCopy(), true, 10, new Random(42));
+    List<PositionListIndex> plis = builder.getPLIList();
+
+    // Execute functionality
+    // Check result
+    assertEquals(0, builder.estimateAgreeingPairFraction(plis.get(0)), 0.0001);
+    assertEquals(1, builder.estimateAgreeingPairFraction(plis.get(1)), 0.0001);
+    assertEquals(0.4, builder.estimateAgreeingPairFraction(plis.get(2)), 0.0001);
+    assertEquals(1 - Math.sqrt(0.05), builder.getUniqueErrorBound(0.95), 0.0001);
+    assertEquals(Math.sqrt(Math.log(40) / 4), builder.getErrorBound(0.95), 0.0001);
+  }
+
+  /**
+   * Test method for {@link SamplingPLIBuilder#getAgreeSets(int)} <p/> Every pair should agree in
+   * the constant column and never in the unique column.
+   */
+  @Test
+  public void testGetAgreeSets() throws Exception {
+    // Setup
+    SamplingPLIBuilder builder = new SamplingPLIBuilder(
+      fixture.getInputGenerator().generateNewCopy(), true, 10, new Random(42));
+
+    // Execute functionality
+    List<ColumnCombinationBitset> agreeSets = builder.getAgreeSets(20);
+
+    // Check result
+    assertEquals(20, agreeSets.size());
+    for (ColumnCombinationBitset agreeSet : agreeSets) {
+      assertTrue(agreeSet.containsColumn(1));
+      assertFalse(agreeSet.containsColumn(0));
+    }
+    // The plis are still available after sampling the agree sets.
+    assertEquals(fixture.getExpectedPLIList(true), builder.getPLIList());
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.data_structures;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.data_structures.SortedPartition}
+ */
+public class SortedPartitionTest {
+
+  /**
+   * Test method for {@link SortedPartition#buildLexicographic(List)} <p/> Equal values should form
+   * classes in value order with null values first.
+   */
+  @Test
+  public void testBuildLexicographic() {
+    // Setup
+    List<String> values = Arrays.asList("b", "a", "b", null, "c", "10");
+
+    // Execute functionality
+    SortedPartition partition = SortedPartition.buildLexicographic(values);
+
+    // Check result
+    assertEquals(5, partition.size());
+    assertEquals(6, partition.getNumberOfRows());
+    assertArrayEquals(new int[]{3}, partition.getEquivalenceClass(0));
+    assertArrayEquals(new int[]{5}, partition.getEquivalenceClass(1));
+    assertArrayEquals(new int[]{1}, partition.getEquivalenceClass(2));
+    assertArrayEquals(new int[]{0, 2}, partition.getEquivalenceClass(3));
+    assertArrayEquals(new int[]{4}, partition.getEquivalenceClass(4));
+    assertEquals(3, partition.getRank(2));
+  }
+
+  /**
+   * Test method for {@link SortedPartition#buildNumeric(List)} and {@link
+   * SortedPartition#buildDate(List, java.text.DateFormat)} <p/> Values should be compared by their
+   * type and unparsable values should be treated like null values.
+   */
+  @Test
+  public void testBuildTyped() {
+    // Setup
+    List<String> numbers = Arrays.asList("10", "9", "1.0", "1", "x");
+    List<String> dates = Arrays.asList("02.01.2016", "01.02.2015", "no date");
+
+    // Execute functionality
+    SortedPartition numberPartition = SortedPartition.buildNumeric(numbers);
+    SortedPartition datePartition =
+      SortedPartition.buildDate(dates, new SimpleDateFormat("dd.MM.yyyy"));
+
+    // Check result
+    assertEquals(4, numberPartition.size());
+    assertArrayEquals(new int[]{4}, numberPartition.getEquivalenceClass(0));
+    assertArrayEquals(new int[]{2, 3}, numberPartition.getEquivalenceClass(1));
+    assertArrayEquals(new int[]{1}, numberPartition.getEquivalenceClass(2));
+    assertArrayEquals(new int[]{0}, numberPartition.getEquivalenceClass(3));
+    assertEquals(0, datePartition.getRank(2));
+    assertEquals(1, datePartition.getRank(1));
+    assertEquals(2, datePartition.getRank(0));
+  }
+
+  /**
+   * Test method for {@link SortedPartition#refine(SortedPartition)} <p/> The refinement should
+   * equal the partition sorted by both columns.
+   */
+  @Test
+  public void testRefine() {
+    // Setup
+    SortedPartition first = SortedPartition.buildNumeric(Arrays.asList("2", "1", "2", "1", "2"));
+    SortedPartition second = SortedPartition.buildNumeric(Arrays.asList("5", "3", "4", "3", "4"));
+
+    // Execute functionality
+    SortedPartition refined = first.refine(second);
+
+    // Check result
+    assertEquals(3, refined.size());
+    assertArrayEquals(new int[]{1, 3}, refined.getEquivalenceClass(0));
+    assertArrayEquals(new int[]{2, 4}, refined.getEquivalenceClass(1));
+    assertArrayEquals(new int[]{0}, refined.getEquivalenceClass(2));
+  }
+
+  /**
+   * Test method for {@link SortedPartition#hasSplit(SortedPartition)}, {@link
+   * SortedPartition#hasSwap(SortedPartition)} and {@link SortedPartition#orders(SortedPartition)}
+   */
+  @Test
+  public void testOrders() {
+    // Setup
+    SortedPartition salary =
+      SortedPartition.buildNumeric(Arrays.asList("1000", "2000", "3000", "2000"));
+    SortedPartition taxGroup = SortedPartition.buildNumeric(Arrays.asList("1", "2", "2", "2"));
+    SortedPartition swapped = SortedPartition.buildNumeric(Arrays.asList("3", "2", "1", "2"));
+    SortedPartition split = SortedPartition.buildNumeric(Arrays.asList("1", "2", "4", "3"));
+
+    // Execute functionality
+    // Check result
+    assertTrue(salary.orders(taxGroup));
+    assertFalse(salary.hasSplit(swapped));
+    assertTrue(salary.hasSwap(swapped));
+    assertFalse(salary.orders(swapped));
+    assertTrue(salary.hasSplit(split));
+    assertFalse(salary.hasSwap(split));
+    assertFalse(salary.orders(split));
+    assertTrue(split.orders(salary));
+  }
+
+  /**
+   * Test method for {@link SortedPartition#toPositionListIndex()} <p/> The position list index
+   * should only contain the classes with more than one row.
+   */
+  @Test
+  public void testToPositionListIndex() {
+    // Setup
+    SortedPartition partition =
+      SortedPartition.buildLexicographic(Arrays.asList("b", "a", "b", "c"));
+    // Expected values
+    List<LongArrayList> expectedClusters = new ArrayList<>();
+    expectedClusters.add(new LongArrayList(new long[]{0, 2}));
+
+    // Execute functionality
+    // Check result
+    assertEquals(new PositionListIndex(expectedClusters), partition.toPositionListIndex());
+  }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.sketches.BlockedBloomFilter}
+ */
+public class BlockedBloomFilterTest {
+
+  /**
+   * Test method for {@link BlockedBloomFilter#mightContain(String)} <p/> Added values should always
+   * be found and only few other values should be false positives.
+   */
+  @Test
+  public void testMightContain() {
+    // Setup
+    BlockedBloomFilter filter =
+      new BlockedBloomFilter(10000, BlockedBloomFilter.DEFAULT_BITS_PER_VALUE);
+    for (int i = 0; i < 10000; i++) {
+      filter.add("value" + i);
+    }
+
+    // Execute functionality
+    int falsePositives = 0;
+    for (int i = 0; i < 10000; i++) {
+      if (filter.mightContain("other" + i)) {
+        falsePositives++;
+      }
+    }
+
+    // Check result
+    for (int i = 0; i < 10000; i++) {
+      assertTrue(filter.mightContain("value" + i));
+    }
+    assertTrue(falsePositives < 300);
+    assertTrue(filter.mightContain(null));
+    assertEquals(100352, filter.getNumberOfBits());
+  }
+}
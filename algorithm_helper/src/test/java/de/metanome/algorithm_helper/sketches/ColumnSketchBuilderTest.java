@@ -0,0 +1,76 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+import de.metanome.algorithm_integration.input.RelationalInput;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.sketches.ColumnSketchBuilder}
+ */
+public class ColumnSketchBuilderTest {
+
+  /**
+   * Test method for {@link ColumnSketchBuilder#getHyperLogLogs()}, {@link
+   * ColumnSketchBuilder#getMinHashSketches()} and {@link ColumnSketchBuilder#estimateUniquenessRate(int)}
+   * <p/> Every column should be sketched in one pass, null values should be ignored.
+   */
+  @Test
+  public void testSketches() throws Exception {
+    // Setup
+    final List<List<String>> table = Arrays.asList(
+      Arrays.asList("1", "a", null),
+      Arrays.asList("2", "a", null),
+      Arrays.asList("3", "b", "x"),
+      Arrays.asList("4", "b", "x"));
+    RelationalInput input = mock(RelationalInput.class);
+    final int[] position = {0};
+    when(input.hasNext()).thenAnswer(new Answer<Boolean>() {
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        return position[0] < table.size();
+      }
+    });
+    when(input.next()).thenAnswer(new Answer<List<String>>() {
+      public List<String> answer(InvocationOnMock invocation) throws Throwable {
+        return table.get(position[0]++);
+      }
+    });
+    ColumnSketchBuilder builder = new ColumnSketchBuilder(input, 10, 16);
+
+    // Execute functionality
+    List<HyperLogLog> hyperLogLogs = builder.getHyperLogLogs();
+    List<MinHashSketch> minHashSketches = builder.getMinHashSketches();
+
+    // Check result
+    assertEquals(3, hyperLogLogs.size());
+    assertEquals(4, builder.getNumberOfTuples());
+    assertEquals(4, hyperLogLogs.get(0).estimate(), 0.1);
+    assertEquals(2, hyperLogLogs.get(1).estimate(), 0.1);
+    assertEquals(1, minHashSketches.get(2).estimate(), 0);
+    assertEquals(1, builder.estimateUniquenessRate(0), 0.05);
+    assertEquals(0.5, builder.estimateUniquenessRate(1), 0.05);
+    assertEquals(0, minHashSketches.get(0).containment(minHashSketches.get(1)), 0);
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.sketches.HyperLogLog}
+ */
+public class HyperLogLogTest {
+
+  /**
+   * Test method for {@link HyperLogLog#estimate()} <p/> Small and large cardinalities should be
+   * estimated within a few standard errors, duplicates and null values should be ignored.
+   */
+  @Test
+  public void testEstimate() {
+    // Setup
+    HyperLogLog small = new HyperLogLog(12);
+    HyperLogLog large = new HyperLogLog(12);
+
+    // Execute functionality
+    for (int i = 0; i < 100; i++) {
+      small.add("value" + (i % 10));
+    }
+    small.add(null);
+    for (int i = 0; i < 100000; i++) {
+      large.add("value" + i);
+    }
+
+    // Check result
+    assertEquals(10, small.estimate(), 0.5);
+    assertEquals(100000, large.estimate(), 100000 * 4 * large.getStandardError());
+  }
+
+  /**
+   * Test method for {@link HyperLogLog#merge(HyperLogLog)} <p/> The merged sketch should estimate
+   * the distinct values of the union.
+   */
+  @Test
+  public void testMerge() {
+    // Setup
+    HyperLogLog first = new HyperLogLog(12);
+    HyperLogLog second = new HyperLogLog(12);
+    for (int i = 0; i < 20000; i++) {
+      first.add("value" + i);
+      second.add("value" + (i + 10000));
+    }
+
+    // Execute functionality
+    first.merge(second);
+
+    // Check result
+    assertEquals(30000, first.estimate(), 30000 * 4 * first.getStandardError());
+  }
+
+  /**
+   * Test method for {@link HyperLogLog#merge(HyperLogLog)} <p/> Sketches of different precision
+   * cannot be merged.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testMergeDifferentPrecision() {
+    // Execute functionality
+    new HyperLogLog(10).merge(new HyperLogLog(12));
+  }
+}
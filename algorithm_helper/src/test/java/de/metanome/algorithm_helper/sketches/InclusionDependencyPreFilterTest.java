@@ -0,0 +1,113 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+import de.metanome.algorithm_integration.ColumnIdentifier;
+import de.metanome.algorithm_integration.ColumnPermutation;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_integration.results.InclusionDependency;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.sketches.InclusionDependencyPreFilter}
+ */
+public class InclusionDependencyPreFilterTest {
+
+  /**
+   * Test method for {@link InclusionDependencyPreFilter#filterCandidates(RelationalInput)} <p/>
+   * Valid inclusion dependencies should survive, candidates with a value that is missing in the
+   * referenced column should be pruned.
+   */
+  @Test
+  public void testFilterCandidates() throws Exception {
+    // Setup
+    List<List<String>> orders = new ArrayList<>();
+    List<List<String>> customers = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      customers.add(Arrays.asList("customer" + i, "city" + (i % 10)));
+      orders.add(Arrays.asList("order" + i, "customer" + (i % 100), i % 2 == 0 ? null : "city1"));
+    }
+    InclusionDependencyPreFilter preFilter = new InclusionDependencyPreFilter();
+    preFilter.addReferencedRelation(getInput("customers", customers, "id", "city"),
+      new ColumnSketchBuilder(getInput("customers", customers, "id", "city"), 12, 64)
+        .getHyperLogLogs());
+    // Expected values
+    ColumnIdentifier customerId = new ColumnIdentifier("customers", "id");
+    ColumnIdentifier city = new ColumnIdentifier("customers", "city");
+    InclusionDependency orderCustomer = new InclusionDependency(
+      new ColumnPermutation(new ColumnIdentifier("orders", "customer")),
+      new ColumnPermutation(customerId));
+    InclusionDependency orderCity = new InclusionDependency(
+      new ColumnPermutation(new ColumnIdentifier("orders", "city")),
+      new ColumnPermutation(city));
+
+    // Execute functionality
+    List<InclusionDependency> orderCandidates = preFilter.filterCandidates(
+      getInput("orders", orders, "id", "customer", "city"));
+    List<InclusionDependency> customerCandidates = preFilter.filterCandidates(
+      getInput("customers", customers, "id", "city"));
+
+    // Check result
+    assertEquals(2, preFilter.getNumberOfReferencedColumns());
+    assertTrue(orderCandidates.contains(orderCustomer));
+    assertTrue(orderCandidates.contains(orderCity));
+    assertTrue(orderCandidates.size() <= 3);
+    for (InclusionDependency candidate : orderCandidates) {
+      assertNotEquals(new ColumnPermutation(new ColumnIdentifier("orders", "id")),
+        candidate.getDependant());
+    }
+    // Columns are never tested against themselves.
+    assertTrue(new HashSet<>(customerCandidates).size() <= 2);
+    for (InclusionDependency candidate : customerCandidates) {
+      assertNotEquals(candidate.getDependant(), candidate.getReferenced());
+    }
+  }
+
+  protected RelationalInput getInput(String relationName, final List<List<String>> table,
+                                     String... columnNames) throws InputIterationException {
+    RelationalInput input = mock(RelationalInput.class);
+    final int[] position = {0};
+    when(input.relationName()).thenReturn(relationName);
+    when(input.columnNames()).thenReturn(Arrays.asList(columnNames));
+    when(input.numberOfColumns()).thenReturn(columnNames.length);
+
+    when(input.hasNext()).thenAnswer(new Answer<Boolean>() {
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        return position[0] < table.size();
+      }
+    });
+
+    when(input.next()).thenAnswer(new Answer<List<String>>() {
+      public List<String> answer(InvocationOnMock invocation) throws Throwable {
+        return table.get(position[0]++);
+      }
+    });
+
+    return input;
+  }
+}
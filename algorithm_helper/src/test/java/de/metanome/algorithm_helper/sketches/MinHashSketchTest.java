@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_helper.sketches;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link de.metanome.algorithm_helper.sketches.MinHashSketch}
+ */
+public class MinHashSketchTest {
+
+  /**
+   * Test method for {@link MinHashSketch#estimate()} <p/> Sketches with fewer distinct values than
+   * hashes should be exact.
+   */
+  @Test
+  public void testEstimate() {
+    // Setup
+    MinHashSketch small = new MinHashSketch(256);
+    MinHashSketch large = new MinHashSketch(256);
+
+    // Execute functionality
+    for (int i = 0; i < 1000; i++) {
+      small.add("value" + (i % 100));
+    }
+    for (int i = 0; i < 100000; i++) {
+      large.add("value" + i);
+    }
+
+    // Check result
+    assertEquals(100, small.size());
+    assertEquals(100, small.estimate(), 0);
+    assertEquals(256, large.size());
+    assertEquals(100000, large.estimate(), 100000 * 0.25);
+  }
+
+  /**
+   * Test method for {@link MinHashSketch#jaccard(MinHashSketch)} and {@link
+   * MinHashSketch#containment(MinHashSketch)}
+   */
+  @Test
+  public void testJaccardAndContainment() {
+    // Setup
+    MinHashSketch dependant = new MinHashSketch(512);
+    MinHashSketch referenced = new MinHashSketch(512);
+    MinHashSketch disjoint = new MinHashSketch(512);
+    for (int i = 0; i < 10000; i++) {
+      dependant.add("value" + i);
+      disjoint.add("other" + i);
+    }
+    for (int i = 0; i < 40000; i++) {
+      referenced.add("value" + i);
+    }
+
+    // Execute functionality
+    // Check result
+    assertEquals(0.25, dependant.jaccard(referenced), 0.08);
+    assertEquals(1, dependant.containment(referenced), 0.1);
+    assertEquals(0.25, referenced.containment(dependant), 0.08);
+    assertEquals(0, dependant.jaccard(disjoint), 0.0001);
+    assertEquals(0, dependant.containment(disjoint), 0.0001);
+    assertEquals(1, dependant.jaccard(dependant), 0.0001);
+  }
+
+  /**
+   * Test method for {@link MinHashSketch#merge(MinHashSketch)} <p/> The merged sketch should equal
+   * the sketch of the union.
+   */
+  @Test
+  public void testMerge() {
+    // Setup
+    MinHashSketch first = new MinHashSketch(64);
+    MinHashSketch second = new MinHashSketch(64);
+    MinHashSketch union = new MinHashSketch(64);
+    for (int i = 0; i < 1000; i++) {
+      first.add("value" + i);
+      second.add("value" + (i + 500));
+      union.add("value" + i);
+      union.add("value" + (i + 500));
+    }
+
+    // Execute functionality
+    first.merge(second);
+
+    // Check result
+    assertEquals(union.estimate(), first.estimate(), 0);
+    assertEquals(1, first.jaccard(union), 0);
+  }
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_integration.input;
+
+/**
+ * A {@link RelationalInput} that can also be read in {@link ColumnBatch}es. Rows returned by
+ * {@link #next()} and by {@link #nextBatch(ColumnBatch)} follow each other, so both calls can be
+ * mixed. Use {@link BatchRelationalInputAdapter#of(RelationalInput)} to read any input in
+ * batches.
+ */
+public interface BatchRelationalInput extends RelationalInput {
+
+  /**
+   * Clears the batch and fills it with the next rows.
+   *
+   * @param batch a batch with the number of columns of the input
+   * @return the number of rows in the batch, 0 if there are no more rows
+   * @throws InputIterationException if the next rows could not be read
+   */
+  int nextBatch(ColumnBatch batch) throws InputIterationException;
+
+}
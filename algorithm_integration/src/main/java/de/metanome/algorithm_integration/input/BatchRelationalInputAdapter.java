@@ -0,0 +1,109 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_integration.input;
+
+import java.util.List;
+
+/**
+ * Reads a row based {@link RelationalInput} in {@link ColumnBatch}es.
+ */
+public class BatchRelationalInputAdapter implements BatchRelationalInput {
+
+  protected RelationalInput input;
+
+  /**
+   * @param input the row based input
+   */
+  public BatchRelationalInputAdapter(RelationalInput input) {
+    this.input = input;
+  }
+
+  /**
+   * @param input any input
+   * @return the input itself if it reads batches natively, an adapter otherwise
+   */
+  public static BatchRelationalInput of(RelationalInput input) {
+    if (input instanceof BatchRelationalInput) {
+      return (BatchRelationalInput) input;
+    }
+    return new BatchRelationalInputAdapter(input);
+  }
+
+  /**
+   * Fills a batch with the rows of {@link RelationalInput#next()}.
+   *
+   * @param input the input to read
+   * @param batch the batch to fill
+   * @return the number of rows in the batch, 0 if there are no more rows
+   * @throws InputIterationException if the next rows could not be read
+   */
+  public static int fillBatch(RelationalInput input, ColumnBatch batch)
+    throws InputIterationException {
+    checkBatch(input, batch);
+    batch.clear();
+    while (!batch.isFull() && input.hasNext()) {
+      batch.addRow(input.next());
+    }
+    return batch.size();
+  }
+
+  /**
+   * @param input the input to read
+   * @param batch the batch to fill
+   * @throws IllegalArgumentException if the batch does not have the input's number of columns
+   */
+  public static void checkBatch(RelationalInput input, ColumnBatch batch) {
+    if (batch.getNumberOfColumns() != input.numberOfColumns()) {
+      throw new IllegalArgumentException("The batch has " + batch.getNumberOfColumns()
+        + " instead of " + input.numberOfColumns() + " columns.");
+    }
+  }
+
+  @Override
+  public int nextBatch(ColumnBatch batch) throws InputIterationException {
+    return fillBatch(input, batch);
+  }
+
+  @Override
+  public boolean hasNext() throws InputIterationException {
+    return input.hasNext();
+  }
+
+  @Override
+  public List<String> next() throws InputIterationException {
+    return input.next();
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return input.numberOfColumns();
+  }
+
+  @Override
+  public String relationName() {
+    return input.relationName();
+  }
+
+  @Override
+  public List<String> columnNames() {
+    return input.columnNames();
+  }
+
+  @Override
+  public void close() throws Exception {
+    input.close();
+  }
+}
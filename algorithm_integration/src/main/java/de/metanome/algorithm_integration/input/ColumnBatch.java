@@ -0,0 +1,183 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_integration.input;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of rows that is stored column-wise in one reused array per column. Consumers can loop
+ * over the values of a column without a list per row. The arrays are overwritten by the next
+ * batch.
+ */
+public class ColumnBatch {
+
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  protected String[][] columns;
+  protected int capacity;
+  protected int size = 0;
+
+  /**
+   * @param numberOfColumns the number of columns of the input
+   */
+  public ColumnBatch(int numberOfColumns) {
+    this(numberOfColumns, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param numberOfColumns the number of columns of the input
+   * @param capacity        the maximal number of rows per batch
+   */
+  public ColumnBatch(int numberOfColumns, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("A batch has to hold at least one row.");
+    }
+    this.capacity = capacity;
+    this.columns = new String[numberOfColumns][capacity];
+  }
+
+  /**
+   * @return the number of columns
+   */
+  public int getNumberOfColumns() {
+    return columns.length;
+  }
+
+  /**
+   * @return the maximal number of rows
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the number of rows in the batch
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return true if no further row fits into the batch
+   */
+  public boolean isFull() {
+    return size == capacity;
+  }
+
+  /**
+   * Returns the reused array of a column. Only the first {@link #size()} values belong to the
+   * batch.
+   *
+   * @param column the index of the column
+   * @return the values of the column
+   */
+  public String[] getColumn(int column) {
+    return columns[column];
+  }
+
+  /**
+   * @param column the index of the column
+   * @param row    the index of the row in the batch
+   * @return the value, null for null values
+   */
+  public String getValue(int column, int row) {
+    checkRow(row);
+    return columns[column][row];
+  }
+
+  /**
+   * Copies a row of the batch into a list, e.g. for row based consumers.
+   *
+   * @param row the index of the row in the batch
+   * @return the values of the row
+   */
+  public List<String> getRow(int row) {
+    checkRow(row);
+    String[] values = new String[columns.length];
+    for (int column = 0; column < columns.length; column++) {
+      values[column] = columns[column][row];
+    }
+    return Collections.unmodifiableList(Arrays.asList(values));
+  }
+
+  /**
+   * Removes all rows.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Appends a row whose values are set afterwards with {@link #getColumn(int)}.
+   *
+   * @return the index of the new row
+   */
+  public int addRow() {
+    if (isFull()) {
+      throw new IllegalStateException("The batch is full.");
+    }
+    return size++;
+  }
+
+  /**
+   * Appends a copy of the values of a row.
+   *
+   * @param values the values of the row
+   */
+  public void addRow(List<String> values) {
+    if (values.size() != columns.length) {
+      throw new IllegalArgumentException(
+        "The row has " + values.size() + " instead of " + columns.length + " values.");
+    }
+    int row = addRow();
+    for (int column = 0; column < columns.length; column++) {
+      columns[column][row] = values.get(column);
+    }
+  }
+
+  /**
+   * Appends a range of rows of another batch with the same number of columns.
+   *
+   * @param source   the batch to copy from
+   * @param firstRow the index of the first row to copy
+   * @param rows     the number of rows to copy
+   */
+  public void addRows(ColumnBatch source, int firstRow, int rows) {
+    if (source.getNumberOfColumns() != columns.length) {
+      throw new IllegalArgumentException("The batches have a different number of columns.");
+    }
+    if (rows > capacity - size) {
+      throw new IllegalStateException("The batch is full.");
+    }
+    if (firstRow < 0 || rows < 0 || firstRow + rows > source.size) {
+      throw new IndexOutOfBoundsException(
+        "Rows " + firstRow + " to " + (firstRow + rows) + " of a batch with " + source.size
+          + " rows.");
+    }
+    for (int column = 0; column < columns.length; column++) {
+      System.arraycopy(source.columns[column], firstRow, columns[column], size, rows);
+    }
+    size += rows;
+  }
+
+  protected void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " of a batch with " + size + " rows.");
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_integration.input;
+
+import de.metanome.algorithm_integration.AlgorithmConfigurationException;
+
+/**
+ * A {@link RelationalInputGenerator} that can push a column projection down into the input, so
+ * that the values of other columns are not materialized.
+ */
+public interface ProjectableRelationalInputGenerator extends RelationalInputGenerator {
+
+  /**
+   * Generates a new copy of the relational input that only contains the given columns. The rows,
+   * the column names and the number of columns of the copy follow the order of the projected
+   * columns.
+   *
+   * @param projectedColumns the indices of the columns to keep
+   * @return new copy of the projected relational input
+   * @throws InputGenerationException if no new copy could be created
+   * @throws AlgorithmConfigurationException if the configuration is not correct
+   */
+  public RelationalInput generateNewCopy(int[] projectedColumns)
+    throws InputGenerationException, AlgorithmConfigurationException;
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.algorithm_integration.input;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link BatchRelationalInputAdapter}
+ */
+public class BatchRelationalInputAdapterTest {
+
+  /**
+   * Test method for {@link BatchRelationalInputAdapter#nextBatch(ColumnBatch)}
+   * <p/>
+   * The adapter should fill the reused column arrays with the rows of the input until the batch
+   * is full or the input is exhausted.
+   */
+  @Test
+  public void testNextBatch() throws InputIterationException {
+    // Setup
+    RelationalInput input = mock(RelationalInput.class);
+    when(input.numberOfColumns()).thenReturn(2);
+    when(input.hasNext()).thenReturn(true, true, true, false);
+    when(input.next()).thenReturn(Arrays.asList("a", "b"), Arrays.asList("c", null),
+      Arrays.asList("e", "f"));
+    BatchRelationalInput batchInput = BatchRelationalInputAdapter.of(input);
+    ColumnBatch batch = new ColumnBatch(2, 2);
+
+    // Execute functionality
+    // Check result
+    assertEquals(2, batchInput.nextBatch(batch));
+    String[] firstColumn = batch.getColumn(0);
+    assertEquals("a", firstColumn[0]);
+    assertEquals("c", firstColumn[1]);
+    assertNull(batch.getValue(1, 1));
+    assertTrue(batch.isFull());
+
+    assertEquals(1, batchInput.nextBatch(batch));
+    assertSame(firstColumn, batch.getColumn(0));
+    assertEquals(Arrays.asList("e", "f"), batch.getRow(0));
+
+    assertEquals(0, batchInput.nextBatch(batch));
+    assertFalse(batch.isFull());
+  }
+
+  /**
+   * Test method for {@link BatchRelationalInputAdapter#of(RelationalInput)}
+   * <p/>
+   * Inputs that read batches natively should not be wrapped.
+   */
+  @Test
+  public void testOf() {
+    // Setup
+    BatchRelationalInput nativeInput = mock(BatchRelationalInput.class);
+
+    // Execute functionality
+    // Check result
+    assertSame(nativeInput, BatchRelationalInputAdapter.of(nativeInput));
+  }
+
+  /**
+   * Test method for {@link ColumnBatch#addRow(List)}
+   * <p/>
+   * Rows should be stored column-wise and the batch should reject rows of the wrong width.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddRowWrongWidth() {
+    // Setup
+    ColumnBatch batch = new ColumnBatch(3, 4);
+    batch.addRow(Arrays.asList("1", "2", "3"));
+    batch.addRow(Arrays.asList("4", "5", "6"));
+
+    // Check result
+    assertArrayEquals(new String[]{"2", "5"}, Arrays.copyOf(batch.getColumn(1), batch.size()));
+
+    // Execute functionality
+    batch.addRow(Arrays.asList("7", "8"));
+  }
+}
@@ -97,11 +97,16 @@ public class AlgorithmExecution {
 
     List<ColumnIdentifier> columnNames = new ArrayList<>();
     for (RelationalInputGenerator inputGenerator : inputGenerators) {
-      RelationalInput input = inputGenerator.generateNewCopy();
-
-      String tableName = input.relationName();
-      for (String columnName : input.columnNames()) {
-        columnNames.add(new ColumnIdentifier(tableName, columnName));
+      // Only the header is read, so the input is closed right away
+      try (RelationalInput input = inputGenerator.generateNewCopy()) {
+        String tableName = input.relationName();
+        for (String columnName : input.columnNames()) {
+          columnNames.add(new ColumnIdentifier(tableName, columnName));
+        }
+      } catch (InputGenerationException | AlgorithmConfigurationException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new InputGenerationException("Could not close the input", e);
       }
     }
 
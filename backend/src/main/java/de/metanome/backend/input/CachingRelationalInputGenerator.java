@@ -0,0 +1,156 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input;
+
+import de.metanome.algorithm_integration.AlgorithmConfigurationException;
+import de.metanome.algorithm_integration.input.FileInputGenerator;
+import de.metanome.algorithm_integration.input.InputGenerationException;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.ProjectableRelationalInputGenerator;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_integration.input.RelationalInputGenerator;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Decorates a {@link RelationalInputGenerator} so that its input is only read once. The first copy
+ * reads the whole input into a {@link ColumnStore}, all copies replay the rows from the store. For
+ * file inputs the store is read again if the length or modification time of the file changed. If
+ * the dictionaries of the input do not fit into the memory limit, the copies are generated by the
+ * decorated generator instead.
+ */
+public class CachingRelationalInputGenerator implements ProjectableRelationalInputGenerator {
+
+  protected RelationalInputGenerator generator;
+  protected File inputFile = null;
+  protected long memoryLimit = Runtime.getRuntime().maxMemory() / 4;
+
+  protected ColumnStore store = null;
+  protected boolean uncached = false;
+  protected long cachedFileLength = -1;
+  protected long cachedFileModified = -1;
+
+  /**
+   * @param generator the generator of the input to cache
+   */
+  public CachingRelationalInputGenerator(RelationalInputGenerator generator) {
+    this.generator = generator;
+    if (generator instanceof FileInputGenerator) {
+      this.inputFile = ((FileInputGenerator) generator).getInputFile();
+    }
+  }
+
+  @Override
+  public RelationalInput generateNewCopy()
+    throws InputGenerationException, AlgorithmConfigurationException {
+    return generateNewCopy(null);
+  }
+
+  @Override
+  public RelationalInput generateNewCopy(int[] projectedColumns)
+    throws InputGenerationException, AlgorithmConfigurationException {
+    ColumnStore cachedStore = getStore();
+    if (cachedStore != null) {
+      return new ColumnStoreIterator(cachedStore, projectedColumns);
+    }
+    if (projectedColumns == null) {
+      return generator.generateNewCopy();
+    }
+    if (generator instanceof ProjectableRelationalInputGenerator) {
+      return ((ProjectableRelationalInputGenerator) generator).generateNewCopy(projectedColumns);
+    }
+    return new ProjectedRelationalInput(generator.generateNewCopy(), projectedColumns);
+  }
+
+  /**
+   * @return the store of the input, read if there is none or the input file changed, null if the
+   * input is too large to be cached
+   * @throws InputGenerationException if the input cannot be read
+   * @throws AlgorithmConfigurationException if the input cannot be generated
+   */
+  protected synchronized ColumnStore getStore()
+    throws InputGenerationException, AlgorithmConfigurationException {
+    if ((store != null || uncached) && !isStale()) {
+      return store;
+    }
+    store = null;
+    uncached = false;
+    if (inputFile != null) {
+      cachedFileLength = inputFile.length();
+      cachedFileModified = inputFile.lastModified();
+    }
+
+    ColumnStore newStore;
+    RelationalInput input = generator.generateNewCopy();
+    try {
+      newStore = ColumnStore.materialize(input, memoryLimit);
+    } catch (InputIterationException e) {
+      throw new InputGenerationException("Could not read the input into the cache", e);
+    } catch (IOException e) {
+      throw new InputGenerationException("Could not spill the cached input", e);
+    } finally {
+      closeInput(input);
+    }
+    store = newStore;
+    uncached = newStore == null;
+    return store;
+  }
+
+  protected void closeInput(RelationalInput input) throws InputGenerationException {
+    try {
+      input.close();
+    } catch (Exception e) {
+      throw new InputGenerationException("Could not close the cached input", e);
+    }
+  }
+
+  protected boolean isStale() {
+    return inputFile != null
+      && (inputFile.length() != cachedFileLength || inputFile.lastModified() != cachedFileModified);
+  }
+
+  /**
+   * Drops the store, the next copy reads the input again.
+   */
+  public synchronized void invalidate() {
+    store = null;
+    uncached = false;
+  }
+
+  /**
+   * @param memoryLimit the estimated number of bytes of the store to keep on the heap, larger stores
+   *                    are memory mapped from a temporary file and inputs with larger dictionaries
+   *                    are not cached
+   */
+  public synchronized void setMemoryLimit(long memoryLimit) {
+    this.memoryLimit = memoryLimit;
+    invalidate();
+  }
+
+  /**
+   * @return the decorated generator
+   */
+  public RelationalInputGenerator getGenerator() {
+    return generator;
+  }
+
+  @Override
+  public void close() throws Exception {
+    invalidate();
+    generator.close();
+  }
+}
@@ -0,0 +1,299 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input;
+
+import com.google.common.collect.ImmutableList;
+import de.metanome.algorithm_integration.input.BatchRelationalInput;
+import de.metanome.algorithm_integration.input.BatchRelationalInputAdapter;
+import de.metanome.algorithm_integration.input.ColumnBatch;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read only, dictionary encoded copy of a {@link RelationalInput}. Every column has a dictionary
+ * of its distinct values (including null) and the rows are stored as dictionary codes in blocks of
+ * up to {@link #BLOCK_SIZE} rows, column by column within a block. The dictionaries and the blocks
+ * are kept on the heap as long as they fit into the given memory limit. If they do not, the blocks
+ * are spilled to a temporary file that is memory mapped once the input is read. The dictionaries
+ * always stay on the heap, so inputs whose dictionaries alone exceed the limit are not stored.
+ * <p>
+ * A store can be read by any number of {@link ColumnStoreIterator}s concurrently.
+ */
+public class ColumnStore {
+
+  public static final int BLOCK_SIZE = ColumnBatch.DEFAULT_CAPACITY;
+
+  protected static final long MAX_MAPPING_SIZE = Integer.MAX_VALUE;
+
+  // Estimated bytes of a dictionary value besides its characters, including its map entry
+  protected static final long VALUE_OVERHEAD = 96;
+
+  protected String relationName;
+  protected ImmutableList<String> columnNames;
+  protected String[][] dictionaries;
+  protected List<IntBuffer> blocks = new ArrayList<>();
+  protected List<Integer> blockSizes = new ArrayList<>();
+  protected long numberOfRows = 0;
+  protected boolean spilled = false;
+
+  protected ColumnStore(String relationName, List<String> columnNames) {
+    this.relationName = relationName;
+    this.columnNames = ImmutableList.copyOf(columnNames);
+  }
+
+  /**
+   * Reads the input to its end into a new store.
+   *
+   * @param input       the input to read
+   * @param memoryLimit the estimated number of bytes of dictionaries and dictionary codes to keep
+   *                    on the heap before spilling the codes to a temporary file
+   * @return the store with all rows of the input or null if the dictionaries exceed the limit
+   * @throws InputIterationException if the input cannot be read
+   * @throws IOException             if the store cannot be spilled to a temporary file
+   */
+  public static ColumnStore materialize(RelationalInput input, long memoryLimit)
+    throws InputIterationException, IOException {
+    ColumnStore store = new ColumnStore(input.relationName(), input.columnNames());
+    if (!store.read(input, memoryLimit)) {
+      return null;
+    }
+    return store;
+  }
+
+  /**
+   * @return false if the dictionaries exceed the memory limit
+   */
+  protected boolean read(RelationalInput input, long memoryLimit)
+    throws InputIterationException, IOException {
+    int numberOfColumns = input.numberOfColumns();
+    List<Map<String, Integer>> codes = new ArrayList<>(numberOfColumns);
+    List<List<String>> values = new ArrayList<>(numberOfColumns);
+    for (int column = 0; column < numberOfColumns; column++) {
+      codes.add(new HashMap<String, Integer>());
+      values.add(new ArrayList<String>());
+    }
+
+    BatchRelationalInput batchInput = BatchRelationalInputAdapter.of(input);
+    ColumnBatch batch = new ColumnBatch(numberOfColumns, BLOCK_SIZE);
+    List<int[]> memoryBlocks = new ArrayList<>();
+    long[] dictionaryBytes = {0};
+    long memoryBytes = 0;
+    SpillFile spillFile = null;
+    try {
+      int rows;
+      while ((rows = batchInput.nextBatch(batch)) > 0) {
+        int[] block = encode(batch, rows, codes, values, dictionaryBytes);
+        if (dictionaryBytes[0] > memoryLimit) {
+          return false;
+        }
+        this.numberOfRows += rows;
+        this.blockSizes.add(rows);
+        memoryBytes += 4L * block.length;
+
+        if (spillFile == null && dictionaryBytes[0] + memoryBytes > memoryLimit) {
+          spillFile = new SpillFile();
+          for (int[] memoryBlock : memoryBlocks) {
+            spillFile.write(memoryBlock);
+          }
+          memoryBlocks.clear();
+        }
+        if (spillFile == null) {
+          memoryBlocks.add(block);
+        } else {
+          spillFile.write(block);
+        }
+      }
+
+      if (spillFile == null) {
+        for (int[] memoryBlock : memoryBlocks) {
+          this.blocks.add(IntBuffer.wrap(memoryBlock));
+        }
+      } else {
+        this.blocks.addAll(spillFile.map());
+        this.spilled = true;
+      }
+    } finally {
+      if (spillFile != null) {
+        spillFile.delete();
+      }
+    }
+
+    this.dictionaries = new String[numberOfColumns][];
+    for (int column = 0; column < numberOfColumns; column++) {
+      this.dictionaries[column] = values.get(column).toArray(new String[values.get(column).size()]);
+    }
+    return true;
+  }
+
+  /**
+   * Encodes the rows of a batch and adds the estimated bytes of new dictionary values to the
+   * dictionary bytes.
+   */
+  protected static int[] encode(ColumnBatch batch, int rows, List<Map<String, Integer>> codes,
+                                List<List<String>> values, long[] dictionaryBytes) {
+    int[] block = new int[rows * batch.getNumberOfColumns()];
+    for (int column = 0; column < batch.getNumberOfColumns(); column++) {
+      String[] columnValues = batch.getColumn(column);
+      Map<String, Integer> columnCodes = codes.get(column);
+      List<String> dictionary = values.get(column);
+      for (int row = 0; row < rows; row++) {
+        Integer code = columnCodes.get(columnValues[row]);
+        if (code == null) {
+          code = dictionary.size();
+          dictionary.add(columnValues[row]);
+          columnCodes.put(columnValues[row], code);
+          dictionaryBytes[0] += VALUE_OVERHEAD
+            + (columnValues[row] == null ? 0 : 2L * columnValues[row].length());
+        }
+        block[column * rows + row] = code;
+      }
+    }
+    return block;
+  }
+
+  public String getRelationName() {
+    return relationName;
+  }
+
+  public ImmutableList<String> getColumnNames() {
+    return columnNames;
+  }
+
+  public int getNumberOfColumns() {
+    return columnNames.size();
+  }
+
+  public long getNumberOfRows() {
+    return numberOfRows;
+  }
+
+  /**
+   * @return true, if the dictionary codes are memory mapped from a temporary file
+   */
+  public boolean isSpilled() {
+    return spilled;
+  }
+
+  /**
+   * @param column the index of the column
+   * @return the distinct values of the column indexed by their code
+   */
+  public String[] getDictionary(int column) {
+    return dictionaries[column];
+  }
+
+  public int getNumberOfBlocks() {
+    return blocks.size();
+  }
+
+  /**
+   * @param block the index of the block
+   * @return the number of rows in the block
+   */
+  public int getBlockSize(int block) {
+    return blockSizes.get(block);
+  }
+
+  /**
+   * The code of row r in column c of a block with n rows is stored at index c * n + r. Only
+   * absolute gets may be used on the returned buffer as it is shared between readers.
+   *
+   * @param block the index of the block
+   * @return the dictionary codes of the block
+   */
+  public IntBuffer getBlock(int block) {
+    return blocks.get(block);
+  }
+
+  /**
+   * Collects the blocks of a store in a temporary file and maps them in windows of whole blocks.
+   */
+  protected static class SpillFile {
+
+    protected File file;
+    protected RandomAccessFile randomAccessFile;
+    protected FileChannel channel;
+    protected List<Integer> blockLengths = new ArrayList<>();
+
+    public SpillFile() throws IOException {
+      this.file = File.createTempFile("metanome-column-store", ".bin");
+      this.file.deleteOnExit();
+      this.randomAccessFile = new RandomAccessFile(file, "rw");
+      this.channel = randomAccessFile.getChannel();
+    }
+
+    public void write(int[] block) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(4 * block.length);
+      buffer.asIntBuffer().put(block);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      blockLengths.add(block.length);
+    }
+
+    public List<IntBuffer> map() throws IOException {
+      List<IntBuffer> mappedBlocks = new ArrayList<>(blockLengths.size());
+      long windowStart = 0;
+      int first = 0;
+      while (first < blockLengths.size()) {
+        // Map as many whole blocks as fit into one window
+        long windowSize = 0;
+        int last = first;
+        while (last < blockLengths.size()
+          && windowSize + 4L * blockLengths.get(last) <= MAX_MAPPING_SIZE) {
+          windowSize += 4L * blockLengths.get(last);
+          last++;
+        }
+        MappedByteBuffer window =
+          channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+        int offset = 0;
+        for (int block = first; block < last; block++) {
+          ByteBuffer blockBuffer = window.duplicate();
+          blockBuffer.position(offset);
+          blockBuffer.limit(offset + 4 * blockLengths.get(block));
+          mappedBlocks.add(blockBuffer.slice().asIntBuffer());
+          offset += 4 * blockLengths.get(block);
+        }
+        windowStart += windowSize;
+        first = last;
+      }
+      return mappedBlocks;
+    }
+
+    /**
+     * Closes and deletes the file, the mapped blocks stay readable.
+     */
+    public void delete() throws IOException {
+      channel.close();
+      randomAccessFile.close();
+      if (!file.delete()) {
+        file.deleteOnExit();
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input;
+
+import com.google.common.collect.ImmutableList;
+import de.metanome.algorithm_integration.input.BatchRelationalInput;
+import de.metanome.algorithm_integration.input.BatchRelationalInputAdapter;
+import de.metanome.algorithm_integration.input.ColumnBatch;
+import de.metanome.algorithm_integration.input.InputIterationException;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Replays the rows of a {@link ColumnStore}, optionally projected onto some of its columns.
+ */
+public class ColumnStoreIterator implements BatchRelationalInput {
+
+  protected ColumnStore store;
+  protected int[] projectedColumns;
+  protected ImmutableList<String> columnNames;
+
+  protected int currentBlock = -1;
+  protected IntBuffer currentCodes = null;
+  protected int currentBlockSize = 0;
+  protected int currentRow = 0;
+
+  /**
+   * @param store            the store to replay
+   * @param projectedColumns the indices of the columns to return, null for all columns
+   */
+  public ColumnStoreIterator(ColumnStore store, int[] projectedColumns) {
+    this.store = store;
+    if (projectedColumns == null) {
+      this.projectedColumns = new int[store.getNumberOfColumns()];
+      for (int column = 0; column < this.projectedColumns.length; column++) {
+        this.projectedColumns[column] = column;
+      }
+      this.columnNames = store.getColumnNames();
+    } else {
+      ImmutableList.Builder<String> names = ImmutableList.builder();
+      for (int column : projectedColumns) {
+        if (column < 0 || column >= store.getNumberOfColumns()) {
+          throw new IllegalArgumentException(
+            "The relation " + store.getRelationName() + " has no column " + column + ".");
+        }
+        names.add(store.getColumnNames().get(column));
+      }
+      this.projectedColumns = projectedColumns.clone();
+      this.columnNames = names.build();
+    }
+  }
+
+  @Override
+  public boolean hasNext() throws InputIterationException {
+    while (currentRow >= currentBlockSize) {
+      if (currentBlock + 1 >= store.getNumberOfBlocks()) {
+        return false;
+      }
+      currentBlock++;
+      currentCodes = store.getBlock(currentBlock);
+      currentBlockSize = store.getBlockSize(currentBlock);
+      currentRow = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public List<String> next() throws InputIterationException {
+    if (!hasNext()) {
+      return null;
+    }
+    String[] values = new String[projectedColumns.length];
+    for (int i = 0; i < values.length; i++) {
+      int column = projectedColumns[i];
+      values[i] = store.getDictionary(column)[
+        currentCodes.get(column * currentBlockSize + currentRow)];
+    }
+    currentRow++;
+    return Collections.unmodifiableList(Arrays.asList(values));
+  }
+
+  /**
+   * Decodes the rows column by column into the batch.
+   */
+  @Override
+  public int nextBatch(ColumnBatch batch) throws InputIterationException {
+    BatchRelationalInputAdapter.checkBatch(this, batch);
+    batch.clear();
+    while (!batch.isFull() && hasNext()) {
+      int firstRow = batch.size();
+      int rows = Math.min(currentBlockSize - currentRow, batch.getCapacity() - firstRow);
+      for (int row = 0; row < rows; row++) {
+        batch.addRow();
+      }
+      for (int i = 0; i < projectedColumns.length; i++) {
+        String[] dictionary = store.getDictionary(projectedColumns[i]);
+        String[] values = batch.getColumn(i);
+        int offset = projectedColumns[i] * currentBlockSize + currentRow;
+        for (int row = 0; row < rows; row++) {
+          values[firstRow + row] = dictionary[currentCodes.get(offset + row)];
+        }
+      }
+      currentRow += rows;
+    }
+    return batch.size();
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return projectedColumns.length;
+  }
+
+  @Override
+  public String relationName() {
+    return store.getRelationName();
+  }
+
+  @Override
+  public ImmutableList<String> columnNames() {
+    return columnNames;
+  }
+
+  @Override
+  public void close() throws Exception {
+    // Nothing to close, the store is shared
+  }
+}
@@ -41,6 +41,18 @@ import de.metanome.backend.input.file.DefaultFileInputGenerator;
 public class DefaultRelationalInputGeneratorInitializer
   implements RelationalInputGeneratorInitializer {
 
+  /**
+   * The system property with the number of batches to read ahead of the algorithms, see {@link
+   * ReadAheadRelationalInput}.
+   */
+  public static final String READ_AHEAD_DEPTH_PROPERTY = "metanome.input.readAheadDepth";
+
+  /**
+   * The system property with the number of threads tokenizing large files in chunks, see {@link
+   * DefaultFileInputGenerator#setNumberOfThreads(int)}. Files are read sequentially by default.
+   */
+  public static final String PARSING_THREADS_PROPERTY = "metanome.input.parsingThreads";
+
   List<RelationalInputGenerator> generatorList = new ArrayList<>();
   String identifier;
 
@@ -74,7 +86,7 @@ public class DefaultRelationalInputGeneratorInitializer
     File currFile = new File(setting.getFileName());
     try {
       if (currFile.isFile()) {
-          generatorList.add(new DefaultFileInputGenerator(currFile, setting));
+          generatorList.add(createFileInputGenerator(currFile, setting));
       } else if (currFile.isDirectory()) {
           File[] filesInDirectory = currFile.listFiles(new FilenameFilter() {
             @Override
@@ -88,7 +100,7 @@ public class DefaultRelationalInputGeneratorInitializer
             }
           });
           for (File file : filesInDirectory) {
-            generatorList.add(new DefaultFileInputGenerator(file, setting));
+            generatorList.add(createFileInputGenerator(file, setting));
           }
         }
       } catch (FileNotFoundException e) {
@@ -106,7 +118,26 @@ public class DefaultRelationalInputGeneratorInitializer
   @Override
   public void initialize(ConfigurationSettingTableInput setting)
     throws AlgorithmConfigurationException {
-    generatorList.add(new DefaultTableInputGenerator(setting));
+    DefaultTableInputGenerator generator = new DefaultTableInputGenerator(setting);
+    generator.setReadAheadDepth(getReadAheadDepth());
+    generatorList.add(generator);
+  }
+
+  protected DefaultFileInputGenerator createFileInputGenerator(File file,
+                                                               ConfigurationSettingFileInput setting)
+    throws FileNotFoundException, AlgorithmConfigurationException {
+    DefaultFileInputGenerator generator = new DefaultFileInputGenerator(file, setting);
+    generator.setReadAheadDepth(getReadAheadDepth());
+    generator.setNumberOfThreads(getParsingThreads());
+    return generator;
+  }
+
+  protected int getReadAheadDepth() {
+    return Integer.getInteger(READ_AHEAD_DEPTH_PROPERTY, 0);
+  }
+
+  protected int getParsingThreads() {
+    return Integer.getInteger(PARSING_THREADS_PROPERTY, 1);
   }
 
   /**
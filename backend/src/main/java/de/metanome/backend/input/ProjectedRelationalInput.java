@@ -0,0 +1,90 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input;
+
+import com.google.common.collect.ImmutableList;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Projects the rows of a {@link RelationalInput} onto some of its columns.
+ */
+public class ProjectedRelationalInput implements RelationalInput {
+
+  protected RelationalInput input;
+  protected int[] projectedColumns;
+  protected ImmutableList<String> columnNames;
+
+  /**
+   * @param input            the input to project
+   * @param projectedColumns the indices of the columns to return
+   */
+  public ProjectedRelationalInput(RelationalInput input, int[] projectedColumns) {
+    this.input = input;
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    for (int column : projectedColumns) {
+      if (column < 0 || column >= input.numberOfColumns()) {
+        throw new IllegalArgumentException(
+          "The relation " + input.relationName() + " has no column " + column + ".");
+      }
+      names.add(input.columnNames().get(column));
+    }
+    this.projectedColumns = projectedColumns.clone();
+    this.columnNames = names.build();
+  }
+
+  @Override
+  public boolean hasNext() throws InputIterationException {
+    return input.hasNext();
+  }
+
+  @Override
+  public List<String> next() throws InputIterationException {
+    List<String> row = input.next();
+    if (row == null) {
+      return null;
+    }
+    String[] values = new String[projectedColumns.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = row.get(projectedColumns[i]);
+    }
+    return Collections.unmodifiableList(Arrays.asList(values));
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return projectedColumns.length;
+  }
+
+  @Override
+  public String relationName() {
+    return input.relationName();
+  }
+
+  @Override
+  public ImmutableList<String> columnNames() {
+    return columnNames;
+  }
+
+  @Override
+  public void close() throws Exception {
+    input.close();
+  }
+}
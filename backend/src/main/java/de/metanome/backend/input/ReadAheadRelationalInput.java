@@ -0,0 +1,311 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input;
+
+import de.metanome.algorithm_integration.input.BatchRelationalInput;
+import de.metanome.algorithm_integration.input.BatchRelationalInputAdapter;
+import de.metanome.algorithm_integration.input.ColumnBatch;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads a {@link RelationalInput} on a producer thread ahead of the consumer, so that reading and
+ * parsing the input overlaps with processing its rows. The producer fills {@link ColumnBatch}es
+ * in a bounded single producer, single consumer ring buffer without locks: the producer publishes
+ * a filled batch by advancing the tail, the consumer hands it back by advancing the head. Errors
+ * of the producer are thrown as {@link InputIterationException} by the consumer once it has read
+ * all rows before them.
+ * <p>
+ * The producer stops at the end of the input, on an error or when the input is closed, and then
+ * closes the underlying input itself, so that the input is never closed while it is read. Inputs
+ * that are not read to the end have to be closed.
+ * <p>
+ * A producer facing a full ring parks until the consumer hands back a batch. If the consumer does
+ * not do so for {@link #DEFAULT_ABANDON_TIMEOUT_MILLIS}, the input is regarded as abandoned: the
+ * producer stops and closes the underlying input, and the consumer gets an {@link
+ * InputIterationException} after the rows read ahead.
+ */
+public class ReadAheadRelationalInput implements BatchRelationalInput {
+
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  protected static final int SPINS_BEFORE_PARKING = 64;
+  protected static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  protected static final long CLOSE_TIMEOUT_MILLIS = 1000;
+  public static final long DEFAULT_ABANDON_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+  protected RelationalInput input;
+  protected int numberOfColumns;
+  protected String relationName;
+  protected List<String> columnNames;
+  protected ColumnBatch[] ring;
+  // The number of batches the consumer has handed back
+  protected AtomicLong head = new AtomicLong();
+  // The number of batches the producer has filled
+  protected AtomicLong tail = new AtomicLong();
+  protected volatile boolean finished = false;
+  protected volatile boolean closed = false;
+  protected volatile Throwable failure = null;
+  protected volatile Exception closeFailure = null;
+  // Set by the producer before it parks on a full ring, so that the consumer only unparks if needed
+  protected volatile boolean producerParked = false;
+  protected long abandonTimeoutMillis = DEFAULT_ABANDON_TIMEOUT_MILLIS;
+  protected Thread producer;
+
+  protected ColumnBatch currentBatch = null;
+  protected int currentRow = 0;
+
+  /**
+   * Creates the read ahead input without starting the producer (see {@link #start()}).
+   *
+   * @param input     the input to read ahead
+   * @param depth     the maximal number of batches read ahead
+   * @param batchSize the number of rows per batch
+   */
+  protected ReadAheadRelationalInput(RelationalInput input, int depth, int batchSize) {
+    if (depth < 1) {
+      throw new IllegalArgumentException("The read ahead depth has to be positive.");
+    }
+    this.input = input;
+    // The consumer never touches the input while the producer reads it.
+    this.numberOfColumns = input.numberOfColumns();
+    this.relationName = input.relationName();
+    this.columnNames = input.columnNames();
+    this.ring = new ColumnBatch[depth];
+    for (int i = 0; i < depth; i++) {
+      this.ring[i] = new ColumnBatch(numberOfColumns, batchSize);
+    }
+
+    this.producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        produce();
+      }
+    }, "read-ahead-" + relationName);
+    this.producer.setDaemon(true);
+  }
+
+  /**
+   * Starts reading the input ahead.
+   *
+   * @param input     the input to read ahead
+   * @param depth     the maximal number of batches read ahead
+   * @param batchSize the number of rows per batch
+   * @return the started read ahead input
+   */
+  public static ReadAheadRelationalInput start(RelationalInput input, int depth, int batchSize) {
+    ReadAheadRelationalInput readAheadInput = new ReadAheadRelationalInput(input, depth, batchSize);
+    readAheadInput.start();
+    return readAheadInput;
+  }
+
+  /**
+   * @param input the input to read ahead
+   * @param depth the maximal number of batches read ahead, 0 to not read ahead
+   * @return the input read ahead or the input itself if the depth is 0
+   */
+  public static RelationalInput readAhead(RelationalInput input, int depth) {
+    if (depth <= 0) {
+      return input;
+    }
+    return start(input, depth, DEFAULT_BATCH_SIZE);
+  }
+
+  protected void start() {
+    producer.start();
+  }
+
+  protected void produce() {
+    BatchRelationalInput source = BatchRelationalInputAdapter.of(input);
+    try {
+      long filled = tail.get();
+      while (!closed) {
+        if (filled - head.get() >= ring.length && !awaitSpace(filled)) {
+          return;
+        }
+        if (source.nextBatch(ring[(int) (filled % ring.length)]) == 0) {
+          break;
+        }
+        filled++;
+        tail.lazySet(filled);
+      }
+    } catch (Throwable e) {
+      failure = e;
+    } finally {
+      closeInput();
+      finished = true;
+    }
+  }
+
+  /**
+   * Waits until the consumer hands back a batch of the full ring. After a few spins the producer
+   * parks until the consumer unparks it or the abandon timeout passes.
+   *
+   * @param filled the number of batches filled so far
+   * @return false if the input was closed or abandoned
+   */
+  protected boolean awaitSpace(long filled) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(abandonTimeoutMillis);
+    int spins = 0;
+    while (filled - head.get() >= ring.length) {
+      if (closed) {
+        return false;
+      }
+      if (spins < SPINS_BEFORE_PARKING) {
+        Thread.yield();
+        spins++;
+        continue;
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        failure = new InputIterationException("Stopped reading ahead as the input was not read for "
+          + abandonTimeoutMillis + " ms");
+        return false;
+      }
+      producerParked = true;
+      // Checked again after announcing the park, as the consumer may have advanced the head before
+      if (filled - head.get() >= ring.length && !closed) {
+        LockSupport.parkNanos(this, remaining);
+      }
+      producerParked = false;
+    }
+    return true;
+  }
+
+  protected void closeInput() {
+    try {
+      input.close();
+    } catch (Exception e) {
+      closeFailure = e;
+    }
+  }
+
+  /**
+   * Waits for the next filled batch. The current batch is handed back to the producer first.
+   *
+   * @return the next batch or null at the end of the input
+   */
+  protected ColumnBatch takeBatch() throws InputIterationException {
+    long taken = head.get();
+    if (currentBatch != null) {
+      currentBatch = null;
+      taken++;
+      head.set(taken);
+      if (producerParked) {
+        LockSupport.unpark(producer);
+      }
+    }
+    int spins = 0;
+    while (tail.get() == taken) {
+      if (finished && tail.get() == taken) {
+        if (failure instanceof InputIterationException) {
+          throw new InputIterationException(failure.getMessage(), failure);
+        } else if (failure != null) {
+          throw new InputIterationException("Could not read ahead in the input", failure);
+        }
+        return null;
+      }
+      if (closed) {
+        throw new InputIterationException("The input is closed");
+      }
+      idle(spins++);
+    }
+    return ring[(int) (taken % ring.length)];
+  }
+
+  protected void idle(int spins) {
+    if (spins < SPINS_BEFORE_PARKING) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(PARK_NANOS);
+    }
+  }
+
+  @Override
+  public boolean hasNext() throws InputIterationException {
+    while (currentBatch == null || currentRow >= currentBatch.size()) {
+      ColumnBatch batch = takeBatch();
+      if (batch == null) {
+        return false;
+      }
+      currentBatch = batch;
+      currentRow = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public List<String> next() throws InputIterationException {
+    if (!hasNext()) {
+      return null;
+    }
+    return currentBatch.getRow(currentRow++);
+  }
+
+  /**
+   * Copies the rows of the batches read ahead into the given batch.
+   */
+  @Override
+  public int nextBatch(ColumnBatch batch) throws InputIterationException {
+    BatchRelationalInputAdapter.checkBatch(this, batch);
+    batch.clear();
+    while (!batch.isFull() && hasNext()) {
+      int rows = Math.min(currentBatch.size() - currentRow, batch.getCapacity() - batch.size());
+      batch.addRows(currentBatch, currentRow, rows);
+      currentRow += rows;
+    }
+    return batch.size();
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return numberOfColumns;
+  }
+
+  @Override
+  public String relationName() {
+    return relationName;
+  }
+
+  @Override
+  public List<String> columnNames() {
+    return columnNames;
+  }
+
+  /**
+   * Stops the producer, which closes the underlying input. The producer is not interrupted as the
+   * underlying input might not survive it. If it is still reading a batch after waiting for it, the
+   * input is closed once the batch is read.
+   */
+  @Override
+  public void close() throws Exception {
+    closed = true;
+    if (producer.getState() == Thread.State.NEW) {
+      closeInput();
+    } else {
+      LockSupport.unpark(producer);
+      producer.join(CLOSE_TIMEOUT_MILLIS);
+    }
+    if (!producer.isAlive() && closeFailure != null) {
+      throw closeFailure;
+    }
+  }
+}
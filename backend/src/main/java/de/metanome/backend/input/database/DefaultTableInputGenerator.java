@@ -16,12 +16,16 @@
 package de.metanome.backend.input.database;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 
 import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.configuration.ConfigurationSettingTableInput;
 import de.metanome.algorithm_integration.input.InputGenerationException;
+import de.metanome.algorithm_integration.input.ProjectableRelationalInputGenerator;
 import de.metanome.algorithm_integration.input.RelationalInput;
 import de.metanome.algorithm_integration.input.TableInputGenerator;
+import de.metanome.backend.input.ReadAheadRelationalInput;
 
 /**
  * Provides database tables as {@link RelationalInput} by executing select statements on an
@@ -31,14 +35,18 @@ import de.metanome.algorithm_integration.input.TableInputGenerator;
  * @see de.metanome.algorithm_integration.input.RelationalInput
  * @see DefaultDatabaseConnectionGenerator
  */
-public class DefaultTableInputGenerator implements TableInputGenerator {
+public class DefaultTableInputGenerator
+  implements TableInputGenerator, ProjectableRelationalInputGenerator {
 
   protected static final String BASE_STATEMENT = "SELECT * FROM %s";
+  protected static final String PROJECTION_STATEMENT = "SELECT %s FROM %s";
+  protected static final String COLUMNS_STATEMENT = "SELECT * FROM %s WHERE 1 = 0";
   protected static final String SORT_STATEMENT = "SELECT * FROM %s ORDER BY %s %s";
   protected static final String FILTER_STATEMENT = "SELECT * FROM %s WHERE %s";
 
   protected DefaultDatabaseConnectionGenerator defaultDatabaseConnectionGenerator;
   protected String table;
+  protected int readAheadDepth = 0;
 
   protected DefaultTableInputGenerator() {
   }
@@ -77,8 +85,90 @@ public class DefaultTableInputGenerator implements TableInputGenerator {
   @Override
   public RelationalInput generateNewCopy() throws InputGenerationException, AlgorithmConfigurationException {
     String query = String.format(BASE_STATEMENT, table);
-    return defaultDatabaseConnectionGenerator
-      .generateRelationalInputFromSql(query, table);
+    return ReadAheadRelationalInput.readAhead(defaultDatabaseConnectionGenerator
+      .generateRelationalInputFromSql(query, table), readAheadDepth);
+  }
+
+  /**
+   * Generates a new {@link de.metanome.algorithm_integration.input.RelationalInput} that only
+   * selects the given columns of the table instead of all columns.
+   *
+   * @param projectedColumns the indices of the columns to select
+   * @return the {@link de.metanome.algorithm_integration.input.RelationalInput}
+   * @throws InputGenerationException if the database statement could not be executed
+   */
+  @Override
+  public RelationalInput generateNewCopy(int[] projectedColumns)
+    throws InputGenerationException, AlgorithmConfigurationException {
+    if (projectedColumns == null) {
+      return generateNewCopy();
+    }
+    String query = String.format(PROJECTION_STATEMENT,
+      buildColumnList(projectedColumns), table);
+    return ReadAheadRelationalInput.readAhead(defaultDatabaseConnectionGenerator
+      .generateRelationalInputFromSql(query, table), readAheadDepth);
+  }
+
+  /**
+   * @param readAheadDepth the number of batches read ahead on a separate thread, 0 to read on the
+   *                       consuming thread
+   */
+  public void setReadAheadDepth(int readAheadDepth) {
+    this.readAheadDepth = readAheadDepth;
+  }
+
+  /**
+   * Looks up the names of the projected columns with an empty query. The names are quoted, so that
+   * case sensitive names, reserved words and names with spaces select the same columns as
+   * {@link #BASE_STATEMENT}.
+   *
+   * @param projectedColumns the indices of the columns to select
+   * @return the comma separated column names
+   * @throws InputGenerationException if the column names could not be retrieved
+   */
+  protected String buildColumnList(int[] projectedColumns)
+    throws InputGenerationException, AlgorithmConfigurationException {
+    String query = String.format(COLUMNS_STATEMENT, table);
+    try (ResultSet resultSet = defaultDatabaseConnectionGenerator.generateResultSetFromSql(query)) {
+      ResultSetMetaData metaData = resultSet.getMetaData();
+      String quote = getIdentifierQuote();
+      StringBuilder columnList = new StringBuilder();
+      for (int column : projectedColumns) {
+        if (column < 0 || column >= metaData.getColumnCount()) {
+          throw new IllegalArgumentException(
+            "The table " + table + " has no column " + column + ".");
+        }
+        if (columnList.length() > 0) {
+          columnList.append(", ");
+        }
+        columnList.append(quoteIdentifier(metaData.getColumnName(column + 1), quote));
+      }
+      return columnList.toString();
+    } catch (SQLException e) {
+      throw new InputGenerationException("Could not retrieve the columns of table " + table, e);
+    }
+  }
+
+  /**
+   * @return the identifier quote of the database or an empty string if quoting is not supported
+   * @throws SQLException if the database meta data cannot be retrieved
+   */
+  protected String getIdentifierQuote() throws SQLException {
+    String quote = defaultDatabaseConnectionGenerator.getConnection().getMetaData()
+      .getIdentifierQuoteString();
+    return quote == null ? "" : quote.trim();
+  }
+
+  /**
+   * @param identifier the identifier to quote
+   * @param quote      the identifier quote, empty to not quote
+   * @return the identifier in quotes with embedded quotes doubled
+   */
+  protected static String quoteIdentifier(String identifier, String quote) {
+    if (quote.isEmpty()) {
+      return identifier;
+    }
+    return quote + identifier.replace(quote, quote + quote) + quote;
   }
 
   @Override
@@ -16,8 +16,10 @@
 package de.metanome.backend.input.database;
 
 import com.google.common.collect.ImmutableList;
+import de.metanome.algorithm_integration.input.BatchRelationalInput;
+import de.metanome.algorithm_integration.input.BatchRelationalInputAdapter;
+import de.metanome.algorithm_integration.input.ColumnBatch;
 import de.metanome.algorithm_integration.input.InputIterationException;
-import de.metanome.algorithm_integration.input.RelationalInput;
 
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -26,7 +28,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.ArrayList;
 
-public class ResultSetIterator implements RelationalInput {
+public class ResultSetIterator implements BatchRelationalInput {
 
   /**
    * Surrogate for when the name of the iterated relation could not be retrieved.
@@ -109,6 +111,27 @@ public class ResultSetIterator implements RelationalInput {
     return resultRow;
   }
 
+  /**
+   * Reads the values of the next rows directly into the column arrays of the batch.
+   */
+  @Override
+  public int nextBatch(ColumnBatch batch) throws InputIterationException {
+    BatchRelationalInputAdapter.checkBatch(this, batch);
+    batch.clear();
+    while (!batch.isFull() && hasNext()) {
+      nextCalled = false;
+      int row = batch.addRow();
+      for (int columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
+        try {
+          batch.getColumn(columnIndex)[row] = resultSet.getString(columnIndex + 1);
+        } catch (SQLException e) {
+          throw new InputIterationException("Could not retrieve values from result set", e);
+        }
+      }
+    }
+    return batch.size();
+  }
+
   @Override
   public int numberOfColumns() {
     return numberOfColumns;
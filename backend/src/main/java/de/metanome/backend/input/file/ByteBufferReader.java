@@ -0,0 +1,67 @@
+/**
+ * Copyright 2015-2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input.file;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A {@link Reader} that decodes the bytes of a {@link ByteBuffer}, e.g. of a memory mapped region
+ * of a file. Like a {@link java.io.FileReader} it replaces malformed input.
+ */
+public class ByteBufferReader extends Reader {
+
+  protected ByteBuffer bytes;
+  protected CharsetDecoder decoder;
+  protected boolean flushed = false;
+
+  /**
+   * @param bytes   the bytes to decode between their position and limit
+   * @param charset the charset of the bytes
+   */
+  public ByteBufferReader(ByteBuffer bytes, Charset charset) {
+    this.bytes = bytes;
+    this.decoder = charset.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  @Override
+  public int read(char[] buffer, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    CharBuffer chars = CharBuffer.wrap(buffer, offset, length);
+    if (bytes.hasRemaining()) {
+      decoder.decode(bytes, chars, true);
+    }
+    if (!bytes.hasRemaining() && !flushed) {
+      flushed = decoder.flush(chars).isUnderflow();
+    }
+    int read = chars.position() - offset;
+    return read == 0 && flushed ? -1 : read;
+  }
+
+  @Override
+  public void close() {
+    bytes = null;
+  }
+}
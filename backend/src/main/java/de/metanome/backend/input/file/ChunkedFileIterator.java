@@ -0,0 +1,190 @@
+/**
+ * Copyright 2015-2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input.file;
+
+import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+import de.metanome.algorithm_integration.input.BatchRelationalInputAdapter;
+import de.metanome.algorithm_integration.input.ColumnBatch;
+import de.metanome.algorithm_integration.input.InputIterationException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A {@link FileIterator} whose {@link CsvFileChunk}s are tokenized by worker threads ahead of the
+ * consumer. The rows are returned in file order. Chunks are parsed ahead as long as the parsed and
+ * not yet consumed chunks cover at most the read ahead budget of file bytes, but always at least
+ * one chunk. So the memory depends neither on the size of the file nor on the number of threads.
+ */
+public class ChunkedFileIterator extends FileIterator {
+
+  /**
+   * Default number of file bytes parsed ahead of the consumer. The parsed rows occupy a multiple of
+   * their bytes on the heap.
+   */
+  public static final long DEFAULT_READ_AHEAD_BYTES = 64 * 1024 * 1024;
+
+  protected FileChannel channel;
+  protected Charset charset;
+  protected ConfigurationSettingFileInput setting;
+  protected List<CsvFileChunk> chunks;
+  protected int nextChunk = 0;
+  protected ExecutorService executor;
+  protected long readAheadBytes;
+  // The bytes of the submitted chunks that are not consumed completely
+  protected long pendingBytes = 0;
+  protected Deque<Future<ParsedChunk>> parsedChunks = new ArrayDeque<>();
+  protected ParsedChunk currentChunk = null;
+  protected int currentRow = 0;
+
+  /**
+   * @param relationName     the name of the relation
+   * @param channel          the channel of the file, which is closed with the iterator
+   * @param chunks           the chunks of the file
+   * @param charset          the charset of the file
+   * @param setting          the file input setting
+   * @param executor         the executor of the workers, which is shut down with the iterator
+   * @param readAheadBytes   the number of file bytes to parse ahead
+   * @param projectedColumns the indices of the columns to return, null to return all columns
+   * @throws InputIterationException if the first lines cannot be read
+   */
+  public ChunkedFileIterator(String relationName, FileChannel channel, List<CsvFileChunk> chunks,
+                             Charset charset, ConfigurationSettingFileInput setting,
+                             ExecutorService executor, long readAheadBytes,
+                             int[] projectedColumns)
+    throws InputIterationException {
+    super(relationName, setting);
+    setProjection(projectedColumns);
+    this.channel = channel;
+    this.chunks = chunks;
+    this.charset = charset;
+    this.setting = setting;
+    this.executor = executor;
+    this.readAheadBytes = readAheadBytes;
+
+    submitChunks();
+    initialize();
+  }
+
+  /**
+   * Submits the next chunks as long as they fit into the read ahead budget. A chunk is always
+   * submitted if no other chunk is pending, so that chunks larger than the budget are read.
+   */
+  protected void submitChunks() {
+    while (nextChunk < chunks.size()) {
+      long chunkBytes = getBytes(chunks.get(nextChunk));
+      if (pendingBytes > 0 && pendingBytes + chunkBytes > readAheadBytes) {
+        return;
+      }
+      pendingBytes += chunkBytes;
+      submitChunk(chunks.get(nextChunk++));
+    }
+  }
+
+  protected static long getBytes(CsvFileChunk chunk) {
+    return chunk.getEnd() - chunk.getStart();
+  }
+
+  protected void submitChunk(final CsvFileChunk chunk) {
+    parsedChunks.add(executor.submit(new Callable<ParsedChunk>() {
+      @Override
+      public ParsedChunk call() throws IOException {
+        CsvTokenizer chunkTokenizer = chunk.openTokenizer(channel, charset, setting);
+        CsvRow chunkRow = new CsvRow();
+        chunkRow.setProjection(projectedColumns);
+        ParsedChunk parsedChunk = new ParsedChunk(getBytes(chunk));
+        while (chunkTokenizer.readRow(chunkRow)) {
+          parsedChunk.add(toValues(chunkRow, nullValue, projectedColumns), chunkRow.size());
+        }
+        return parsedChunk;
+      }
+    }));
+  }
+
+  @Override
+  protected List<String> readNextLine() throws InputIterationException {
+    while (currentChunk == null || currentRow >= currentChunk.rows.size()) {
+      if (currentChunk != null) {
+        pendingBytes -= currentChunk.bytes;
+        currentChunk = null;
+        submitChunks();
+      }
+      if (parsedChunks.isEmpty()) {
+        currentLineNumber++;
+        executor.shutdown();
+        return null;
+      }
+      try {
+        currentChunk = parsedChunks.poll().get();
+        currentRow = 0;
+      } catch (ExecutionException e) {
+        throw new InputIterationException("Could not read next line in file input", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InputIterationException("Interrupted while reading the file input", e);
+      }
+    }
+    currentLineNumber++;
+    nextLineWidth = currentChunk.widths[currentRow];
+    return currentChunk.rows.get(currentRow++);
+  }
+
+  /**
+   * The rows of the chunks are already converted, so they are copied into the batch.
+   */
+  @Override
+  public int nextBatch(ColumnBatch batch) throws InputIterationException {
+    return BatchRelationalInputAdapter.fillBatch(this, batch);
+  }
+
+  @Override
+  public void close() throws IOException {
+    executor.shutdownNow();
+    channel.close();
+  }
+
+  /**
+   * The converted rows of a chunk together with their widths before the projection.
+   */
+  protected static class ParsedChunk {
+
+    protected long bytes;
+    protected List<List<String>> rows = new ArrayList<>();
+    protected int[] widths = new int[64];
+
+    protected ParsedChunk(long bytes) {
+      this.bytes = bytes;
+    }
+
+    protected void add(List<String> row, int width) {
+      if (rows.size() == widths.length) {
+        widths = Arrays.copyOf(widths, widths.length * 2);
+      }
+      widths[rows.size()] = width;
+      rows.add(row);
+    }
+  }
+}
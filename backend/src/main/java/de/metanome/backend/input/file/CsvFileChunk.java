@@ -0,0 +1,74 @@
+/**
+ * Copyright 2015-2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input.file;
+
+import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * A byte range of a csv file that starts and ends at record boundaries. Together with the field
+ * state of the parser at its start a chunk can be tokenized independently of the other chunks.
+ */
+public class CsvFileChunk {
+
+  protected long start;
+  protected long end;
+  protected boolean inField;
+
+  /**
+   * @param start   the offset of the first byte
+   * @param end     the offset after the last byte
+   * @param inField the field state of the parser at the start
+   */
+  public CsvFileChunk(long start, long end, boolean inField) {
+    this.start = start;
+    this.end = end;
+    this.inField = inField;
+  }
+
+  /**
+   * Maps the chunk into memory and creates a tokenizer over it.
+   *
+   * @param channel the channel of the file
+   * @param charset the charset of the file
+   * @param setting the file input setting
+   * @return a tokenizer over the rows of the chunk
+   * @throws IOException if the chunk cannot be mapped
+   */
+  public CsvTokenizer openTokenizer(FileChannel channel, Charset charset,
+                                    ConfigurationSettingFileInput setting) throws IOException {
+    ByteBufferReader reader = new ByteBufferReader(
+      channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), charset);
+    CsvTokenizer tokenizer = new CsvTokenizer(reader, setting);
+    tokenizer.resume(inField);
+    return tokenizer;
+  }
+
+  public long getStart() {
+    return start;
+  }
+
+  public long getEnd() {
+    return end;
+  }
+
+  public boolean isInField() {
+    return inField;
+  }
+}
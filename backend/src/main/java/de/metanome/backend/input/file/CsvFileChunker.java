@@ -0,0 +1,204 @@
+/**
+ * Copyright 2015-2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input.file;
+
+import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a csv file into {@link CsvFileChunk}s of about the given size. The file is memory mapped
+ * and scanned once with the quote, escape and field rules of the {@link CsvTokenizer}, so chunks
+ * only end at record boundaries and never within a quoted field that spans lines. The scan works on
+ * bytes and is only safe if the separator, quote, escape and line break characters are single
+ * bytes that cannot occur within other characters, i.e. for UTF-8 and single byte charsets. For
+ * all other files {@link #split(FileChannel)} returns null and the file has to be read
+ * sequentially.
+ */
+public class CsvFileChunker {
+
+  public static final long DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+  protected static final long WINDOW_SIZE = 64 * 1024 * 1024;
+
+  protected ConfigurationSettingFileInput setting;
+  protected Charset charset;
+  protected long chunkSize;
+
+  protected int separator;
+  protected int quoteChar;
+  protected int escapeChar;
+  protected int lineFeed;
+  protected int carriageReturn;
+  protected boolean splittable;
+
+  protected MappedByteBuffer window;
+  protected long windowStart;
+
+  /**
+   * @param setting   the file input setting
+   * @param charset   the charset of the file
+   * @param chunkSize the minimal number of bytes of a chunk
+   */
+  public CsvFileChunker(ConfigurationSettingFileInput setting, Charset charset, long chunkSize) {
+    this.setting = setting;
+    this.charset = charset;
+    this.chunkSize = chunkSize;
+
+    CharsetEncoder encoder = charset.newEncoder();
+    this.splittable = charset.name().equals("UTF-8") || encoder.maxBytesPerChar() == 1.0f;
+    this.separator = encodeSingleByte(encoder, setting.getSeparatorAsChar());
+    this.quoteChar = encodeSingleByte(encoder, setting.getQuoteCharAsChar());
+    this.escapeChar = encodeSingleByte(encoder, setting.getEscapeCharAsChar());
+    this.lineFeed = encodeSingleByte(encoder, '\n');
+    this.carriageReturn = encodeSingleByte(encoder, '\r');
+  }
+
+  /**
+   * @return the byte of the character or -1 if it is not a single byte, which makes the file
+   * unsplittable
+   */
+  protected int encodeSingleByte(CharsetEncoder encoder, char c) {
+    try {
+      ByteBuffer bytes = encoder.encode(CharBuffer.wrap(new char[]{c}));
+      if (bytes.remaining() == 1) {
+        return bytes.get(0);
+      }
+    } catch (CharacterCodingException e) {
+      // The character cannot be matched on the bytes.
+    }
+    splittable = false;
+    return -1;
+  }
+
+  /**
+   * @return true if the file can be split at record boundaries
+   */
+  public boolean isSplittable() {
+    return splittable;
+  }
+
+  /**
+   * Scans the file and splits it at the first record boundary after every chunk size bytes. The
+   * skipped lines at the beginning are not part of any chunk.
+   *
+   * @param channel the channel of the file
+   * @return the chunks in file order or null if the file cannot be split safely
+   * @throws IOException if the file cannot be mapped
+   */
+  public List<CsvFileChunk> split(FileChannel channel) throws IOException {
+    if (!splittable) {
+      return null;
+    }
+    long size = channel.size();
+    window = null;
+    long position = 0;
+    for (int i = 0; i < setting.getSkipLines() && position < size; i++) {
+      position = skipLine(channel, position, size);
+    }
+
+    List<CsvFileChunk> chunks = new ArrayList<>();
+    boolean strictQuotes = setting.isStrictQuotes();
+    boolean inQuotes = false;
+    boolean inField = false;
+    long chunkStart = position;
+    boolean chunkInField = false;
+    while (position < size) {
+      int c = get(channel, position);
+      if (c == lineFeed || c == carriageReturn) {
+        position++;
+        if (c == carriageReturn && position < size && get(channel, position) == lineFeed) {
+          position++;
+        }
+        // A quoted field continues on the next line.
+        if (!inQuotes && position - chunkStart >= chunkSize) {
+          chunks.add(new CsvFileChunk(chunkStart, position, chunkInField));
+          chunkStart = position;
+          chunkInField = inField;
+        }
+        continue;
+      }
+
+      int next = position + 1 < size ? get(channel, position + 1) : lineFeed;
+      boolean hasNext = next != lineFeed && next != carriageReturn;
+      if (c == escapeChar) {
+        if ((inQuotes || inField) && hasNext && (next == quoteChar || next == escapeChar)) {
+          position++;
+        }
+      } else if (c == quoteChar) {
+        if ((inQuotes || inField) && hasNext && next == quoteChar) {
+          position++;
+        } else {
+          inQuotes = !inQuotes;
+        }
+        inField = !inField;
+      } else if (c == separator && !inQuotes) {
+        inField = false;
+      } else if (!strictQuotes || inQuotes) {
+        inField = true;
+      }
+      position++;
+    }
+    if (chunkStart < size) {
+      chunks.add(new CsvFileChunk(chunkStart, size, chunkInField));
+    }
+    window = null;
+
+    for (CsvFileChunk chunk : chunks) {
+      if (chunk.getEnd() - chunk.getStart() > Integer.MAX_VALUE) {
+        return null;
+      }
+    }
+    return chunks;
+  }
+
+  protected long skipLine(FileChannel channel, long position, long size) throws IOException {
+    while (position < size) {
+      int c = get(channel, position++);
+      if (c == lineFeed) {
+        break;
+      }
+      if (c == carriageReturn) {
+        if (position < size && get(channel, position) == lineFeed) {
+          position++;
+        }
+        break;
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Reads a byte through a sliding mapped window of the file.
+   */
+  protected int get(FileChannel channel, long position) throws IOException {
+    if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+      windowStart = position;
+      long length = Math.min(WINDOW_SIZE, channel.size() - position);
+      window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+    }
+    return window.get((int) (position - windowStart));
+  }
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright 2015-2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input.file;
+
+/**
+ * A row of a csv file that is read by a {@link CsvTokenizer}. The characters of all cells are kept
+ * in one growing char array, so reading the next row into the same {@link CsvRow} does not
+ * allocate. The cells are exposed as {@link CharSequence} views that stay valid until the next row
+ * is read; a {@link String} is only created by {@link #getString(int)}. The characters of cells
+ * outside of a projection are not copied at all, these cells are empty.
+ */
+public class CsvRow {
+
+  protected char[] chars = new char[256];
+  protected int length = 0;
+  protected int[] cellStarts = new int[16];
+  protected int[] cellEnds = new int[16];
+  protected int size = 0;
+  protected int openCellStart = 0;
+  protected CellView[] cellViews = new CellView[16];
+  protected boolean[] projectedCells = null;
+  protected boolean skipCell = false;
+
+  /**
+   * Restricts the cells whose characters are kept. All other cells are still counted but empty.
+   *
+   * @param projectedCells the indices of the cells to keep, null to keep all cells
+   */
+  public void setProjection(int[] projectedCells) {
+    if (projectedCells == null) {
+      this.projectedCells = null;
+    } else {
+      int maxCell = -1;
+      for (int cell : projectedCells) {
+        maxCell = Math.max(maxCell, cell);
+      }
+      this.projectedCells = new boolean[maxCell + 1];
+      for (int cell : projectedCells) {
+        this.projectedCells[cell] = true;
+      }
+    }
+    this.skipCell = isSkipped(size);
+  }
+
+  /**
+   * @return the number of cells in the row
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param index the index of the cell
+   * @return the number of characters of the cell
+   */
+  public int length(int index) {
+    checkIndex(index);
+    return cellEnds[index] - cellStarts[index];
+  }
+
+  /**
+   * Returns a view of the cell, which is reused for the same index in every row. The view must not
+   * be used after the next row has been read.
+   *
+   * @param index the index of the cell
+   * @return a view of the characters of the cell
+   */
+  public CharSequence getCell(int index) {
+    checkIndex(index);
+    CellView view = cellViews[index];
+    if (view == null) {
+      view = new CellView(index);
+      cellViews[index] = view;
+    }
+    return view;
+  }
+
+  /**
+   * @param index the index of the cell
+   * @return a new string of the cell's characters
+   */
+  public String getString(int index) {
+    checkIndex(index);
+    return new String(chars, cellStarts[index], cellEnds[index] - cellStarts[index]);
+  }
+
+  /**
+   * Compares the cell to a string without creating a string of the cell, e.g. to detect null
+   * values.
+   *
+   * @param index the index of the cell
+   * @param value the value to compare to, may be null
+   * @return true if the cell has the same characters as the value
+   */
+  public boolean contentEquals(int index, CharSequence value) {
+    checkIndex(index);
+    if (value == null) {
+      return false;
+    }
+    int start = cellStarts[index];
+    int cellLength = cellEnds[index] - start;
+    if (cellLength != value.length()) {
+      return false;
+    }
+    for (int i = 0; i < cellLength; i++) {
+      if (chars[start + i] != value.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  protected void clear() {
+    length = 0;
+    size = 0;
+    openCellStart = 0;
+    skipCell = isSkipped(0);
+  }
+
+  protected boolean isSkipped(int index) {
+    return projectedCells != null && (index >= projectedCells.length || !projectedCells[index]);
+  }
+
+  protected void append(char c) {
+    if (skipCell) {
+      return;
+    }
+    if (length == chars.length) {
+      char[] grown = new char[chars.length * 2];
+      System.arraycopy(chars, 0, grown, 0, length);
+      chars = grown;
+    }
+    chars[length++] = c;
+  }
+
+  /**
+   * Drops the characters of the open cell.
+   */
+  protected void resetCell() {
+    length = openCellStart;
+  }
+
+  /**
+   * @return true if the open cell is not empty and only consists of whitespace
+   */
+  protected boolean isCellBlank() {
+    if (length == openCellStart) {
+      return false;
+    }
+    for (int i = openCellStart; i < length; i++) {
+      if (!Character.isWhitespace(chars[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Closes the open cell and opens the next one.
+   */
+  protected void endCell() {
+    if (size == cellStarts.length) {
+      int[] grownStarts = new int[size * 2];
+      int[] grownEnds = new int[size * 2];
+      CellView[] grownViews = new CellView[size * 2];
+      System.arraycopy(cellStarts, 0, grownStarts, 0, size);
+      System.arraycopy(cellEnds, 0, grownEnds, 0, size);
+      System.arraycopy(cellViews, 0, grownViews, 0, size);
+      cellStarts = grownStarts;
+      cellEnds = grownEnds;
+      cellViews = grownViews;
+    }
+    cellStarts[size] = openCellStart;
+    cellEnds[size] = length;
+    size++;
+    openCellStart = length;
+    skipCell = isSkipped(size);
+  }
+
+  protected void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Cell " + index + " of a row with " + size + " cells.");
+    }
+  }
+
+  /**
+   * A {@link CharSequence} over the characters of one cell of the current row.
+   */
+  protected class CellView implements CharSequence {
+
+    protected int index;
+
+    protected CellView(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public int length() {
+      return CsvRow.this.length(index);
+    }
+
+    @Override
+    public char charAt(int position) {
+      if (position < 0 || position >= length()) {
+        throw new IndexOutOfBoundsException(String.valueOf(position));
+      }
+      return chars[cellStarts[index] + position];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+      return getString(index);
+    }
+  }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2015-2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input.file;
+
+import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A buffered csv tokenizer that reads the rows of a file into a reused {@link CsvRow}. It parses
+ * exactly like opencsv's CSVReader with the options of a {@link
+ * de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput}, including quoted
+ * fields that span several lines, but it neither creates a string per line nor a string per cell.
+ */
+public class CsvTokenizer implements Closeable {
+
+  public static final char NULL_CHARACTER = '\0';
+
+  protected static final int BUFFER_SIZE = 64 * 1024;
+
+  protected Reader reader;
+  protected char separator;
+  protected char quoteChar;
+  protected char escapeChar;
+  protected int skipLines;
+  protected boolean strictQuotes;
+  protected boolean ignoreLeadingWhiteSpace;
+
+  protected char[] buffer = new char[BUFFER_SIZE];
+  protected int bufferPosition = 0;
+  protected int bufferLimit = 0;
+  protected boolean skipLineFeed = false;
+  protected char[] line = new char[256];
+  protected int lineLength = 0;
+
+  protected boolean linesSkipped = false;
+  protected boolean hasNext = true;
+  // Like in opencsv the field state survives the end of a line.
+  protected boolean inField = false;
+
+  /**
+   * @param reader                  the reader of the csv file
+   * @param separator               the cell separator
+   * @param quoteChar               the quote character or {@link #NULL_CHARACTER}
+   * @param escapeChar              the escape character or {@link #NULL_CHARACTER}
+   * @param skipLines               the number of lines to skip at the beginning
+   * @param strictQuotes            whether characters outside of quotes are ignored
+   * @param ignoreLeadingWhiteSpace whether whitespace in front of quotes is ignored
+   */
+  public CsvTokenizer(Reader reader, char separator, char quoteChar, char escapeChar,
+                      int skipLines, boolean strictQuotes, boolean ignoreLeadingWhiteSpace) {
+    if (isSameCharacter(separator, quoteChar) || isSameCharacter(quoteChar, escapeChar)
+      || isSameCharacter(separator, escapeChar)) {
+      throw new UnsupportedOperationException(
+        "The separator, quote, and escape characters must be different!");
+    }
+    if (separator == NULL_CHARACTER) {
+      throw new UnsupportedOperationException("The separator character must be defined!");
+    }
+    this.reader = reader;
+    this.separator = separator;
+    this.quoteChar = quoteChar;
+    this.escapeChar = escapeChar;
+    this.skipLines = skipLines;
+    this.strictQuotes = strictQuotes;
+    this.ignoreLeadingWhiteSpace = ignoreLeadingWhiteSpace;
+  }
+
+  /**
+   * @param reader  the reader of the csv file
+   * @param setting the file input setting with the csv options
+   */
+  public CsvTokenizer(Reader reader, ConfigurationSettingFileInput setting) {
+    this(reader,
+      setting.getSeparatorAsChar(),
+      setting.getQuoteCharAsChar(),
+      setting.getEscapeCharAsChar(),
+      setting.getSkipLines(),
+      setting.isStrictQuotes(),
+      setting.isIgnoreLeadingWhiteSpace());
+  }
+
+  /**
+   * Continues tokenizing in the middle of a file, e.g. at the start of a {@link CsvFileChunk}. The
+   * skip lines are not applied.
+   *
+   * @param inField the field state of the parser at the resumed position
+   */
+  public void resume(boolean inField) {
+    this.inField = inField;
+    this.linesSkipped = true;
+  }
+
+  /**
+   * Reads the next row into the given row, which is cleared first.
+   *
+   * @param row the row to fill
+   * @return false if the end of the file was reached before a row could be read
+   * @throws IOException if the file cannot be read or a quoted field is not terminated
+   */
+  public boolean readRow(CsvRow row) throws IOException {
+    row.clear();
+    if (!linesSkipped) {
+      for (int i = 0; i < skipLines; i++) {
+        readLine();
+      }
+      linesSkipped = true;
+    }
+    if (!hasNext) {
+      return false;
+    }
+
+    boolean pending = false;
+    do {
+      if (!readLine()) {
+        // A quoted field that is still open at the end of the file is dropped.
+        hasNext = false;
+        return row.size() > 0;
+      }
+      pending = parseLine(row, pending);
+    } while (pending);
+    return true;
+  }
+
+  /**
+   * Tokenizes the current line into the row. A pending quoted field of the previous line is
+   * continued.
+   *
+   * @return true if the line ends within a quoted field
+   */
+  protected boolean parseLine(CsvRow row, boolean pending) {
+    boolean inQuotes = pending;
+    for (int i = 0; i < lineLength; i++) {
+      char c = line[i];
+      if (c == escapeChar) {
+        if (isNextCharacterEscapable(inQuotes || inField, i)) {
+          row.append(line[i + 1]);
+          i++;
+        }
+      } else if (c == quoteChar) {
+        if (isNextCharacterEscapedQuote(inQuotes || inField, i)) {
+          row.append(line[i + 1]);
+          i++;
+        } else {
+          // A quote within a field is kept, unless it follows leading whitespace.
+          if (!strictQuotes && i > 2 && line[i - 1] != separator && lineLength > i + 1
+            && line[i + 1] != separator) {
+            if (ignoreLeadingWhiteSpace && row.isCellBlank()) {
+              row.resetCell();
+            } else {
+              row.append(c);
+            }
+          }
+          inQuotes = !inQuotes;
+        }
+        inField = !inField;
+      } else if (c == separator && !inQuotes) {
+        row.endCell();
+        inField = false;
+      } else if (!strictQuotes || inQuotes) {
+        row.append(c);
+        inField = true;
+      }
+    }
+
+    if (inQuotes) {
+      row.append('\n');
+      return true;
+    }
+    row.endCell();
+    return false;
+  }
+
+  protected boolean isNextCharacterEscapedQuote(boolean inQuotes, int i) {
+    return inQuotes && lineLength > i + 1 && line[i + 1] == quoteChar;
+  }
+
+  protected boolean isNextCharacterEscapable(boolean inQuotes, int i) {
+    return inQuotes && lineLength > i + 1
+      && (line[i + 1] == quoteChar || line[i + 1] == escapeChar);
+  }
+
+  protected boolean isSameCharacter(char c1, char c2) {
+    return c1 != NULL_CHARACTER && c1 == c2;
+  }
+
+  /**
+   * Reads the next line without its terminator into the line buffer. Lines end with a line feed,
+   * a carriage return or both, like in {@link java.io.BufferedReader#readLine()}.
+   *
+   * @return false if the end of the file was reached before any character was read
+   */
+  protected boolean readLine() throws IOException {
+    lineLength = 0;
+    while (true) {
+      if (bufferPosition >= bufferLimit && !fillBuffer()) {
+        return lineLength > 0;
+      }
+      if (skipLineFeed) {
+        skipLineFeed = false;
+        if (buffer[bufferPosition] == '\n') {
+          bufferPosition++;
+          continue;
+        }
+      }
+
+      int start = bufferPosition;
+      while (bufferPosition < bufferLimit) {
+        char c = buffer[bufferPosition];
+        if (c == '\n' || c == '\r') {
+          appendToLine(start, bufferPosition - start);
+          bufferPosition++;
+          skipLineFeed = c == '\r';
+          return true;
+        }
+        bufferPosition++;
+      }
+      appendToLine(start, bufferPosition - start);
+    }
+  }
+
+  protected void appendToLine(int start, int count) {
+    if (lineLength + count > line.length) {
+      char[] grown = new char[Math.max(line.length * 2, lineLength + count)];
+      System.arraycopy(line, 0, grown, 0, lineLength);
+      line = grown;
+    }
+    System.arraycopy(buffer, start, line, lineLength, count);
+    lineLength += count;
+  }
+
+  protected boolean fillBuffer() throws IOException {
+    int read;
+    do {
+      read = reader.read(buffer, 0, buffer.length);
+    } while (read == 0);
+    if (read < 0) {
+      return false;
+    }
+    bufferPosition = 0;
+    bufferLimit = read;
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
@@ -18,25 +18,59 @@ package de.metanome.backend.input.file;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
 import de.metanome.algorithm_integration.input.FileInputGenerator;
 import de.metanome.algorithm_integration.input.InputGenerationException;
 import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.ProjectableRelationalInputGenerator;
 import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.backend.input.ReadAheadRelationalInput;
 
 /**
  * Generator for {@link de.metanome.algorithm_integration.input.RelationalInput}s based on file
  * files. The setting holds all parameters to construct new {@link de.metanome.algorithm_integration.input.RelationalInput}s.
  * To adapt the parameters you have to adapt the setting.
+ * <p>
+ * If more than one thread is configured, files larger than the chunk size are memory mapped and split
+ * into {@link CsvFileChunk}s at record boundaries, which are tokenized by several threads. Files
+ * that cannot be split safely, see {@link CsvFileChunker}, are read sequentially. Projected copies do not materialize the values of the
+ * other columns.
  *
  * @author Jakob Zwiener
  */
-public class DefaultFileInputGenerator implements FileInputGenerator {
+public class DefaultFileInputGenerator
+  implements FileInputGenerator, ProjectableRelationalInputGenerator {
+
+  // Seconds after which idle tokenizing threads end
+  protected static final long IDLE_THREAD_TIMEOUT_SECONDS = 10;
 
   File inputFile;
   protected ConfigurationSettingFileInput setting;
+  protected Charset charset = Charset.defaultCharset();
+  protected int numberOfThreads = 1;
+  protected long chunkSize = CsvFileChunker.DEFAULT_CHUNK_SIZE;
+  protected long readAheadBytes = ChunkedFileIterator.DEFAULT_READ_AHEAD_BYTES;
+  protected int readAheadDepth = 0;
+
+  protected List<CsvFileChunk> chunks = null;
+  protected long chunkedFileLength = -1;
+  protected long chunkedFileModified = -1;
 
   protected DefaultFileInputGenerator() {
   }
@@ -79,15 +113,164 @@ public class DefaultFileInputGenerator implements FileInputGenerator {
   }
   @Override
   public RelationalInput generateNewCopy() throws InputGenerationException {
+    return generateNewCopy(null);
+  }
+
+  @Override
+  public RelationalInput generateNewCopy(int[] projectedColumns) throws InputGenerationException {
     try {
-      return new FileIterator(inputFile.getName(), new FileReader(inputFile), setting);
+      List<CsvFileChunk> fileChunks = getChunks();
+      RelationalInput input;
+      if (fileChunks == null) {
+        input = new FileIterator(inputFile.getName(),
+          new CsvTokenizer(new FileReader(inputFile), setting), setting, projectedColumns);
+      } else {
+        input = new ChunkedFileIterator(inputFile.getName(), openChannel(), fileChunks, charset,
+          setting, createExecutor(), readAheadBytes, projectedColumns);
+      }
+      return ReadAheadRelationalInput.readAhead(input, readAheadDepth);
     } catch (FileNotFoundException e) {
       throw new InputGenerationException("File not found!", e);
+    } catch (IOException e) {
+      throw new InputGenerationException("Could not split the file input", e);
     } catch (InputIterationException e) {
       throw new InputGenerationException("Could not iterate over the first line of the file input", e);
     }
   }
 
+  /**
+   * Scans the file in partitions that are consumed concurrently and in no particular order, e.g.
+   * to build position list indices or statistics. Every partition is read by its own {@link
+   * RelationalInput} with the column names of the file. A file that cannot be split is consumed
+   * as a single partition on the calling thread.
+   *
+   * @param consumer the consumer of the partitions
+   * @throws InputGenerationException if the file cannot be opened
+   * @throws InputIterationException  if a partition cannot be read or consumed
+   */
+  public void scanPartitions(PartitionConsumer consumer)
+    throws InputGenerationException, InputIterationException {
+    scanPartitions(null, consumer);
+  }
+
+  /**
+   * Scans the given columns of the file in partitions, see {@link
+   * #scanPartitions(PartitionConsumer)}.
+   *
+   * @param projectedColumns the indices of the columns to scan, null to scan all columns
+   * @param consumer         the consumer of the partitions
+   * @throws InputGenerationException if the file cannot be opened
+   * @throws InputIterationException  if a partition cannot be read or consumed
+   */
+  public void scanPartitions(final int[] projectedColumns, final PartitionConsumer consumer)
+    throws InputGenerationException, InputIterationException {
+    List<CsvFileChunk> fileChunks;
+    final FileChannel channel;
+    try {
+      fileChunks = getChunks();
+      if (fileChunks == null) {
+        try (FileIterator input = new FileIterator(inputFile.getName(),
+          new CsvTokenizer(new FileReader(inputFile), setting), setting, projectedColumns)) {
+          consumer.consume(0, input);
+        }
+        return;
+      }
+      channel = openChannel();
+    } catch (IOException e) {
+      throw new InputGenerationException("Could not open the file input", e);
+    }
+
+    ExecutorService executor = createExecutor();
+    try {
+      final FileIterator firstChunk = new FileIterator(inputFile.getName(),
+        fileChunks.get(0).openTokenizer(channel, charset, setting), setting, projectedColumns);
+      List<Future<Void>> partitions = new ArrayList<>(fileChunks.size());
+      for (int i = 0; i < fileChunks.size(); i++) {
+        final int partition = i;
+        final CsvFileChunk chunk = fileChunks.get(i);
+        partitions.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            try (FileChunkIterator input = new FileChunkIterator(inputFile.getName(),
+              chunk.openTokenizer(channel, charset, setting), setting, firstChunk.columnNames(),
+              firstChunk.numberOfColumns, projectedColumns,
+              partition == 0 && setting.hasHeader())) {
+              consumer.consume(partition, input);
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> partition : partitions) {
+        partition.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof InputIterationException) {
+        throw (InputIterationException) e.getCause();
+      }
+      throw new InputIterationException("Could not scan a partition of the file input",
+        e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InputIterationException("Interrupted while scanning the file input", e);
+    } catch (IOException e) {
+      throw new InputIterationException("Could not read the file input", e);
+    } finally {
+      executor.shutdownNow();
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // The mapped chunks stay valid.
+      }
+    }
+  }
+
+  /**
+   * Splits the file into chunks once per file version.
+   *
+   * @return the chunks or null if the file should be read sequentially
+   */
+  protected synchronized List<CsvFileChunk> getChunks() throws IOException {
+    long length = inputFile.length();
+    if (numberOfThreads <= 1 || length <= chunkSize) {
+      return null;
+    }
+    if (length != chunkedFileLength || inputFile.lastModified() != chunkedFileModified) {
+      try (FileChannel channel = openChannel()) {
+        chunks = new CsvFileChunker(setting, charset, chunkSize).split(channel);
+      }
+      if (chunks != null && chunks.size() < 2) {
+        chunks = null;
+      }
+      chunkedFileLength = length;
+      chunkedFileModified = inputFile.lastModified();
+    }
+    return chunks;
+  }
+
+  protected FileChannel openChannel() throws IOException {
+    return FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+  }
+
+  /**
+   * @return a pool of the configured number of threads, which end when they are idle, so that the
+   * pools of copies that are never closed do not keep their threads
+   */
+  protected ExecutorService createExecutor() {
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(numberOfThreads,
+      new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "file-input-" + inputFile.getName());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    executor.setKeepAliveTime(IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
   /**
    * @return inputFile
    */
@@ -104,6 +287,37 @@ public class DefaultFileInputGenerator implements FileInputGenerator {
     }
   }
 
+  /**
+   * @param numberOfThreads the number of threads tokenizing chunks, 1 (the default) to read
+   *                        sequentially
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  /**
+   * @param chunkSize the minimal number of bytes per chunk, smaller files are read sequentially
+   */
+  public synchronized void setChunkSize(long chunkSize) {
+    this.chunkSize = chunkSize;
+    this.chunkedFileLength = -1;
+  }
+
+  /**
+   * @param readAheadBytes the number of file bytes whose chunks are tokenized ahead of the consumer
+   */
+  public void setReadAheadBytes(long readAheadBytes) {
+    this.readAheadBytes = readAheadBytes;
+  }
+
+  /**
+   * @param readAheadDepth the number of batches read ahead on a separate thread, 0 to read on the
+   *                       consuming thread
+   */
+  public void setReadAheadDepth(int readAheadDepth) {
+    this.readAheadDepth = readAheadDepth;
+  }
+
   /**
    * @return the setting
    */
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2015-2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input.file;
+
+import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+import de.metanome.algorithm_integration.input.InputIterationException;
+
+import java.util.List;
+
+/**
+ * A {@link FileIterator} over the rows of a single {@link CsvFileChunk}. The column names and the
+ * number of columns are those of the whole file, so differing lines are detected like in a
+ * sequential scan.
+ */
+public class FileChunkIterator extends FileIterator {
+
+  /**
+   * @param relationName     the name of the relation
+   * @param tokenizer        the tokenizer over the chunk, see {@link CsvFileChunk#openTokenizer}
+   * @param setting          the file input setting
+   * @param columnNames      the (projected) column names of the file
+   * @param numberOfColumns  the number of columns of the file before the projection
+   * @param projectedColumns the indices of the columns to return, null to return all columns
+   * @param skipHeaderRow    whether the chunk starts with the header row
+   * @throws InputIterationException if the first lines cannot be read
+   */
+  public FileChunkIterator(String relationName, CsvTokenizer tokenizer,
+                           ConfigurationSettingFileInput setting, List<String> columnNames,
+                           int numberOfColumns, int[] projectedColumns, boolean skipHeaderRow)
+    throws InputIterationException {
+    super(relationName, setting);
+    this.tokenizer = tokenizer;
+    setProjection(projectedColumns);
+    this.headerLine = columnNames;
+    this.numberOfColumns = numberOfColumns;
+
+    if (skipHeaderRow) {
+      readNextLine();
+    }
+    this.nextLine = readNextLine();
+    if (this.skipDifferingLines) {
+      readToNextValidLine();
+    }
+  }
+}
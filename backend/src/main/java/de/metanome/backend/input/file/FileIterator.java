@@ -15,14 +15,16 @@
  */
 package de.metanome.backend.input.file;
 
-import au.com.bytecode.opencsv.CSVReader;
 import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+import de.metanome.algorithm_integration.input.BatchRelationalInput;
+import de.metanome.algorithm_integration.input.BatchRelationalInputAdapter;
+import de.metanome.algorithm_integration.input.ColumnBatch;
 import de.metanome.algorithm_integration.input.InputIterationException;
-import de.metanome.algorithm_integration.input.RelationalInput;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -31,7 +33,7 @@ import java.util.List;
  *
  * @author Jakob Zwiener
  */
-public class FileIterator implements RelationalInput {
+public class FileIterator implements BatchRelationalInput {
 
   public static final boolean DEFAULT_HAS_HEADER = true;
   public static final boolean DEFAULT_SKIP_DIFFERING_LINES = false;
@@ -39,9 +41,13 @@ public class FileIterator implements RelationalInput {
 
   protected static final String DEFAULT_HEADER_STRING = "column";
 
-  protected CSVReader csvReader;
+  protected CsvTokenizer tokenizer;
+  protected CsvRow row = new CsvRow();
   protected List<String> headerLine;
   protected List<String> nextLine;
+  // The number of cells of the next line before the projection
+  protected int nextLineWidth = 0;
+  protected int[] projectedColumns = null;
   protected String relationName;
   protected int numberOfColumns = 0;
   // Initialized to -1 because of lookahead
@@ -55,24 +61,71 @@ public class FileIterator implements RelationalInput {
 
   public FileIterator(String relationName, Reader reader, ConfigurationSettingFileInput setting)
     throws InputIterationException {
+    this(relationName, new CsvTokenizer(reader, setting), setting);
+  }
+
+  /**
+   * @param relationName the name of the relation
+   * @param tokenizer    the tokenizer of the file or of one of its {@link CsvFileChunk}s
+   * @param setting      the file input setting
+   * @throws InputIterationException if the first lines cannot be read
+   */
+  public FileIterator(String relationName, CsvTokenizer tokenizer,
+                      ConfigurationSettingFileInput setting) throws InputIterationException {
+    this(relationName, tokenizer, setting, null);
+  }
+
+  /**
+   * @param relationName     the name of the relation
+   * @param tokenizer        the tokenizer of the file or of one of its {@link CsvFileChunk}s
+   * @param setting          the file input setting
+   * @param projectedColumns the indices of the columns to return, null to return all columns
+   * @throws InputIterationException if the first lines cannot be read
+   */
+  public FileIterator(String relationName, CsvTokenizer tokenizer,
+                      ConfigurationSettingFileInput setting, int[] projectedColumns)
+    throws InputIterationException {
+    this(relationName, setting);
+    this.tokenizer = tokenizer;
+    setProjection(projectedColumns);
+    initialize();
+  }
+
+  /**
+   * Stores the setting without reading. Subclasses provide the rows and call {@link
+   * #initialize()} afterwards.
+   *
+   * @param relationName the name of the relation
+   * @param setting      the file input setting
+   */
+  protected FileIterator(String relationName, ConfigurationSettingFileInput setting) {
     this.relationName = relationName;
 
     this.hasHeader = setting.hasHeader();
     this.skipDifferingLines = setting.isSkipDifferingLines();
     this.nullValue = setting.getNullValue();
+  }
 
-    this.csvReader =
-      new CSVReader(reader,
-        setting.getSeparatorAsChar(),
-        setting.getQuoteCharAsChar(),
-        setting.getEscapeCharAsChar(),
-        setting.getSkipLines(),
-        setting.isStrictQuotes(),
-        setting.isIgnoreLeadingWhiteSpace());
+  /**
+   * Only returns the values of the given columns. Must be set before the first line is read.
+   *
+   * @param projectedColumns the indices of the columns to return, null to return all columns
+   */
+  protected void setProjection(int[] projectedColumns) {
+    this.projectedColumns = projectedColumns;
+    this.row.setProjection(projectedColumns);
+  }
 
+  /**
+   * Reads the first line and the header.
+   *
+   * @throws InputIterationException if the first lines cannot be read
+   */
+  protected void initialize() throws InputIterationException {
     this.nextLine = readNextLine();
     if (this.nextLine != null) {
-      this.numberOfColumns = this.nextLine.size();
+      this.numberOfColumns = this.nextLineWidth;
+      checkProjection();
     }
 
     if (hasHeader) {
@@ -91,9 +144,22 @@ public class FileIterator implements RelationalInput {
     return !(this.nextLine == null);
   }
 
+  protected void checkProjection() {
+    if (this.projectedColumns == null) {
+      return;
+    }
+    for (int column : this.projectedColumns) {
+      if (column < 0 || column >= this.numberOfColumns) {
+        throw new IllegalArgumentException(
+          "The relation " + relationName + " has no column " + column + ".");
+      }
+    }
+  }
+
   @Override
   public List<String> next() throws InputIterationException {
     List<String> currentLine = this.nextLine;
+    int currentLineWidth = this.nextLineWidth;
 
     if (currentLine == null) {
       return null;
@@ -103,15 +169,68 @@ public class FileIterator implements RelationalInput {
     if (this.skipDifferingLines) {
       readToNextValidLine();
     } else {
-      failDifferingLine(currentLine);
+      failDifferingLine(currentLineWidth);
     }
 
     return currentLine;
   }
 
-  protected void failDifferingLine(List<String> currentLine)
+  /**
+   * Tokenizes the rows directly into the batch without a list per row. Only the line after the
+   * batch is read ahead as list. A differing line ends the batch, so that the rows before it are
+   * returned before the line fails like in {@link #next()}.
+   */
+  @Override
+  public int nextBatch(ColumnBatch batch) throws InputIterationException {
+    BatchRelationalInputAdapter.checkBatch(this, batch);
+    batch.clear();
+    if (!hasNext()) {
+      return 0;
+    }
+    if (!this.skipDifferingLines) {
+      failDifferingLine(this.nextLineWidth);
+    }
+    batch.addRow(this.nextLine);
+
+    while (!batch.isFull()) {
+      boolean hasRow;
+      try {
+        hasRow = this.tokenizer.readRow(this.row);
+        currentLineNumber++;
+      } catch (IOException e) {
+        throw new InputIterationException("Could not read next line in file input", e);
+      }
+      if (!hasRow) {
+        this.nextLine = null;
+        return batch.size();
+      }
+      if (this.row.size() != this.numberOfColumns) {
+        if (this.skipDifferingLines) {
+          this.numberOfSkippedLines++;
+          continue;
+        }
+        this.nextLineWidth = this.row.size();
+        this.nextLine = toValues(this.row, this.nullValue, this.projectedColumns);
+        return batch.size();
+      }
+      int batchRow = batch.addRow();
+      for (int column = 0; column < batch.getNumberOfColumns(); column++) {
+        int cell = this.projectedColumns == null ? column : this.projectedColumns[column];
+        batch.getColumn(column)[batchRow] =
+          this.row.contentEquals(cell, this.nullValue) ? null : this.row.getString(cell);
+      }
+    }
+
+    this.nextLine = readNextLine();
+    if (this.skipDifferingLines) {
+      readToNextValidLine();
+    }
+    return batch.size();
+  }
+
+  protected void failDifferingLine(int currentLineWidth)
     throws InputIterationException {
-    if (currentLine.size() != this.numberOfColumns()) {
+    if (currentLineWidth != this.numberOfColumns) {
       throw new InputIterationException(
         "Csv line length did not match on line " + currentLineNumber);
     }
@@ -122,7 +241,7 @@ public class FileIterator implements RelationalInput {
       return;
     }
 
-    while (this.nextLine.size() != this.numberOfColumns()) {
+    while (this.nextLineWidth != this.numberOfColumns) {
       this.nextLine = readNextLine();
       this.numberOfSkippedLines++;
       if (!hasNext()) {
@@ -133,44 +252,62 @@ public class FileIterator implements RelationalInput {
 
   protected List<String> generateHeaderLine() {
     List<String> headerList = new ArrayList<String>();
-    for (Integer i = 1; i <= this.numberOfColumns; i++) {
-      headerList.add(DEFAULT_HEADER_STRING + i.toString());
+    if (this.projectedColumns == null) {
+      for (Integer i = 1; i <= this.numberOfColumns; i++) {
+        headerList.add(DEFAULT_HEADER_STRING + i.toString());
+      }
+    } else {
+      for (int column : this.projectedColumns) {
+        headerList.add(DEFAULT_HEADER_STRING + (column + 1));
+      }
     }
     return Collections.unmodifiableList(headerList);
   }
 
   protected List<String> readNextLine() throws InputIterationException {
-    String[] lineArray;
+    boolean hasRow;
     try {
-      lineArray = this.csvReader.readNext();
+      hasRow = this.tokenizer.readRow(this.row);
       currentLineNumber++;
     } catch (IOException e) {
       throw new InputIterationException("Could not read next line in file input", e);
     }
-    if (lineArray == null) {
+    if (!hasRow) {
       return null;
     }
-	// Convert empty Strings to null
-    List<String> list = new ArrayList<String>();
-    for (String val : lineArray) {
-      if (val.equals(this.nullValue)) {
-        list.add(null);
-      } else {
-        list.add(val);
+    this.nextLineWidth = this.row.size();
+    return toValues(this.row, this.nullValue, this.projectedColumns);
+  }
+
+  /**
+   * Converts a row into an immutable list of its values without creating strings for null values.
+   * Projected columns that the row does not have are null, the row is a differing line.
+   *
+   * @param row              the tokenized row
+   * @param nullValue        the value representing null
+   * @param projectedColumns the indices of the columns to convert, null to convert all columns
+   * @return the values of the row
+   */
+  protected static List<String> toValues(CsvRow row, String nullValue, int[] projectedColumns) {
+    String[] values = new String[projectedColumns == null ? row.size() : projectedColumns.length];
+    for (int i = 0; i < values.length; i++) {
+      int cell = projectedColumns == null ? i : projectedColumns[i];
+      if (cell < row.size() && !row.contentEquals(cell, nullValue)) {
+        values[i] = row.getString(cell);
       }
     }
     // Return an immutable list
-    return Collections.unmodifiableList(list);
+    return Collections.unmodifiableList(Arrays.asList(values));
   }
 
   @Override
   public void close() throws IOException {
-    csvReader.close();
+    tokenizer.close();
   }
 
   @Override
   public int numberOfColumns() {
-    return numberOfColumns;
+    return projectedColumns == null ? numberOfColumns : projectedColumns.length;
   }
 
   @Override
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2015-2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input.file;
+
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+
+/**
+ * Consumes one partition of a partitioned scan, see {@link DefaultFileInputGenerator#scanPartitions(PartitionConsumer)}.
+ * The partitions are consumed concurrently, so implementations have to be thread safe.
+ */
+public interface PartitionConsumer {
+
+  /**
+   * @param partition the index of the partition in file order
+   * @param input     the rows of the partition
+   * @throws InputIterationException if the partition cannot be read
+   */
+  void consume(int partition, RelationalInput input) throws InputIterationException;
+
+}
@@ -23,6 +23,7 @@ import de.metanome.algorithm_integration.input.RelationalInputGenerator;
 import de.metanome.algorithm_integration.results.*;
 import de.metanome.backend.algorithm_loading.InputDataFinder;
 import de.metanome.backend.helper.InputToGeneratorConverter;
+import de.metanome.backend.input.CachingRelationalInputGenerator;
 import de.metanome.backend.input.file.DefaultFileInputGenerator;
 import de.metanome.backend.result_postprocessing.result_analyzer.*;
 import de.metanome.backend.result_postprocessing.result_store.*;
@@ -170,6 +171,15 @@ public class ResultPostProcessor {
     inputGenerators =
       usedDatabaseConnection ? new ArrayList<RelationalInputGenerator>() : inputGenerators;
 
+    // the data dependent analyses read every input several times, e.g. once per column
+    if (!dataIndependent) {
+      List<RelationalInputGenerator> cachingGenerators = new ArrayList<>();
+      for (RelationalInputGenerator inputGenerator : inputGenerators) {
+        cachingGenerators.add(new CachingRelationalInputGenerator(inputGenerator));
+      }
+      inputGenerators = cachingGenerators;
+    }
+
     for (de.metanome.backend.results_db.Result result : results) {
       String fileName = result.getFileName();
       String resultTypeName = result.getType().getName();
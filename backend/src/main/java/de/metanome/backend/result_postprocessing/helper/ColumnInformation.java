@@ -15,6 +15,8 @@
  */
 package de.metanome.backend.result_postprocessing.helper;
 
+import de.metanome.algorithm_integration.input.BatchRelationalInput;
+import de.metanome.algorithm_integration.input.ColumnBatch;
 import de.metanome.algorithm_integration.input.InputIterationException;
 import de.metanome.algorithm_integration.input.RelationalInput;
 
@@ -91,24 +93,47 @@ public class ColumnInformation {
   public ColumnInformation(String columnName, int columnIndex, BitSet bitSet,
                            RelationalInput relationalInput, boolean useDataDependentStatistics)
     throws InputIterationException {
+    this(columnName, columnIndex, bitSet, relationalInput, columnIndex,
+      useDataDependentStatistics);
+  }
+
+  /**
+   * Creates a new column information for given column name and index from an input whose columns
+   * may differ from the table's columns, e.g. an input projected onto this column.
+   *
+   * @param columnName                 name of the column
+   * @param columnIndex                index of the column
+   * @param bitSet                     bit set representing this column
+   * @param relationalInput            relational input used to provide the column information
+   * @param inputColumnIndex           index of the column in the relational input
+   * @param useDataDependentStatistics true, if data dependent statistics should be calculated,
+   *                                   false otherwise
+   * @throws de.metanome.algorithm_integration.input.InputIterationException if the input is not iterable
+   */
+  public ColumnInformation(String columnName, int columnIndex, BitSet bitSet,
+                           RelationalInput relationalInput, int inputColumnIndex,
+                           boolean useDataDependentStatistics)
+    throws InputIterationException {
     this.columnName = columnName;
     this.columnIndex = columnIndex;
     this.bitSet = bitSet;
     if (useDataDependentStatistics) {
-      this.computeDataDependentStatistics(relationalInput);
+      this.computeDataDependentStatistics(relationalInput, inputColumnIndex);
     }
   }
 
   /**
    * Computes all column metadata, which need access to the actual data
    *
-   * @param relationalInput relational input
+   * @param relationalInput  relational input
+   * @param inputColumnIndex index of the column in the relational input
    * @throws de.metanome.algorithm_integration.input.InputIterationException if the input is not iterable
    */
-  protected void computeDataDependentStatistics(RelationalInput relationalInput)
+  protected void computeDataDependentStatistics(RelationalInput relationalInput,
+                                                int inputColumnIndex)
     throws InputIterationException {
     // Create histogram and determine column type
-    this.createHistogramAndDetermineType(relationalInput);
+    this.createHistogramAndDetermineType(relationalInput, inputColumnIndex);
     // Compute number of distinct values
     this.computeDistinctValuesCount();
     // Compute number of null values
@@ -120,10 +145,12 @@ public class ColumnInformation {
   /**
    * Creates a histogram for the column values
    *
-   * @param relationalInput relational input
+   * @param relationalInput  relational input
+   * @param inputColumnIndex index of the column in the relational input
    * @throws de.metanome.algorithm_integration.input.InputIterationException if the input is not iterable
    */
-  protected void createHistogramAndDetermineType(RelationalInput relationalInput)
+  protected void createHistogramAndDetermineType(RelationalInput relationalInput,
+                                                 int inputColumnIndex)
     throws InputIterationException {
     this.histogram = new Histogram();
     this.rowCount = 0L;
@@ -131,28 +158,48 @@ public class ColumnInformation {
     Map<ColumnType, Integer> columnTypeMap = new EnumMap<>(ColumnType.class);
 
     // iterate over data and add each cell value to the histogram
-    while (relationalInput.hasNext()) {
-      List<String> row = relationalInput.next();
-      String cellValue = row.get(this.columnIndex);
-
-      // determine type of cell and store it in a map
-      if (cellValue != null) {
-        ColumnType type = getCellType(cellValue);
-        if (columnTypeMap.containsKey(type)) {
-          columnTypeMap.put(type, columnTypeMap.get(type) + 1);
-        } else {
-          columnTypeMap.put(type, 1);
+    if (relationalInput instanceof BatchRelationalInput) {
+      BatchRelationalInput batchInput = (BatchRelationalInput) relationalInput;
+      ColumnBatch batch = new ColumnBatch(batchInput.numberOfColumns());
+      int batchSize;
+      while ((batchSize = batchInput.nextBatch(batch)) > 0) {
+        String[] values = batch.getColumn(inputColumnIndex);
+        for (int row = 0; row < batchSize; row++) {
+          addCellValue(values[row], columnTypeMap);
         }
       }
-      // add value to histogram
-      this.histogram.addValue(cellValue);
-
-      this.rowCount++;
+    } else {
+      while (relationalInput.hasNext()) {
+        List<String> row = relationalInput.next();
+        addCellValue(row.get(inputColumnIndex), columnTypeMap);
+      }
     }
     // determine column type
     this.columnType = determineColumnType(columnTypeMap);
   }
 
+  /**
+   * Adds a cell value to the histogram and counts its type.
+   *
+   * @param cellValue     the cell value
+   * @param columnTypeMap map holding a count for each possible column type
+   */
+  protected void addCellValue(String cellValue, Map<ColumnType, Integer> columnTypeMap) {
+    // determine type of cell and store it in a map
+    if (cellValue != null) {
+      ColumnType type = getCellType(cellValue);
+      if (columnTypeMap.containsKey(type)) {
+        columnTypeMap.put(type, columnTypeMap.get(type) + 1);
+      } else {
+        columnTypeMap.put(type, 1);
+      }
+    }
+    // add value to histogram
+    this.histogram.addValue(cellValue);
+
+    this.rowCount++;
+  }
+
   /**
    * Determine the type of the given cell value.
    *
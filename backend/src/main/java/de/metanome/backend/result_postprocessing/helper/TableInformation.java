@@ -19,6 +19,7 @@ import de.metanome.algorithm_helper.data_structures.PositionListIndex;
 import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.input.InputGenerationException;
 import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.ProjectableRelationalInputGenerator;
 import de.metanome.algorithm_integration.input.RelationalInput;
 import de.metanome.algorithm_integration.input.RelationalInputGenerator;
 
@@ -62,12 +63,18 @@ public class TableInformation {
     this.bitSet = bitSet;
 
     // Get table data
-    RelationalInput relationalInput = relationalInputGenerator.generateNewCopy();
-    this.columnCount = relationalInput.numberOfColumns();
-    this.tableName = StringHelper.removeFileEnding(relationalInput.relationName());
+    List<String> columnNames;
+    try (RelationalInput relationalInput = relationalInputGenerator.generateNewCopy()) {
+      this.columnCount = relationalInput.numberOfColumns();
+      this.tableName = StringHelper.removeFileEnding(relationalInput.relationName());
+      columnNames = relationalInput.columnNames();
+    } catch (InputGenerationException | AlgorithmConfigurationException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new InputIterationException("Could not close the input", e);
+    }
 
     // Create the column information
-    List<String> columnNames = relationalInput.columnNames();
     this.columnInformationMap = new HashMap<>();
 
     for (int columnIndex = 0; columnIndex < this.columnCount; columnIndex++) {
@@ -77,14 +84,21 @@ public class TableInformation {
       // Compute the column information for the current column
       if (!useDataIndependentStatistics) {
         // Generate a new data iterator for each column
-        relationalInput = relationalInputGenerator.generateNewCopy();
-        this.columnInformationMap
-          .put(columnNames.get(columnIndex),
-            new ColumnInformation(columnNames.get(columnIndex),
-              columnIndex,
-              columnBitSet,
-              relationalInput,
-              true));
+        try (RelationalInput relationalInput = generateColumnInput(columnIndex)) {
+          this.columnInformationMap
+            .put(columnNames.get(columnIndex),
+              new ColumnInformation(columnNames.get(columnIndex),
+                columnIndex,
+                columnBitSet,
+                relationalInput,
+                isProjectable() ? 0 : columnIndex,
+                true));
+        } catch (InputGenerationException | InputIterationException
+          | AlgorithmConfigurationException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new InputIterationException("Could not close the input", e);
+        }
       } else {
         this.columnInformationMap.
           put(columnNames.get(columnIndex),
@@ -95,6 +109,31 @@ public class TableInformation {
     }
   }
 
+  /**
+   * @return true, if the column inputs are projected onto their column (see {@link
+   * #generateColumnInput(int)})
+   */
+  protected boolean isProjectable() {
+    return this.relationalInputGenerator instanceof ProjectableRelationalInputGenerator;
+  }
+
+  /**
+   * Generates an input that is projected onto the given column if the generator supports it.
+   *
+   * @param columnIndex index of the column
+   * @return the relational input
+   * @throws InputGenerationException Will be thrown if the input data is not accessible
+   * @throws AlgorithmConfigurationException if input generator could not be build
+   */
+  protected RelationalInput generateColumnInput(int columnIndex)
+    throws InputGenerationException, AlgorithmConfigurationException {
+    if (isProjectable()) {
+      return ((ProjectableRelationalInputGenerator) this.relationalInputGenerator)
+        .generateNewCopy(new int[]{columnIndex});
+    }
+    return this.relationalInputGenerator.generateNewCopy();
+  }
+
   /**
    * Computes the information content as sum of columns information contents
    *
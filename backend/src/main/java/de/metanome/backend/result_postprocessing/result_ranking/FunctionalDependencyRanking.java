@@ -194,23 +194,39 @@ public class FunctionalDependencyRanking extends Ranking {
     candidateSet.or(result.getDeterminantAsBitSet());
     candidateSet.flip(0, tableInformation.getColumnCount());
 
-    // Get the minimal key error
-    float minKeyError = -1;
+    // The determinant PLI is cached, the extended PLIs are only counted and never materialized
+    long determinantKeyError = calculateKeyError(result.getDeterminantAsBitSet());
+    PositionListIndex determinantPLI = this.PLIs.get(result.getDeterminantAsBitSet());
+
+    // Collect the PLIs of all candidate columns
+    List<Integer> candidateColumns = new ArrayList<>();
+    List<PositionListIndex> candidatePLIs = new ArrayList<>();
     for (int columnIndex = candidateSet.nextSetBit(0); columnIndex != -1;
          columnIndex = candidateSet.nextSetBit(columnIndex + 1)) {
-      // Get the test columns as bit set
+      // Get the test column as bit set
       BitSet testColumn = new BitSet();
       testColumn.set(columnIndex);
-      BitSet columnsToTest = (BitSet) result.getDeterminantAsBitSet().clone();
-      columnsToTest.or(testColumn);
-      // Calculate the key error
-      float keyError =
-        Math.abs(calculateKeyError(columnsToTest) -
-          calculateKeyError(result.getDeterminantAsBitSet()));
+      candidateColumns.add(columnIndex);
+      candidatePLIs.add(this.PLIs.get(testColumn));
+    }
+
+    // Calculate the key errors, the determinant PLI is hashed only once for all candidates
+    long[] extendedKeyErrors = null;
+    if (determinantPLI != null) {
+      extendedKeyErrors = determinantPLI.keyErrorsOfIntersections(candidatePLIs);
+    }
+
+    // Get the minimal key error
+    float minKeyError = -1;
+    for (int i = 0; i < candidateColumns.size(); i++) {
+      long extendedKeyError = (extendedKeyErrors == null) ? candidatePLIs.get(i).getRawKeyError() :
+        extendedKeyErrors[i];
+      float keyError = Math.abs(extendedKeyError - determinantKeyError);
       minKeyError = (minKeyError == -1) ? keyError : Math.min(minKeyError, keyError);
       // Set the name of the minimal polluted column
       if (minKeyError == keyError) {
-        result.setPollutionColumn(tableInformation.getColumn(columnIndex).getColumnName());
+        result.setPollutionColumn(
+          tableInformation.getColumn(candidateColumns.get(i)).getColumnName());
       }
     }
 
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input;
+
+import com.google.common.collect.ImmutableList;
+import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+import de.metanome.algorithm_integration.input.ColumnBatch;
+import de.metanome.algorithm_integration.input.InputGenerationException;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.algorithm_integration.input.RelationalInputGenerator;
+import de.metanome.backend.input.file.DefaultFileInputGenerator;
+import de.metanome.backend.input.file.FileFixture;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link CachingRelationalInputGenerator}
+ */
+public class CachingRelationalInputGeneratorTest {
+
+  /**
+   * Test method for {@link CachingRelationalInputGenerator#generateNewCopy()} <p/> The input should
+   * only be generated once, all copies should replay the same rows.
+   */
+  @Test
+  public void testGenerateNewCopy() throws Exception {
+    // Setup
+    RelationalInputGenerator generator = mock(RelationalInputGenerator.class);
+    when(generator.generateNewCopy()).thenReturn(ColumnStoreTest.createInput());
+    CachingRelationalInputGenerator cachingGenerator =
+      new CachingRelationalInputGenerator(generator);
+
+    // Execute functionality
+    RelationalInput first = cachingGenerator.generateNewCopy();
+    RelationalInput second = cachingGenerator.generateNewCopy();
+
+    // Check result
+    verify(generator, times(1)).generateNewCopy();
+    assertEquals("testRelation", second.relationName());
+    assertEquals(ImmutableList.of("id", "parity", "optional"), second.columnNames());
+    int rows = 0;
+    while (first.hasNext()) {
+      assertEquals(first.next(), second.next());
+      rows++;
+    }
+    assertFalse(second.hasNext());
+    assertEquals(ColumnStoreTest.NUMBER_OF_ROWS, rows);
+  }
+
+  /**
+   * Test method for {@link CachingRelationalInputGenerator#generateNewCopy(int[])} <p/> Projected
+   * copies should be read in batches from the cache.
+   */
+  @Test
+  public void testGenerateNewCopyProjected() throws Exception {
+    // Setup
+    RelationalInputGenerator generator = mock(RelationalInputGenerator.class);
+    when(generator.generateNewCopy()).thenReturn(ColumnStoreTest.createInput());
+    CachingRelationalInputGenerator cachingGenerator =
+      new CachingRelationalInputGenerator(generator);
+    ColumnBatch batch = new ColumnBatch(1, 1000);
+
+    // Execute functionality
+    ColumnStoreIterator input = (ColumnStoreIterator) cachingGenerator.generateNewCopy(new int[]{1});
+    int rows = 0;
+    int batchSize;
+    while ((batchSize = input.nextBatch(batch)) > 0) {
+      // Check result
+      for (int i = 0; i < batchSize; i++, rows++) {
+        assertEquals(rows % 2 == 0 ? "even" : "odd", batch.getValue(0, i));
+      }
+    }
+
+    // Check result
+    assertEquals(ImmutableList.of("parity"), input.columnNames());
+    assertEquals(ColumnStoreTest.NUMBER_OF_ROWS, rows);
+  }
+
+  /**
+   * Test method for {@link CachingRelationalInputGenerator#generateNewCopy(int[])} <p/> Inputs
+   * whose dictionaries exceed the memory limit should be generated by the decorated generator and
+   * the read input should be closed.
+   */
+  @Test
+  public void testGenerateNewCopyUncached() throws Exception {
+    // Setup
+    RelationalInput readInput = spy(ColumnStoreTest.createInput());
+    RelationalInputGenerator generator = mock(RelationalInputGenerator.class);
+    when(generator.generateNewCopy())
+      .thenReturn(readInput)
+      .thenReturn(ColumnStoreTest.createInput());
+    CachingRelationalInputGenerator cachingGenerator =
+      new CachingRelationalInputGenerator(generator);
+    cachingGenerator.setMemoryLimit(4 * ColumnStore.BLOCK_SIZE);
+
+    // Execute functionality
+    RelationalInput input = cachingGenerator.generateNewCopy(new int[]{1});
+
+    // Check result
+    verify(readInput).close();
+    verify(generator, times(2)).generateNewCopy();
+    assertEquals(ImmutableList.of("parity"), input.columnNames());
+    assertEquals(ImmutableList.of("even"), input.next());
+    assertEquals(ImmutableList.of("odd"), input.next());
+  }
+
+  /**
+   * Test method for {@link CachingRelationalInputGenerator#generateNewCopy()} <p/> The read input
+   * should be closed even if it cannot be read.
+   */
+  @Test
+  public void testGenerateNewCopyReadFailure() throws Exception {
+    // Setup
+    RelationalInput readInput = mock(RelationalInput.class);
+    when(readInput.numberOfColumns()).thenReturn(1);
+    when(readInput.columnNames()).thenReturn(ImmutableList.of("a"));
+    when(readInput.hasNext()).thenThrow(new InputIterationException());
+    RelationalInputGenerator generator = mock(RelationalInputGenerator.class);
+    when(generator.generateNewCopy()).thenReturn(readInput);
+    CachingRelationalInputGenerator cachingGenerator =
+      new CachingRelationalInputGenerator(generator);
+
+    // Execute functionality
+    try {
+      cachingGenerator.generateNewCopy();
+      fail("Exception should have been thrown.");
+    } catch (InputGenerationException actualException) {
+      // Intentionally left blank
+    }
+
+    // Check result
+    verify(readInput).close();
+  }
+
+  /**
+   * Test method for {@link CachingRelationalInputGenerator#generateNewCopy()} <p/> Changing the
+   * input file should invalidate the cache.
+   */
+  @Test
+  public void testGenerateNewCopyAfterFileChange() throws Exception {
+    // Setup
+    File file = new FileFixture("a,b\n1,2\n").getTestData("cachingGenerator.csv");
+    ConfigurationSettingFileInput setting = new ConfigurationSettingFileInput(file.getPath())
+      .setSeparatorChar(",")
+      .setQuoteChar("\"")
+      .setHeader(true);
+    CachingRelationalInputGenerator cachingGenerator =
+      new CachingRelationalInputGenerator(new DefaultFileInputGenerator(file, setting));
+    RelationalInput before = cachingGenerator.generateNewCopy();
+
+    // Execute functionality
+    new FileFixture("a,b\n1,2\n3,4\n").getTestData("cachingGenerator.csv");
+    RelationalInput after = cachingGenerator.generateNewCopy();
+
+    // Check result
+    assertEquals(ImmutableList.of("1", "2"), before.next());
+    assertFalse(before.hasNext());
+    assertEquals(ImmutableList.of("1", "2"), after.next());
+    assertEquals(ImmutableList.of("3", "4"), after.next());
+    assertFalse(after.hasNext());
+
+    // Cleanup
+    cachingGenerator.close();
+  }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input;
+
+import com.google.common.collect.ImmutableList;
+import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+import de.metanome.algorithm_integration.input.BatchRelationalInput;
+import de.metanome.algorithm_integration.input.BatchRelationalInputAdapter;
+import de.metanome.algorithm_integration.input.ColumnBatch;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.backend.input.file.FileIterator;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ColumnStore}
+ */
+public class ColumnStoreTest {
+
+  protected static final int NUMBER_OF_ROWS = 2500;
+
+  /**
+   * Test method for {@link ColumnStore#materialize(RelationalInput, long)} <p/> The store should
+   * keep the rows in blocks on the heap and a dictionary of the distinct values per column,
+   * including null values.
+   */
+  @Test
+  public void testMaterialize() throws Exception {
+    // Execute functionality
+    ColumnStore store = ColumnStore.materialize(createInput(), Long.MAX_VALUE);
+
+    // Check result
+    assertFalse(store.isSpilled());
+    assertEquals("testRelation", store.getRelationName());
+    assertEquals(ImmutableList.of("id", "parity", "optional"), store.getColumnNames());
+    assertEquals(NUMBER_OF_ROWS, store.getNumberOfRows());
+    assertEquals(3, store.getNumberOfBlocks());
+    assertEquals(ColumnStore.BLOCK_SIZE, store.getBlockSize(0));
+    assertEquals(NUMBER_OF_ROWS - 2 * ColumnStore.BLOCK_SIZE, store.getBlockSize(2));
+    assertEquals(NUMBER_OF_ROWS, store.getDictionary(0).length);
+    assertEquals(2, store.getDictionary(1).length);
+    assertTrue(Arrays.asList(store.getDictionary(2)).contains(null));
+    assertRows(new ColumnStoreIterator(store, null));
+  }
+
+  /**
+   * Test method for {@link ColumnStore#materialize(RelationalInput, long)} <p/> A store exceeding
+   * the memory limit should be spilled to a temporary file and return the same rows.
+   */
+  @Test
+  public void testMaterializeSpilled() throws Exception {
+    // Execute functionality
+    // The dictionaries take about 260KB, the codes 30KB
+    ColumnStore store = ColumnStore.materialize(createInput(), 270000);
+
+    // Check result
+    assertTrue(store.isSpilled());
+    assertEquals(NUMBER_OF_ROWS, store.getNumberOfRows());
+    assertEquals(3, store.getNumberOfBlocks());
+    assertRows(new ColumnStoreIterator(store, null));
+  }
+
+  /**
+   * Test method for {@link ColumnStore#materialize(RelationalInput, long)} <p/> Inputs whose
+   * dictionaries exceed the memory limit should not be stored.
+   */
+  @Test
+  public void testMaterializeDictionariesExceedLimit() throws Exception {
+    // Execute functionality
+    ColumnStore store = ColumnStore.materialize(createInput(), 4 * ColumnStore.BLOCK_SIZE);
+
+    // Check result
+    assertNull(store);
+  }
+
+  /**
+   * Test method for {@link ColumnStore#materialize(RelationalInput, long)} <p/> Inputs returning
+   * batches smaller than the block size should be stored in blocks of the batch sizes.
+   */
+  @Test
+  public void testMaterializeShortBatches() throws Exception {
+    // Setup
+    BatchRelationalInput input = new BatchRelationalInputAdapter(createInput()) {
+      @Override
+      public int nextBatch(ColumnBatch batch) throws InputIterationException {
+        batch.clear();
+        while (batch.size() < 700 && hasNext()) {
+          batch.addRow(next());
+        }
+        return batch.size();
+      }
+    };
+
+    // Execute functionality
+    ColumnStore store = ColumnStore.materialize(input, Long.MAX_VALUE);
+
+    // Check result
+    assertEquals(NUMBER_OF_ROWS, store.getNumberOfRows());
+    assertEquals(4, store.getNumberOfBlocks());
+    assertEquals(700, store.getBlockSize(0));
+    assertEquals(400, store.getBlockSize(3));
+    assertRows(new ColumnStoreIterator(store, null));
+  }
+
+  /**
+   * Test method for {@link ColumnStoreIterator#ColumnStoreIterator(ColumnStore, int[])} <p/>
+   * Projected iterators should only return the selected columns and fail on unknown columns.
+   */
+  @Test
+  public void testProjection() throws Exception {
+    // Setup
+    ColumnStore store = ColumnStore.materialize(createInput(), Long.MAX_VALUE);
+
+    // Execute functionality
+    ColumnStoreIterator iterator = new ColumnStoreIterator(store, new int[]{2, 0});
+
+    // Check result
+    assertEquals(ImmutableList.of("optional", "id"), iterator.columnNames());
+    assertEquals(Arrays.asList(null, "0"), iterator.next());
+    assertEquals(Arrays.asList("1", "1"), iterator.next());
+    try {
+      new ColumnStoreIterator(store, new int[]{3});
+      fail("Exception should have been thrown.");
+    } catch (IllegalArgumentException actualException) {
+      // Intentionally left blank
+    }
+  }
+
+  protected void assertRows(ColumnStoreIterator iterator) throws InputIterationException {
+    for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+      assertTrue(iterator.hasNext());
+      assertEquals(expectedRow(row), iterator.next());
+    }
+    assertFalse(iterator.hasNext());
+  }
+
+  protected static List<String> expectedRow(int row) {
+    return Arrays.asList(Integer.toString(row), row % 2 == 0 ? "even" : "odd",
+      row % 3 == 0 ? null : Integer.toString(row % 5));
+  }
+
+  protected static RelationalInput createInput() throws InputIterationException {
+    StringBuilder csv = new StringBuilder("id,parity,optional\n");
+    for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+      List<String> values = expectedRow(row);
+      csv.append(values.get(0)).append(',').append(values.get(1)).append(',')
+        .append(values.get(2) == null ? "" : values.get(2)).append('\n');
+    }
+    ConfigurationSettingFileInput setting = new ConfigurationSettingFileInput("testRelation")
+      .setSeparatorChar(",")
+      .setQuoteChar("\"")
+      .setHeader(true)
+      .setNullValue("");
+    return new FileIterator("testRelation", new StringReader(csv.toString()), setting);
+  }
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input;
+
+import com.google.common.collect.ImmutableList;
+import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+import de.metanome.algorithm_integration.input.ColumnBatch;
+import de.metanome.algorithm_integration.input.InputIterationException;
+import de.metanome.algorithm_integration.input.RelationalInput;
+import de.metanome.backend.input.file.FileIterator;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link ReadAheadRelationalInput}
+ */
+public class ReadAheadRelationalInputTest {
+
+  protected static final int NUMBER_OF_ROWS = 1000;
+
+  /**
+   * Test method for {@link ReadAheadRelationalInput#next()} <p/> The rows should be returned in the
+   * order of the underlying input, also if the ring buffer is smaller than the input.
+   */
+  @Test
+  public void testNext() throws Exception {
+    // Setup
+    ReadAheadRelationalInput input = ReadAheadRelationalInput.start(createInput(), 2, 7);
+
+    // Check result
+    assertEquals("testRelation", input.relationName());
+    assertEquals(ImmutableList.of("id", "value"), input.columnNames());
+    for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+      assertTrue(input.hasNext());
+      assertEquals(ImmutableList.of(Integer.toString(row), "value" + row), input.next());
+    }
+    assertFalse(input.hasNext());
+    assertNull(input.next());
+
+    // Cleanup
+    input.close();
+  }
+
+  /**
+   * Test method for {@link ReadAheadRelationalInput#nextBatch(ColumnBatch)} <p/> Batches should
+   * contain the rows in order independent of the batch size of the ring buffer and mix with
+   * single rows.
+   */
+  @Test
+  public void testNextBatch() throws Exception {
+    // Setup
+    ReadAheadRelationalInput input = ReadAheadRelationalInput.start(createInput(), 3, 7);
+    ColumnBatch batch = new ColumnBatch(2, 10);
+
+    // Execute functionality
+    List<String> first = input.next();
+    int row = 1;
+    int rows;
+    while ((rows = input.nextBatch(batch)) > 0) {
+      // Check result
+      for (int i = 0; i < rows; i++, row++) {
+        assertEquals(Integer.toString(row), batch.getValue(0, i));
+        assertEquals("value" + row, batch.getValue(1, i));
+      }
+    }
+
+    // Check result
+    assertEquals(ImmutableList.of("0", "value0"), first);
+    assertEquals(NUMBER_OF_ROWS, row);
+
+    // Cleanup
+    input.close();
+  }
+
+  /**
+   * Test method for {@link ReadAheadRelationalInput#next()} <p/> An error of the underlying input
+   * should be thrown as {@link InputIterationException} after the rows read before it.
+   */
+  @Test
+  public void testNextPropagatesError() throws Exception {
+    // Setup
+    RelationalInput failingInput = mock(RelationalInput.class);
+    when(failingInput.numberOfColumns()).thenReturn(1);
+    when(failingInput.relationName()).thenReturn("failingRelation");
+    when(failingInput.hasNext()).thenReturn(true);
+    InputIterationException expectedException = new InputIterationException("broken line");
+    when(failingInput.next())
+      .thenReturn(ImmutableList.of("first"))
+      .thenThrow(expectedException);
+    ReadAheadRelationalInput input = ReadAheadRelationalInput.start(failingInput, 2, 1);
+
+    // Execute functionality
+    // Check result
+    assertEquals(ImmutableList.of("first"), input.next());
+    try {
+      input.next();
+      fail("Exception should have been thrown.");
+    } catch (InputIterationException actualException) {
+      assertSame(expectedException, actualException.getCause());
+      assertEquals("broken line", actualException.getMessage());
+    }
+
+    // Cleanup
+    input.close();
+  }
+
+  /**
+   * Test method for {@link ReadAheadRelationalInput#close()} <p/> Closing an input that is not read
+   * to the end should stop the producer and close the underlying input.
+   */
+  @Test
+  public void testClose() throws Exception {
+    // Setup
+    RelationalInput underlyingInput = spy(createInput());
+    ReadAheadRelationalInput input = ReadAheadRelationalInput.start(underlyingInput, 1, 1);
+    input.next();
+
+    // Execute functionality
+    input.close();
+
+    // Check result
+    assertFalse(input.producer.isAlive());
+    verify(underlyingInput).close();
+  }
+
+  /**
+   * Test method for {@link ReadAheadRelationalInput#close()} <p/> An input that is still being read
+   * by the producer should only be closed by the producer after the batch is read.
+   */
+  @Test
+  public void testCloseWhileReading() throws Exception {
+    // Setup
+    final CountDownLatch reading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    RelationalInput blockingInput = mock(RelationalInput.class);
+    when(blockingInput.numberOfColumns()).thenReturn(1);
+    when(blockingInput.relationName()).thenReturn("blockingRelation");
+    when(blockingInput.hasNext()).thenReturn(true);
+    when(blockingInput.next()).thenAnswer(new Answer<List<String>>() {
+      @Override
+      public List<String> answer(InvocationOnMock invocation) throws Throwable {
+        reading.countDown();
+        release.await();
+        return ImmutableList.of("value");
+      }
+    });
+    ReadAheadRelationalInput input = ReadAheadRelationalInput.start(blockingInput, 1, 1);
+    reading.await();
+
+    // Execute functionality
+    input.close();
+
+    // Check result
+    verify(blockingInput, never()).close();
+    release.countDown();
+    input.producer.join();
+    verify(blockingInput).close();
+  }
+
+  /**
+   * Test method for {@link ReadAheadRelationalInput#next()} <p/> A producer facing a full ring
+   * should park until the consumer hands back a batch instead of waking up periodically.
+   */
+  @Test
+  public void testProducerParksOnFullRing() throws Exception {
+    // Setup
+    ReadAheadRelationalInput input = ReadAheadRelationalInput.start(createInput(), 1, 1);
+    while (input.producer.getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(1);
+    }
+
+    // Check result
+    assertTrue(input.producerParked);
+    for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+      assertEquals(ImmutableList.of(Integer.toString(row), "value" + row), input.next());
+    }
+    assertFalse(input.hasNext());
+
+    // Cleanup
+    input.close();
+  }
+
+  /**
+   * Test method for {@link ReadAheadRelationalInput#next()} <p/> A producer whose consumer does not
+   * hand back a batch for the abandon timeout should stop and close the underlying input. The
+   * consumer should get the rows read ahead and then an error.
+   */
+  @Test
+  public void testAbandonedInput() throws Exception {
+    // Setup
+    FileIterator underlyingInput = spy(createInput());
+    ReadAheadRelationalInput input = new ReadAheadRelationalInput(underlyingInput, 1, 1);
+    input.abandonTimeoutMillis = 50;
+
+    // Execute functionality
+    input.start();
+    input.producer.join();
+
+    // Check result
+    verify(underlyingInput).close();
+    assertEquals(ImmutableList.of("0", "value0"), input.next());
+    try {
+      input.hasNext();
+      fail("Exception should have been thrown.");
+    } catch (InputIterationException actualException) {
+      // Intentionally left blank
+    }
+  }
+
+  /**
+   * Test method for {@link ReadAheadRelationalInput#readAhead(RelationalInput, int)} <p/> A depth
+   * of 0 should return the input itself.
+   */
+  @Test
+  public void testReadAhead() throws Exception {
+    // Setup
+    RelationalInput underlyingInput = createInput();
+
+    // Execute functionality
+    RelationalInput unchanged = ReadAheadRelationalInput.readAhead(underlyingInput, 0);
+    RelationalInput readAhead = ReadAheadRelationalInput.readAhead(underlyingInput, 2);
+
+    // Check result
+    assertSame(underlyingInput, unchanged);
+    assertTrue(readAhead instanceof ReadAheadRelationalInput);
+
+    // Cleanup
+    readAhead.close();
+  }
+
+  protected FileIterator createInput() throws InputIterationException {
+    StringBuilder csv = new StringBuilder("id,value\n");
+    for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+      csv.append(row).append(",value").append(row).append('\n');
+    }
+    ConfigurationSettingFileInput setting = new ConfigurationSettingFileInput("testRelation")
+      .setSeparatorChar(",")
+      .setQuoteChar("\"")
+      .setHeader(true);
+    return new FileIterator("testRelation", new StringReader(csv.toString()), setting);
+  }
+}
@@ -19,8 +19,14 @@ import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.input.InputGenerationException;
 import org.junit.Test;
 
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests for {@link de.metanome.backend.input.database.DefaultTableInputGenerator}
@@ -131,4 +137,45 @@ public class DefaultTableInputGeneratorTest {
       .generateResultSetFromSql(String.format(DefaultTableInputGenerator.SORT_STATEMENT,
         expectedTable, expectedColumn, "DESC"));
   }
+
+  /**
+   * Test method for {@link DefaultTableInputGenerator#generateNewCopy(int[])}
+   * <p/>
+   * The table input generator should only select the projected columns in the given order instead
+   * of all columns. The column names should be quoted with the identifier quote of the database.
+   */
+  @Test
+  public void testGenerateNewCopyProjected() throws Exception {
+    // Setup
+    DefaultDatabaseConnectionGenerator
+      defaultDatabaseConnectionGenerator = mock(DefaultDatabaseConnectionGenerator.class);
+    String expectedTable = "some table";
+    ResultSet resultSet = mock(ResultSet.class);
+    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(resultSet.getMetaData()).thenReturn(metaData);
+    when(metaData.getColumnCount()).thenReturn(3);
+    when(metaData.getColumnName(1)).thenReturn("a");
+    when(metaData.getColumnName(3)).thenReturn("Some \"c\"");
+    Connection connection = mock(Connection.class);
+    DatabaseMetaData databaseMetaData = mock(DatabaseMetaData.class);
+    when(defaultDatabaseConnectionGenerator.getConnection()).thenReturn(connection);
+    when(connection.getMetaData()).thenReturn(databaseMetaData);
+    when(databaseMetaData.getIdentifierQuoteString()).thenReturn("\"");
+    when(defaultDatabaseConnectionGenerator.generateResultSetFromSql(
+      String.format(DefaultTableInputGenerator.COLUMNS_STATEMENT, expectedTable)))
+      .thenReturn(resultSet);
+    DefaultTableInputGenerator tableInputGenerator =
+      new DefaultTableInputGenerator(defaultDatabaseConnectionGenerator, expectedTable);
+
+    // Execute functionality
+    tableInputGenerator.generateNewCopy(new int[]{2, 0});
+
+    // Check result
+    verify(defaultDatabaseConnectionGenerator)
+      .generateRelationalInputFromSql(
+        String.format(DefaultTableInputGenerator.PROJECTION_STATEMENT,
+          "\"Some \"\"c\"\"\", \"a\"", expectedTable),
+        expectedTable);
+    verify(resultSet).close();
+  }
 }
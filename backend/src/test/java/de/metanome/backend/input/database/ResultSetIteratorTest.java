@@ -16,6 +16,7 @@
 package de.metanome.backend.input.database;
 
 import com.google.common.collect.ImmutableList;
+import de.metanome.algorithm_integration.input.ColumnBatch;
 import de.metanome.algorithm_integration.input.InputIterationException;
 import org.junit.After;
 import org.junit.Before;
@@ -247,4 +248,31 @@ public class ResultSetIteratorTest {
     verify(statementMock, never()).close();
   }
 
+
+  /**
+   * Test method for {@link ResultSetIterator#nextBatch(ColumnBatch)}
+   * <p/>
+   * The values of the result set should be read directly into the column arrays of the batch.
+   */
+  @Test
+  public void testNextBatch() throws SQLException, InputIterationException {
+    // Setup
+    ResultSet resultSet = twoLinesResultSetFixture.getTestData();
+    ResultSetIterator resultSetIterator = new ResultSetIterator(resultSet);
+    ColumnBatch batch = new ColumnBatch(twoLinesResultSetFixture.numberOfColumns());
+
+    // Expected values
+    List<ImmutableList<String>> expectedRecords = twoLinesResultSetFixture.getExpectedRecords();
+
+    // Execute functionality
+    int actualBatchSize = resultSetIterator.nextBatch(batch);
+
+    // Check result
+    assertEquals(twoLinesResultSetFixture.numberOfRows(), actualBatchSize);
+    for (int row = 0; row < actualBatchSize; row++) {
+      assertEquals(expectedRecords.get(row), batch.getRow(row));
+    }
+    assertEquals(0, resultSetIterator.nextBatch(batch));
+    verify(resultSet, times(3)).next();
+  }
 }
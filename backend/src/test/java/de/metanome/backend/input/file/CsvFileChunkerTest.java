@@ -0,0 +1,124 @@
+/**
+ * Copyright 2015-2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input.file;
+
+import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link CsvFileChunker}
+ */
+public class CsvFileChunkerTest {
+
+  protected static final String FILE_DATA =
+    "skipped,\"line\n" +
+      "a,b,c\n" +
+      "\"multi\nline\",2,3\r\n" +
+      "\"\",\"esc\\\"aped\",x\"y\n" +
+      "\"two\r\n\r\nbreaks\",5,6\r" +
+      "7,8,\"9\"\"\"\n" +
+      "\"\"\"quoted\"\"\",10,11\n";
+
+  /**
+   * Test method for {@link CsvFileChunker#split(FileChannel)}
+   * <p/>
+   * The chunks should cover the file after the skipped lines and end at record boundaries only, so
+   * that tokenizing all chunks yields the rows of a sequential scan.
+   */
+  @Test
+  public void testSplit() throws IOException {
+    // Setup
+    File file = new FileFixture(FILE_DATA).getTestData("chunker.csv");
+    Charset charset = Charset.defaultCharset();
+    ConfigurationSettingFileInput setting = new ConfigurationSettingFileInput(file.getPath())
+      .setSkipLines(1);
+
+    // Expected values
+    List<List<String>> expectedRows = readRows(new CsvTokenizer(new FileReader(file),
+      setting.getSeparatorAsChar(), setting.getQuoteCharAsChar(), setting.getEscapeCharAsChar(),
+      setting.getSkipLines(), setting.isStrictQuotes(), setting.isIgnoreLeadingWhiteSpace()));
+
+    for (long chunkSize = 1; chunkSize <= FILE_DATA.length(); chunkSize++) {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        // Execute functionality
+        List<CsvFileChunk> chunks =
+          new CsvFileChunker(setting, charset, chunkSize).split(channel);
+
+        // Check result
+        assertEquals("skipped,\"line\n".length(), chunks.get(0).getStart());
+        assertEquals(file.length(), chunks.get(chunks.size() - 1).getEnd());
+        List<List<String>> actualRows = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+          if (i > 0) {
+            assertEquals(chunks.get(i - 1).getEnd(), chunks.get(i).getStart());
+          }
+          actualRows.addAll(readRows(chunks.get(i).openTokenizer(channel, charset, setting)));
+        }
+        assertEquals(expectedRows, actualRows);
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link CsvFileChunker#split(FileChannel)}
+   * <p/>
+   * Files in charsets whose characters span several bytes that may look like a separator cannot be
+   * split.
+   */
+  @Test
+  public void testSplitUnsplittableCharset() throws IOException {
+    // Setup
+    File file = new FileFixture(FILE_DATA).getTestData("chunker.csv");
+    ConfigurationSettingFileInput setting = new ConfigurationSettingFileInput(file.getPath());
+    CsvFileChunker chunker = new CsvFileChunker(setting, Charset.forName("UTF-16"), 1);
+
+    // Execute functionality
+    // Check result
+    assertFalse(chunker.isSplittable());
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      assertNull(chunker.split(channel));
+    }
+    assertTrue(new CsvFileChunker(setting, Charset.forName("UTF-8"), 1).isSplittable());
+  }
+
+  protected List<List<String>> readRows(CsvTokenizer tokenizer) throws IOException {
+    List<List<String>> rows = new ArrayList<>();
+    CsvRow row = new CsvRow();
+    while (tokenizer.readRow(row)) {
+      List<String> values = new ArrayList<>();
+      for (int i = 0; i < row.size(); i++) {
+        values.add(row.getString(i));
+      }
+      rows.add(values);
+    }
+    tokenizer.close();
+    return rows;
+  }
+}
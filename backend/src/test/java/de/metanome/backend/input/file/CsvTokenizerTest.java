@@ -0,0 +1,139 @@
+/**
+ * Copyright 2015-2016 by Metanome Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.metanome.backend.input.file;
+
+import au.com.bytecode.opencsv.CSVReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link CsvTokenizer}
+ */
+public class CsvTokenizerTest {
+
+  protected static final String[] FILES = {
+    "a,b,c\n1,2,3\n",
+    "a,b\r\n\r\n1,2\r3,4",
+    "\"a,b\",\"c\"\"d\",e\n\"\",,\"\"\"\"\n",
+    "x\"y\"z,ab\"c\"d\n  \"q\",  \"r\"s\n",
+    "a\\\"b,\"c\\\"d\",\"e\\\\f\",g\\h\\\n",
+    "\"multi\nline\",x\n\"two\r\nbreaks\n\",y\nz,\"open\n",
+    "\"a\"b\"c\",d\ne\"f,\"g\"\"\n",
+    "h1;h2\n'a;b';c\n",
+  };
+
+  /**
+   * Test method for {@link CsvTokenizer#readRow(CsvRow)}
+   * <p/>
+   * The tokenizer should produce exactly the rows of opencsv's CSVReader for all combinations of
+   * the file input settings.
+   */
+  @Test
+  public void testReadRowEquivalentToCsvReader() throws IOException {
+    char[][] characters = {{',', '"', '\\'}, {';', '\'', '\\'}, {',', '"', '\0'}};
+    for (String file : FILES) {
+      for (char[] chars : characters) {
+        for (int skipLines = 0; skipLines <= 1; skipLines++) {
+          for (int options = 0; options < 4; options++) {
+            // Setup
+            boolean strictQuotes = (options & 1) != 0;
+            boolean ignoreLeadingWhiteSpace = (options & 2) != 0;
+            CSVReader csvReader = new CSVReader(new StringReader(file), chars[0], chars[1],
+              chars[2], skipLines, strictQuotes, ignoreLeadingWhiteSpace);
+            CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(file), chars[0], chars[1],
+              chars[2], skipLines, strictQuotes, ignoreLeadingWhiteSpace);
+
+            // Expected values
+            List<List<String>> expectedRows = new ArrayList<>();
+            String[] expectedRow;
+            while ((expectedRow = csvReader.readNext()) != null) {
+              expectedRows.add(Arrays.asList(expectedRow));
+            }
+
+            // Execute functionality
+            List<List<String>> actualRows = new ArrayList<>();
+            CsvRow row = new CsvRow();
+            while (tokenizer.readRow(row)) {
+              List<String> actualRow = new ArrayList<>();
+              for (int i = 0; i < row.size(); i++) {
+                actualRow.add(row.getString(i));
+              }
+              actualRows.add(actualRow);
+            }
+
+            // Check result
+            assertEquals(file, expectedRows, actualRows);
+            assertFalse(tokenizer.readRow(row));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link CsvTokenizer#readRow(CsvRow)}
+   * <p/>
+   * The row and its cell views should be reused for every line.
+   */
+  @Test
+  public void testReadRowReusesCells() throws IOException {
+    // Setup
+    CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("abc,\"\"\ndef,x\n"), ',', '"',
+      '\\', 0, false, false);
+    CsvRow row = new CsvRow();
+
+    // Execute functionality
+    // Check result
+    assertTrue(tokenizer.readRow(row));
+    CharSequence firstCell = row.getCell(0);
+    assertEquals("abc", firstCell.toString());
+    assertTrue(row.contentEquals(1, ""));
+    assertFalse(row.contentEquals(1, null));
+
+    assertTrue(tokenizer.readRow(row));
+    assertSame(firstCell, row.getCell(0));
+    assertEquals(3, firstCell.length());
+    assertEquals('e', firstCell.charAt(1));
+    assertTrue(row.contentEquals(0, "def"));
+    assertEquals(1, row.length(1));
+
+    assertFalse(tokenizer.readRow(row));
+    assertEquals(0, row.size());
+  }
+
+  /**
+   * Test method for {@link CsvTokenizer#CsvTokenizer(java.io.Reader, char, char, char, int,
+   * boolean, boolean)}
+   * <p/>
+   * Equal separator and quote characters should be rejected like in opencsv.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testConstructorEqualCharacters() {
+    // Execute functionality
+    // Check result
+    new CsvTokenizer(new StringReader(""), ',', ',', '\\', 0, false, false);
+  }
+}
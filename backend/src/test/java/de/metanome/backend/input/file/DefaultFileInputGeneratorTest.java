@@ -15,6 +15,7 @@
  */
 package de.metanome.backend.input.file;
 
+import com.google.common.collect.ImmutableList;
 import de.metanome.algorithm_integration.AlgorithmConfigurationException;
 import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
 import de.metanome.algorithm_integration.input.InputGenerationException;
@@ -25,8 +26,12 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for {@link DefaultFileInputGenerator}
@@ -135,6 +140,158 @@ public class DefaultFileInputGeneratorTest {
     assertEquals(csvFileFixture.expectedSecondLine(), csv2.next());
   }
 
+  /**
+   * Test method for {@link DefaultFileInputGenerator#generateNewCopy()}
+   * <p/>
+   * Files larger than the chunk size should be tokenized in parallel chunks and return the rows in
+   * file order.
+   */
+  @Test
+  public void testGenerateNewCopyChunked() throws Exception {
+    // Setup
+    DefaultFileInputGenerator chunkedGenerator = createLargeFileGenerator();
+    chunkedGenerator.setNumberOfThreads(1);
+
+    // Expected values
+    List<List<String>> expectedRows = readRows(chunkedGenerator.generateNewCopy());
+
+    // Execute functionality
+    chunkedGenerator.setNumberOfThreads(3);
+    RelationalInput chunkedInput = chunkedGenerator.generateNewCopy();
+
+    // Check result
+    assertTrue(chunkedInput instanceof ChunkedFileIterator);
+    assertEquals(csvFileFixture.expectedHeader(), chunkedInput.columnNames());
+    assertEquals(expectedRows, readRows(chunkedInput));
+    assertEquals(500, expectedRows.size());
+  }
+
+  /**
+   * Test method for {@link DefaultFileInputGenerator#generateNewCopy()}
+   * <p/>
+   * The chunks parsed ahead should be bounded by the read ahead bytes and not by the number of
+   * threads, a budget smaller than a chunk should parse one chunk at a time.
+   */
+  @Test
+  public void testGenerateNewCopyBoundedReadAhead() throws Exception {
+    // Setup
+    DefaultFileInputGenerator chunkedGenerator = createLargeFileGenerator();
+    chunkedGenerator.setNumberOfThreads(1);
+    List<List<String>> expectedRows = readRows(chunkedGenerator.generateNewCopy());
+    chunkedGenerator.setNumberOfThreads(8);
+    chunkedGenerator.setReadAheadBytes(1);
+
+    // Execute functionality
+    ChunkedFileIterator chunkedInput = (ChunkedFileIterator) chunkedGenerator.generateNewCopy();
+
+    // Check result
+    List<List<String>> actualRows = new ArrayList<>();
+    while (chunkedInput.hasNext()) {
+      assertTrue(chunkedInput.parsedChunks.size() <= 1);
+      actualRows.add(chunkedInput.next());
+    }
+    assertEquals(expectedRows, actualRows);
+    assertEquals(0, chunkedInput.pendingBytes);
+    chunkedInput.close();
+  }
+
+  /**
+   * Test method for {@link DefaultFileInputGenerator#scanPartitions(PartitionConsumer)}
+   * <p/>
+   * All rows should be consumed exactly once in some partition.
+   */
+  @Test
+  public void testScanPartitions() throws Exception {
+    // Setup
+    DefaultFileInputGenerator chunkedGenerator = createLargeFileGenerator();
+    chunkedGenerator.setNumberOfThreads(1);
+    final List<List<String>> actualRows = Collections.synchronizedList(new ArrayList<List<String>>());
+    final List<Integer> partitions = Collections.synchronizedList(new ArrayList<Integer>());
+
+    // Expected values
+    List<List<String>> expectedRows = readRows(chunkedGenerator.generateNewCopy());
+
+    // Execute functionality
+    chunkedGenerator.setNumberOfThreads(3);
+    chunkedGenerator.scanPartitions(new PartitionConsumer() {
+      @Override
+      public void consume(int partition, RelationalInput input) throws InputIterationException {
+        partitions.add(partition);
+        assertEquals(csvFileFixture.expectedHeader(), input.columnNames());
+        actualRows.addAll(readRows(input));
+      }
+    });
+
+    // Check result
+    assertTrue(partitions.size() > 1);
+    assertEquals(expectedRows.size(), actualRows.size());
+    assertTrue(actualRows.containsAll(expectedRows));
+  }
+
+  /**
+   * Test method for {@link DefaultFileInputGenerator#generateNewCopy(int[])} and {@link
+   * DefaultFileInputGenerator#scanPartitions(int[], PartitionConsumer)}
+   * <p/>
+   * Sequential, chunked and partitioned copies should only contain the projected columns.
+   */
+  @Test
+  public void testGenerateNewCopyProjected() throws Exception {
+    // Setup
+    DefaultFileInputGenerator chunkedGenerator = createLargeFileGenerator();
+    final int[] projectedColumns = {2, 0};
+
+    // Expected values
+    chunkedGenerator.setNumberOfThreads(1);
+    List<List<String>> expectedRows = new ArrayList<>();
+    for (List<String> row : readRows(chunkedGenerator.generateNewCopy())) {
+      expectedRows.add(ImmutableList.of(row.get(2), row.get(0)));
+    }
+    final List<String> expectedColumnNames = ImmutableList.of("three", "one");
+
+    // Execute functionality
+    RelationalInput sequentialInput = chunkedGenerator.generateNewCopy(projectedColumns);
+    chunkedGenerator.setNumberOfThreads(3);
+    RelationalInput chunkedInput = chunkedGenerator.generateNewCopy(projectedColumns);
+    final List<List<String>> partitionedRows =
+      Collections.synchronizedList(new ArrayList<List<String>>());
+    chunkedGenerator.scanPartitions(projectedColumns, new PartitionConsumer() {
+      @Override
+      public void consume(int partition, RelationalInput input) throws InputIterationException {
+        assertEquals(expectedColumnNames, input.columnNames());
+        partitionedRows.addAll(readRows(input));
+      }
+    });
+
+    // Check result
+    assertEquals(expectedColumnNames, sequentialInput.columnNames());
+    assertEquals(expectedRows, readRows(sequentialInput));
+    assertEquals(2, chunkedInput.numberOfColumns());
+    assertEquals(expectedRows, readRows(chunkedInput));
+    assertEquals(expectedRows.size(), partitionedRows.size());
+    assertTrue(partitionedRows.containsAll(expectedRows));
+  }
+
+  protected DefaultFileInputGenerator createLargeFileGenerator() throws Exception {
+    StringBuilder fileData = new StringBuilder("one,two,three\n");
+    for (int i = 0; i < 500; i++) {
+      fileData.append(i).append(",\"multi\nline ").append(i).append("\",\"\"\"").append(i)
+        .append("\"\"\"\n");
+    }
+    File file = new FileFixture(fileData.toString()).getTestData("large.csv");
+    DefaultFileInputGenerator largeFileGenerator =
+      new DefaultFileInputGenerator(new ConfigurationSettingFileInput(file.getPath()));
+    largeFileGenerator.setChunkSize(100);
+    return largeFileGenerator;
+  }
+
+  protected List<List<String>> readRows(RelationalInput input) throws InputIterationException {
+    List<List<String>> rows = new ArrayList<>();
+    while (input.hasNext()) {
+      rows.add(input.next());
+    }
+    return rows;
+  }
+
   /**
    * Test method for {@link DefaultFileInputGenerator#getInputFile()}
    */
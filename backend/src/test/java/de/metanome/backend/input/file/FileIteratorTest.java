@@ -15,7 +15,9 @@
  */
 package de.metanome.backend.input.file;
 
+import com.google.common.collect.ImmutableList;
 import de.metanome.algorithm_integration.configuration.ConfigurationSettingFileInput;
+import de.metanome.algorithm_integration.input.ColumnBatch;
 import de.metanome.algorithm_integration.input.InputGenerationException;
 import de.metanome.algorithm_integration.input.InputIterationException;
 import org.junit.After;
@@ -24,6 +26,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Arrays;
 
 import static org.junit.Assert.*;
 
@@ -322,4 +325,104 @@ public class FileIteratorTest {
     // Cleanup
     fileIterator.close();
   }
+
+  /**
+   * Test method for {@link FileIterator#FileIterator(String, CsvTokenizer,
+   * ConfigurationSettingFileInput, int[])}
+   * <p/>
+   * A projected file iterator should only return the projected columns in the given order, but
+   * still detect differing lines by the number of all columns.
+   */
+  @Test
+  public void testProjection() throws InputIterationException {
+    // Setup
+    ConfigurationSettingFileInput setting = new ConfigurationSettingFileInput("some file")
+      .setHeader(false)
+      .setSkipDifferingLines(true);
+    String fileData = "a,b,c\nd,,f\ng,h\ni,j,k\n";
+
+    // Execute functionality
+    FileIterator projectedIterator = new FileIterator("some relation",
+      new CsvTokenizer(new StringReader(fileData), setting), setting, new int[]{2, 1});
+
+    // Check result
+    assertEquals(2, projectedIterator.numberOfColumns());
+    assertEquals(ImmutableList.of("column3", "column2"), projectedIterator.columnNames());
+    assertEquals(Arrays.asList("c", "b"), projectedIterator.next());
+    assertEquals(Arrays.asList("f", null), projectedIterator.next());
+    assertEquals(Arrays.asList("k", "j"), projectedIterator.next());
+    assertFalse(projectedIterator.hasNext());
+    assertEquals(1, projectedIterator.getNumberOfSkippedDifferingLines());
+  }
+
+  /**
+   * Test method for {@link FileIterator#FileIterator(String, CsvTokenizer,
+   * ConfigurationSettingFileInput, int[])}
+   * <p/>
+   * Projecting onto a column the file does not have should fail.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testProjectionInvalidColumn() throws InputIterationException {
+    // Setup
+    ConfigurationSettingFileInput setting = new ConfigurationSettingFileInput("some file");
+
+    // Execute functionality
+    // Check result
+    new FileIterator("some relation", new CsvTokenizer(new StringReader("a,b\n1,2\n"), setting),
+      setting, new int[]{2});
+  }
+
+  /**
+   * Test method for {@link FileIterator#nextBatch(ColumnBatch)}
+   * <p/>
+   * Batches should contain the same rows as {@link FileIterator#next()} and skip differing lines.
+   * Both calls can be mixed.
+   */
+  @Test
+  public void testNextBatch() throws InputIterationException {
+    // Setup
+    ConfigurationSettingFileInput setting = new ConfigurationSettingFileInput("some file")
+      .setSkipDifferingLines(true);
+    String fileData = "x,y\na,b\nc\nd,\ne,f\ng,h\n";
+    FileIterator batchIterator = new FileIterator("some relation", new StringReader(fileData),
+      setting);
+    ColumnBatch batch = new ColumnBatch(2, 2);
+
+    // Execute functionality
+    // Check result
+    assertEquals(2, batchIterator.nextBatch(batch));
+    assertEquals(Arrays.asList("a", "b"), batch.getRow(0));
+    assertEquals(Arrays.asList("d", null), batch.getRow(1));
+    assertEquals(Arrays.asList("e", "f"), batchIterator.next());
+    assertEquals(1, batchIterator.nextBatch(batch));
+    assertEquals(Arrays.asList("g", "h"), batch.getRow(0));
+    assertEquals(0, batchIterator.nextBatch(batch));
+    assertEquals(1, batchIterator.getNumberOfSkippedDifferingLines());
+  }
+
+  /**
+   * Test method for {@link FileIterator#nextBatch(ColumnBatch)}
+   * <p/>
+   * A differing line should end the batch and fail when it is read.
+   */
+  @Test
+  public void testNextBatchFailsOnDifferingLine() throws InputIterationException {
+    // Setup
+    ConfigurationSettingFileInput setting = new ConfigurationSettingFileInput("some file");
+    String fileData = "x,y\na,b\nc\nd,e\n";
+    FileIterator batchIterator = new FileIterator("some relation", new StringReader(fileData),
+      setting);
+    ColumnBatch batch = new ColumnBatch(2);
+
+    // Execute functionality
+    // Check result
+    assertEquals(1, batchIterator.nextBatch(batch));
+    assertEquals(Arrays.asList("a", "b"), batch.getRow(0));
+    try {
+      batchIterator.nextBatch(batch);
+      fail("The differing line should not be read.");
+    } catch (InputIterationException e) {
+      // The differing line was detected.
+    }
+  }
 }
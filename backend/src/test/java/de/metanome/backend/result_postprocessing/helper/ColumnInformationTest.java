@@ -185,6 +185,29 @@ public class ColumnInformationTest {
     assertEquals(expectedBitSet, columnInformation.getBitSet());
   }
 
+  @Test
+  public void testCreationOfDataDependentStatisticsWithInputColumnIndex()
+    throws InputIterationException, InputGenerationException {
+    // Set up
+    FileFixtureDifferentColumnTypes fileFixture = new FileFixtureDifferentColumnTypes();
+    FileIterator fileIterator = fileFixture.getTestData();
+
+    // Execute Functionality
+    // The statistics of table column 7 are read from column 1 of the input
+    ColumnInformation columnInformation = new ColumnInformation(this.columnName,
+      7,
+      new BitSet(),
+      fileIterator,
+      1,
+      true);
+
+    // Check
+    assertEquals(7, columnInformation.getColumnIndex());
+    assertEquals(ColumnInformation.ColumnType.INTEGER_COLUMN, columnInformation.getColumnType());
+    assertEquals(3, columnInformation.getDistinctValuesCount());
+    assertEquals(11, columnInformation.getRowCount());
+  }
+
   @Test
   public void testCreationOfDataDependentStatisticsForDateColumn()
     throws InputIterationException, InputGenerationException {